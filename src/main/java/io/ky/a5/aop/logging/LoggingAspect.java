@@ -1,23 +1,40 @@
 package io.ky.a5.aop.logging;
 
+import io.ky.a5.config.ApplicationProperties;
+
 import io.github.jhipster.config.JHipsterConstants;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
 import org.aspectj.lang.annotation.AfterThrowing;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.core.env.Environment;
 
-import java.util.Arrays;
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Aspect for logging execution of service and repository Spring components.
  *
- * By default, it only runs with the "dev" profile.
+ * By default, it only runs with the "dev" profile, or when "application.tracing.enabled" is set.
+ * <p>
+ * The calls are logged by the logger of the class of the method, when it is at the DEBUG level, for a share of the
+ * calls given by "application.tracing.sample-rate" or by the "application.tracing.sampling" of its package. The
+ * arguments and results are formatted by a {@link TraceFormatter}, which never initializes the lazy Hibernate
+ * proxies and collections. The number of calls and their time, in nanoseconds, are counted for each method in the
+ * "tracing.[class].[method].calls" and "tracing.[class].[method].time" metrics, whether the calls are logged or not.
  */
 @Aspect
 public class LoggingAspect {
@@ -26,8 +43,21 @@ public class LoggingAspect {
 
     private final Environment env;
 
-    public LoggingAspect(Environment env) {
+    private final ApplicationProperties.Tracing properties;
+
+    private final ObjectProvider<MetricRegistry> metricRegistry;
+
+    private final TraceFormatter formatter;
+
+    private final ConcurrentMap<Method, MethodTrace> traces = new ConcurrentHashMap<>();
+
+    public LoggingAspect(Environment env, ApplicationProperties applicationProperties,
+            ObjectProvider<MetricRegistry> metricRegistry) {
         this.env = env;
+        this.properties = applicationProperties.getTracing();
+        // The registry is looked up at the first call, as the aspect is created before most of the beans
+        this.metricRegistry = metricRegistry;
+        this.formatter = new TraceFormatter(properties.getMaxArgumentLength(), properties.getMaxElements());
     }
 
     /**
@@ -69,7 +99,7 @@ public class LoggingAspect {
     }
 
     /**
-     * Advice that logs when a method is entered and exited.
+     * Advice that logs when a method is entered and exited, and counts its calls.
      *
      * @param joinPoint join point for advice
      * @return result
@@ -77,22 +107,103 @@ public class LoggingAspect {
      */
     @Around("applicationPackagePointcut() && springBeanPointcut()")
     public Object logAround(ProceedingJoinPoint joinPoint) throws Throwable {
-        if (log.isDebugEnabled()) {
-            log.debug("Enter: {}.{}() with argument[s] = {}", joinPoint.getSignature().getDeclaringTypeName(),
-                joinPoint.getSignature().getName(), Arrays.toString(joinPoint.getArgs()));
+        MethodTrace trace = trace(joinPoint.getSignature());
+        boolean logged = trace.log.isDebugEnabled() && trace.sample();
+        if (logged) {
+            trace.log.debug("Enter: {}.{}() with argument[s] = {}", trace.typeName, trace.methodName,
+                formatter.formatArguments(joinPoint.getArgs()));
         }
+        long start = System.nanoTime();
         try {
             Object result = joinPoint.proceed();
-            if (log.isDebugEnabled()) {
-                log.debug("Exit: {}.{}() with result = {}", joinPoint.getSignature().getDeclaringTypeName(),
-                    joinPoint.getSignature().getName(), result);
+            long time = System.nanoTime() - start;
+            if (logged) {
+                trace.log.debug("Exit: {}.{}() in {} ms with result = {}", trace.typeName, trace.methodName,
+                    TimeUnit.NANOSECONDS.toMillis(time), formatter.format(result));
             }
             return result;
         } catch (IllegalArgumentException e) {
-            log.error("Illegal argument: {} in {}.{}()", Arrays.toString(joinPoint.getArgs()),
-                joinPoint.getSignature().getDeclaringTypeName(), joinPoint.getSignature().getName());
+            log.error("Illegal argument: {} in {}.{}()", formatter.formatArguments(joinPoint.getArgs()),
+                trace.typeName, trace.methodName);
 
             throw e;
+        } finally {
+            trace.count(System.nanoTime() - start);
+        }
+    }
+
+    private MethodTrace trace(Signature signature) {
+        Method method = ((MethodSignature) signature).getMethod();
+        MethodTrace trace = traces.get(method);
+        if (trace == null) {
+            // Not built in computeIfAbsent(), as looking up the registry may create beans whose methods are traced
+            MethodTrace created = new MethodTrace(signature.getDeclaringTypeName(), signature.getName(),
+                sampleRate(signature.getDeclaringTypeName()), metricRegistry.getIfAvailable());
+            trace = traces.putIfAbsent(method, created);
+            if (trace == null) {
+                trace = created;
+            }
+        }
+        return trace;
+    }
+
+    /**
+     * The sample rate of the methods of a class: that of the longest prefix of its name in
+     * "application.tracing.sampling", or "application.tracing.sample-rate".
+     */
+    double sampleRate(String typeName) {
+        double rate = properties.getSampleRate();
+        int matchedLength = -1;
+        for (ApplicationProperties.Tracing.Sampling sampling : properties.getSampling()) {
+            String prefix = sampling.getPrefix();
+            if (typeName.startsWith(prefix) && prefix.length() > matchedLength
+                && (typeName.length() == prefix.length() || typeName.charAt(prefix.length()) == '.')) {
+                rate = sampling.getRate();
+                matchedLength = prefix.length();
+            }
+        }
+        return rate;
+    }
+
+    /**
+     * What is known of a traced method, computed at its first call.
+     */
+    private static class MethodTrace {
+
+        private final String typeName;
+
+        private final String methodName;
+
+        private final Logger log;
+
+        private final double sampleRate;
+
+        private final Counter calls;
+
+        private final Counter time;
+
+        MethodTrace(String typeName, String methodName, double sampleRate, MetricRegistry metricRegistry) {
+            this.typeName = typeName;
+            this.methodName = methodName;
+            this.log = LoggerFactory.getLogger(typeName);
+            this.sampleRate = sampleRate;
+            if (metricRegistry != null) {
+                String name = MetricRegistry.name("tracing", typeName, methodName);
+                this.calls = metricRegistry.counter(name + ".calls");
+                this.time = metricRegistry.counter(name + ".time");
+            } else {
+                this.calls = new Counter();
+                this.time = new Counter();
+            }
+        }
+
+        boolean sample() {
+            return sampleRate >= 1 || (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
+        }
+
+        void count(long nanos) {
+            calls.inc();
+            time.inc(nanos);
         }
     }
 }
@@ -0,0 +1,126 @@
+package io.ky.a5.aop.logging;
+
+import org.hibernate.collection.spi.PersistentCollection;
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.proxy.LazyInitializer;
+import org.springframework.http.ResponseEntity;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Formats the arguments and results of the traced methods, within a size limit.
+ * <p>
+ * Uninitialized Hibernate proxies and collections are never initialized: they are written as their class and id,
+ * or as "uninitialized". Collections, maps and arrays are cut after a number of elements, and every other value
+ * after a number of characters, so that the content of the entries is not logged as a whole.
+ */
+public class TraceFormatter {
+
+    private static final String ELLIPSIS = "...";
+
+    private final int maxLength;
+
+    private final int maxElements;
+
+    public TraceFormatter(int maxLength, int maxElements) {
+        this.maxLength = maxLength;
+        this.maxElements = maxElements;
+    }
+
+    /**
+     * Formats the arguments of a method, as Arrays.toString() would.
+     */
+    public String formatArguments(Object[] arguments) {
+        StringBuilder out = new StringBuilder("[");
+        for (int i = 0; i < arguments.length; i++) {
+            if (i > 0) {
+                out.append(", ");
+            }
+            append(out, arguments[i]);
+        }
+        return out.append(']').toString();
+    }
+
+    public String format(Object value) {
+        StringBuilder out = new StringBuilder();
+        append(out, value);
+        return out.toString();
+    }
+
+    private void append(StringBuilder out, Object value) {
+        if (value == null) {
+            out.append("null");
+        } else if (value instanceof HibernateProxy) {
+            appendProxy(out, (HibernateProxy) value);
+        } else if (value instanceof PersistentCollection && !((PersistentCollection) value).wasInitialized()) {
+            out.append("<uninitialized collection>");
+        } else if (value instanceof Collection) {
+            Collection<?> collection = (Collection<?>) value;
+            appendElements(out, collection.iterator(), collection.size(), '[', ']');
+        } else if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            appendElements(out, map.entrySet().iterator(), map.size(), '{', '}');
+        } else if (value instanceof Map.Entry) {
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) value;
+            append(out, entry.getKey());
+            out.append('=');
+            append(out, entry.getValue());
+        } else if (value instanceof Object[]) {
+            Object[] array = (Object[]) value;
+            appendElements(out, Arrays.asList(array).iterator(), array.length, '[', ']');
+        } else if (value.getClass().isArray()) {
+            out.append(value.getClass().getComponentType().getName()).append('[').append(Array.getLength(value))
+                .append(']');
+        } else if (value instanceof Optional) {
+            Optional<?> optional = (Optional<?>) value;
+            out.append("Optional[");
+            append(out, optional.orElse(null));
+            out.append(']');
+        } else if (value instanceof ResponseEntity) {
+            ResponseEntity<?> response = (ResponseEntity<?>) value;
+            out.append('<').append(response.getStatusCodeValue()).append(',');
+            append(out, response.getBody());
+            out.append('>');
+        } else {
+            appendTruncated(out, String.valueOf(value));
+        }
+    }
+
+    private void appendProxy(StringBuilder out, HibernateProxy proxy) {
+        LazyInitializer initializer = proxy.getHibernateLazyInitializer();
+        if (initializer.isUninitialized()) {
+            out.append('<').append(initializer.getEntityName()).append('#').append(initializer.getIdentifier())
+                .append(" uninitialized>");
+        } else {
+            append(out, initializer.getImplementation());
+        }
+    }
+
+    private void appendElements(StringBuilder out, Iterator<?> elements, int size, char open, char close) {
+        out.append(open);
+        for (int i = 0; elements.hasNext(); i++) {
+            if (i == maxElements) {
+                out.append(", ").append(ELLIPSIS).append(" (").append(size).append(" elements)");
+                break;
+            }
+            if (i > 0) {
+                out.append(", ");
+            }
+            append(out, elements.next());
+        }
+        out.append(close);
+    }
+
+    private void appendTruncated(StringBuilder out, String value) {
+        if (value.length() > maxLength) {
+            out.append(value, 0, maxLength).append(ELLIPSIS);
+        } else {
+            out.append(value);
+        }
+    }
+}
@@ -2,6 +2,9 @@ package io.ky.a5.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Properties specific to Blog.
  * <p>
@@ -11,4 +14,890 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
 public class ApplicationProperties {
 
+    private final SearchIndexing searchIndexing = new SearchIndexing();
+
+    private final SearchReindex searchReindex = new SearchReindex();
+
+    private final JwtCache jwtCache = new JwtCache();
+
+    private final AuditEvents auditEvents = new AuditEvents();
+
+    private final Cache cache = new Cache();
+
+    private final CacheWarmup cacheWarmup = new CacheWarmup();
+
+    private final CacheInvalidation cacheInvalidation = new CacheInvalidation();
+
+    private final EntryImport entryImport = new EntryImport();
+
+    private final SqlStatistics sqlStatistics = new SqlStatistics();
+
+    private final Tracing tracing = new Tracing();
+
+    private final RateLimiting rateLimiting = new RateLimiting();
+
+    private final PasswordHashing passwordHashing = new PasswordHashing();
+
+    public SearchIndexing getSearchIndexing() {
+        return searchIndexing;
+    }
+
+    public SearchReindex getSearchReindex() {
+        return searchReindex;
+    }
+
+    public JwtCache getJwtCache() {
+        return jwtCache;
+    }
+
+    public AuditEvents getAuditEvents() {
+        return auditEvents;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public CacheWarmup getCacheWarmup() {
+        return cacheWarmup;
+    }
+
+    public CacheInvalidation getCacheInvalidation() {
+        return cacheInvalidation;
+    }
+
+    public EntryImport getEntryImport() {
+        return entryImport;
+    }
+
+    public SqlStatistics getSqlStatistics() {
+        return sqlStatistics;
+    }
+
+    public Tracing getTracing() {
+        return tracing;
+    }
+
+    public RateLimiting getRateLimiting() {
+        return rateLimiting;
+    }
+
+    public PasswordHashing getPasswordHashing() {
+        return passwordHashing;
+    }
+
+    public static class SearchIndexing {
+
+        /**
+         * When false, entities are indexed in Elasticsearch directly during the request, as they were before the
+         * outbox was introduced.
+         */
+        private boolean async = true;
+
+        private int batchSize = 500;
+
+        private long flushInterval = 1000;
+
+        public boolean isAsync() {
+            return async;
+        }
+
+        public void setAsync(boolean async) {
+            this.async = async;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public long getFlushInterval() {
+            return flushInterval;
+        }
+
+        public void setFlushInterval(long flushInterval) {
+            this.flushInterval = flushInterval;
+        }
+    }
+
+    public static class SearchReindex {
+
+        /**
+         * Number of ids read from the database, and written to Elasticsearch, by each task of the job.
+         */
+        private int chunkSize = 1000;
+
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+
+        /**
+         * Time after which the search outbox is drained again, in milliseconds, when the reindex job which paused it
+         * has not completed, such as when its node was stopped.
+         */
+        private long pauseTimeout = 3600000;
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+
+        public long getPauseTimeout() {
+            return pauseTimeout;
+        }
+
+        public void setPauseTimeout(long pauseTimeout) {
+            this.pauseTimeout = pauseTimeout;
+        }
+    }
+
+    public static class JwtCache {
+
+        private boolean enabled = true;
+
+        /**
+         * Maximum number of verified tokens kept by each node.
+         */
+        private int maxEntries = 10000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+    }
+
+    public static class AuditEvents {
+
+        /**
+         * What to do with an audit event when the queue of events waiting to be written is full.
+         */
+        public enum Backpressure {
+            /**
+             * Wait up to "max-block-time" for room in the queue, then drop the event.
+             */
+            BLOCK,
+            /**
+             * Drop the event.
+             */
+            DROP,
+            /**
+             * Once the queue is half full, only keep a "sample-rate" share of the events, and drop them when it is
+             * full.
+             */
+            SAMPLE
+        }
+
+        /**
+         * When false, audit events are written during the request, in their own transaction.
+         */
+        private boolean async = true;
+
+        private int queueCapacity = 10000;
+
+        private int flushSize = 100;
+
+        /**
+         * Maximum time, in milliseconds, an audit event waits in the queue for a batch to fill.
+         */
+        private long flushInterval = 1000;
+
+        private Backpressure backpressure = Backpressure.BLOCK;
+
+        /**
+         * In milliseconds.
+         */
+        private long maxBlockTime = 500;
+
+        private double sampleRate = 0.1;
+
+        /**
+         * Number of days audit events are kept, 0 to keep them forever.
+         */
+        private int retentionDays = 90;
+
+        private int purgeBatchSize = 1000;
+
+        private String purgeCron = "0 30 1 * * ?";
+
+        public boolean isAsync() {
+            return async;
+        }
+
+        public void setAsync(boolean async) {
+            this.async = async;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getFlushSize() {
+            return flushSize;
+        }
+
+        public void setFlushSize(int flushSize) {
+            this.flushSize = flushSize;
+        }
+
+        public long getFlushInterval() {
+            return flushInterval;
+        }
+
+        public void setFlushInterval(long flushInterval) {
+            this.flushInterval = flushInterval;
+        }
+
+        public Backpressure getBackpressure() {
+            return backpressure;
+        }
+
+        public void setBackpressure(Backpressure backpressure) {
+            this.backpressure = backpressure;
+        }
+
+        public long getMaxBlockTime() {
+            return maxBlockTime;
+        }
+
+        public void setMaxBlockTime(long maxBlockTime) {
+            this.maxBlockTime = maxBlockTime;
+        }
+
+        public double getSampleRate() {
+            return sampleRate;
+        }
+
+        public void setSampleRate(double sampleRate) {
+            this.sampleRate = sampleRate;
+        }
+
+        public int getRetentionDays() {
+            return retentionDays;
+        }
+
+        public void setRetentionDays(int retentionDays) {
+            this.retentionDays = retentionDays;
+        }
+
+        public int getPurgeBatchSize() {
+            return purgeBatchSize;
+        }
+
+        public void setPurgeBatchSize(int purgeBatchSize) {
+            this.purgeBatchSize = purgeBatchSize;
+        }
+
+        public String getPurgeCron() {
+            return purgeCron;
+        }
+
+        public void setPurgeCron(String purgeCron) {
+            this.purgeCron = purgeCron;
+        }
+    }
+
+    public static class Cache {
+
+        /**
+         * Directory of the disk tiers, required as soon as a region has one.
+         */
+        private String diskPath;
+
+        /**
+         * Regions sized differently from the "jhipster.cache.ehcache" defaults.
+         */
+        private final List<Region> regions = new ArrayList<>();
+
+        public String getDiskPath() {
+            return diskPath;
+        }
+
+        public void setDiskPath(String diskPath) {
+            this.diskPath = diskPath;
+        }
+
+        public List<Region> getRegions() {
+            return regions;
+        }
+
+        public static class Region {
+
+            /**
+             * Name of the cache, e.g. "io.ky.a5.domain.Entry" or "io.ky.a5.domain.Entry.tags".
+             */
+            private String name;
+
+            /**
+             * Either a number of entries, e.g. "1000", or a size, e.g. "64MB". Defaults to
+             * "jhipster.cache.ehcache.max-entries" entries.
+             */
+            private String heap;
+
+            /**
+             * Size of the off-heap tier, e.g. "1GB", none by default.
+             */
+            private String offheap;
+
+            /**
+             * Size of the disk tier, e.g. "10GB", none by default.
+             */
+            private String disk;
+
+            /**
+             * When true, the disk tier survives restarts.
+             */
+            private boolean diskPersistent;
+
+            /**
+             * Defaults to "jhipster.cache.ehcache.time-to-live-seconds".
+             */
+            private Integer timeToLiveSeconds;
+
+            public String getName() {
+                return name;
+            }
+
+            public void setName(String name) {
+                this.name = name;
+            }
+
+            public String getHeap() {
+                return heap;
+            }
+
+            public void setHeap(String heap) {
+                this.heap = heap;
+            }
+
+            public String getOffheap() {
+                return offheap;
+            }
+
+            public void setOffheap(String offheap) {
+                this.offheap = offheap;
+            }
+
+            public String getDisk() {
+                return disk;
+            }
+
+            public void setDisk(String disk) {
+                this.disk = disk;
+            }
+
+            public boolean isDiskPersistent() {
+                return diskPersistent;
+            }
+
+            public void setDiskPersistent(boolean diskPersistent) {
+                this.diskPersistent = diskPersistent;
+            }
+
+            public Integer getTimeToLiveSeconds() {
+                return timeToLiveSeconds;
+            }
+
+            public void setTimeToLiveSeconds(Integer timeToLiveSeconds) {
+                this.timeToLiveSeconds = timeToLiveSeconds;
+            }
+        }
+    }
+
+    public static class CacheWarmup {
+
+        /**
+         * When true, the caches are loaded once the application has started, and the "cacheWarmup" health
+         * indicator is OUT_OF_SERVICE until they are.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Number of the most recent entries of each blog which are loaded.
+         */
+        private int entriesPerBlog = 20;
+
+        /**
+         * Number of blogs, tags or users loaded by each task.
+         */
+        private int batchSize = 100;
+
+        private int parallelism = 4;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getEntriesPerBlog() {
+            return entriesPerBlog;
+        }
+
+        public void setEntriesPerBlog(int entriesPerBlog) {
+            this.entriesPerBlog = entriesPerBlog;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getParallelism() {
+            return parallelism;
+        }
+
+        public void setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+        }
+    }
+
+    public static class CacheInvalidation {
+
+        /**
+         * When false, cache evictions stay local to each node: only disable it when running a single node.
+         */
+        private boolean enabled = true;
+
+        /**
+         * In milliseconds, how often each node sends its evictions and applies those of the other nodes.
+         */
+        private long pollInterval = 1000;
+
+        /**
+         * In milliseconds, how far back each poll reads, to catch invalidations committed late.
+         */
+        private long lookback = 10000;
+
+        /**
+         * In milliseconds, how long invalidations are kept in the shared table.
+         */
+        private long retention = 600000;
+
+        private int batchSize = 500;
+
+        /**
+         * Number of invalidations a node queues while the bus is down, past which they are replaced by the
+         * invalidation of their whole regions.
+         */
+        private int maxPending = 10000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getPollInterval() {
+            return pollInterval;
+        }
+
+        public void setPollInterval(long pollInterval) {
+            this.pollInterval = pollInterval;
+        }
+
+        public long getLookback() {
+            return lookback;
+        }
+
+        public void setLookback(long lookback) {
+            this.lookback = lookback;
+        }
+
+        public long getRetention() {
+            return retention;
+        }
+
+        public void setRetention(long retention) {
+            this.retention = retention;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public int getMaxPending() {
+            return maxPending;
+        }
+
+        public void setMaxPending(int maxPending) {
+            this.maxPending = maxPending;
+        }
+    }
+
+    public static class EntryImport {
+
+        /**
+         * Number of entries saved by each transaction of a bulk import.
+         */
+        private int chunkSize = 500;
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+    }
+
+    public static class SqlStatistics {
+
+        private boolean enabled = true;
+
+        /**
+         * When true, the number of statements and their execution time are sent in the X-SQL-Count and
+         * X-SQL-Time response headers.
+         */
+        private boolean header = false;
+
+        /**
+         * Number of times a request may run the same query before it is reported as an N+1 load.
+         */
+        private int repeatedQueryThreshold = 10;
+
+        /**
+         * When true, a request reported as an N+1 load fails instead of being logged.
+         */
+        private boolean failOnRepeatedQueries = false;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public boolean isHeader() {
+            return header;
+        }
+
+        public void setHeader(boolean header) {
+            this.header = header;
+        }
+
+        public int getRepeatedQueryThreshold() {
+            return repeatedQueryThreshold;
+        }
+
+        public void setRepeatedQueryThreshold(int repeatedQueryThreshold) {
+            this.repeatedQueryThreshold = repeatedQueryThreshold;
+        }
+
+        public boolean isFailOnRepeatedQueries() {
+            return failOnRepeatedQueries;
+        }
+
+        public void setFailOnRepeatedQueries(boolean failOnRepeatedQueries) {
+            this.failOnRepeatedQueries = failOnRepeatedQueries;
+        }
+    }
+
+    public static class Tracing {
+
+        /**
+         * When true, the methods are traced by the LoggingAspect whatever the profile; it always runs with the
+         * "dev" profile.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Share of the calls logged, when DEBUG is enabled for the class of the method.
+         */
+        private double sampleRate = 1.0;
+
+        /**
+         * Sample rates of some packages or classes, instead of "sample-rate".
+         */
+        private final List<Sampling> sampling = new ArrayList<>();
+
+        /**
+         * Number of characters logged for each argument or result.
+         */
+        private int maxArgumentLength = 200;
+
+        /**
+         * Number of elements logged for each collection, map or array.
+         */
+        private int maxElements = 10;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getSampleRate() {
+            return sampleRate;
+        }
+
+        public void setSampleRate(double sampleRate) {
+            this.sampleRate = sampleRate;
+        }
+
+        public List<Sampling> getSampling() {
+            return sampling;
+        }
+
+        public int getMaxArgumentLength() {
+            return maxArgumentLength;
+        }
+
+        public void setMaxArgumentLength(int maxArgumentLength) {
+            this.maxArgumentLength = maxArgumentLength;
+        }
+
+        public int getMaxElements() {
+            return maxElements;
+        }
+
+        public void setMaxElements(int maxElements) {
+            this.maxElements = maxElements;
+        }
+
+        public static class Sampling {
+
+            /**
+             * Package or class name, e.g. "io.ky.a5.repository"; the longest matching prefix applies.
+             */
+            private String prefix;
+
+            private double rate;
+
+            public String getPrefix() {
+                return prefix;
+            }
+
+            public void setPrefix(String prefix) {
+                this.prefix = prefix;
+            }
+
+            public double getRate() {
+                return rate;
+            }
+
+            public void setRate(double rate) {
+                this.rate = rate;
+            }
+        }
+    }
+
+    public static class RateLimiting {
+
+        private boolean enabled = true;
+
+        /**
+         * Number of IP addresses and logins tracked: when it is reached, idle ones are forgotten first, then
+         * arbitrary ones.
+         */
+        private int maxKeys = 100000;
+
+        private final Endpoint authenticate = new Endpoint(60, 30, 10);
+
+        private final Endpoint register = new Endpoint(3600, 10, 3);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxKeys() {
+            return maxKeys;
+        }
+
+        public void setMaxKeys(int maxKeys) {
+            this.maxKeys = maxKeys;
+        }
+
+        public Endpoint getAuthenticate() {
+            return authenticate;
+        }
+
+        public Endpoint getRegister() {
+            return register;
+        }
+
+        public static class Endpoint {
+
+            /**
+             * In seconds, the period over which the capacities apply.
+             */
+            private long period;
+
+            /**
+             * Number of requests allowed per period from each IP address, 0 for no limit.
+             */
+            private int ipCapacity;
+
+            /**
+             * Number of requests allowed per period for each login, 0 for no limit.
+             */
+            private int loginCapacity;
+
+            public Endpoint() {
+            }
+
+            Endpoint(long period, int ipCapacity, int loginCapacity) {
+                this.period = period;
+                this.ipCapacity = ipCapacity;
+                this.loginCapacity = loginCapacity;
+            }
+
+            public long getPeriod() {
+                return period;
+            }
+
+            public void setPeriod(long period) {
+                this.period = period;
+            }
+
+            public int getIpCapacity() {
+                return ipCapacity;
+            }
+
+            public void setIpCapacity(int ipCapacity) {
+                this.ipCapacity = ipCapacity;
+            }
+
+            public int getLoginCapacity() {
+                return loginCapacity;
+            }
+
+            public void setLoginCapacity(int loginCapacity) {
+                this.loginCapacity = loginCapacity;
+            }
+        }
+    }
+
+    public static class PasswordHashing {
+
+        /**
+         * Number of threads hashing passwords, 0 for half the processors, so that the other half stays available
+         * to the other requests.
+         */
+        private int threads = 0;
+
+        /**
+         * Number of hashes waiting for a thread: when it is reached, the requests needing a hash get a 503.
+         */
+        private int queueCapacity = 50;
+
+        /**
+         * In milliseconds, the time a request waits for its hash before it gets a 503.
+         */
+        private long maxWait = 5000;
+
+        /**
+         * BCrypt cost factor of the new hashes, 0 to choose it at startup from "target-latency".
+         */
+        private int strength = 0;
+
+        /**
+         * In milliseconds, the time a hash should take on this server.
+         */
+        private long targetLatency = 250;
+
+        private int minStrength = 10;
+
+        private int maxStrength = 14;
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public long getMaxWait() {
+            return maxWait;
+        }
+
+        public void setMaxWait(long maxWait) {
+            this.maxWait = maxWait;
+        }
+
+        public int getStrength() {
+            return strength;
+        }
+
+        public void setStrength(int strength) {
+            this.strength = strength;
+        }
+
+        public long getTargetLatency() {
+            return targetLatency;
+        }
+
+        public void setTargetLatency(long targetLatency) {
+            this.targetLatency = targetLatency;
+        }
+
+        public int getMinStrength() {
+            return minStrength;
+        }
+
+        public void setMinStrength(int minStrength) {
+            this.minStrength = minStrength;
+        }
+
+        public int getMaxStrength() {
+            return maxStrength;
+        }
+
+        public void setMaxStrength(int maxStrength) {
+            this.maxStrength = maxStrength;
+        }
+    }
 }
@@ -3,52 +3,193 @@ package io.ky.a5.config;
 import io.github.jhipster.config.JHipsterProperties;
 import org.ehcache.config.builders.CacheConfigurationBuilder;
 import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.config.units.EntryUnit;
+import org.ehcache.config.units.MemoryUnit;
+import org.ehcache.core.config.DefaultConfiguration;
 import org.ehcache.expiry.Duration;
 import org.ehcache.expiry.Expirations;
+import org.ehcache.impl.config.persistence.DefaultPersistenceConfiguration;
+import org.ehcache.impl.serialization.PlainJavaSerializer;
 import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.cache.Caching;
 
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
 import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.*;
 
+/**
+ * Ehcache configuration.
+ * <p>
+ * Caches hold "jhipster.cache.ehcache.max-entries" objects on heap, unless their region is configured in
+ * "application.cache.regions": a region can then be sized in bytes rather than in entries, and get an off-heap and a
+ * disk tier, which both store serialized entries outside of the Java heap.
+ */
 @Configuration
 @EnableCaching
 @AutoConfigureAfter(value = { MetricsConfiguration.class })
 @AutoConfigureBefore(value = { WebConfigurer.class, DatabaseConfiguration.class })
 public class CacheConfiguration {
 
+    private static final Pattern SIZE_PATTERN = Pattern.compile("(\\d+)\\s*([KMGT]?B)?", Pattern.CASE_INSENSITIVE);
+
+    private final Logger log = LoggerFactory.getLogger(CacheConfiguration.class);
+
     private final javax.cache.configuration.Configuration<Object, Object> jcacheConfiguration;
 
-    public CacheConfiguration(JHipsterProperties jHipsterProperties) {
+    private final Map<String, javax.cache.configuration.Configuration<Object, Object>> regionConfigurations =
+        new HashMap<>();
+
+    private final ApplicationProperties.Cache cacheProperties;
+
+    public CacheConfiguration(JHipsterProperties jHipsterProperties, ApplicationProperties applicationProperties) {
         JHipsterProperties.Cache.Ehcache ehcache =
             jHipsterProperties.getCache().getEhcache();
+        cacheProperties = applicationProperties.getCache();
 
         jcacheConfiguration = Eh107Configuration.fromEhcacheCacheConfiguration(
             CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
                 ResourcePoolsBuilder.heap(ehcache.getMaxEntries()))
                 .withExpiry(Expirations.timeToLiveExpiration(Duration.of(ehcache.getTimeToLiveSeconds(), TimeUnit.SECONDS)))
                 .build());
+
+        for (ApplicationProperties.Cache.Region region : cacheProperties.getRegions()) {
+            if (region.getDisk() != null && cacheProperties.getDiskPath() == null) {
+                throw new IllegalStateException("The cache region " + region.getName() +
+                    " has a disk tier, but application.cache.disk-path is not set");
+            }
+            regionConfigurations.put(region.getName(), regionConfiguration(region, ehcache));
+        }
+    }
+
+    private javax.cache.configuration.Configuration<Object, Object> regionConfiguration(
+            ApplicationProperties.Cache.Region region, JHipsterProperties.Cache.Ehcache ehcache) {
+
+        int timeToLiveSeconds = region.getTimeToLiveSeconds() != null ?
+            region.getTimeToLiveSeconds() : ehcache.getTimeToLiveSeconds();
+        CacheConfigurationBuilder<Object, Object> builder =
+            CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
+                resourcePools(region, ehcache.getMaxEntries()))
+                .withExpiry(Expirations.timeToLiveExpiration(Duration.of(timeToLiveSeconds, TimeUnit.SECONDS)));
+        if (region.getOffheap() != null || region.getDisk() != null) {
+            // Entries leaving the heap are serialized, which Ehcache can't do for keys and values typed as Object
+            ClassLoader classLoader = CacheConfiguration.class.getClassLoader();
+            builder = builder
+                .withKeySerializer(new PlainJavaSerializer<>(classLoader))
+                .withValueSerializer(new PlainJavaSerializer<>(classLoader));
+        }
+        return Eh107Configuration.fromEhcacheCacheConfiguration(builder.build());
+    }
+
+    /**
+     * Build the tiers of a region.
+     *
+     * @param region the region
+     * @param defaultMaxEntries the number of entries kept on heap when the region doesn't set its heap size
+     * @return the tiers of the region
+     * @throws IllegalArgumentException if a size can't be parsed
+     */
+    static ResourcePoolsBuilder resourcePools(ApplicationProperties.Cache.Region region, long defaultMaxEntries) {
+        ResourcePoolsBuilder resourcePools = ResourcePoolsBuilder.newResourcePoolsBuilder();
+        if (region.getHeap() == null) {
+            resourcePools = resourcePools.heap(defaultMaxEntries, EntryUnit.ENTRIES);
+        } else {
+            Matcher heap = parseSize(region.getName(), "heap", region.getHeap());
+            resourcePools = heap.group(2) == null ?
+                resourcePools.heap(Long.parseLong(heap.group(1)), EntryUnit.ENTRIES) :
+                resourcePools.heap(Long.parseLong(heap.group(1)), memoryUnit(heap));
+        }
+        if (region.getOffheap() != null) {
+            Matcher offheap = parseMemorySize(region.getName(), "offheap", region.getOffheap());
+            resourcePools = resourcePools.offheap(Long.parseLong(offheap.group(1)), memoryUnit(offheap));
+        }
+        if (region.getDisk() != null) {
+            Matcher disk = parseMemorySize(region.getName(), "disk", region.getDisk());
+            resourcePools = resourcePools.disk(Long.parseLong(disk.group(1)), memoryUnit(disk),
+                region.isDiskPersistent());
+        }
+        return resourcePools;
+    }
+
+    private static Matcher parseSize(String regionName, String tier, String size) {
+        Matcher matcher = SIZE_PATTERN.matcher(size.trim());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Invalid " + tier + " size of the cache region " + regionName + ": " + size);
+        }
+        return matcher;
+    }
+
+    private static Matcher parseMemorySize(String regionName, String tier, String size) {
+        Matcher matcher = parseSize(regionName, tier, size);
+        if (matcher.group(2) == null) {
+            throw new IllegalArgumentException("The " + tier + " size of the cache region " + regionName +
+                " must be in B, KB, MB, GB or TB: " + size);
+        }
+        return matcher;
+    }
+
+    private static MemoryUnit memoryUnit(Matcher size) {
+        return MemoryUnit.valueOf(size.group(2).toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Cache manager with a persistence directory, needed by the disk tiers. It replaces the one Spring Boot would
+     * create, and is registered under the default URI so that Hibernate uses it too.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "application.cache", name = "disk-path")
+    public javax.cache.CacheManager jCacheCacheManager(List<JCacheManagerCustomizer> cacheManagerCustomizers) {
+        EhcacheCachingProvider cachingProvider =
+            (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        javax.cache.CacheManager cacheManager = cachingProvider.getCacheManager(cachingProvider.getDefaultURI(),
+            new DefaultConfiguration(cachingProvider.getDefaultClassLoader(),
+                new DefaultPersistenceConfiguration(new File(cacheProperties.getDiskPath()))));
+        cacheManagerCustomizers.forEach(customizer -> customizer.customize(cacheManager));
+        return cacheManager;
     }
 
     @Bean
     public JCacheManagerCustomizer cacheManagerCustomizer() {
         return cm -> {
-            cm.createCache(io.ky.a5.repository.UserRepository.USERS_BY_LOGIN_CACHE, jcacheConfiguration);
-            cm.createCache(io.ky.a5.repository.UserRepository.USERS_BY_EMAIL_CACHE, jcacheConfiguration);
-            cm.createCache(io.ky.a5.domain.User.class.getName(), jcacheConfiguration);
-            cm.createCache(io.ky.a5.domain.Authority.class.getName(), jcacheConfiguration);
-            cm.createCache(io.ky.a5.domain.User.class.getName() + ".authorities", jcacheConfiguration);
-            cm.createCache(io.ky.a5.domain.SocialUserConnection.class.getName(), jcacheConfiguration);
-            cm.createCache(io.ky.a5.domain.Blog.class.getName(), jcacheConfiguration);
-            cm.createCache(io.ky.a5.domain.Entry.class.getName(), jcacheConfiguration);
-            cm.createCache(io.ky.a5.domain.Entry.class.getName() + ".tags", jcacheConfiguration);
-            cm.createCache(io.ky.a5.domain.Tag.class.getName(), jcacheConfiguration);
-            cm.createCache(io.ky.a5.domain.Tag.class.getName() + ".entries", jcacheConfiguration);
+            Set<String> unusedRegions = new HashSet<>(regionConfigurations.keySet());
+            createCache(cm, io.ky.a5.repository.UserRepository.USERS_BY_LOGIN_CACHE, unusedRegions);
+            createCache(cm, io.ky.a5.repository.UserRepository.USERS_BY_EMAIL_CACHE, unusedRegions);
+            createCache(cm, io.ky.a5.domain.User.class.getName(), unusedRegions);
+            createCache(cm, io.ky.a5.domain.Authority.class.getName(), unusedRegions);
+            createCache(cm, io.ky.a5.domain.User.class.getName() + ".authorities", unusedRegions);
+            createCache(cm, io.ky.a5.domain.SocialUserConnection.class.getName(), unusedRegions);
+            createCache(cm, io.ky.a5.domain.Blog.class.getName(), unusedRegions);
+            createCache(cm, io.ky.a5.domain.Entry.class.getName(), unusedRegions);
+            createCache(cm, io.ky.a5.domain.Entry.class.getName() + ".tags", unusedRegions);
+            createCache(cm, io.ky.a5.domain.Tag.class.getName(), unusedRegions);
+            createCache(cm, io.ky.a5.domain.Tag.class.getName() + ".entries", unusedRegions);
+            createCache(cm, io.ky.a5.service.SearchResultCache.SEARCH_RESULTS_CACHE, unusedRegions);
+            createCache(cm, io.ky.a5.service.TagUsageService.TAG_USAGE_CACHE, unusedRegions);
             // jhipster-needle-ehcache-add-entry
+            if (!unusedRegions.isEmpty()) {
+                log.warn("Ignoring the configuration of unknown cache regions {}", unusedRegions);
+            }
         };
     }
+
+    private void createCache(javax.cache.CacheManager cm, String cacheName, Set<String> unusedRegions) {
+        unusedRegions.remove(cacheName);
+        cm.createCache(cacheName, regionConfigurations.getOrDefault(cacheName, jcacheConfiguration));
+    }
 }
@@ -4,6 +4,10 @@ import io.ky.a5.aop.logging.LoggingAspect;
 
 import io.github.jhipster.config.JHipsterConstants;
 
+import com.codahale.metrics.MetricRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.AnyNestedCondition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.*;
 import org.springframework.core.env.Environment;
 
@@ -12,8 +16,27 @@ import org.springframework.core.env.Environment;
 public class LoggingAspectConfiguration {
 
     @Bean
-    @Profile(JHipsterConstants.SPRING_PROFILE_DEVELOPMENT)
-    public LoggingAspect loggingAspect(Environment env) {
-        return new LoggingAspect(env);
+    @Conditional(DevelopmentOrTracingEnabled.class)
+    public LoggingAspect loggingAspect(Environment env, ApplicationProperties applicationProperties,
+            ObjectProvider<MetricRegistry> metricRegistry) {
+        return new LoggingAspect(env, applicationProperties, metricRegistry);
+    }
+
+    /**
+     * The aspect runs with the "dev" profile, or when "application.tracing.enabled" is set.
+     */
+    static class DevelopmentOrTracingEnabled extends AnyNestedCondition {
+
+        DevelopmentOrTracingEnabled() {
+            super(ConfigurationPhase.REGISTER_BEAN);
+        }
+
+        @Profile(JHipsterConstants.SPRING_PROFILE_DEVELOPMENT)
+        static class Development {
+        }
+
+        @ConditionalOnProperty(prefix = "application.tracing", name = "enabled", havingValue = "true")
+        static class TracingEnabled {
+        }
     }
 }
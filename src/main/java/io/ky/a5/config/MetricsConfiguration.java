@@ -1,10 +1,19 @@
 package io.ky.a5.config;
 
 import io.github.jhipster.config.JHipsterProperties;
+import io.ky.a5.config.metrics.AuditEventMetricSet;
+import io.ky.a5.config.metrics.CacheInvalidationMetricSet;
+import io.ky.a5.config.metrics.HdrHistogramMetricRegistry;
+import io.ky.a5.config.metrics.JWTAuthenticationMetricSet;
+import io.ky.a5.config.metrics.PasswordHashingMetricSet;
+import io.ky.a5.config.metrics.PrometheusMetricsServlet;
+import io.ky.a5.config.metrics.RateLimitingMetricSet;
+import io.ky.a5.config.metrics.SearchCacheMetricSet;
+import io.ky.a5.config.metrics.SearchOutboxMetricSet;
+import io.ky.a5.config.metrics.SqlStatementMetricSet;
 
 import com.codahale.metrics.JmxReporter;
 import com.codahale.metrics.JvmAttributeGaugeSet;
-import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Slf4jReporter;
 import com.codahale.metrics.health.HealthCheckRegistry;
 import com.codahale.metrics.jcache.JCacheGaugeSet;
@@ -17,15 +26,18 @@ import org.slf4j.LoggerFactory;
 import org.slf4j.Marker;
 import org.slf4j.MarkerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.web.servlet.ServletContextInitializer;
 import org.springframework.context.annotation.*;
 
 import javax.annotation.PostConstruct;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
 import java.lang.management.ManagementFactory;
 import java.util.concurrent.TimeUnit;
 
 @Configuration
 @EnableMetrics(proxyTargetClass = true)
-public class MetricsConfiguration extends MetricsConfigurerAdapter {
+public class MetricsConfiguration extends MetricsConfigurerAdapter implements ServletContextInitializer {
 
     private static final String PROP_METRIC_REG_JVM_MEMORY = "jvm.memory";
     private static final String PROP_METRIC_REG_JVM_GARBAGE = "jvm.garbage";
@@ -36,12 +48,44 @@ public class MetricsConfiguration extends MetricsConfigurerAdapter {
 
     private static final String PROP_METRIC_REG_JCACHE_STATISTICS = "jcache.statistics";
 
+    private static final String PROP_METRIC_REG_SEARCH_OUTBOX = "search.outbox";
+
+    private static final String PROP_METRIC_REG_SEARCH_CACHE = "search.cache";
+
+    private static final String PROP_METRIC_REG_CACHE_INVALIDATION = "cache.invalidation";
+
+    private static final String PROP_METRIC_REG_JWT_AUTHENTICATION = "security.jwt";
+
+    private static final String PROP_METRIC_REG_AUDIT_EVENTS = "audit.events";
+
+    private static final String PROP_METRIC_REG_SQL_REQUESTS = "sql.requests";
+
+    private static final String PROP_METRIC_REG_RATE_LIMITING = "security.rate-limiting";
+
+    private static final String PROP_METRIC_REG_PASSWORD_HASHING = "security.password-hashing";
+
     private final Logger log = LoggerFactory.getLogger(MetricsConfiguration.class);
 
-    private MetricRegistry metricRegistry = new MetricRegistry();
+    private HdrHistogramMetricRegistry metricRegistry = new HdrHistogramMetricRegistry();
 
     private HealthCheckRegistry healthCheckRegistry = new HealthCheckRegistry();
 
+    private final SearchOutboxMetricSet searchOutboxMetricSet = new SearchOutboxMetricSet();
+
+    private final SearchCacheMetricSet searchCacheMetricSet = new SearchCacheMetricSet();
+
+    private final CacheInvalidationMetricSet cacheInvalidationMetricSet = new CacheInvalidationMetricSet();
+
+    private final JWTAuthenticationMetricSet jwtAuthenticationMetricSet = new JWTAuthenticationMetricSet();
+
+    private final AuditEventMetricSet auditEventMetricSet = new AuditEventMetricSet();
+
+    private final SqlStatementMetricSet sqlStatementMetricSet = new SqlStatementMetricSet();
+
+    private final RateLimitingMetricSet rateLimitingMetricSet = new RateLimitingMetricSet();
+
+    private final PasswordHashingMetricSet passwordHashingMetricSet = new PasswordHashingMetricSet();
+
     private final JHipsterProperties jHipsterProperties;
 
     private HikariDataSource hikariDataSource;
@@ -57,7 +101,7 @@ public class MetricsConfiguration extends MetricsConfigurerAdapter {
 
     @Override
     @Bean
-    public MetricRegistry getMetricRegistry() {
+    public HdrHistogramMetricRegistry getMetricRegistry() {
         return metricRegistry;
     }
 
@@ -67,6 +111,46 @@ public class MetricsConfiguration extends MetricsConfigurerAdapter {
         return healthCheckRegistry;
     }
 
+    @Bean
+    public SearchOutboxMetricSet searchOutboxMetricSet() {
+        return searchOutboxMetricSet;
+    }
+
+    @Bean
+    public SearchCacheMetricSet searchCacheMetricSet() {
+        return searchCacheMetricSet;
+    }
+
+    @Bean
+    public CacheInvalidationMetricSet cacheInvalidationMetricSet() {
+        return cacheInvalidationMetricSet;
+    }
+
+    @Bean
+    public JWTAuthenticationMetricSet jwtAuthenticationMetricSet() {
+        return jwtAuthenticationMetricSet;
+    }
+
+    @Bean
+    public AuditEventMetricSet auditEventMetricSet() {
+        return auditEventMetricSet;
+    }
+
+    @Bean
+    public SqlStatementMetricSet sqlStatementMetricSet() {
+        return sqlStatementMetricSet;
+    }
+
+    @Bean
+    public RateLimitingMetricSet rateLimitingMetricSet() {
+        return rateLimitingMetricSet;
+    }
+
+    @Bean
+    public PasswordHashingMetricSet passwordHashingMetricSet() {
+        return passwordHashingMetricSet;
+    }
+
     @PostConstruct
     public void init() {
         log.debug("Registering JVM gauges");
@@ -77,6 +161,14 @@ public class MetricsConfiguration extends MetricsConfigurerAdapter {
         metricRegistry.register(PROP_METRIC_REG_JVM_BUFFERS, new BufferPoolMetricSet(ManagementFactory.getPlatformMBeanServer()));
         metricRegistry.register(PROP_METRIC_REG_JVM_ATTRIBUTE_SET, new JvmAttributeGaugeSet());
         metricRegistry.register(PROP_METRIC_REG_JCACHE_STATISTICS, new JCacheGaugeSet());
+        metricRegistry.register(PROP_METRIC_REG_SEARCH_OUTBOX, searchOutboxMetricSet);
+        metricRegistry.register(PROP_METRIC_REG_SEARCH_CACHE, searchCacheMetricSet);
+        metricRegistry.register(PROP_METRIC_REG_CACHE_INVALIDATION, cacheInvalidationMetricSet);
+        metricRegistry.register(PROP_METRIC_REG_JWT_AUTHENTICATION, jwtAuthenticationMetricSet);
+        metricRegistry.register(PROP_METRIC_REG_AUDIT_EVENTS, auditEventMetricSet);
+        metricRegistry.register(PROP_METRIC_REG_SQL_REQUESTS, sqlStatementMetricSet);
+        metricRegistry.register(PROP_METRIC_REG_RATE_LIMITING, rateLimitingMetricSet);
+        metricRegistry.register(PROP_METRIC_REG_PASSWORD_HASHING, passwordHashingMetricSet);
         if (hikariDataSource != null) {
             log.debug("Monitoring the datasource");
             hikariDataSource.setMetricRegistry(metricRegistry);
@@ -98,4 +190,14 @@ public class MetricsConfiguration extends MetricsConfigurerAdapter {
             reporter.start(jHipsterProperties.getMetrics().getLogs().getReportFrequency(), TimeUnit.SECONDS);
         }
     }
+
+    @Override
+    public void onStartup(ServletContext servletContext) throws ServletException {
+        if (jHipsterProperties.getMetrics().getPrometheus().isEnabled()) {
+            String endpoint = jHipsterProperties.getMetrics().getPrometheus().getEndpoint();
+            log.debug("Initializing Metrics Prometheus endpoint at {}", endpoint);
+            servletContext.addServlet("prometheusMetrics", new PrometheusMetricsServlet(metricRegistry))
+                .addMapping(endpoint);
+        }
+    }
 }
@@ -0,0 +1,70 @@
+package io.ky.a5.config.metrics;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
+import com.codahale.metrics.Timer;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntSupplier;
+
+/**
+ * Metrics of the asynchronous writing of audit events.
+ * <p>
+ * "queued" is the number of events waiting to be written, and "dropped" the events which were lost because of
+ * the backpressure policy. "purged" counts the events deleted by the retention purge.
+ */
+public class AuditEventMetricSet implements MetricSet {
+
+    private final Meter written = new Meter();
+
+    private final Meter dropped = new Meter();
+
+    private final Counter failures = new Counter();
+
+    private final Meter purged = new Meter();
+
+    private final Timer flushes = new Timer();
+
+    private volatile IntSupplier queued = () -> 0;
+
+    public void setQueued(IntSupplier queued) {
+        this.queued = queued;
+    }
+
+    public Meter getWritten() {
+        return written;
+    }
+
+    public Meter getDropped() {
+        return dropped;
+    }
+
+    public Counter getFailures() {
+        return failures;
+    }
+
+    public Meter getPurged() {
+        return purged;
+    }
+
+    public Timer getFlushes() {
+        return flushes;
+    }
+
+    @Override
+    public Map<String, Metric> getMetrics() {
+        Map<String, Metric> metrics = new HashMap<>();
+        metrics.put("queued", (Gauge<Integer>) () -> queued.getAsInt());
+        metrics.put("written", written);
+        metrics.put("dropped", dropped);
+        metrics.put("failures", failures);
+        metrics.put("flushes", flushes);
+        metrics.put("purged", purged);
+        return Collections.unmodifiableMap(metrics);
+    }
+}
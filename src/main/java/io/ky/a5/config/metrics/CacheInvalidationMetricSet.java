@@ -0,0 +1,40 @@
+package io.ky.a5.config.metrics;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntSupplier;
+
+/**
+ * Metrics of the cache invalidations sent to the other nodes.
+ * <p>
+ * "pending" is the number of invalidations waiting to be sent, and "collapses" counts the times the queue went over
+ * "application.cache-invalidation.max-pending" and was replaced by the invalidation of whole regions.
+ */
+public class CacheInvalidationMetricSet implements MetricSet {
+
+    private final Meter collapses = new Meter();
+
+    private volatile IntSupplier pending = () -> 0;
+
+    public void setPending(IntSupplier pending) {
+        this.pending = pending;
+    }
+
+    public Meter getCollapses() {
+        return collapses;
+    }
+
+    @Override
+    public Map<String, Metric> getMetrics() {
+        Map<String, Metric> metrics = new HashMap<>();
+        metrics.put("pending", (Gauge<Integer>) () -> pending.getAsInt());
+        metrics.put("collapses", collapses);
+        return Collections.unmodifiableMap(metrics);
+    }
+}
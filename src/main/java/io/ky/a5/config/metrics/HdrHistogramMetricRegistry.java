@@ -0,0 +1,32 @@
+package io.ky.a5.config.metrics;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * A metric registry whose timers are {@link HdrHistogramTimer}s, instead of timers with an exponentially decaying
+ * reservoir, which samples the values and hides the tail latency.
+ * <p>
+ * This applies to the timers of the {@code @Timed} methods and of the web requests, which are created by name.
+ * The metric sets of the application create their own timers.
+ */
+public class HdrHistogramMetricRegistry extends MetricRegistry {
+
+    @Override
+    public Timer timer(String name) {
+        return timer(name, HdrHistogramTimer::new);
+    }
+
+    /**
+     * The timers backed by an {@link HdrHistogramReservoir}, by name.
+     */
+    public SortedMap<String, HdrHistogramTimer> getHdrHistogramTimers() {
+        SortedMap<String, HdrHistogramTimer> timers = new TreeMap<>();
+        getTimers((name, metric) -> metric instanceof HdrHistogramTimer)
+            .forEach((name, timer) -> timers.put(name, (HdrHistogramTimer) timer));
+        return timers;
+    }
+}
@@ -0,0 +1,125 @@
+package io.ky.a5.config.metrics;
+
+import com.codahale.metrics.Reservoir;
+import com.codahale.metrics.Snapshot;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * A reservoir keeping every value in an HdrHistogram, rather than a sample of them: the high percentiles are exact
+ * to the number of significant digits, and the histograms of several nodes can be added together.
+ * <p>
+ * Values are recorded without locking by a {@link Recorder}. When the reservoir is read, the values recorded since
+ * the previous read are added to the histogram of all the values since the start of the application, which is
+ * exported, and to a ring of histograms, one per period. The snapshot, used by the metrics reporters and the
+ * Prometheus scrapes, only holds the periods of the last minute, so that it shows the current latency rather than
+ * its average since the start. The values recorded since the previous read are counted in the current period, so the
+ * reservoir should be read more often than once a minute, as the scrapes do.
+ */
+public class HdrHistogramReservoir implements Reservoir {
+
+    /**
+     * Values are kept with a precision of 1%, which is enough for latencies and keeps the histograms small.
+     */
+    static final int SIGNIFICANT_DIGITS = 2;
+
+    static final long WINDOW = TimeUnit.MINUTES.toMillis(1);
+
+    static final int PERIODS = 6;
+
+    private final Recorder recorder = new Recorder(SIGNIFICANT_DIGITS);
+
+    private final Histogram total = new Histogram(SIGNIFICANT_DIGITS);
+
+    private final Histogram[] ring;
+
+    private final long[] ringPeriods;
+
+    private final long periodLength;
+
+    private final LongSupplier clock;
+
+    private Histogram interval;
+
+    public HdrHistogramReservoir() {
+        this(WINDOW, PERIODS, System::currentTimeMillis);
+    }
+
+    HdrHistogramReservoir(long window, int periods, LongSupplier clock) {
+        this.ring = new Histogram[periods];
+        this.ringPeriods = new long[periods];
+        for (int i = 0; i < periods; i++) {
+            ring[i] = new Histogram(SIGNIFICANT_DIGITS);
+            ringPeriods[i] = -1;
+        }
+        this.periodLength = window / periods;
+        this.clock = clock;
+        total.setStartTimeStamp(clock.getAsLong());
+    }
+
+    @Override
+    public int size() {
+        return getSnapshot().size();
+    }
+
+    @Override
+    public void update(long value) {
+        recorder.recordValue(value);
+    }
+
+    /**
+     * A snapshot of the values of the last minute.
+     */
+    @Override
+    public Snapshot getSnapshot() {
+        return new HdrHistogramSnapshot(getRecentHistogram());
+    }
+
+    /**
+     * A copy of the histogram of all the values since the start of the application.
+     */
+    public synchronized Histogram getHistogram() {
+        collect();
+        return total.copy();
+    }
+
+    /**
+     * The histogram of the values recorded in the periods of the window, the current one included.
+     */
+    synchronized Histogram getRecentHistogram() {
+        long period = collect();
+        Histogram recent = new Histogram(SIGNIFICANT_DIGITS);
+        recent.setStartTimeStamp((period - ring.length + 1) * periodLength);
+        recent.setEndTimeStamp(total.getEndTimeStamp());
+        for (int i = 0; i < ring.length; i++) {
+            if (ringPeriods[i] > period - ring.length) {
+                recent.add(ring[i]);
+            }
+        }
+        return recent;
+    }
+
+    /**
+     * Move the values recorded since the previous read to the histogram of all the values and to the current period.
+     *
+     * @return the current period
+     */
+    private long collect() {
+        long now = clock.getAsLong();
+        interval = recorder.getIntervalHistogram(interval);
+        total.add(interval);
+        total.setEndTimeStamp(now);
+
+        long period = now / periodLength;
+        int slot = (int) (period % ring.length);
+        if (ringPeriods[slot] != period) {
+            ring[slot].reset();
+            ringPeriods[slot] = period;
+        }
+        ring[slot].add(interval);
+        return period;
+    }
+}
@@ -0,0 +1,85 @@
+package io.ky.a5.config.metrics;
+
+import com.codahale.metrics.Snapshot;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramIterationValue;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A snapshot of an {@link HdrHistogramReservoir}.
+ * <p>
+ * The histogram doesn't keep the values themselves: {@link #getValues()} returns the highest equivalent value of
+ * the range of each recorded value, in order. Past {@link #MAX_VALUES} recorded values, both {@link #size()} and
+ * {@link #getValues()} are limited to that many values, spread evenly over the ranks of the recorded ones.
+ */
+public class HdrHistogramSnapshot extends Snapshot {
+
+    static final int MAX_VALUES = 16384;
+
+    private final Histogram histogram;
+
+    public HdrHistogramSnapshot(Histogram histogram) {
+        this.histogram = histogram;
+    }
+
+    @Override
+    public double getValue(double quantile) {
+        return histogram.getValueAtPercentile(quantile * 100);
+    }
+
+    @Override
+    public long[] getValues() {
+        long totalCount = histogram.getTotalCount();
+        int size = size();
+        long[] values = new long[size];
+        int index = 0;
+        long countUpToValue = 0;
+        for (HistogramIterationValue value : histogram.recordedValues()) {
+            countUpToValue += value.getCountAtValueIteratedTo();
+            long equivalentValue = histogram.highestEquivalentValue(value.getValueIteratedTo());
+            // Each returned value stands for the recorded value of rank index * totalCount / size
+            while (index < size && (long) ((double) index * totalCount / size) < countUpToValue) {
+                values[index++] = equivalentValue;
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.min(histogram.getTotalCount(), MAX_VALUES);
+    }
+
+    @Override
+    public long getMax() {
+        return histogram.getMaxValue();
+    }
+
+    @Override
+    public double getMean() {
+        return histogram.getMean();
+    }
+
+    @Override
+    public long getMin() {
+        return histogram.getMinValue();
+    }
+
+    @Override
+    public double getStdDev() {
+        return histogram.getStdDeviation();
+    }
+
+    @Override
+    public void dump(OutputStream output) {
+        try (PrintWriter out = new PrintWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8))) {
+            for (long value : getValues()) {
+                out.printf("%d%n", value);
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package io.ky.a5.config.metrics;
+
+import com.codahale.metrics.Timer;
+import org.HdrHistogram.Histogram;
+
+/**
+ * A timer backed by an {@link HdrHistogramReservoir}, whose histogram can be exported.
+ */
+public class HdrHistogramTimer extends Timer {
+
+    private final HdrHistogramReservoir reservoir;
+
+    public HdrHistogramTimer() {
+        this(new HdrHistogramReservoir());
+    }
+
+    private HdrHistogramTimer(HdrHistogramReservoir reservoir) {
+        super(reservoir);
+        this.reservoir = reservoir;
+    }
+
+    /**
+     * A copy of the histogram of all the durations since the start of the application, in nanoseconds.
+     */
+    public Histogram getHistogram() {
+        return reservoir.getHistogram();
+    }
+}
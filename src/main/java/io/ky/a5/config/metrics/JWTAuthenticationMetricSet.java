@@ -0,0 +1,60 @@
+package io.ky.a5.config.metrics;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
+import com.codahale.metrics.RatioGauge;
+import com.codahale.metrics.Timer;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Metrics of the cache of verified JWT authentications.
+ * <p>
+ * "verifications" times the parsing and signature check of the tokens which were not cached, and "rejected" counts
+ * the tokens which failed it. "hit-ratio" is computed over the last 5 minutes.
+ */
+public class JWTAuthenticationMetricSet implements MetricSet {
+
+    private final Meter hits = new Meter();
+
+    private final Meter misses = new Meter();
+
+    private final Meter rejected = new Meter();
+
+    private final Timer verifications = new Timer();
+
+    public Meter getHits() {
+        return hits;
+    }
+
+    public Meter getMisses() {
+        return misses;
+    }
+
+    public Meter getRejected() {
+        return rejected;
+    }
+
+    public Timer getVerifications() {
+        return verifications;
+    }
+
+    @Override
+    public Map<String, Metric> getMetrics() {
+        Map<String, Metric> metrics = new HashMap<>();
+        metrics.put("hits", hits);
+        metrics.put("misses", misses);
+        metrics.put("rejected", rejected);
+        metrics.put("verifications", verifications);
+        metrics.put("hit-ratio", new RatioGauge() {
+            @Override
+            protected Ratio getRatio() {
+                return Ratio.of(hits.getFiveMinuteRate(), hits.getFiveMinuteRate() + misses.getFiveMinuteRate());
+            }
+        });
+        return Collections.unmodifiableMap(metrics);
+    }
+}
@@ -0,0 +1,77 @@
+package io.ky.a5.config.metrics;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
+import com.codahale.metrics.Timer;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntSupplier;
+
+/**
+ * Metrics of the threads hashing and verifying the passwords.
+ * <p>
+ * "queue-time" is the time a hash waited for a thread, and "encode" and "matches" the time spent hashing.
+ * "rejections" counts the hashes refused because the queue was full or which took longer than the maximum wait,
+ * and "strength" is the BCrypt cost factor of the new hashes.
+ */
+public class PasswordHashingMetricSet implements MetricSet {
+
+    private final Timer queueTime = new Timer();
+
+    private final Timer encodes = new Timer();
+
+    private final Timer matches = new Timer();
+
+    private final Meter rejections = new Meter();
+
+    private volatile IntSupplier queued = () -> 0;
+
+    private volatile IntSupplier active = () -> 0;
+
+    private volatile int strength;
+
+    public void setQueued(IntSupplier queued) {
+        this.queued = queued;
+    }
+
+    public void setActive(IntSupplier active) {
+        this.active = active;
+    }
+
+    public void setStrength(int strength) {
+        this.strength = strength;
+    }
+
+    public Timer getQueueTime() {
+        return queueTime;
+    }
+
+    public Timer getEncodes() {
+        return encodes;
+    }
+
+    public Timer getMatches() {
+        return matches;
+    }
+
+    public Meter getRejections() {
+        return rejections;
+    }
+
+    @Override
+    public Map<String, Metric> getMetrics() {
+        Map<String, Metric> metrics = new HashMap<>();
+        metrics.put("queued", (Gauge<Integer>) () -> queued.getAsInt());
+        metrics.put("active", (Gauge<Integer>) () -> active.getAsInt());
+        metrics.put("strength", (Gauge<Integer>) () -> strength);
+        metrics.put("queue-time", queueTime);
+        metrics.put("encode", encodes);
+        metrics.put("matches", matches);
+        metrics.put("rejections", rejections);
+        return Collections.unmodifiableMap(metrics);
+    }
+}
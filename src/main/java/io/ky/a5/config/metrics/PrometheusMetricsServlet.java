@@ -0,0 +1,196 @@
+package io.ky.a5.config.metrics;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Servlet exposing the metrics of a {@link MetricRegistry} to Prometheus, in its text format or in the OpenMetrics
+ * format when the scraper asks for it.
+ * <p>
+ * The metrics are read straight from the registry, without copying them, and rendered into a buffer reused by
+ * each thread of the server, which is written to the response in chunks rather than copied into a string; the
+ * Prometheus names are computed once per metric. Gauges and counters are exposed
+ * as gauges, meters as counters, and histograms and timers as summaries, the timers in seconds.
+ */
+public class PrometheusMetricsServlet extends HttpServlet {
+
+    private static final long serialVersionUID = 1L;
+
+    static final String TEXT_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    static final String OPENMETRICS_CONTENT_TYPE = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+
+    private static final String OPENMETRICS_MEDIA_TYPE = "application/openmetrics-text";
+
+    private static final double[] QUANTILES = { 0.5, 0.75, 0.95, 0.98, 0.99, 0.999 };
+
+    private static final String[] QUANTILE_LABELS = { "{quantile=\"0.5\"} ", "{quantile=\"0.75\"} ",
+        "{quantile=\"0.95\"} ", "{quantile=\"0.98\"} ", "{quantile=\"0.99\"} ", "{quantile=\"0.999\"} " };
+
+    private static final double SECONDS_PER_NANOSECOND = 1.0 / TimeUnit.SECONDS.toNanos(1);
+
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+    private static final int CHUNK_SIZE = 8 * 1024;
+
+    private final transient MetricRegistry metricRegistry;
+
+    private final transient ConcurrentMap<String, String> names = new ConcurrentHashMap<>();
+
+    private final transient ThreadLocal<StringBuilder> buffers =
+        ThreadLocal.withInitial(() -> new StringBuilder(INITIAL_BUFFER_SIZE));
+
+    private final transient ThreadLocal<char[]> chunks = ThreadLocal.withInitial(() -> new char[CHUNK_SIZE]);
+
+    public PrometheusMetricsServlet(MetricRegistry metricRegistry) {
+        this.metricRegistry = metricRegistry;
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String accept = request.getHeader("Accept");
+        boolean openMetrics = accept != null && accept.contains(OPENMETRICS_MEDIA_TYPE);
+        StringBuilder buffer = buffers.get();
+        buffer.setLength(0);
+        render(buffer, openMetrics);
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(openMetrics ? OPENMETRICS_CONTENT_TYPE : TEXT_CONTENT_TYPE);
+        response.setHeader("Cache-Control", "no-store");
+        Writer writer = response.getWriter();
+        write(buffer, chunks.get(), writer);
+        writer.flush();
+    }
+
+    /**
+     * Writes the buffer through the chunk: {@link Writer#append(CharSequence)} would copy it into a string first.
+     */
+    static void write(StringBuilder buffer, char[] chunk, Writer writer) throws IOException {
+        for (int start = 0; start < buffer.length(); start += chunk.length) {
+            int end = Math.min(start + chunk.length, buffer.length());
+            buffer.getChars(start, end, chunk, 0);
+            writer.write(chunk, 0, end - start);
+        }
+    }
+
+    void render(StringBuilder out, boolean openMetrics) {
+        for (Map.Entry<String, Metric> entry : metricRegistry.getMetrics().entrySet()) {
+            Metric metric = entry.getValue();
+            if (metric instanceof Gauge) {
+                renderGauge(out, name(entry.getKey()), (Gauge<?>) metric);
+            } else if (metric instanceof Counter) {
+                String name = name(entry.getKey());
+                type(out, name, "gauge");
+                sample(out, name, "", ((Counter) metric).getCount());
+            } else if (metric instanceof Meter) {
+                String name = name(entry.getKey());
+                type(out, openMetrics ? name : name + "_total", "counter");
+                sample(out, name, "_total", ((Meter) metric).getCount());
+            } else if (metric instanceof Timer) {
+                Timer timer = (Timer) metric;
+                renderSummary(out, name(entry.getKey()) + "_seconds", timer.getSnapshot(), timer.getCount(),
+                    SECONDS_PER_NANOSECOND);
+            } else if (metric instanceof Histogram) {
+                Histogram histogram = (Histogram) metric;
+                renderSummary(out, name(entry.getKey()), histogram.getSnapshot(), histogram.getCount(), 1);
+            }
+        }
+        if (openMetrics) {
+            out.append("# EOF\n");
+        }
+    }
+
+    private static void renderGauge(StringBuilder out, String name, Gauge<?> gauge) {
+        Object value;
+        try {
+            value = gauge.getValue();
+        } catch (RuntimeException e) {
+            // Some gauges fail when their resource is closed, such as the statistics of a destroyed cache
+            return;
+        }
+        if (value instanceof Number) {
+            type(out, name, "gauge");
+            Number number = (Number) value;
+            if (number instanceof Long || number instanceof Integer || number instanceof Short
+                || number instanceof Byte) {
+                sample(out, name, "", number.longValue());
+            } else {
+                sample(out, name, "", number.doubleValue());
+            }
+        } else if (value instanceof Boolean) {
+            type(out, name, "gauge");
+            sample(out, name, "", (Boolean) value ? 1 : 0);
+        }
+    }
+
+    private static void renderSummary(StringBuilder out, String name, Snapshot snapshot, long count, double factor) {
+        type(out, name, "summary");
+        for (int i = 0; i < QUANTILES.length; i++) {
+            out.append(name).append(QUANTILE_LABELS[i]);
+            value(out, snapshot.getValue(QUANTILES[i]) * factor);
+            out.append('\n');
+        }
+        sample(out, name, "_count", count);
+    }
+
+    private static void type(StringBuilder out, String name, String type) {
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String suffix, long value) {
+        out.append(name).append(suffix).append(' ').append(value).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String suffix, double value) {
+        out.append(name).append(suffix).append(' ');
+        value(out, value);
+        out.append('\n');
+    }
+
+    private static void value(StringBuilder out, double value) {
+        if (Double.isNaN(value)) {
+            out.append("NaN");
+        } else if (Double.isInfinite(value)) {
+            out.append(value > 0 ? "+Inf" : "-Inf");
+        } else {
+            out.append(value);
+        }
+    }
+
+    /**
+     * The Prometheus name of a metric: the characters which are not allowed are replaced by underscores.
+     */
+    String name(String metricName) {
+        return names.computeIfAbsent(metricName, PrometheusMetricsServlet::sanitize);
+    }
+
+    static String sanitize(String metricName) {
+        StringBuilder name = new StringBuilder(metricName.length() + 1);
+        if (metricName.isEmpty() || Character.isDigit(metricName.charAt(0))) {
+            name.append('_');
+        }
+        for (int i = 0; i < metricName.length(); i++) {
+            char c = metricName.charAt(i);
+            boolean allowed = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_'
+                || c == ':';
+            name.append(allowed ? c : '_');
+        }
+        return name.toString();
+    }
+}
@@ -0,0 +1,47 @@
+package io.ky.a5.config.metrics;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntSupplier;
+
+/**
+ * Metrics of the rate limiting of the authentication and registration requests.
+ * <p>
+ * The rejections are the requests answered with "429 Too Many Requests", and "keys" is the number of IP addresses
+ * and logins tracked by the limiter.
+ */
+public class RateLimitingMetricSet implements MetricSet {
+
+    private final Meter authenticateRejections = new Meter();
+
+    private final Meter registerRejections = new Meter();
+
+    private volatile IntSupplier keys = () -> 0;
+
+    public void setKeys(IntSupplier keys) {
+        this.keys = keys;
+    }
+
+    public Meter getAuthenticateRejections() {
+        return authenticateRejections;
+    }
+
+    public Meter getRegisterRejections() {
+        return registerRejections;
+    }
+
+    @Override
+    public Map<String, Metric> getMetrics() {
+        Map<String, Metric> metrics = new HashMap<>();
+        metrics.put("keys", (Gauge<Integer>) () -> keys.getAsInt());
+        metrics.put("authenticate.rejections", authenticateRejections);
+        metrics.put("register.rejections", registerRejections);
+        return Collections.unmodifiableMap(metrics);
+    }
+}
@@ -0,0 +1,52 @@
+package io.ky.a5.config.metrics;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
+import com.codahale.metrics.RatioGauge;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Metrics of the search result cache.
+ * <p>
+ * "hit-ratio" is computed over the last 5 minutes of hits and misses.
+ */
+public class SearchCacheMetricSet implements MetricSet {
+
+    private final Meter hits = new Meter();
+
+    private final Meter misses = new Meter();
+
+    private final Counter invalidations = new Counter();
+
+    public Meter getHits() {
+        return hits;
+    }
+
+    public Meter getMisses() {
+        return misses;
+    }
+
+    public Counter getInvalidations() {
+        return invalidations;
+    }
+
+    @Override
+    public Map<String, Metric> getMetrics() {
+        Map<String, Metric> metrics = new HashMap<>();
+        metrics.put("hits", hits);
+        metrics.put("misses", misses);
+        metrics.put("invalidations", invalidations);
+        metrics.put("hit-ratio", new RatioGauge() {
+            @Override
+            protected Ratio getRatio() {
+                return Ratio.of(hits.getFiveMinuteRate(), hits.getFiveMinuteRate() + misses.getFiveMinuteRate());
+            }
+        });
+        return Collections.unmodifiableMap(metrics);
+    }
+}
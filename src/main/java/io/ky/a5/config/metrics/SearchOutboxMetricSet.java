@@ -0,0 +1,84 @@
+package io.ky.a5.config.metrics;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
+import com.codahale.metrics.Timer;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Metrics of the search indexing outbox.
+ * <p>
+ * The backlog gauges are fed by the drainer after each flush, so reading them never queries the database:
+ * "pending" is the number of changes waiting in the outbox and "lag" the age, in milliseconds, of the oldest one.
+ */
+public class SearchOutboxMetricSet implements MetricSet {
+
+    private final AtomicLong pending = new AtomicLong();
+
+    private final AtomicLong oldestEventEpochMilli = new AtomicLong();
+
+    private final Meter indexed = new Meter();
+
+    private final Meter deleted = new Meter();
+
+    private final Meter coalesced = new Meter();
+
+    private final Counter failures = new Counter();
+
+    private final Timer flushes = new Timer();
+
+    /**
+     * @param pending the number of changes waiting in the outbox
+     * @param oldestEventDate the date of the oldest change waiting in the outbox, or null if it is empty
+     */
+    public void updateBacklog(long pending, Instant oldestEventDate) {
+        this.pending.set(pending);
+        this.oldestEventEpochMilli.set(oldestEventDate == null ? 0 : oldestEventDate.toEpochMilli());
+    }
+
+    public long getLag() {
+        long oldest = oldestEventEpochMilli.get();
+        return oldest == 0 ? 0 : Math.max(0, System.currentTimeMillis() - oldest);
+    }
+
+    public Meter getIndexed() {
+        return indexed;
+    }
+
+    public Meter getDeleted() {
+        return deleted;
+    }
+
+    public Meter getCoalesced() {
+        return coalesced;
+    }
+
+    public Counter getFailures() {
+        return failures;
+    }
+
+    public Timer getFlushes() {
+        return flushes;
+    }
+
+    @Override
+    public Map<String, Metric> getMetrics() {
+        Map<String, Metric> metrics = new HashMap<>();
+        metrics.put("pending", (Gauge<Long>) pending::get);
+        metrics.put("lag", (Gauge<Long>) this::getLag);
+        metrics.put("indexed", indexed);
+        metrics.put("deleted", deleted);
+        metrics.put("coalesced", coalesced);
+        metrics.put("failures", failures);
+        metrics.put("flushes", flushes);
+        return Collections.unmodifiableMap(metrics);
+    }
+}
@@ -0,0 +1,20 @@
+package io.ky.a5.config.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Records each statement prepared by Hibernate in the {@link SqlStatementStatistics} of the current request.
+ * <p>
+ * Registered with the "hibernate.session_factory.statement_inspector" property; the statement is left unchanged.
+ */
+public class SqlStatementInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        SqlStatementStatistics statistics = SqlStatementStatistics.current();
+        if (statistics != null) {
+            statistics.statementPrepared(sql);
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,49 @@
+package io.ky.a5.config.metrics;
+
+import com.codahale.metrics.ExponentiallyDecayingReservoir;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
+import com.codahale.metrics.Timer;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Metrics of the SQL statements run by each HTTP request.
+ * <p>
+ * "statements" is the distribution of the number of statements per request, and "time" the distribution of the
+ * time spent executing them. "repeated-queries" counts the requests which ran the same query more times than
+ * allowed, usually because of an N+1 load.
+ */
+public class SqlStatementMetricSet implements MetricSet {
+
+    private final Histogram statements = new Histogram(new ExponentiallyDecayingReservoir());
+
+    private final Timer time = new Timer();
+
+    private final Meter repeatedQueries = new Meter();
+
+    public Histogram getStatements() {
+        return statements;
+    }
+
+    public Timer getTime() {
+        return time;
+    }
+
+    public Meter getRepeatedQueries() {
+        return repeatedQueries;
+    }
+
+    @Override
+    public Map<String, Metric> getMetrics() {
+        Map<String, Metric> metrics = new HashMap<>();
+        metrics.put("statements", statements);
+        metrics.put("time", time);
+        metrics.put("repeated-queries", repeatedQueries);
+        return Collections.unmodifiableMap(metrics);
+    }
+}
@@ -0,0 +1,106 @@
+package io.ky.a5.config.metrics;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * The SQL statements run by the current HTTP request, recorded by {@link SqlStatementInspector} and
+ * {@link SqlStatementTimingListener}.
+ * <p>
+ * The statistics are bound to the thread of the request, between {@link #begin()} and {@link #end()}: statements
+ * run by other threads, such as the asynchronous tasks, are not recorded.
+ */
+public final class SqlStatementStatistics {
+
+    private static final ThreadLocal<SqlStatementStatistics> CURRENT = new ThreadLocal<>();
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+\\b");
+
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final Map<String, Integer> queries = new HashMap<>();
+
+    private int statements;
+
+    private long executionTime;
+
+    private SqlStatementStatistics() {
+    }
+
+    /**
+     * Starts recording the statements of the current thread.
+     */
+    public static SqlStatementStatistics begin() {
+        SqlStatementStatistics statistics = new SqlStatementStatistics();
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    /**
+     * The statistics of the current thread, or null when its statements are not recorded.
+     */
+    public static SqlStatementStatistics current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Stops recording the statements of the current thread.
+     */
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * The shape of a statement: its literals and the parameters of its IN lists are replaced by a single
+     * parameter, so that the same query run with different values has the same shape.
+     */
+    public static String shape(String sql) {
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = IN_LIST.matcher(shape).replaceAll("(?)");
+        return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+    }
+
+    void statementPrepared(String sql) {
+        statements++;
+        // Inserts, updates and deletes run in a loop are batched, and each batch prepares its statement again:
+        // only the queries tell an N+1 load
+        String shape = shape(sql);
+        if (shape.toLowerCase(Locale.ROOT).startsWith("select")) {
+            queries.merge(shape, 1, Integer::sum);
+        }
+    }
+
+    void statementExecuted(long nanos) {
+        executionTime += nanos;
+    }
+
+    /**
+     * Number of statements prepared, including the batches.
+     */
+    public int getStatements() {
+        return statements;
+    }
+
+    /**
+     * In nanoseconds, the time spent executing the statements, excluding the reading of their results.
+     */
+    public long getExecutionTime() {
+        return executionTime;
+    }
+
+    /**
+     * The query run the most times, or null if no query was run.
+     */
+    public Map.Entry<String, Integer> getMostRepeatedQuery() {
+        return queries.entrySet().stream()
+            .max(Map.Entry.comparingByValue())
+            .orElse(null);
+    }
+}
@@ -0,0 +1,44 @@
+package io.ky.a5.config.metrics;
+
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * Adds the execution time of the statements and batches of a Hibernate session to the
+ * {@link SqlStatementStatistics} of the current request.
+ * <p>
+ * Registered with the "hibernate.session.events.auto" property, which creates a listener for each session.
+ */
+public class SqlStatementTimingListener extends BaseSessionEventListener {
+
+    private static final long serialVersionUID = 1L;
+
+    private long start = -1;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        start = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        executed();
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        start = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        executed();
+    }
+
+    private void executed() {
+        SqlStatementStatistics statistics = SqlStatementStatistics.current();
+        if (statistics != null && start >= 0) {
+            statistics.statementExecuted(System.nanoTime() - start);
+        }
+        start = -1;
+    }
+}
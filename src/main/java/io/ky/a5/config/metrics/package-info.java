@@ -0,0 +1,4 @@
+/**
+ * Metrics published by the application in addition to the JVM and framework ones.
+ */
+package io.ky.a5.config.metrics;
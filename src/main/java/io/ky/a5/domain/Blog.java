@@ -2,6 +2,8 @@ package io.ky.a5.domain;
 
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import javax.validation.constraints.*;
@@ -22,9 +24,19 @@ public class Blog implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "blogSequenceGenerator")
+    @GenericGenerator(name = "blogSequenceGenerator", strategy = "enhanced-sequence", parameters = {
+        @Parameter(name = "sequence_name", value = "blog_sequence"),
+        @Parameter(name = "force_table_use", value = "true"),
+        @Parameter(name = "optimizer", value = "pooled-lo"),
+        @Parameter(name = "increment_size", value = "50")
+    })
     private Long id;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @NotNull
     @Size(min = 3)
     @Column(name = "name", nullable = false)
@@ -47,6 +59,14 @@ public class Blog implements Serializable {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getName() {
         return name;
     }
@@ -2,6 +2,9 @@ package io.ky.a5.domain;
 
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.LazyGroup;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import javax.validation.constraints.*;
@@ -25,15 +28,31 @@ public class Entry implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "entrySequenceGenerator")
+    @GenericGenerator(name = "entrySequenceGenerator", strategy = "enhanced-sequence", parameters = {
+        @Parameter(name = "sequence_name", value = "entry_sequence"),
+        @Parameter(name = "force_table_use", value = "true"),
+        @Parameter(name = "optimizer", value = "pooled-lo"),
+        @Parameter(name = "increment_size", value = "50")
+    })
     private Long id;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @NotNull
     @Column(name = "title", nullable = false)
     private String title;
 
+    /**
+     * Only loaded when read, as entries are mostly listed: the class is enhanced at build time by the
+     * hibernate-enhance-maven-plugin, which lazy basic attributes require.
+     */
     @NotNull
     @Lob
+    @Basic(fetch = FetchType.LAZY)
+    @LazyGroup("content")
     @Column(name = "content", nullable = false)
     private String content;
 
@@ -60,6 +79,14 @@ public class Entry implements Serializable {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getTitle() {
         return title;
     }
@@ -163,7 +190,6 @@ public class Entry implements Serializable {
         return "Entry{" +
             "id=" + getId() +
             ", title='" + getTitle() + "'" +
-            ", content='" + getContent() + "'" +
             ", date='" + getDate() + "'" +
             "}";
     }
@@ -1,5 +1,8 @@
 package io.ky.a5.domain;
 
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
 import java.io.Serializable;
@@ -17,7 +20,13 @@ import java.util.Map;
 public class PersistentAuditEvent implements Serializable {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "persistentAuditEventSequenceGenerator")
+    @GenericGenerator(name = "persistentAuditEventSequenceGenerator", strategy = "enhanced-sequence", parameters = {
+        @Parameter(name = "sequence_name", value = "jhi_persistent_audit_event_sequence"),
+        @Parameter(name = "force_table_use", value = "true"),
+        @Parameter(name = "optimizer", value = "pooled-lo"),
+        @Parameter(name = "increment_size", value = "50")
+    })
     @Column(name = "event_id")
     private Long id;
 
@@ -0,0 +1,10 @@
+package io.ky.a5.domain.enumeration;
+
+/**
+ * The SearchOutboxOperation enumeration.
+ * <p>
+ * REINDEX marks a running reindex job, which pauses the search outbox until it is removed.
+ */
+public enum SearchOutboxOperation {
+    INDEX, DELETE, REINDEX
+}
@@ -0,0 +1,192 @@
+package io.ky.a5.repository;
+
+import io.ky.a5.config.ApplicationProperties;
+import io.ky.a5.config.metrics.AuditEventMetricSet;
+import io.ky.a5.domain.PersistentAuditEvent;
+
+import com.codahale.metrics.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the audit events to the database.
+ * <p>
+ * In asynchronous mode (the default), events are put in a bounded queue and written in batches by a background
+ * thread: a batch is written as soon as it holds "flush-size" events, or "flush-interval" milliseconds after its
+ * first event was queued. When the queue is full, the "backpressure" policy decides whether the caller waits or
+ * the event is dropped. On shutdown, the queue is drained before the application context is closed.
+ * <p>
+ * In synchronous mode, each event is written in its own transaction by the caller.
+ */
+@Component
+public class AuditEventWriter {
+
+    private static final long SHUTDOWN_TIMEOUT = TimeUnit.SECONDS.toMillis(30);
+
+    private final Logger log = LoggerFactory.getLogger(AuditEventWriter.class);
+
+    private final PersistenceAuditEventRepository persistenceAuditEventRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ApplicationProperties.AuditEvents properties;
+
+    private final AuditEventMetricSet auditEventMetricSet;
+
+    private final BlockingQueue<PersistentAuditEvent> queue;
+
+    private volatile boolean running;
+
+    private Thread writerThread;
+
+    public AuditEventWriter(PersistenceAuditEventRepository persistenceAuditEventRepository,
+            PlatformTransactionManager transactionManager, ApplicationProperties applicationProperties,
+            AuditEventMetricSet auditEventMetricSet) {
+
+        this.persistenceAuditEventRepository = persistenceAuditEventRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.properties = applicationProperties.getAuditEvents();
+        this.auditEventMetricSet = auditEventMetricSet;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity()));
+        auditEventMetricSet.setQueued(queue::size);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (properties.isAsync()) {
+            running = true;
+            writerThread = new Thread(this::run, "audit-event-writer");
+            writerThread.setDaemon(true);
+            writerThread.start();
+        }
+    }
+
+    /**
+     * Write the remaining events before the application stops.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (writerThread == null) {
+            return;
+        }
+        // The thread is not interrupted, as that could break the JDBC connection of a batch being written: it
+        // notices the stop within a flush interval
+        running = false;
+        writerThread.join(SHUTDOWN_TIMEOUT);
+        if (!queue.isEmpty()) {
+            log.warn("{} audit events could not be written before shutdown", queue.size());
+        }
+    }
+
+    /**
+     * Write an audit event, or queue it to be written in asynchronous mode.
+     *
+     * @param event the event to write
+     */
+    public void write(PersistentAuditEvent event) {
+        if (!properties.isAsync()) {
+            transactionTemplate.execute(status -> persistenceAuditEventRepository.save(event));
+            auditEventMetricSet.getWritten().mark();
+        } else if (!offer(event)) {
+            auditEventMetricSet.getDropped().mark();
+            log.debug("Dropped audit event {} of {}, the audit queue is full", event.getAuditEventType(),
+                event.getPrincipal());
+        }
+    }
+
+    private boolean offer(PersistentAuditEvent event) {
+        if (!running) {
+            return false;
+        }
+        switch (properties.getBackpressure()) {
+            case BLOCK:
+                try {
+                    return queue.offer(event, properties.getMaxBlockTime(), TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            case SAMPLE:
+                if (queue.remainingCapacity() < queue.size() &&
+                    ThreadLocalRandom.current().nextDouble() >= properties.getSampleRate()) {
+                    return false;
+                }
+                return queue.offer(event);
+            default:
+                return queue.offer(event);
+        }
+    }
+
+    private void run() {
+        int flushSize = Math.max(1, properties.getFlushSize());
+        List<PersistentAuditEvent> batch = new ArrayList<>(flushSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                fill(batch, flushSize);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Wait for a first event, then for the batch to be full or for the flush interval to elapse.
+     */
+    private void fill(List<PersistentAuditEvent> batch, int flushSize) throws InterruptedException {
+        if (!running) {
+            queue.drainTo(batch, flushSize);
+            return;
+        }
+        PersistentAuditEvent first = queue.poll(properties.getFlushInterval(), TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getFlushInterval());
+        while (batch.size() < flushSize) {
+            queue.drainTo(batch, flushSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= flushSize || remaining <= 0) {
+                return;
+            }
+            PersistentAuditEvent next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void flush(List<PersistentAuditEvent> batch) {
+        Timer.Context context = auditEventMetricSet.getFlushes().time();
+        try {
+            transactionTemplate.execute(status -> persistenceAuditEventRepository.save(batch));
+            auditEventMetricSet.getWritten().mark(batch.size());
+        } catch (RuntimeException e) {
+            auditEventMetricSet.getFailures().inc();
+            log.error("Could not write {} audit events: {}", batch.size(), e.getMessage());
+            log.debug("Audit event failure trace", e);
+        } finally {
+            context.stop();
+        }
+    }
+}
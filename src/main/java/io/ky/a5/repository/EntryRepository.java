@@ -1,16 +1,19 @@
 package io.ky.a5.repository;
 
+import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import io.ky.a5.domain.Entry;
+import io.ky.a5.service.dto.EntrySummaryDTO;
 
 /**
  * Spring Data JPA repository for the Entry entity.
@@ -18,12 +21,81 @@ import io.ky.a5.domain.Entry;
 @SuppressWarnings("unused")
 @Repository
 public interface EntryRepository extends JpaRepository<Entry, Long> {
-    @Query("select distinct entry from Entry entry left join fetch entry.tags")
+
+    String SELECT_SUMMARY = "select new io.ky.a5.service.dto.EntrySummaryDTO(entry.id, entry.title, entry.date," +
+        " substring(entry.content, 1, " + EntrySummaryDTO.EXCERPT_SOURCE_LENGTH + "), blog.id, blog.name, owner.login)" +
+        " from Entry entry join entry.blog blog join blog.user owner";
+
+    /*
+     * The timeline queries of GET /api/entries, whose query plans are checked by the tests.
+     */
+
+    String TIMELINE_PAGE_QUERY = SELECT_SUMMARY + " where owner.login = :login order by entry.date desc";
+
+    String TIMELINE_SLICE_QUERY = SELECT_SUMMARY + " where owner.login = :login order by entry.date desc, entry.id desc";
+
+    String TIMELINE_SLICE_AFTER_QUERY = SELECT_SUMMARY + " where owner.login = :login" +
+        " and (entry.date < :date or (entry.date = :date and entry.id < :id))" +
+        " order by entry.date desc, entry.id desc";
+
+    /*
+     * The content of the entries is a lazy attribute: the queries below load it with "fetch all properties", as
+     * their entries are serialized whole.
+     */
+
+    @Query("select distinct entry from Entry entry fetch all properties left join fetch entry.tags")
     List<Entry> findAllWithEagerRelationships();
 
-    @Query("select entry from Entry entry left join fetch entry.tags where entry.id =:id")
+    @Query("select entry from Entry entry fetch all properties left join fetch entry.tags where entry.id =:id")
     Entry findOneWithEagerRelationships(@Param("id") Long id);
 
-	Page<Entry> findByBlogUserLoginOrderByDateDesc(Optional<String> currentUserLogin, Pageable pageable);
+    @Query("select distinct entry from Entry entry fetch all properties left join fetch entry.tags where entry.id in :ids")
+    List<Entry> findAllWithEagerRelationshipsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Page of the timeline of a user, as summaries read with a single query: the content is cut by the database,
+     * and the tags are read by {@link #findTagNamesByEntryIdIn(Collection)}.
+     */
+    @Query(value = TIMELINE_PAGE_QUERY,
+        countQuery = "select count(entry) from Entry entry where entry.blog.user.login = :login")
+    Page<EntrySummaryDTO> findSummariesByBlogUserLogin(@Param("login") String login, Pageable pageable);
+
+    /**
+     * First slice of the timeline of a user as summaries, for keyset pagination.
+     */
+    @Query(TIMELINE_SLICE_QUERY)
+    Slice<EntrySummaryDTO> findSummarySliceByBlogUserLogin(@Param("login") String login, Pageable pageable);
+
+    /**
+     * Slice of the timeline of a user as summaries, starting right after the entry identified by (date, id).
+     */
+    @Query(TIMELINE_SLICE_AFTER_QUERY)
+    Slice<EntrySummaryDTO> findSummarySliceByBlogUserLoginAfter(@Param("login") String login,
+        @Param("date") ZonedDateTime date, @Param("id") Long id, Pageable pageable);
+
+    /**
+     * Names of the tags of the given entries, as (entry id, tag name) pairs, to complete their summaries.
+     */
+    @Query("select entry.id, tag.name from Entry entry join entry.tags tag where entry.id in :ids")
+    List<Object[]> findTagNamesByEntryIdIn(@Param("ids") Collection<Long> ids);
+
+    long countByBlogUserLogin(String login);
+
+    /**
+     * Most recent entries of a blog, read in the order of the (blog_id, jhi_date, id) index.
+     */
+    Slice<Entry> findSliceByBlogIdOrderByDateDescIdDesc(Long blogId, Pageable pageable);
+
+    /**
+     * Versions making the entity tag of an entry, read without loading the entry and its content: the versions of
+     * the entry and of its blog, the last modification date of the user of the blog, and the sum of the versions
+     * of its tags. The list is empty if the entry doesn't exist.
+     *
+     * @see io.ky.a5.web.rest.util.EntityTagUtil#entityTag(Entry)
+     */
+    @Query("select entry.version, blog.version, owner.lastModifiedDate," +
+        " (select coalesce(sum(tag.version), 0) from Entry tagged join tagged.tags tag where tagged.id = entry.id)" +
+        " from Entry entry left join entry.blog blog left join blog.user owner where entry.id = :id")
+    List<Object[]> findEntityTagVersionsById(@Param("id") Long id);
 
 }
@@ -4,9 +4,16 @@ import io.ky.a5.domain.PersistentAuditEvent;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Spring Data JPA repository for the PersistentAuditEvent entity.
@@ -22,4 +29,31 @@ public interface PersistenceAuditEventRepository extends JpaRepository<Persisten
     List<PersistentAuditEvent> findByPrincipalAndAuditEventDateAfterAndAuditEventType(String principle, Instant after, String type);
 
     Page<PersistentAuditEvent> findAllByAuditEventDateBetween(Instant fromDate, Instant toDate, Pageable pageable);
+
+    /**
+     * Stream the events of a period with their data, in date order, reading them from the database in chunks of
+     * the fetch size. This must be called in a transaction, and the stream closed after use.
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select event from PersistentAuditEvent event left join fetch event.data" +
+        " where event.auditEventDate >= :fromDate and event.auditEventDate < :toDate" +
+        " order by event.auditEventDate asc, event.id asc")
+    Stream<PersistentAuditEvent> streamAllByAuditEventDateBetween(@Param("fromDate") Instant fromDate,
+        @Param("toDate") Instant toDate);
+
+    /**
+     * Read the ids of the oldest expired events, in the order of the (event_date, event_id) index, so that a batch is
+     * a range scan of the index rather than a sort of all the expired events.
+     */
+    @Query("select event.id from PersistentAuditEvent event where event.auditEventDate < :before" +
+        " order by event.auditEventDate asc, event.id asc")
+    List<Long> findIdsByAuditEventDateBefore(@Param("before") Instant before, Pageable pageable);
+
+    @Modifying
+    @Query(value = "delete from jhi_persistent_audit_evt_data where event_id in (:ids)", nativeQuery = true)
+    int deleteDataByEventIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("delete from PersistentAuditEvent event where event.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,32 @@
+package io.ky.a5.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import io.ky.a5.domain.SearchOutboxEvent;
+import io.ky.a5.domain.enumeration.SearchOutboxOperation;
+
+/**
+ * Spring Data JPA repository for the SearchOutboxEvent entity.
+ */
+@Repository
+public interface SearchOutboxRepository extends JpaRepository<SearchOutboxEvent, Long> {
+
+    List<SearchOutboxEvent> findAllByOrderByIdAsc(Pageable pageable);
+
+    Optional<SearchOutboxEvent> findFirstByOrderByIdAsc();
+
+    Optional<SearchOutboxEvent> findFirstByOperationOrderByIdAsc(SearchOutboxOperation operation);
+
+    @Modifying
+    @Query("delete from SearchOutboxEvent searchOutboxEvent where searchOutboxEvent.id in :ids")
+    void deleteByIdIn(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,160 @@
+package io.ky.a5.security;
+
+import io.ky.a5.config.ApplicationProperties;
+import io.ky.a5.config.metrics.PasswordHashingMetricSet;
+
+import com.codahale.metrics.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Password encoder running BCrypt on its own bounded pool of threads, so that the hashes of logins and
+ * registrations can't take the processors of the other requests.
+ * <p>
+ * The caller waits for its hash. When "queue-capacity" hashes are already waiting for a thread, or when a hash is
+ * not done within "max-wait", a {@link PasswordHashingRejectedException} is thrown instead, which the client gets
+ * as a 503.
+ * <p>
+ * Unless "strength" is set, the BCrypt cost factor is chosen at startup: the highest one, between "min-strength" and
+ * "max-strength", whose hashes take less than "target-latency" on this server. Existing hashes keep their own cost
+ * factor, and are still verified.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private static final String CALIBRATION_PASSWORD = "calibration-password";
+
+    private static final int CALIBRATION_RUNS = 3;
+
+    private static final Logger log = LoggerFactory.getLogger(BoundedPasswordEncoder.class);
+
+    private final PasswordEncoder delegate;
+
+    private final PasswordHashingMetricSet passwordHashingMetricSet;
+
+    private final long maxWait;
+
+    private final ThreadPoolExecutor executor;
+
+    public BoundedPasswordEncoder(ApplicationProperties applicationProperties,
+            PasswordHashingMetricSet passwordHashingMetricSet) {
+        this(applicationProperties.getPasswordHashing(), passwordHashingMetricSet,
+            strength(applicationProperties.getPasswordHashing(), passwordHashingMetricSet));
+    }
+
+    private BoundedPasswordEncoder(ApplicationProperties.PasswordHashing properties,
+            PasswordHashingMetricSet passwordHashingMetricSet, int strength) {
+        this(new BCryptPasswordEncoder(strength), properties, passwordHashingMetricSet);
+    }
+
+    BoundedPasswordEncoder(PasswordEncoder delegate, ApplicationProperties.PasswordHashing properties,
+            PasswordHashingMetricSet passwordHashingMetricSet) {
+        this.delegate = delegate;
+        this.passwordHashingMetricSet = passwordHashingMetricSet;
+        this.maxWait = properties.getMaxWait();
+        int threads = properties.getThreads() > 0 ? properties.getThreads()
+            : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("password-hashing-");
+        threadFactory.setDaemon(true);
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity())), threadFactory);
+        passwordHashingMetricSet.setQueued(executor.getQueue()::size);
+        passwordHashingMetricSet.setActive(executor::getActiveCount);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> delegate.encode(rawPassword), passwordHashingMetricSet.getEncodes());
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> delegate.matches(rawPassword, encodedPassword), passwordHashingMetricSet.getMatches());
+    }
+
+    private <T> T run(Callable<T> hash, Timer timer) {
+        long submitted = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                passwordHashingMetricSet.getQueueTime().update(System.nanoTime() - submitted, TimeUnit.NANOSECONDS);
+                Timer.Context context = timer.time();
+                try {
+                    return hash.call();
+                } finally {
+                    context.stop();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            passwordHashingMetricSet.getRejections().mark();
+            throw new PasswordHashingRejectedException("Too many passwords waiting to be hashed", e);
+        }
+        try {
+            return future.get(maxWait, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // A hash still in the queue is dropped; one already running can't be interrupted and completes
+            future.cancel(false);
+            passwordHashingMetricSet.getRejections().mark();
+            throw new PasswordHashingRejectedException("Password not hashed within " + maxWait + " ms", e);
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingRejectedException("Interrupted while waiting for a password hash", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static int strength(ApplicationProperties.PasswordHashing properties,
+            PasswordHashingMetricSet passwordHashingMetricSet) {
+        int strength = properties.getStrength() > 0 ? properties.getStrength() : calibrate(properties);
+        passwordHashingMetricSet.setStrength(strength);
+        return strength;
+    }
+
+    /**
+     * Choose the cost factor from the time of a hash with the minimum one: each step of the cost factor doubles it.
+     */
+    static int calibrate(ApplicationProperties.PasswordHashing properties) {
+        int strength = properties.getMinStrength();
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+        long elapsed = Long.MAX_VALUE;
+        // The fastest of a few runs, as the first ones are slowed down by the JIT compiler
+        for (int i = 0; i < CALIBRATION_RUNS; i++) {
+            long start = System.nanoTime();
+            encoder.encode(CALIBRATION_PASSWORD);
+            elapsed = Math.min(elapsed, System.nanoTime() - start);
+        }
+        long target = TimeUnit.MILLISECONDS.toNanos(properties.getTargetLatency());
+        while (strength < properties.getMaxStrength() && elapsed * 2 <= target) {
+            strength++;
+            elapsed *= 2;
+        }
+        log.info("Hashing passwords with a BCrypt strength of {}, about {} ms per hash", strength,
+            TimeUnit.NANOSECONDS.toMillis(elapsed));
+        return strength;
+    }
+}
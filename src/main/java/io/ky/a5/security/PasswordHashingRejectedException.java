@@ -0,0 +1,18 @@
+package io.ky.a5.security;
+
+/**
+ * This exception is thrown when a password can't be hashed or verified in time, because too many hashes are
+ * waiting for a thread.
+ */
+public class PasswordHashingRejectedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public PasswordHashingRejectedException(String message) {
+        super(message);
+    }
+
+    public PasswordHashingRejectedException(String message, Throwable t) {
+        super(message, t);
+    }
+}
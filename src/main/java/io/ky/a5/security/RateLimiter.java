@@ -0,0 +1,176 @@
+package io.ky.a5.security;
+
+import io.ky.a5.config.ApplicationProperties;
+import io.ky.a5.config.metrics.RateLimitingMetricSet;
+
+import com.codahale.metrics.Meter;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Limits the rate of the requests to the endpoints which run BCrypt, by IP address and by login, so that a burst
+ * of login attempts or registrations can't take all the processors.
+ * <p>
+ * Each IP address and login has a token bucket, refilled with "capacity" tokens per "period". A bucket is a
+ * single timestamp, updated by compare-and-set: the time at which it will be full again. The buckets are spread
+ * over stripes bounded to a share of "application.rate-limiting.max-keys"; a stripe which is full forgets its
+ * idle buckets, whose timestamp is past, then arbitrary ones. Idle buckets are also purged every minute.
+ * <p>
+ * The IP address is the remote address of the request. Behind a reverse proxy, it is the address of the client
+ * only with "server.use-forward-headers" set, as in the "prod" profile.
+ */
+@Component
+public class RateLimiter {
+
+    /**
+     * The rate-limited endpoints.
+     */
+    public enum Endpoint {
+        AUTHENTICATE, REGISTER
+    }
+
+    private static final int STRIPES = 16;
+
+    private final ApplicationProperties.RateLimiting properties;
+
+    private final RateLimitingMetricSet rateLimitingMetricSet;
+
+    private final LongSupplier clock;
+
+    private final Map<String, AtomicLong>[] stripes;
+
+    public RateLimiter(ApplicationProperties applicationProperties, RateLimitingMetricSet rateLimitingMetricSet) {
+        this(applicationProperties, rateLimitingMetricSet, System::nanoTime);
+    }
+
+    @SuppressWarnings("unchecked")
+    RateLimiter(ApplicationProperties applicationProperties, RateLimitingMetricSet rateLimitingMetricSet,
+            LongSupplier clock) {
+        this.properties = applicationProperties.getRateLimiting();
+        this.rateLimitingMetricSet = rateLimitingMetricSet;
+        this.clock = clock;
+        this.stripes = new Map[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ConcurrentHashMap<>();
+        }
+        rateLimitingMetricSet.setKeys(this::size);
+    }
+
+    /**
+     * Take a token from the buckets of an IP address and of a login for an endpoint.
+     *
+     * @param endpoint the endpoint requested
+     * @param ip the IP address of the client
+     * @param login the login sent in the request, possibly null
+     * @return 0 if the request can proceed, or else the number of seconds after which it can be sent again
+     */
+    public long acquire(Endpoint endpoint, String ip, String login) {
+        if (!properties.isEnabled()) {
+            return 0;
+        }
+        ApplicationProperties.RateLimiting.Endpoint limits = limits(endpoint);
+        long period = TimeUnit.SECONDS.toNanos(limits.getPeriod());
+        long now = clock.getAsLong();
+        long wait = acquire(endpoint.name() + " ip " + ip, limits.getIpCapacity(), period, now);
+        if (wait == 0 && login != null) {
+            wait = acquire(endpoint.name() + " login " + login.toLowerCase(Locale.ENGLISH), limits.getLoginCapacity(),
+                period, now);
+        }
+        if (wait == 0) {
+            return 0;
+        }
+        rejections(endpoint).mark();
+        // Rounded up, so that a client waiting for Retry-After always finds a token
+        return TimeUnit.NANOSECONDS.toSeconds(wait + TimeUnit.SECONDS.toNanos(1) - 1);
+    }
+
+    /**
+     * Generic cell rate algorithm: the bucket holds the time at which it will be full, which moves forward by one
+     * emission interval for each token taken. A token can be taken as long as that time is less than a period
+     * ahead.
+     *
+     * @return 0 if a token was taken, or else the number of nanoseconds until one is available
+     */
+    private long acquire(String key, int capacity, long period, long now) {
+        if (capacity <= 0) {
+            return 0;
+        }
+        long interval = period / capacity;
+        long tolerance = period - interval;
+        AtomicLong bucket = bucket(key, now);
+        while (true) {
+            long full = bucket.get();
+            long start = full - now > 0 ? full : now;
+            if (start - now > tolerance) {
+                return start - now - tolerance;
+            }
+            if (bucket.compareAndSet(full, start + interval)) {
+                return 0;
+            }
+        }
+    }
+
+    private AtomicLong bucket(String key, long now) {
+        Map<String, AtomicLong> stripe = stripes[(key.hashCode() & Integer.MAX_VALUE) % STRIPES];
+        AtomicLong bucket = stripe.get(key);
+        if (bucket == null) {
+            int maxKeys = Math.max(1, properties.getMaxKeys() / STRIPES);
+            if (stripe.size() >= maxKeys) {
+                stripe.values().removeIf(idle -> idle.get() - now <= 0);
+                Iterator<String> keys = stripe.keySet().iterator();
+                while (stripe.size() >= maxKeys && keys.hasNext()) {
+                    keys.next();
+                    keys.remove();
+                }
+            }
+            bucket = stripe.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+        return bucket;
+    }
+
+    /**
+     * Forget the idle buckets, which are full: a request from their key would start a new one.
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void purgeIdleKeys() {
+        long now = clock.getAsLong();
+        for (Map<String, AtomicLong> stripe : stripes) {
+            stripe.values().removeIf(bucket -> bucket.get() - now <= 0);
+        }
+    }
+
+    /**
+     * @return the number of IP addresses and logins tracked, including the idle ones which were not purged yet
+     */
+    public int size() {
+        int size = 0;
+        for (Map<String, AtomicLong> stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    private ApplicationProperties.RateLimiting.Endpoint limits(Endpoint endpoint) {
+        switch (endpoint) {
+            case AUTHENTICATE:
+                return properties.getAuthenticate();
+            case REGISTER:
+                return properties.getRegister();
+            default:
+                throw new IllegalArgumentException("Unknown endpoint " + endpoint);
+        }
+    }
+
+    private Meter rejections(Endpoint endpoint) {
+        return endpoint == Endpoint.AUTHENTICATE ? rateLimitingMetricSet.getAuthenticateRejections()
+            : rateLimitingMetricSet.getRegisterRejections();
+    }
+}
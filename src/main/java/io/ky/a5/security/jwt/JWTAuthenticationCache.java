@@ -0,0 +1,131 @@
+package io.ky.a5.security.jwt;
+
+import io.ky.a5.config.ApplicationProperties;
+import io.ky.a5.config.metrics.JWTAuthenticationMetricSet;
+
+import com.codahale.metrics.Timer;
+import io.jsonwebtoken.Claims;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of the authentications of verified JWT tokens, so that a token is parsed and its signature checked once per
+ * node, instead of on every request.
+ * <p>
+ * Tokens are keyed by their SHA-256 hash, which covers their signature, and each entry is only used until the
+ * expiration date of its token. When the cache is full, expired entries are evicted first, then arbitrary ones.
+ */
+@Component
+public class JWTAuthenticationCache {
+
+    private final TokenProvider tokenProvider;
+
+    private final JWTAuthenticationMetricSet jwtAuthenticationMetricSet;
+
+    private final boolean enabled;
+
+    private final int maxEntries;
+
+    private final Map<String, CachedAuthentication> authentications = new ConcurrentHashMap<>();
+
+    public JWTAuthenticationCache(TokenProvider tokenProvider, ApplicationProperties applicationProperties,
+            JWTAuthenticationMetricSet jwtAuthenticationMetricSet) {
+        this.tokenProvider = tokenProvider;
+        this.jwtAuthenticationMetricSet = jwtAuthenticationMetricSet;
+        this.enabled = applicationProperties.getJwtCache().isEnabled();
+        this.maxEntries = applicationProperties.getJwtCache().getMaxEntries();
+    }
+
+    /**
+     * Return the authentication of a token, verifying it if it is not cached.
+     *
+     * @param jwt the token
+     * @return the authentication, or null if the token is not valid
+     */
+    public Authentication getAuthentication(String jwt) {
+        String key = enabled ? hash(jwt) : null;
+        if (key != null) {
+            CachedAuthentication cached = authentications.get(key);
+            if (cached != null) {
+                if (!cached.isExpired(System.currentTimeMillis())) {
+                    jwtAuthenticationMetricSet.getHits().mark();
+                    return cached.authentication;
+                }
+                authentications.remove(key, cached);
+            }
+        }
+        jwtAuthenticationMetricSet.getMisses().mark();
+
+        Claims claims;
+        Timer.Context context = jwtAuthenticationMetricSet.getVerifications().time();
+        try {
+            claims = tokenProvider.parseClaims(jwt);
+        } finally {
+            context.stop();
+        }
+        if (claims == null) {
+            jwtAuthenticationMetricSet.getRejected().mark();
+            return null;
+        }
+        Authentication authentication = tokenProvider.getAuthentication(claims, jwt);
+        if (key != null && claims.getExpiration() != null) {
+            put(key, new CachedAuthentication(authentication, claims.getExpiration().getTime()));
+        }
+        return authentication;
+    }
+
+    /**
+     * @return the number of tokens in the cache, including the expired ones which were not evicted yet
+     */
+    public int size() {
+        return authentications.size();
+    }
+
+    private void put(String key, CachedAuthentication cachedAuthentication) {
+        if (authentications.size() >= maxEntries) {
+            long now = System.currentTimeMillis();
+            authentications.values().removeIf(cached -> cached.isExpired(now));
+            Iterator<String> keys = authentications.keySet().iterator();
+            while (authentications.size() >= maxEntries && keys.hasNext()) {
+                keys.next();
+                keys.remove();
+            }
+        }
+        if (maxEntries > 0) {
+            authentications.put(key, cachedAuthentication);
+        }
+    }
+
+    private static String hash(String jwt) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(jwt.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static final class CachedAuthentication {
+
+        private final Authentication authentication;
+
+        private final long expiration;
+
+        CachedAuthentication(Authentication authentication, long expiration) {
+            this.authentication = authentication;
+            this.expiration = expiration;
+        }
+
+        boolean isExpired(long now) {
+            return now >= expiration;
+        }
+    }
+}
@@ -74,6 +74,17 @@ public class TokenProvider {
             .parseClaimsJws(token)
             .getBody();
 
+        return getAuthentication(claims, token);
+    }
+
+    /**
+     * Build the authentication of a token whose claims have already been verified.
+     *
+     * @param claims the claims returned by {@link #parseClaims(String)}
+     * @param token the token
+     * @return the authentication
+     */
+    public Authentication getAuthentication(Claims claims, String token) {
         Collection<? extends GrantedAuthority> authorities =
             Arrays.stream(claims.get(AUTHORITIES_KEY).toString().split(","))
                 .map(SimpleGrantedAuthority::new)
@@ -85,9 +96,18 @@ public class TokenProvider {
     }
 
     public boolean validateToken(String authToken) {
+        return parseClaims(authToken) != null;
+    }
+
+    /**
+     * Verify a token and read its claims.
+     *
+     * @param authToken the token
+     * @return the claims of the token, or null if it is not valid
+     */
+    public Claims parseClaims(String authToken) {
         try {
-            Jwts.parser().setSigningKey(secretKey).parseClaimsJws(authToken);
-            return true;
+            return Jwts.parser().setSigningKey(secretKey).parseClaimsJws(authToken).getBody();
         } catch (SignatureException e) {
             log.info("Invalid JWT signature.");
             log.trace("Invalid JWT signature trace: {}", e);
@@ -104,6 +124,6 @@ public class TokenProvider {
             log.info("JWT token compact of handler are invalid.");
             log.trace("JWT token compact of handler are invalid trace: {}", e);
         }
-        return false;
+        return null;
     }
 }
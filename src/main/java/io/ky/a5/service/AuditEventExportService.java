@@ -0,0 +1,160 @@
+package io.ky.a5.service;
+
+import io.ky.a5.domain.PersistentAuditEvent;
+import io.ky.a5.repository.PersistenceAuditEventRepository;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Service exporting audit events.
+ * <p>
+ * Events are streamed from the database and written one by one, and are detached from the persistence context
+ * once written, so an export uses the same memory whatever the number of events.
+ */
+@Service
+@Transactional(readOnly = true)
+public class AuditEventExportService {
+
+    /**
+     * The formats of the export.
+     */
+    public enum Format {
+        /**
+         * One JSON object per line.
+         */
+        NDJSON("application/x-ndjson"),
+        CSV("text/csv");
+
+        private final String contentType;
+
+        Format(String contentType) {
+            this.contentType = contentType;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return name().toLowerCase();
+        }
+    }
+
+    private static final String CSV_HEADER = "id,date,principal,type,data";
+
+    private final Logger log = LoggerFactory.getLogger(AuditEventExportService.class);
+
+    private final PersistenceAuditEventRepository persistenceAuditEventRepository;
+
+    private final EntityManager entityManager;
+
+    private final ObjectMapper objectMapper;
+
+    public AuditEventExportService(PersistenceAuditEventRepository persistenceAuditEventRepository,
+            EntityManager entityManager, ObjectMapper objectMapper) {
+
+        this.persistenceAuditEventRepository = persistenceAuditEventRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Write the audit events of a period.
+     *
+     * @param fromDate the start of the period, inclusive
+     * @param toDate the end of the period, exclusive
+     * @param format the format of the export
+     * @param outputStream the stream to write to, which is flushed but not closed
+     * @return the number of exported events
+     * @throws IOException if the events could not be written
+     */
+    public long exportByDates(Instant fromDate, Instant toDate, Format format, OutputStream outputStream)
+            throws IOException {
+
+        log.debug("Exporting audit events from {} to {} as {}", fromDate, toDate, format);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        long count = 0;
+        try (Stream<PersistentAuditEvent> events =
+                 persistenceAuditEventRepository.streamAllByAuditEventDateBetween(fromDate, toDate)) {
+
+            Iterator<PersistentAuditEvent> iterator = events.iterator();
+            if (format == Format.CSV) {
+                writer.write(CSV_HEADER);
+                writer.write("\n");
+                while (iterator.hasNext()) {
+                    writeCsv(iterator.next(), writer);
+                    count++;
+                }
+            } else {
+                SequenceWriter sequenceWriter = objectMapper.writer().withRootValueSeparator("\n").writeValues(writer);
+                while (iterator.hasNext()) {
+                    PersistentAuditEvent event = iterator.next();
+                    sequenceWriter.write(toMap(event));
+                    entityManager.detach(event);
+                    count++;
+                }
+                sequenceWriter.flush();
+                if (count > 0) {
+                    writer.write("\n");
+                }
+            }
+        }
+        writer.flush();
+        return count;
+    }
+
+    private void writeCsv(PersistentAuditEvent event, Writer writer) throws IOException {
+        writer.write(String.valueOf(event.getId()));
+        writer.write(',');
+        writer.write(String.valueOf(event.getAuditEventDate()));
+        writer.write(',');
+        writer.write(escapeCsv(event.getPrincipal()));
+        writer.write(',');
+        writer.write(escapeCsv(event.getAuditEventType()));
+        writer.write(',');
+        writer.write(escapeCsv(objectMapper.writeValueAsString(event.getData())));
+        writer.write('\n');
+        entityManager.detach(event);
+    }
+
+    private Map<String, Object> toMap(PersistentAuditEvent event) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("id", event.getId());
+        map.put("date", event.getAuditEventDate());
+        map.put("principal", event.getPrincipal());
+        map.put("type", event.getAuditEventType());
+        map.put("data", event.getData());
+        return map;
+    }
+
+    /**
+     * Quote a CSV value if it contains a separator, a quote or a line break.
+     */
+    static String escapeCsv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,87 @@
+package io.ky.a5.service;
+
+import io.ky.a5.config.ApplicationProperties;
+import io.ky.a5.config.metrics.AuditEventMetricSet;
+import io.ky.a5.repository.PersistenceAuditEventRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Service deleting the audit events older than the retention period.
+ * <p>
+ * Events are deleted in batches of "purge-batch-size" ids, oldest first, each batch in its own short transaction,
+ * so that the purge never holds locks on a large part of the audit tables.
+ */
+@Service
+public class AuditEventPurgeService {
+
+    private final Logger log = LoggerFactory.getLogger(AuditEventPurgeService.class);
+
+    private final PersistenceAuditEventRepository persistenceAuditEventRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final AuditEventMetricSet auditEventMetricSet;
+
+    public AuditEventPurgeService(PersistenceAuditEventRepository persistenceAuditEventRepository,
+            PlatformTransactionManager transactionManager, ApplicationProperties applicationProperties,
+            AuditEventMetricSet auditEventMetricSet) {
+
+        this.persistenceAuditEventRepository = persistenceAuditEventRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.applicationProperties = applicationProperties;
+        this.auditEventMetricSet = auditEventMetricSet;
+    }
+
+    /**
+     * Audit events are deleted after "application.audit-events.retention-days" days.
+     * <p>
+     * This is scheduled by "application.audit-events.purge-cron", everyday at 01:30 (am) by default.
+     */
+    @Scheduled(cron = "${application.audit-events.purge-cron:0 30 1 * * ?}")
+    public void purgeExpiredEvents() {
+        int retentionDays = applicationProperties.getAuditEvents().getRetentionDays();
+        if (retentionDays > 0) {
+            purgeEventsBefore(Instant.now().minus(retentionDays, ChronoUnit.DAYS));
+        }
+    }
+
+    /**
+     * Delete the audit events older than a date.
+     *
+     * @param before the date of the oldest event to keep
+     * @return the number of deleted events
+     */
+    public long purgeEventsBefore(Instant before) {
+        int batchSize = Math.max(1, applicationProperties.getAuditEvents().getPurgeBatchSize());
+        long purged = 0;
+        int deleted;
+        do {
+            deleted = transactionTemplate.execute(status -> {
+                List<Long> ids = persistenceAuditEventRepository.findIdsByAuditEventDateBefore(before,
+                    new PageRequest(0, batchSize));
+                if (ids.isEmpty()) {
+                    return 0;
+                }
+                persistenceAuditEventRepository.deleteDataByEventIdIn(ids);
+                return persistenceAuditEventRepository.deleteByIdIn(ids);
+            });
+            purged += deleted;
+            auditEventMetricSet.getPurged().mark(deleted);
+        } while (deleted > 0);
+        log.info("Purged {} audit events older than {}", purged, before);
+        return purged;
+    }
+}
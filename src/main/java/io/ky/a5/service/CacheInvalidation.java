@@ -0,0 +1,55 @@
+package io.ky.a5.service;
+
+import java.util.Objects;
+
+/**
+ * Eviction of a cache entry, sent to the other nodes of the cluster.
+ * <p>
+ * The region is either the name of a Spring cache, the name of a cached entity, or the role of a cached collection.
+ * The key is the cache key, or the id of the entity or of the owner of the collection, as a string. A null key
+ * clears the whole region.
+ */
+public final class CacheInvalidation {
+
+    private final String region;
+
+    private final String key;
+
+    public CacheInvalidation(String region, String key) {
+        this.region = Objects.requireNonNull(region);
+        this.key = key;
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        CacheInvalidation that = (CacheInvalidation) o;
+        return region.equals(that.region) && Objects.equals(key, that.key);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(region, key);
+    }
+
+    @Override
+    public String toString() {
+        return "CacheInvalidation{" +
+            "region='" + region + "'" +
+            ", key='" + key + "'" +
+            "}";
+    }
+}
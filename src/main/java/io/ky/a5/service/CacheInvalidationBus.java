@@ -0,0 +1,25 @@
+package io.ky.a5.service;
+
+import java.util.List;
+
+/**
+ * Transport of the cache invalidations between the nodes of the cluster.
+ * <p>
+ * Delivery is at least once: invalidations are idempotent, so a transport may deliver some of them again.
+ *
+ * @see CacheInvalidationService
+ */
+public interface CacheInvalidationBus {
+
+    /**
+     * Send a batch of invalidations to the other nodes.
+     *
+     * @param invalidations the invalidations made on this node
+     */
+    void publish(List<CacheInvalidation> invalidations);
+
+    /**
+     * @return the invalidations published by the other nodes since the previous call
+     */
+    List<CacheInvalidation> receive();
+}
@@ -0,0 +1,104 @@
+package io.ky.a5.service;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.AbstractCollectionEvent;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCollectionRemoveEvent;
+import org.hibernate.event.spi.PostCollectionRemoveEventListener;
+import org.hibernate.event.spi.PostCollectionUpdateEvent;
+import org.hibernate.event.spi.PostCollectionUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.io.Serializable;
+
+/**
+ * Sends the evictions of the Hibernate second-level cache to the other nodes.
+ * <p>
+ * Hibernate evicts or updates the cached entities and collections of this node itself: this listener only queues
+ * the updated and deleted ones in the {@link CacheInvalidationService}, once their transaction has committed.
+ */
+@Component
+public class CacheInvalidationEventListener implements PostUpdateEventListener, PostDeleteEventListener,
+        PostCollectionUpdateEventListener, PostCollectionRemoveEventListener {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient SessionFactoryImplementor sessionFactory;
+
+    private final transient CacheInvalidationService cacheInvalidationService;
+
+    public CacheInvalidationEventListener(EntityManagerFactory entityManagerFactory,
+            CacheInvalidationService cacheInvalidationService) {
+
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.cacheInvalidationService = cacheInvalidationService;
+    }
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_UPDATE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_REMOVE, this);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        onEntityChange(event.getSession(), event.getPersister(), event.getId());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        onEntityChange(event.getSession(), event.getPersister(), event.getId());
+    }
+
+    @Override
+    public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+        onCollectionChange(event);
+    }
+
+    @Override
+    public void onPostRemoveCollection(PostCollectionRemoveEvent event) {
+        onCollectionChange(event);
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private void onEntityChange(EventSource session, EntityPersister persister, Serializable id) {
+        if (persister.hasCache()) {
+            publishAfterCommit(session, new CacheInvalidation(persister.getEntityName(), String.valueOf(id)));
+        }
+    }
+
+    private void onCollectionChange(AbstractCollectionEvent event) {
+        String role = event.getCollection().getRole();
+        CollectionPersister persister = sessionFactory.getMetamodel().collectionPersister(role);
+        if (persister.hasCache()) {
+            Serializable ownerId = event.getAffectedOwnerIdOrNull();
+            publishAfterCommit(event.getSession(),
+                new CacheInvalidation(role, ownerId != null ? String.valueOf(ownerId) : null));
+        }
+    }
+
+    private void publishAfterCommit(EventSource session, CacheInvalidation invalidation) {
+        session.getActionQueue().registerProcess((success, completedSession) -> {
+            if (success) {
+                cacheInvalidationService.publish(invalidation);
+            }
+        });
+    }
+}
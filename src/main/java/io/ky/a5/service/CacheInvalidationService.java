@@ -0,0 +1,256 @@
+package io.ky.a5.service;
+
+import io.ky.a5.config.ApplicationProperties;
+import io.ky.a5.config.metrics.CacheInvalidationMetricSet;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.type.Type;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the caches of the nodes of the cluster consistent.
+ * <p>
+ * Evictions made on a node are queued once their transaction has committed: those of the Spring caches through
+ * {@link #evict}, those of the Hibernate second-level cache by the {@link CacheInvalidationEventListener}. Every
+ * "application.cache-invalidation.poll-interval" milliseconds, the queue is sent as one batch on the
+ * {@link CacheInvalidationBus}, and the invalidations of the other nodes are applied locally.
+ * <p>
+ * Stale entries then live for about the poll interval rather than until their time to live, which can be raised.
+ * <p>
+ * While the bus is down, the invalidations stay queued. Past "application.cache-invalidation.max-pending" of them,
+ * the queue is replaced by one invalidation of each of their regions, which the other nodes clear entirely.
+ */
+@Service
+public class CacheInvalidationService {
+
+    private final Logger log = LoggerFactory.getLogger(CacheInvalidationService.class);
+
+    private final CacheManager cacheManager;
+
+    private final SessionFactoryImplementor sessionFactory;
+
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final CacheInvalidationMetricSet cacheInvalidationMetricSet;
+
+    private final Queue<CacheInvalidation> pending = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+    private final Map<String, Consumer<String>> handlers = new ConcurrentHashMap<>();
+
+    public CacheInvalidationService(CacheManager cacheManager, EntityManagerFactory entityManagerFactory,
+            CacheInvalidationBus cacheInvalidationBus, ApplicationProperties applicationProperties,
+            CacheInvalidationMetricSet cacheInvalidationMetricSet) {
+
+        this.cacheManager = cacheManager;
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        this.applicationProperties = applicationProperties;
+        this.cacheInvalidationMetricSet = cacheInvalidationMetricSet;
+        cacheInvalidationMetricSet.setPending(pendingCount::get);
+    }
+
+    /**
+     * Evict an entry from a Spring cache of this node, and from the same cache of the other nodes.
+     *
+     * @param cacheName the name of the cache
+     * @param key the key of the entry, ignored when null
+     */
+    public void evict(String cacheName, Object key) {
+        if (key == null) {
+            return;
+        }
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.evict(key);
+        }
+        CacheInvalidation invalidation = new CacheInvalidation(cacheName, String.valueOf(key));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // The other nodes must not reload the entry before the change is visible to them
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    publish(invalidation);
+                }
+            });
+        } else {
+            publish(invalidation);
+        }
+    }
+
+    /**
+     * Queue an invalidation for the other nodes, the local caches being already up to date.
+     *
+     * @param invalidation the invalidation
+     */
+    public void publish(CacheInvalidation invalidation) {
+        if (applicationProperties.getCacheInvalidation().isEnabled()) {
+            pending.add(invalidation);
+            pendingCount.incrementAndGet();
+            collapseIfFull();
+        }
+    }
+
+    /**
+     * Replace the queued invalidations by one invalidation of each of their regions, once there are too many.
+     */
+    private synchronized void collapseIfFull() {
+        if (pendingCount.get() <= applicationProperties.getCacheInvalidation().getMaxPending()) {
+            return;
+        }
+        Set<String> regions = new LinkedHashSet<>();
+        CacheInvalidation invalidation;
+        while ((invalidation = pending.poll()) != null) {
+            pendingCount.decrementAndGet();
+            regions.add(invalidation.getRegion());
+        }
+        for (String region : regions) {
+            pending.add(new CacheInvalidation(region, null));
+            pendingCount.incrementAndGet();
+        }
+        cacheInvalidationMetricSet.getCollapses().mark();
+        log.warn("Too many cache invalidations are waiting to be sent, the whole regions {} will be cleared", regions);
+    }
+
+    /**
+     * Apply the invalidations of a region received from the other nodes with a handler, rather than by evicting the
+     * entries of the cache of the same name.
+     *
+     * @param region the region
+     * @param handler the handler, which gets the key of the invalidation, or null when the whole region is cleared
+     */
+    public void registerHandler(String region, Consumer<String> handler) {
+        handlers.put(region, handler);
+    }
+
+    /**
+     * Send the queued invalidations, then apply those of the other nodes.
+     */
+    @Scheduled(fixedDelayString = "${application.cache-invalidation.poll-interval:1000}")
+    public void synchronize() {
+        if (!applicationProperties.getCacheInvalidation().isEnabled()) {
+            return;
+        }
+        try {
+            sendPending();
+            receive();
+        } catch (RuntimeException e) {
+            log.warn("Could not synchronize the caches with the other nodes, it will be retried: {}", e.getMessage());
+            log.debug("Cache synchronization failure trace", e);
+        }
+    }
+
+    /**
+     * Send the queued invalidations as one batch. When the bus fails, they are queued again.
+     *
+     * @return the number of invalidations sent, duplicates removed
+     */
+    public int sendPending() {
+        Set<CacheInvalidation> batch = new LinkedHashSet<>();
+        CacheInvalidation invalidation;
+        while ((invalidation = pending.poll()) != null) {
+            pendingCount.decrementAndGet();
+            batch.add(invalidation);
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        try {
+            cacheInvalidationBus.publish(new ArrayList<>(batch));
+        } catch (RuntimeException e) {
+            pending.addAll(batch);
+            pendingCount.addAndGet(batch.size());
+            collapseIfFull();
+            throw e;
+        }
+        log.debug("Sent {} cache invalidations", batch.size());
+        return batch.size();
+    }
+
+    /**
+     * Apply the invalidations received from the other nodes.
+     *
+     * @return the number of invalidations applied
+     */
+    public int receive() {
+        List<CacheInvalidation> invalidations = cacheInvalidationBus.receive();
+        invalidations.forEach(this::apply);
+        if (!invalidations.isEmpty()) {
+            log.debug("Applied {} cache invalidations", invalidations.size());
+        }
+        return invalidations.size();
+    }
+
+    private void apply(CacheInvalidation invalidation) {
+        String region = invalidation.getRegion();
+        String key = invalidation.getKey();
+        Consumer<String> handler = handlers.get(region);
+        if (handler != null) {
+            handler.accept(key);
+            return;
+        }
+        EntityPersister entityPersister = sessionFactory.getMetamodel().entityPersisters().get(region);
+        if (entityPersister != null) {
+            if (key == null) {
+                sessionFactory.getCache().evictEntityData(region);
+            } else {
+                sessionFactory.getCache().evictEntityData(region, toIdentifier(entityPersister.getIdentifierType(), key));
+            }
+            return;
+        }
+        CollectionPersister collectionPersister = sessionFactory.getMetamodel().collectionPersisters().get(region);
+        if (collectionPersister != null) {
+            if (key == null) {
+                sessionFactory.getCache().evictCollectionData(region);
+            } else {
+                sessionFactory.getCache().evictCollectionData(region,
+                    toIdentifier(collectionPersister.getOwnerEntityPersister().getIdentifierType(), key));
+            }
+            return;
+        }
+        Cache cache = cacheManager.getCache(region);
+        if (cache == null) {
+            log.debug("Ignoring the invalidation of unknown cache {}", region);
+        } else if (key == null) {
+            cache.clear();
+        } else {
+            cache.evict(key);
+        }
+    }
+
+    private static Serializable toIdentifier(Type identifierType, String key) {
+        Class<?> identifierClass = identifierType.getReturnedClass();
+        if (Long.class.equals(identifierClass)) {
+            return Long.valueOf(key);
+        }
+        if (Integer.class.equals(identifierClass)) {
+            return Integer.valueOf(key);
+        }
+        return key;
+    }
+}
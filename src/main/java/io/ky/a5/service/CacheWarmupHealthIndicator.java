@@ -0,0 +1,33 @@
+package io.ky.a5.service;
+
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports the application as OUT_OF_SERVICE while the caches are warming up, so that load balancers only send it
+ * traffic once its caches are loaded.
+ * <p>
+ * A warm-up which failed still ends with UP: the caches then fill up with the traffic, as they would without it.
+ */
+@Component
+public class CacheWarmupHealthIndicator extends AbstractHealthIndicator {
+
+    private final CacheWarmupService cacheWarmupService;
+
+    public CacheWarmupHealthIndicator(CacheWarmupService cacheWarmupService) {
+        this.cacheWarmupService = cacheWarmupService;
+    }
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) {
+        if (cacheWarmupService.isWarmingUp()) {
+            builder.outOfService();
+        } else {
+            builder.up();
+        }
+        builder.withDetail("duration", cacheWarmupService.getDuration().toMillis())
+            .withDetail("loaded", cacheWarmupService.getLoaded())
+            .withDetail("failures", cacheWarmupService.getFailures());
+    }
+}
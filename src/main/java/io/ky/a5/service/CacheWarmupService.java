@@ -0,0 +1,208 @@
+package io.ky.a5.service;
+
+import io.ky.a5.config.ApplicationProperties;
+import io.ky.a5.domain.Blog;
+import io.ky.a5.repository.BlogRepository;
+import io.ky.a5.repository.EntryRepository;
+import io.ky.a5.repository.TagRepository;
+import io.ky.a5.repository.UserRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Loads the hot entities into the second-level cache once the application has started, so that the first requests
+ * after a deploy don't all go to the database.
+ * <p>
+ * The most recent entries of each blog, all the blogs and tags, and the activated users are read by batches, in
+ * parallel on a fork-join pool. Entities read by a query are put in their cache region by Hibernate. Until the
+ * warm-up is over, the {@link CacheWarmupHealthIndicator} reports the application as OUT_OF_SERVICE.
+ */
+@Service
+public class CacheWarmupService {
+
+    private static final String BLOGS = "blogs";
+
+    private static final String ENTRIES = "entries";
+
+    private static final String TAGS = "tags";
+
+    private static final String USERS = "users";
+
+    private final Logger log = LoggerFactory.getLogger(CacheWarmupService.class);
+
+    private final BlogRepository blogRepository;
+
+    private final EntryRepository entryRepository;
+
+    private final TagRepository tagRepository;
+
+    private final UserRepository userRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final TaskExecutor taskExecutor;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final Map<String, AtomicLong> loaded = new LinkedHashMap<>();
+
+    private volatile Instant startDate;
+
+    private volatile Instant endDate;
+
+    private volatile int failures;
+
+    public CacheWarmupService(BlogRepository blogRepository, EntryRepository entryRepository,
+            TagRepository tagRepository, UserRepository userRepository, PlatformTransactionManager transactionManager,
+            @Qualifier("taskExecutor") TaskExecutor taskExecutor, ApplicationProperties applicationProperties) {
+
+        this.blogRepository = blogRepository;
+        this.entryRepository = entryRepository;
+        this.tagRepository = tagRepository;
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.taskExecutor = taskExecutor;
+        this.applicationProperties = applicationProperties;
+        for (String type : new String[] { BLOGS, ENTRIES, TAGS, USERS }) {
+            loaded.put(type, new AtomicLong());
+        }
+    }
+
+    /**
+     * Start the warm-up in the background, when it is enabled.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (applicationProperties.getCacheWarmup().isEnabled()) {
+            taskExecutor.execute(this::warmUp);
+        }
+    }
+
+    /**
+     * Load the hot entities into the caches. A batch which fails is logged and skipped.
+     *
+     * @return the number of entities loaded
+     */
+    public synchronized long warmUp() {
+        ApplicationProperties.CacheWarmup properties = applicationProperties.getCacheWarmup();
+        startDate = Instant.now();
+        endDate = null;
+        failures = 0;
+        loaded.values().forEach(count -> count.set(0));
+        log.info("Warming up the caches");
+
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, properties.getParallelism()));
+        try {
+            int batchSize = properties.getBatchSize();
+            List<Callable<Integer>> tasks = new ArrayList<>();
+            addBatches(tasks, blogRepository.count(), batchSize, this::loadBlogs);
+            addBatches(tasks, tagRepository.count(), batchSize,
+                pageable -> count(TAGS, tagRepository.findAll(pageable).getNumberOfElements()));
+            addBatches(tasks, userRepository.countByActivatedIsTrue(), batchSize,
+                pageable -> count(USERS, userRepository.findSliceByActivatedIsTrueOrderByIdAsc(pageable).getNumberOfElements()));
+            for (Future<Integer> batch : pool.invokeAll(tasks)) {
+                try {
+                    batch.get();
+                } catch (ExecutionException e) {
+                    failures++;
+                    log.warn("Could not warm up a batch of the caches: {}", e.getCause().toString());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Cache warm-up interrupted");
+        } catch (RuntimeException e) {
+            failures++;
+            log.warn("Could not warm up the caches", e);
+        } finally {
+            pool.shutdownNow();
+            endDate = Instant.now();
+        }
+        long total = getLoaded().values().stream().mapToLong(Long::longValue).sum();
+        log.info("Warmed up the caches in {} ms, {} entities loaded: {}", getDuration().toMillis(), total, getLoaded());
+        return total;
+    }
+
+    private void addBatches(List<Callable<Integer>> tasks, long count, int batchSize,
+            Function<Pageable, Integer> loader) {
+
+        for (int page = 0; (long) page * batchSize < count; page++) {
+            Pageable pageable = new PageRequest(page, batchSize, Sort.Direction.ASC, "id");
+            tasks.add(() -> transactionTemplate.execute(status -> loader.apply(pageable)));
+        }
+    }
+
+    private int loadBlogs(Pageable pageable) {
+        Page<Blog> blogs = blogRepository.findAll(pageable);
+        Pageable recentEntries = new PageRequest(0, applicationProperties.getCacheWarmup().getEntriesPerBlog());
+        int entries = 0;
+        for (Blog blog : blogs) {
+            entries += entryRepository.findSliceByBlogIdOrderByDateDescIdDesc(blog.getId(), recentEntries)
+                .getNumberOfElements();
+        }
+        count(ENTRIES, entries);
+        return count(BLOGS, blogs.getNumberOfElements()) + entries;
+    }
+
+    private int count(String type, int count) {
+        loaded.get(type).addAndGet(count);
+        return count;
+    }
+
+    /**
+     * @return true from startup until the end of the warm-up, when it is enabled
+     */
+    public boolean isWarmingUp() {
+        return applicationProperties.getCacheWarmup().isEnabled() && endDate == null;
+    }
+
+    /**
+     * @return the number of entities loaded by the running warm-up, or by the last one, per type
+     */
+    public Map<String, Long> getLoaded() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        loaded.forEach((type, count) -> counts.put(type, count.get()));
+        return Collections.unmodifiableMap(counts);
+    }
+
+    /**
+     * @return the duration of the last warm-up, or the time elapsed since the running one started
+     */
+    public Duration getDuration() {
+        if (startDate == null) {
+            return Duration.ZERO;
+        }
+        return Duration.between(startDate, endDate != null ? endDate : Instant.now());
+    }
+
+    public int getFailures() {
+        return failures;
+    }
+}
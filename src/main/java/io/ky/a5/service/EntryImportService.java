@@ -0,0 +1,259 @@
+package io.ky.a5.service;
+
+import io.ky.a5.config.ApplicationProperties;
+import io.ky.a5.domain.Blog;
+import io.ky.a5.domain.Entry;
+import io.ky.a5.domain.Tag;
+import io.ky.a5.repository.BlogRepository;
+import io.ky.a5.repository.EntryRepository;
+import io.ky.a5.repository.TagRepository;
+import io.ky.a5.service.dto.EntryImportDTO;
+import io.ky.a5.service.dto.EntryImportReportDTO;
+import io.ky.a5.service.dto.EntryImportReportDTO.ItemDTO;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Imports entries in bulk, for instance when moving a blog from another platform.
+ * <p>
+ * The body, either a JSON array or newline-delimited JSON objects, is read with the Jackson streaming parser one
+ * item at a time, so its size doesn't matter. Items are saved by chunks of "application.entry-import.chunk-size",
+ * each in its own transaction, and indexed with one bulk request per chunk. Tags are given by name: the existing
+ * ones are looked up in a dictionary loaded once, and the missing ones are created.
+ * <p>
+ * An invalid item is reported and skipped. When a chunk fails to be saved, its items are saved again one by one,
+ * so that only the faulty ones are reported as failed.
+ */
+@Service
+public class EntryImportService {
+
+    private final Logger log = LoggerFactory.getLogger(EntryImportService.class);
+
+    private final EntryRepository entryRepository;
+
+    private final BlogRepository blogRepository;
+
+    private final TagRepository tagRepository;
+
+    private final SearchIndexService searchIndexService;
+
+    private final ObjectMapper objectMapper;
+
+    private final Validator validator;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ApplicationProperties applicationProperties;
+
+    public EntryImportService(EntryRepository entryRepository, BlogRepository blogRepository,
+            TagRepository tagRepository, SearchIndexService searchIndexService, ObjectMapper objectMapper,
+            Validator validator, PlatformTransactionManager transactionManager,
+            ApplicationProperties applicationProperties) {
+
+        this.entryRepository = entryRepository;
+        this.blogRepository = blogRepository;
+        this.tagRepository = tagRepository;
+        this.searchIndexService = searchIndexService;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.applicationProperties = applicationProperties;
+    }
+
+    /**
+     * Import the entries of a body.
+     *
+     * @param body a JSON array of entries, or entries separated by whitespace, such as newlines
+     * @return the report of the import: when the body is not valid JSON, the items read before the error are
+     * imported, and the error is set in the report
+     * @throws IOException if the body can't be read
+     */
+    public EntryImportReportDTO importEntries(InputStream body) throws IOException {
+        long start = System.nanoTime();
+        Import anImport = new Import();
+        int chunkSize = Math.max(1, applicationProperties.getEntryImport().getChunkSize());
+        List<PendingItem> chunk = new ArrayList<>(chunkSize);
+        int index = 0;
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_ARRAY) {
+                token = parser.nextToken();
+            }
+            while (token != null && token != JsonToken.END_ARRAY) {
+                JsonNode node = parser.readValueAsTree();
+                try {
+                    chunk.add(new PendingItem(index, objectMapper.treeToValue(node, EntryImportDTO.class)));
+                } catch (JsonProcessingException e) {
+                    anImport.fail(index, "Invalid entry: " + e.getOriginalMessage());
+                }
+                index++;
+                if (chunk.size() >= chunkSize) {
+                    importChunk(anImport, chunk);
+                    chunk.clear();
+                }
+                token = parser.nextToken();
+            }
+        } catch (JsonProcessingException e) {
+            anImport.report.setError("Invalid JSON after item " + index + ": " + e.getOriginalMessage());
+        } finally {
+            if (!chunk.isEmpty()) {
+                importChunk(anImport, chunk);
+            }
+        }
+
+        EntryImportReportDTO report = anImport.report;
+        report.getItems().sort((a, b) -> Integer.compare(a.getIndex(), b.getIndex()));
+        report.setTotal(report.getItems().size());
+        report.setImported(report.getItems().stream().filter(ItemDTO::isImported).count());
+        report.setFailed(report.getTotal() - report.getImported());
+        report.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+        report.setEntriesPerSecond(report.getImported() * 1000.0 / Math.max(1, report.getElapsedMillis()));
+        log.info("Imported {} entries in {} ms ({} failed, {} tags created)", report.getImported(),
+            report.getElapsedMillis(), report.getFailed(), report.getCreatedTags());
+        return report;
+    }
+
+    private void importChunk(Import anImport, List<PendingItem> chunk) {
+        try {
+            anImport.commit(transactionTemplate.execute(status -> save(anImport, chunk)));
+        } catch (RuntimeException e) {
+            log.debug("Could not import a chunk of {} entries, importing them one by one: {}", chunk.size(), e.getMessage());
+            for (PendingItem item : chunk) {
+                try {
+                    anImport.commit(transactionTemplate.execute(status -> save(anImport, Collections.singletonList(item))));
+                } catch (RuntimeException itemException) {
+                    anImport.fail(item.index, "Could not save the entry: " + itemException.getMessage());
+                }
+            }
+        }
+    }
+
+    private SavedChunk save(Import anImport, List<PendingItem> items) {
+        // Blogs and tags are loaded with one query per chunk, rather than as proxies, so that they are indexed too
+        Map<Long, Blog> blogs = blogRepository.findAll(items.stream()
+                .map(item -> item.entry.getBlogId())
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet())).stream()
+            .collect(Collectors.toMap(Blog::getId, Function.identity()));
+        Map<Long, Tag> tags = tagRepository.findAll(items.stream()
+                .flatMap(item -> item.getTagNames().stream())
+                .map(anImport.tagIds::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet())).stream()
+            .collect(Collectors.toMap(Tag::getId, Function.identity()));
+
+        SavedChunk savedChunk = new SavedChunk();
+        List<Entry> entries = new ArrayList<>();
+        for (PendingItem item : items) {
+            EntryImportDTO dto = item.entry;
+            Entry entry = new Entry().title(dto.getTitle()).content(dto.getContent()).date(dto.getDate());
+            Set<ConstraintViolation<Entry>> violations = validator.validate(entry);
+            if (!violations.isEmpty()) {
+                savedChunk.items.add(new ItemDTO(item.index, null, violations.stream()
+                    .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "))));
+                continue;
+            }
+            if (dto.getBlogId() != null) {
+                Blog blog = blogs.get(dto.getBlogId());
+                if (blog == null) {
+                    savedChunk.items.add(new ItemDTO(item.index, null, "Unknown blog " + dto.getBlogId()));
+                    continue;
+                }
+                entry.setBlog(blog);
+            }
+            for (String tagName : item.getTagNames()) {
+                Long tagId = anImport.tagIds.get(tagName);
+                Tag tag = tagId != null ? tags.get(tagId) : savedChunk.createdTags.computeIfAbsent(tagName,
+                    name -> tagRepository.save(new Tag().name(name)));
+                // Only the owning side is set, so that the entries of the tag aren't loaded
+                entry.getTags().add(tag);
+            }
+            entries.add(entryRepository.save(entry));
+            savedChunk.items.add(new ItemDTO(item.index, entry.getId(), null));
+        }
+        searchIndexService.indexAll(Tag.class, savedChunk.createdTags.values());
+        searchIndexService.indexAll(Entry.class, entries);
+        return savedChunk;
+    }
+
+    /**
+     * State of a running import.
+     */
+    private class Import {
+
+        private final EntryImportReportDTO report = new EntryImportReportDTO();
+
+        /**
+         * Ids of the tags, by name, updated once the tags created by a chunk are committed.
+         */
+        private final Map<String, Long> tagIds = new HashMap<>();
+
+        Import() {
+            for (Tag tag : tagRepository.findAll()) {
+                tagIds.putIfAbsent(tag.getName(), tag.getId());
+            }
+        }
+
+        void commit(SavedChunk savedChunk) {
+            report.getItems().addAll(savedChunk.items);
+            savedChunk.createdTags.forEach((name, tag) -> tagIds.put(name, tag.getId()));
+            report.setCreatedTags(report.getCreatedTags() + savedChunk.createdTags.size());
+        }
+
+        void fail(int index, String error) {
+            report.getItems().add(new ItemDTO(index, null, error));
+        }
+    }
+
+    /**
+     * Outcome of a chunk, only taken into account once its transaction has committed.
+     */
+    private static class SavedChunk {
+
+        private final List<ItemDTO> items = new ArrayList<>();
+
+        private final Map<String, Tag> createdTags = new LinkedHashMap<>();
+    }
+
+    private static class PendingItem {
+
+        private final int index;
+
+        private final EntryImportDTO entry;
+
+        PendingItem(int index, EntryImportDTO entry) {
+            this.index = index;
+            this.entry = entry;
+        }
+
+        Set<String> getTagNames() {
+            return entry.getTags() != null ? entry.getTags() : Collections.emptySet();
+        }
+    }
+}
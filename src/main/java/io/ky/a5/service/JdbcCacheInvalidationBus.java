@@ -0,0 +1,99 @@
+package io.ky.a5.service;
+
+import io.ky.a5.config.ApplicationProperties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Cache invalidation bus going through a table shared by all the nodes.
+ * <p>
+ * Each node inserts its invalidations in the "cache_invalidation" table, and polls the rows inserted by the other
+ * nodes. Rows are dated with the clock of the database, so the clocks of the nodes don't matter. A poll reads back
+ * "lookback" milliseconds, so that rows committed after a later poll are still seen, and skips the rows it already
+ * received. Rows older than "retention" milliseconds are deleted by the polls.
+ */
+@Component
+public class JdbcCacheInvalidationBus implements CacheInvalidationBus {
+
+    private final Logger log = LoggerFactory.getLogger(JdbcCacheInvalidationBus.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final String nodeId;
+
+    private final ApplicationProperties applicationProperties;
+
+    /**
+     * Creation date of the rows already received, by id, pruned once they fall out of the lookback.
+     */
+    private final Map<Long, Timestamp> received = new HashMap<>();
+
+    private Timestamp lastPoll;
+
+    @Autowired
+    public JdbcCacheInvalidationBus(JdbcTemplate jdbcTemplate, ApplicationProperties applicationProperties) {
+        this(jdbcTemplate, UUID.randomUUID().toString(), applicationProperties);
+    }
+
+    /**
+     * @param nodeId the id of this node, which must be unique in the cluster
+     */
+    public JdbcCacheInvalidationBus(JdbcTemplate jdbcTemplate, String nodeId, ApplicationProperties applicationProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.nodeId = nodeId;
+        this.applicationProperties = applicationProperties;
+    }
+
+    @Override
+    public void publish(List<CacheInvalidation> invalidations) {
+        jdbcTemplate.batchUpdate(
+            "insert into cache_invalidation (node_id, region, cache_key, created_date) values (?, ?, ?, current_timestamp)",
+            invalidations, applicationProperties.getCacheInvalidation().getBatchSize(), (ps, invalidation) -> {
+                ps.setString(1, nodeId);
+                ps.setString(2, invalidation.getRegion());
+                ps.setString(3, invalidation.getKey());
+            });
+    }
+
+    @Override
+    public synchronized List<CacheInvalidation> receive() {
+        ApplicationProperties.CacheInvalidation properties = applicationProperties.getCacheInvalidation();
+        Timestamp now = jdbcTemplate.queryForObject("select current_timestamp", Timestamp.class);
+        Timestamp since = new Timestamp((lastPoll != null ? lastPoll : now).getTime() - properties.getLookback());
+        lastPoll = now;
+
+        List<CacheInvalidation> invalidations = new ArrayList<>();
+        jdbcTemplate.query(
+            "select id, region, cache_key, created_date from cache_invalidation" +
+            " where created_date >= ? and node_id <> ? order by id",
+            rs -> {
+                long id = rs.getLong("id");
+                if (received.put(id, rs.getTimestamp("created_date")) == null) {
+                    invalidations.add(new CacheInvalidation(rs.getString("region"), rs.getString("cache_key")));
+                }
+            }, since, nodeId);
+        received.values().removeIf(createdDate -> createdDate.before(since));
+
+        int purged = jdbcTemplate.update("delete from cache_invalidation where created_date < ?",
+            new Timestamp(now.getTime() - properties.getRetention()));
+        if (purged > 0) {
+            log.debug("Purged {} cache invalidations", purged);
+        }
+        return invalidations;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+}
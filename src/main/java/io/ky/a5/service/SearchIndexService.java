@@ -0,0 +1,145 @@
+package io.ky.a5.service;
+
+import io.ky.a5.config.ApplicationProperties;
+import io.ky.a5.domain.Blog;
+import io.ky.a5.domain.Entry;
+import io.ky.a5.domain.SearchOutboxEvent;
+import io.ky.a5.domain.Tag;
+import io.ky.a5.domain.User;
+import io.ky.a5.domain.enumeration.SearchOutboxOperation;
+import io.ky.a5.repository.SearchOutboxRepository;
+import io.ky.a5.repository.search.BlogSearchRepository;
+import io.ky.a5.repository.search.EntrySearchRepository;
+import io.ky.a5.repository.search.TagSearchRepository;
+import io.ky.a5.repository.search.UserSearchRepository;
+
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.elasticsearch.repository.ElasticsearchRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Service keeping the Elasticsearch indices in sync with the database.
+ * <p>
+ * In asynchronous mode (the default), changes are written to the search outbox in the caller's transaction, so
+ * they are committed or rolled back together with the entity, and the {@link SearchOutboxDrainer} pushes them to
+ * Elasticsearch in bulk. Requests then neither wait for Elasticsearch nor fail when it is down.
+ * <p>
+ * In synchronous mode, entities are indexed directly through their search repository.
+ * <p>
+ * Either way, the cached search results of an entity type are invalidated once its index has been written.
+ */
+@Service
+@Transactional
+public class SearchIndexService {
+
+    private final Logger log = LoggerFactory.getLogger(SearchIndexService.class);
+
+    private final SearchOutboxRepository searchOutboxRepository;
+
+    private final EntityManager entityManager;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final SearchResultCache searchResultCache;
+
+    private final Map<String, ElasticsearchRepository<?, Long>> searchRepositories = new HashMap<>();
+
+    public SearchIndexService(SearchOutboxRepository searchOutboxRepository, EntityManager entityManager,
+            ApplicationProperties applicationProperties, SearchResultCache searchResultCache,
+            BlogSearchRepository blogSearchRepository, EntrySearchRepository entrySearchRepository,
+            TagSearchRepository tagSearchRepository, UserSearchRepository userSearchRepository) {
+
+        this.searchOutboxRepository = searchOutboxRepository;
+        this.entityManager = entityManager;
+        this.applicationProperties = applicationProperties;
+        this.searchResultCache = searchResultCache;
+        searchRepositories.put(entityType(Blog.class), blogSearchRepository);
+        searchRepositories.put(entityType(Entry.class), entrySearchRepository);
+        searchRepositories.put(entityType(Tag.class), tagSearchRepository);
+        searchRepositories.put(entityType(User.class), userSearchRepository);
+    }
+
+    /**
+     * Index, or re-index, an entity which has been saved.
+     *
+     * @param entity the entity, which must already have an id
+     */
+    @SuppressWarnings("unchecked")
+    public void index(Object entity) {
+        Class<?> entityClass = Hibernate.getClass(entity);
+        Long id = (Long) entityManager.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(entity);
+        if (applicationProperties.getSearchIndexing().isAsync()) {
+            schedule(entityClass, id, SearchOutboxOperation.INDEX);
+        } else {
+            ((ElasticsearchRepository<Object, Long>) getSearchRepository(entityClass)).save(entity);
+            searchResultCache.invalidate(entityClass);
+        }
+    }
+
+    /**
+     * Index, or re-index, entities of the same class which have been saved, with a single bulk request in
+     * synchronous mode.
+     *
+     * @param entityClass the class of the entities
+     * @param entities the entities, which must already have an id
+     */
+    @SuppressWarnings("unchecked")
+    public void indexAll(Class<?> entityClass, Collection<?> entities) {
+        if (entities.isEmpty()) {
+            return;
+        }
+        if (applicationProperties.getSearchIndexing().isAsync()) {
+            for (Object entity : entities) {
+                Long id = (Long) entityManager.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(entity);
+                schedule(entityClass, id, SearchOutboxOperation.INDEX);
+            }
+        } else {
+            ((ElasticsearchRepository<Object, Long>) getSearchRepository(entityClass)).save((Iterable<Object>) entities);
+            searchResultCache.invalidate(entityClass);
+        }
+    }
+
+    /**
+     * Remove an entity which has been deleted from the index.
+     *
+     * @param entityClass the class of the entity
+     * @param id the id of the entity
+     */
+    public void delete(Class<?> entityClass, Long id) {
+        if (applicationProperties.getSearchIndexing().isAsync()) {
+            schedule(entityClass, id, SearchOutboxOperation.DELETE);
+        } else {
+            getSearchRepository(entityClass).delete(id);
+            searchResultCache.invalidate(entityClass);
+        }
+    }
+
+    private void schedule(Class<?> entityClass, Long id, SearchOutboxOperation operation) {
+        getSearchRepository(entityClass);
+        log.debug("Scheduling {} of {} {} in the search outbox", operation, entityClass.getSimpleName(), id);
+        searchOutboxRepository.save(new SearchOutboxEvent(entityType(entityClass), id, operation));
+    }
+
+    private ElasticsearchRepository<?, Long> getSearchRepository(Class<?> entityClass) {
+        ElasticsearchRepository<?, Long> searchRepository = searchRepositories.get(entityType(entityClass));
+        if (searchRepository == null) {
+            throw new IllegalArgumentException("No search index for " + entityClass.getName());
+        }
+        return searchRepository;
+    }
+
+    /**
+     * @return the name under which changes of this entity class are stored in the search outbox
+     */
+    static String entityType(Class<?> entityClass) {
+        return entityClass.getSimpleName();
+    }
+}
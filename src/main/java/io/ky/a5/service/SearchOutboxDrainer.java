@@ -0,0 +1,275 @@
+package io.ky.a5.service;
+
+import io.ky.a5.config.ApplicationProperties;
+import io.ky.a5.config.metrics.SearchOutboxMetricSet;
+import io.ky.a5.domain.Blog;
+import io.ky.a5.domain.Entry;
+import io.ky.a5.domain.SearchOutboxEvent;
+import io.ky.a5.domain.Tag;
+import io.ky.a5.domain.User;
+import io.ky.a5.domain.enumeration.SearchOutboxOperation;
+import io.ky.a5.repository.BlogRepository;
+import io.ky.a5.repository.EntryRepository;
+import io.ky.a5.repository.SearchOutboxRepository;
+import io.ky.a5.repository.TagRepository;
+import io.ky.a5.repository.UserRepository;
+
+import com.codahale.metrics.Timer;
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.client.Client;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.core.ElasticsearchTemplate;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentEntity;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.data.elasticsearch.core.query.IndexQueryBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Pushes the changes recorded in the search outbox to Elasticsearch.
+ * <p>
+ * The outbox is read in batches, in the order the changes were made. Within a batch, changes to the same entity are
+ * coalesced so that only its last state is sent, entities to index are loaded from the database with one query per
+ * type, and everything is written with bulk requests. Outbox rows are only removed once Elasticsearch accepted the
+ * batch: when it is down, changes stay in the outbox and are retried at the next flush.
+ * <p>
+ * A single node drains the outbox at a time: each batch is pushed while holding the lock of the one row of the
+ * "search_outbox_lock" table, until its outbox rows are deleted and its transaction commits. Otherwise a node could
+ * push the state of an entity it had loaded after another node pushed a newer state and removed its rows, and the
+ * index would stay stale. The other nodes wait for the lock, then read what is left of the outbox, so a change is
+ * always pushed from a state loaded after the previous pushes of its entity.
+ * <p>
+ * While the {@link SearchReindexService} rebuilds the indices, it keeps a REINDEX row in the outbox, and no node
+ * drains it: changes pushed to the previous indices would be lost when their aliases are switched, so they wait in
+ * the outbox, and are pushed to the new indices once the job has completed.
+ */
+@Service
+public class SearchOutboxDrainer {
+
+    private final Logger log = LoggerFactory.getLogger(SearchOutboxDrainer.class);
+
+    private final SearchOutboxRepository searchOutboxRepository;
+
+    private final ElasticsearchTemplate elasticsearchTemplate;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final SearchOutboxMetricSet searchOutboxMetricSet;
+
+    private final SearchResultCache searchResultCache;
+
+    private final Map<String, IndexedType> indexedTypes = new HashMap<>();
+
+    public SearchOutboxDrainer(SearchOutboxRepository searchOutboxRepository, ElasticsearchTemplate elasticsearchTemplate,
+            JdbcTemplate jdbcTemplate, EntityManager entityManager, PlatformTransactionManager transactionManager,
+            ApplicationProperties applicationProperties, SearchOutboxMetricSet searchOutboxMetricSet,
+            SearchResultCache searchResultCache, BlogRepository blogRepository, EntryRepository entryRepository, TagRepository tagRepository,
+            UserRepository userRepository) {
+
+        this.searchOutboxRepository = searchOutboxRepository;
+        this.elasticsearchTemplate = elasticsearchTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.applicationProperties = applicationProperties;
+        this.searchOutboxMetricSet = searchOutboxMetricSet;
+        this.searchResultCache = searchResultCache;
+        register(Blog.class, blogRepository::findAll);
+        register(Entry.class, entryRepository::findAllWithEagerRelationshipsByIdIn);
+        register(Tag.class, tagRepository::findAll);
+        register(User.class, userRepository::findAll);
+    }
+
+    private void register(Class<?> entityClass, Function<Collection<Long>, List<?>> loader) {
+        indexedTypes.put(SearchIndexService.entityType(entityClass), new IndexedType(entityClass, loader));
+    }
+
+    /**
+     * Flush the outbox until it is empty, or until a batch fails.
+     * <p>
+     * This is scheduled to run every "application.search-indexing.flush-interval" milliseconds, after the previous
+     * run has completed.
+     */
+    @Scheduled(fixedDelayString = "${application.search-indexing.flush-interval:1000}")
+    public void drain() {
+        if (!applicationProperties.getSearchIndexing().isAsync()) {
+            return;
+        }
+        int batchSize = applicationProperties.getSearchIndexing().getBatchSize();
+        int flushed;
+        do {
+            flushed = flush();
+        } while (flushed >= batchSize);
+        updateBacklog();
+    }
+
+    /**
+     * Push one batch of the outbox to Elasticsearch.
+     *
+     * @return the number of outbox rows which were pushed, 0 if the outbox is empty or the batch failed
+     */
+    public int flush() {
+        Timer.Context context = searchOutboxMetricSet.getFlushes().time();
+        try {
+            return transactionTemplate.execute(status -> flushBatch());
+        } catch (RuntimeException e) {
+            searchOutboxMetricSet.getFailures().inc();
+            log.warn("Could not push the search outbox to Elasticsearch, it will be retried: {}", e.getMessage());
+            log.debug("Search outbox failure trace", e);
+            return 0;
+        } finally {
+            context.stop();
+        }
+    }
+
+    private int flushBatch() {
+        // Held until the transaction completes: the other nodes wait for this batch to be pushed and deleted
+        jdbcTemplate.queryForObject("select id from search_outbox_lock where id = 1 for update", Long.class);
+        if (isPausedByReindex()) {
+            return 0;
+        }
+        // The marker of a reindex job which started since the check is kept
+        List<SearchOutboxEvent> events = searchOutboxRepository.findAllByOrderByIdAsc(
+            new PageRequest(0, applicationProperties.getSearchIndexing().getBatchSize())).stream()
+            .filter(event -> event.getOperation() != SearchOutboxOperation.REINDEX)
+            .collect(Collectors.toList());
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        // Keep the last operation for each entity, in the order the entities were first changed
+        Map<String, Map<Long, SearchOutboxOperation>> changes = new LinkedHashMap<>();
+        for (SearchOutboxEvent event : events) {
+            Map<Long, SearchOutboxOperation> changesOfType =
+                changes.computeIfAbsent(event.getEntityType(), entityType -> new LinkedHashMap<>());
+            changesOfType.remove(event.getEntityId());
+            changesOfType.put(event.getEntityId(), event.getOperation());
+        }
+
+        Client client = elasticsearchTemplate.getClient();
+        List<IndexQuery> indexQueries = new ArrayList<>();
+        BulkRequestBuilder deleteRequests = client.prepareBulk();
+        int distinctChanges = 0;
+        List<Class<?>> changedClasses = new ArrayList<>();
+        for (Map.Entry<String, Map<Long, SearchOutboxOperation>> changesOfType : changes.entrySet()) {
+            IndexedType indexedType = indexedTypes.get(changesOfType.getKey());
+            if (indexedType == null) {
+                log.warn("Dropping search outbox changes of unknown type {}", changesOfType.getKey());
+                continue;
+            }
+            distinctChanges += changesOfType.getValue().size();
+            changedClasses.add(indexedType.entityClass);
+            List<Long> idsToIndex = changesOfType.getValue().entrySet().stream()
+                .filter(change -> change.getValue() == SearchOutboxOperation.INDEX)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+            Set<Long> idsToDelete = new HashSet<>(changesOfType.getValue().keySet());
+            if (!idsToIndex.isEmpty()) {
+                for (Object entity : indexedType.loader.apply(idsToIndex)) {
+                    Object id = entityManager.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(entity);
+                    indexQueries.add(new IndexQueryBuilder().withId(String.valueOf(id)).withObject(entity).build());
+                    idsToDelete.remove(id);
+                }
+            }
+            // Entities deleted from the database since their change was recorded are removed from the index
+            ElasticsearchPersistentEntity<?> persistentEntity =
+                elasticsearchTemplate.getPersistentEntityFor(indexedType.entityClass);
+            for (Long id : idsToDelete) {
+                deleteRequests.add(client.prepareDelete(persistentEntity.getIndexName(), persistentEntity.getIndexType(),
+                    String.valueOf(id)));
+            }
+        }
+
+        if (!indexQueries.isEmpty()) {
+            elasticsearchTemplate.bulkIndex(indexQueries);
+        }
+        if (deleteRequests.numberOfActions() > 0) {
+            BulkResponse response = deleteRequests.get();
+            if (response.hasFailures()) {
+                throw new IllegalStateException("Bulk delete failed: " + response.buildFailureMessage());
+            }
+        }
+        // Make the changes visible to searches before the cached results are dropped
+        for (Class<?> changedClass : changedClasses) {
+            elasticsearchTemplate.refresh(changedClass);
+            searchResultCache.invalidate(changedClass);
+        }
+        searchOutboxRepository.deleteByIdIn(events.stream().map(SearchOutboxEvent::getId).collect(Collectors.toList()));
+
+        searchOutboxMetricSet.getIndexed().mark(indexQueries.size());
+        searchOutboxMetricSet.getDeleted().mark(deleteRequests.numberOfActions());
+        searchOutboxMetricSet.getCoalesced().mark(events.size() - distinctChanges);
+        log.debug("Pushed {} search outbox changes: {} indexed, {} deleted", events.size(), indexQueries.size(),
+            deleteRequests.numberOfActions());
+        return events.size();
+    }
+
+    /**
+     * @return true while a reindex job runs, unless it started more than "pause-timeout" ago, in which case its
+     * node is assumed to have stopped, and its marker is removed
+     */
+    private boolean isPausedByReindex() {
+        Optional<SearchOutboxEvent> marker =
+            searchOutboxRepository.findFirstByOperationOrderByIdAsc(SearchOutboxOperation.REINDEX);
+        if (!marker.isPresent()) {
+            return false;
+        }
+        Instant timeout = marker.get().getCreatedDate()
+            .plusMillis(applicationProperties.getSearchReindex().getPauseTimeout());
+        if (Instant.now().isBefore(timeout)) {
+            log.debug("Search outbox paused by the reindex job started at {}", marker.get().getCreatedDate());
+            return true;
+        }
+        log.warn("Draining the search outbox again, the reindex job started at {} did not complete",
+            marker.get().getCreatedDate());
+        searchOutboxRepository.delete(marker.get());
+        return false;
+    }
+
+    private void updateBacklog() {
+        try {
+            searchOutboxMetricSet.updateBacklog(searchOutboxRepository.count(),
+                searchOutboxRepository.findFirstByOrderByIdAsc().map(SearchOutboxEvent::getCreatedDate).orElse(null));
+        } catch (RuntimeException e) {
+            log.debug("Could not read the search outbox backlog: {}", e.getMessage());
+        }
+    }
+
+    private static class IndexedType {
+
+        private final Class<?> entityClass;
+
+        private final Function<Collection<Long>, List<?>> loader;
+
+        IndexedType(Class<?> entityClass, Function<Collection<Long>, List<?>> loader) {
+            this.entityClass = entityClass;
+            this.loader = loader;
+        }
+    }
+}
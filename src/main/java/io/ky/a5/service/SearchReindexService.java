@@ -0,0 +1,407 @@
+package io.ky.a5.service;
+
+import io.ky.a5.config.ApplicationProperties;
+import io.ky.a5.domain.Blog;
+import io.ky.a5.domain.Entry;
+import io.ky.a5.domain.SearchOutboxEvent;
+import io.ky.a5.domain.Tag;
+import io.ky.a5.domain.User;
+import io.ky.a5.domain.enumeration.SearchOutboxOperation;
+import io.ky.a5.repository.SearchOutboxRepository;
+import io.ky.a5.service.dto.SearchReindexStatusDTO;
+import io.ky.a5.service.dto.SearchReindexStatusDTO.IndexStatusDTO;
+
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequestBuilder;
+import org.elasticsearch.client.IndicesAdminClient;
+import org.elasticsearch.cluster.metadata.AliasMetaData;
+import org.elasticsearch.common.collect.ImmutableOpenMap;
+import org.elasticsearch.indices.InvalidAliasNameException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.elasticsearch.core.ElasticsearchTemplate;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentEntity;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.data.elasticsearch.core.query.IndexQueryBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Rebuilds the search indices from the database.
+ * <p>
+ * Each index is rebuilt into a fresh index, named after its alias and the start time of the job. The id range of
+ * the entity is split into chunks, which are read from the database and written with a bulk request in parallel on
+ * a fork-join pool. Once all the chunks are written, the alias is switched to the new index in a single request,
+ * so searches never see a partial index, and the previous index is deleted. The new index is created with the
+ * settings and the mapping of the entity class, so that mapping changes are applied.
+ * <p>
+ * The search outbox is paused while the job runs, on every node, by a REINDEX row: changes made in the meantime
+ * wait in the outbox, and are pushed to the new indices once the job has completed. Changes indexed synchronously,
+ * when "application.search-indexing.async" is false, may still be lost if their chunk was already read.
+ */
+@Service
+public class SearchReindexService {
+
+    private static final int MAX_ALIAS_ATTEMPTS = 3;
+
+    private final Logger log = LoggerFactory.getLogger(SearchReindexService.class);
+
+    private final ElasticsearchTemplate elasticsearchTemplate;
+
+    private final EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final TaskExecutor taskExecutor;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final SearchResultCache searchResultCache;
+
+    private final SearchOutboxRepository searchOutboxRepository;
+
+    private final List<IndexedType> indexedTypes = new ArrayList<>();
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private volatile Instant startDate;
+
+    private volatile Instant endDate;
+
+    private volatile List<IndexProgress> progress = Collections.emptyList();
+
+    public SearchReindexService(ElasticsearchTemplate elasticsearchTemplate, EntityManager entityManager,
+            PlatformTransactionManager transactionManager, @Qualifier("taskExecutor") TaskExecutor taskExecutor,
+            ApplicationProperties applicationProperties, SearchResultCache searchResultCache,
+            SearchOutboxRepository searchOutboxRepository) {
+
+        this.elasticsearchTemplate = elasticsearchTemplate;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.taskExecutor = taskExecutor;
+        this.applicationProperties = applicationProperties;
+        this.searchResultCache = searchResultCache;
+        this.searchOutboxRepository = searchOutboxRepository;
+        indexedTypes.add(new IndexedType(Blog.class, "select e from Blog e"));
+        indexedTypes.add(new IndexedType(Entry.class, "select distinct e from Entry e fetch all properties left join fetch e.tags"));
+        indexedTypes.add(new IndexedType(Tag.class, "select e from Tag e"));
+        indexedTypes.add(new IndexedType(User.class, "select e from User e"));
+    }
+
+    /**
+     * Start rebuilding all the search indices in the background.
+     *
+     * @return false if a reindex job is already running
+     */
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        String suffix = "-" + System.currentTimeMillis();
+        progress = indexedTypes.stream()
+            .map(indexedType -> new IndexProgress(indexedType, suffix))
+            .collect(Collectors.toList());
+        startDate = Instant.now();
+        endDate = null;
+        try {
+            taskExecutor.execute(this::reindexAll);
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+        return true;
+    }
+
+    /**
+     * @return the progress of the running job, or of the last one
+     */
+    public SearchReindexStatusDTO getStatus() {
+        SearchReindexStatusDTO status = new SearchReindexStatusDTO();
+        status.setRunning(running.get());
+        status.setStartDate(startDate);
+        status.setEndDate(endDate);
+        status.setIndices(progress.stream().map(IndexProgress::toDTO).collect(Collectors.toList()));
+        return status;
+    }
+
+    private void reindexAll() {
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, applicationProperties.getSearchReindex().getParallelism()));
+        SearchOutboxEvent pause = null;
+        try {
+            pause = searchOutboxRepository.save(new SearchOutboxEvent("*", 0L, SearchOutboxOperation.REINDEX));
+            for (IndexProgress indexProgress : progress) {
+                try {
+                    reindex(indexProgress, pool);
+                } catch (Exception e) {
+                    indexProgress.fail(e);
+                    log.error("Could not rebuild search index {}", indexProgress.index, e);
+                    deleteIndexQuietly(indexProgress.index);
+                }
+            }
+        } finally {
+            pool.shutdown();
+            resume(pause);
+            endDate = Instant.now();
+            running.set(false);
+        }
+    }
+
+    private void resume(SearchOutboxEvent pause) {
+        if (pause == null) {
+            return;
+        }
+        try {
+            // The marker is already gone if the pause timed out
+            if (searchOutboxRepository.exists(pause.getId())) {
+                searchOutboxRepository.delete(pause.getId());
+            }
+        } catch (RuntimeException e) {
+            log.error("Could not resume the search outbox, it will be drained again after the pause timeout", e);
+        }
+    }
+
+    private void reindex(IndexProgress indexProgress, ForkJoinPool pool) throws InterruptedException, ExecutionException {
+        IndexedType indexedType = indexProgress.indexedType;
+        log.info("Rebuilding search index {} into {}", indexProgress.alias, indexProgress.index);
+        indexProgress.start();
+        NewIndexTemplate newIndexTemplate = new NewIndexTemplate(indexProgress.alias, indexProgress.index);
+        newIndexTemplate.createIndex(indexedType.entityClass);
+        newIndexTemplate.putMapping(indexedType.entityClass);
+
+        Object[] range = transactionTemplate.execute(status -> (Object[]) entityManager
+            .createQuery("select min(e.id), max(e.id), count(e) from " + indexedType.entityName + " e")
+            .getSingleResult());
+        indexProgress.total = (Long) range[2];
+        if (indexProgress.total > 0) {
+            long minId = (Long) range[0];
+            long maxId = (Long) range[1];
+            long chunkSize = Math.max(1, applicationProperties.getSearchReindex().getChunkSize());
+            List<Callable<Integer>> chunks = new ArrayList<>();
+            for (long from = minId; from <= maxId; from += chunkSize) {
+                long to = Math.min(from + chunkSize - 1, maxId);
+                final long chunkFrom = from;
+                chunks.add(() -> indexChunk(indexProgress, chunkFrom, to));
+            }
+            for (Future<Integer> chunk : pool.invokeAll(chunks)) {
+                chunk.get();
+            }
+        }
+        elasticsearchTemplate.refresh(indexProgress.index);
+        switchAlias(indexProgress.alias, indexProgress.index);
+        searchResultCache.invalidate(indexedType.entityClass);
+        indexProgress.complete();
+        log.info("Rebuilt search index {} with {} documents in {} ms", indexProgress.alias, indexProgress.indexed.get(),
+            indexProgress.getElapsedMillis());
+    }
+
+    private int indexChunk(IndexProgress indexProgress, long from, long to) {
+        IndexedType indexedType = indexProgress.indexedType;
+        return transactionTemplate.execute(status -> {
+            List<?> entities = entityManager
+                .createQuery(indexedType.query + " where e.id between :from and :to")
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .getResultList();
+            if (entities.isEmpty()) {
+                return 0;
+            }
+            List<IndexQuery> indexQueries = new ArrayList<>(entities.size());
+            for (Object entity : entities) {
+                Object id = entityManager.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(entity);
+                indexQueries.add(new IndexQueryBuilder()
+                    .withIndexName(indexProgress.index)
+                    .withType(indexedType.type)
+                    .withId(String.valueOf(id))
+                    .withObject(entity)
+                    .build());
+            }
+            elasticsearchTemplate.bulkIndex(indexQueries);
+            indexProgress.indexed.addAndGet(entities.size());
+            return entities.size();
+        });
+    }
+
+    /**
+     * Point the alias to the new index, and delete the indices it pointed to before.
+     */
+    private void switchAlias(String alias, String index) {
+        IndicesAdminClient indices = elasticsearchTemplate.getClient().admin().indices();
+        if (indices.prepareAliasesExist(alias).get().exists()) {
+            ImmutableOpenMap<String, List<AliasMetaData>> previous = indices.prepareGetAliases(alias).get().getAliases();
+            IndicesAliasesRequestBuilder request = indices.prepareAliases().addAlias(index, alias);
+            previous.keysIt().forEachRemaining(previousIndex -> request.removeAlias(previousIndex, alias));
+            request.get();
+            previous.keysIt().forEachRemaining(this::deleteIndexQuietly);
+        } else {
+            // First run: the alias name is still used by the index created by the search repository. Elasticsearch 2
+            // can't replace an index by an alias in a single request, so it is deleted right before the alias is
+            // added. The search outbox is paused, but a synchronous write may recreate the index in between.
+            for (int attempt = 1; ; attempt++) {
+                if (elasticsearchTemplate.indexExists(alias)) {
+                    log.warn("Replacing index {} by an alias", alias);
+                    elasticsearchTemplate.deleteIndex(alias);
+                }
+                try {
+                    indices.prepareAliases().addAlias(index, alias).get();
+                    return;
+                } catch (InvalidAliasNameException e) {
+                    if (attempt >= MAX_ALIAS_ATTEMPTS) {
+                        throw e;
+                    }
+                    log.warn("Index {} was recreated before its alias, retrying", alias);
+                }
+            }
+        }
+    }
+
+    private void deleteIndexQuietly(String index) {
+        try {
+            if (elasticsearchTemplate.indexExists(index)) {
+                elasticsearchTemplate.deleteIndex(index);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not delete search index {}: {}", index, e.getMessage());
+        }
+    }
+
+    /**
+     * Template creating the index of an entity class, with its settings and mapping, under the name of a new index
+     * rather than the name of its alias.
+     */
+    private class NewIndexTemplate extends ElasticsearchTemplate {
+
+        private final String alias;
+
+        private final String index;
+
+        NewIndexTemplate(String alias, String index) {
+            super(elasticsearchTemplate.getClient(), elasticsearchTemplate.getElasticsearchConverter());
+            this.alias = alias;
+            this.index = index;
+        }
+
+        @Override
+        public boolean indexExists(String indexName) {
+            return super.indexExists(rename(indexName));
+        }
+
+        @Override
+        public boolean createIndex(String indexName, Object settings) {
+            return super.createIndex(rename(indexName), settings);
+        }
+
+        @Override
+        public boolean putMapping(String indexName, String type, Object mapping) {
+            return super.putMapping(rename(indexName), type, mapping);
+        }
+
+        private String rename(String indexName) {
+            return alias.equals(indexName) ? index : indexName;
+        }
+    }
+
+    private class IndexedType {
+
+        private final Class<?> entityClass;
+
+        private final String entityName;
+
+        /**
+         * Query selecting the entities as "e", to which the id range is appended.
+         */
+        private final String query;
+
+        private final String indexName;
+
+        private final String type;
+
+        IndexedType(Class<?> entityClass, String query) {
+            ElasticsearchPersistentEntity<?> persistentEntity = elasticsearchTemplate.getPersistentEntityFor(entityClass);
+            this.entityClass = entityClass;
+            this.entityName = entityClass.getSimpleName();
+            this.query = query;
+            this.indexName = persistentEntity.getIndexName();
+            this.type = persistentEntity.getIndexType();
+        }
+    }
+
+    private static class IndexProgress {
+
+        private final IndexedType indexedType;
+
+        private final String alias;
+
+        private final String index;
+
+        private final AtomicLong indexed = new AtomicLong();
+
+        private volatile String state = "PENDING";
+
+        private volatile long total;
+
+        private volatile long startTime;
+
+        private volatile long endTime;
+
+        private volatile String error;
+
+        IndexProgress(IndexedType indexedType, String suffix) {
+            this.indexedType = indexedType;
+            this.alias = indexedType.indexName;
+            this.index = indexedType.indexName + suffix;
+        }
+
+        void start() {
+            startTime = System.currentTimeMillis();
+            state = "RUNNING";
+        }
+
+        void complete() {
+            endTime = System.currentTimeMillis();
+            state = "COMPLETED";
+        }
+
+        void fail(Exception e) {
+            endTime = System.currentTimeMillis();
+            error = e.getMessage();
+            state = "FAILED";
+        }
+
+        long getElapsedMillis() {
+            if (startTime == 0) {
+                return 0;
+            }
+            return (endTime == 0 ? System.currentTimeMillis() : endTime) - startTime;
+        }
+
+        IndexStatusDTO toDTO() {
+            IndexStatusDTO dto = new IndexStatusDTO();
+            dto.setAlias(alias);
+            dto.setIndex(index);
+            dto.setState(state);
+            dto.setTotal(total);
+            dto.setIndexed(indexed.get());
+            long elapsedMillis = getElapsedMillis();
+            dto.setElapsedMillis(elapsedMillis);
+            dto.setDocumentsPerSecond(elapsedMillis == 0 ? 0 : indexed.get() * 1000d / elapsedMillis);
+            dto.setError(error);
+            return dto;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package io.ky.a5.service;
+
+import io.ky.a5.config.metrics.SearchCacheMetricSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Cache of the results of the search endpoints.
+ * <p>
+ * Results are cached by entity type, normalized query, page and sort. Each entity type has a generation counter,
+ * which is part of the key and is bumped whenever its index is written: results cached before a write are then
+ * never read again, and are evicted from the bounded cache as new results come in, so nothing has to be scanned.
+ * <p>
+ * Each node keeps its own generations: a bump is sent to the other nodes through the
+ * {@link CacheInvalidationService}, with the entity type as key, and they bump their generation in turn.
+ */
+@Service
+public class SearchResultCache {
+
+    public static final String SEARCH_RESULTS_CACHE = "searchResults";
+
+    private final Logger log = LoggerFactory.getLogger(SearchResultCache.class);
+
+    private final Cache cache;
+
+    private final SearchCacheMetricSet searchCacheMetricSet;
+
+    private final CacheInvalidationService cacheInvalidationService;
+
+    private final ConcurrentMap<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    public SearchResultCache(CacheManager cacheManager, SearchCacheMetricSet searchCacheMetricSet,
+            CacheInvalidationService cacheInvalidationService) {
+        this.cache = cacheManager.getCache(SEARCH_RESULTS_CACHE);
+        this.searchCacheMetricSet = searchCacheMetricSet;
+        this.cacheInvalidationService = cacheInvalidationService;
+    }
+
+    @PostConstruct
+    public void register() {
+        cacheInvalidationService.registerHandler(SEARCH_RESULTS_CACHE, this::invalidateFromOtherNode);
+    }
+
+    /**
+     * Return the cached result of a search, or run it and cache its result.
+     *
+     * @param entityClass the class of the entities searched
+     * @param query the query of the search
+     * @param pageable the pagination information, or null if the search is not paginated
+     * @param search the search to run on a cache miss
+     * @param <T> the type of the result
+     * @return the result of the search
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Class<?> entityClass, String query, Pageable pageable, Supplier<T> search) {
+        String entityType = SearchIndexService.entityType(entityClass);
+        SearchKey key = new SearchKey(entityType, generation(entityType).get(), normalize(query), pageable);
+        Cache.ValueWrapper cached = cache.get(key);
+        if (cached != null) {
+            searchCacheMetricSet.getHits().mark();
+            return (T) cached.get();
+        }
+        searchCacheMetricSet.getMisses().mark();
+        T result = search.get();
+        if (result != null) {
+            cache.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Invalidate the cached results of an entity type, after its index has been written.
+     *
+     * @param entityClass the class of the entities which were indexed or deleted
+     */
+    public void invalidate(Class<?> entityClass) {
+        String entityType = SearchIndexService.entityType(entityClass);
+        bump(entityType);
+        // The index is already written, so the other nodes don't have to wait for a commit
+        cacheInvalidationService.publish(new CacheInvalidation(SEARCH_RESULTS_CACHE, entityType));
+    }
+
+    private void invalidateFromOtherNode(String entityType) {
+        if (entityType == null) {
+            generations.keySet().forEach(this::bump);
+        } else {
+            bump(entityType);
+        }
+    }
+
+    private void bump(String entityType) {
+        long generation = generation(entityType).incrementAndGet();
+        searchCacheMetricSet.getInvalidations().inc();
+        log.trace("Search results of {} are now at generation {}", entityType, generation);
+    }
+
+    private AtomicLong generation(String entityType) {
+        return generations.computeIfAbsent(entityType, type -> new AtomicLong());
+    }
+
+    /**
+     * Trim the query and collapse its whitespace, which doesn't change its meaning.
+     */
+    static String normalize(String query) {
+        return query == null ? "" : query.trim().replaceAll("\\s+", " ");
+    }
+
+    static final class SearchKey implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String entityType;
+
+        private final long generation;
+
+        private final String query;
+
+        private final int page;
+
+        private final int size;
+
+        private final String sort;
+
+        SearchKey(String entityType, long generation, String query, Pageable pageable) {
+            this.entityType = entityType;
+            this.generation = generation;
+            this.query = query;
+            this.page = pageable == null ? -1 : pageable.getPageNumber();
+            this.size = pageable == null ? -1 : pageable.getPageSize();
+            this.sort = pageable == null || pageable.getSort() == null ? null : pageable.getSort().toString();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            SearchKey searchKey = (SearchKey) o;
+            return generation == searchKey.generation &&
+                page == searchKey.page &&
+                size == searchKey.size &&
+                Objects.equals(entityType, searchKey.entityType) &&
+                Objects.equals(query, searchKey.query) &&
+                Objects.equals(sort, searchKey.sort);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(entityType, generation, query, page, size, sort);
+        }
+
+        @Override
+        public String toString() {
+            return "SearchKey{" +
+                "entityType='" + entityType + "'" +
+                ", generation=" + generation +
+                ", query='" + query + "'" +
+                ", page=" + page +
+                ", size=" + size +
+                ", sort='" + sort + "'" +
+                "}";
+        }
+    }
+}
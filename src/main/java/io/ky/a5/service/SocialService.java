@@ -5,7 +5,6 @@ import io.ky.a5.domain.User;
 import io.ky.a5.repository.AuthorityRepository;
 import io.ky.a5.repository.UserRepository;
 import io.ky.a5.security.AuthoritiesConstants;
-import io.ky.a5.repository.search.UserSearchRepository;
 
 import org.apache.commons.lang3.RandomStringUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -38,18 +37,18 @@ public class SocialService {
 
     private final MailService mailService;
 
-    private final UserSearchRepository userSearchRepository;
+    private final SearchIndexService searchIndexService;
 
     public SocialService(UsersConnectionRepository usersConnectionRepository, AuthorityRepository authorityRepository,
             PasswordEncoder passwordEncoder, UserRepository userRepository,
-            MailService mailService, UserSearchRepository userSearchRepository) {
+            MailService mailService, SearchIndexService searchIndexService) {
 
         this.usersConnectionRepository = usersConnectionRepository;
         this.authorityRepository = authorityRepository;
         this.passwordEncoder = passwordEncoder;
         this.userRepository = userRepository;
         this.mailService = mailService;
-        this.userSearchRepository = userSearchRepository;
+        this.searchIndexService = searchIndexService;
     }
 
     public void deleteUserSocialConnection(String login) {
@@ -112,8 +111,9 @@ public class SocialService {
         newUser.setLangKey(langKey);
         newUser.setImageUrl(imageUrl);
 
-        userSearchRepository.save(newUser);
-        return userRepository.save(newUser);
+        User savedUser = userRepository.save(newUser);
+        searchIndexService.index(savedUser);
+        return savedUser;
     }
 
     /**
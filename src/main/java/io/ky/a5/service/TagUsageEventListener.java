@@ -0,0 +1,212 @@
+package io.ky.a5.service;
+
+import io.ky.a5.domain.Entry;
+import io.ky.a5.domain.Tag;
+
+import org.hibernate.collection.spi.PersistentCollection;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.AbstractCollectionEvent;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCollectionRecreateEvent;
+import org.hibernate.event.spi.PostCollectionRecreateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.event.spi.PreCollectionRemoveEvent;
+import org.hibernate.event.spi.PreCollectionRemoveEventListener;
+import org.hibernate.event.spi.PreCollectionUpdateEvent;
+import org.hibernate.event.spi.PreCollectionUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the "tag_usage" table of the {@link TagUsageService} up to date.
+ * <p>
+ * The tags gained and lost by the entries are read from the changes of their collection of tags: the tags of a new
+ * collection are added, those of a removed one, such as the collection of a deleted entry, are subtracted, and an
+ * updated collection is compared with its snapshot. The changes of a transaction are summed, and written just before
+ * it commits. Renamed and deleted tags only evict the cached tag usage, once their transaction has committed.
+ */
+@Component
+public class TagUsageEventListener implements PostInsertEventListener, PostUpdateEventListener,
+        PostDeleteEventListener, PostCollectionRecreateEventListener, PreCollectionUpdateEventListener,
+        PreCollectionRemoveEventListener {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final String ENTRY_TAGS_ROLE = Entry.class.getName() + ".tags";
+
+    private final transient SessionFactoryImplementor sessionFactory;
+
+    private final transient TagUsageService tagUsageService;
+
+    private final transient Map<SessionImplementor, TagUsageChanges> changes = new ConcurrentHashMap<>();
+
+    public TagUsageEventListener(EntityManagerFactory entityManagerFactory, TagUsageService tagUsageService) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.tagUsageService = tagUsageService;
+    }
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+        registry.appendListeners(EventType.POST_COLLECTION_RECREATE, this);
+        registry.appendListeners(EventType.PRE_COLLECTION_UPDATE, this);
+        registry.appendListeners(EventType.PRE_COLLECTION_REMOVE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Tag) {
+            changes(event.getSession()).createdTags.add((Long) event.getId());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Tag) {
+            changes(event.getSession()).tagsChanged = true;
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Tag) {
+            changes(event.getSession()).tagsChanged = true;
+        }
+    }
+
+    @Override
+    public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+        if (isEntryTags(event)) {
+            changes(event.getSession()).add(tagIds(event.getCollection()), 1);
+        }
+    }
+
+    @Override
+    public void onPreUpdateCollection(PreCollectionUpdateEvent event) {
+        if (isEntryTags(event)) {
+            Set<Long> before = snapshotTagIds(event.getCollection());
+            Set<Long> after = tagIds(event.getCollection());
+            TagUsageChanges transactionChanges = changes(event.getSession());
+            transactionChanges.add(difference(after, before), 1);
+            transactionChanges.add(difference(before, after), -1);
+        }
+    }
+
+    @Override
+    public void onPreRemoveCollection(PreCollectionRemoveEvent event) {
+        if (isEntryTags(event)) {
+            PersistentCollection collection = event.getCollection();
+            if (!collection.wasInitialized()) {
+                // The tags of a deleted entry are usually not loaded: its snapshot is read as Hibernate Envers does
+                collection.forceInitialization();
+            }
+            changes(event.getSession()).add(snapshotTagIds(collection), -1);
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private static boolean isEntryTags(AbstractCollectionEvent event) {
+        return ENTRY_TAGS_ROLE.equals(event.getCollection().getRole());
+    }
+
+    /**
+     * The changes of the transaction of a session, written before it commits and forgotten once it completes.
+     */
+    private TagUsageChanges changes(EventSource session) {
+        TagUsageChanges transactionChanges = changes.get(session);
+        if (transactionChanges == null) {
+            TagUsageChanges created = new TagUsageChanges();
+            transactionChanges = created;
+            changes.put(session, created);
+            session.getActionQueue().registerProcess(completedSession -> {
+                if (!created.createdTags.isEmpty() || !created.deltas.isEmpty()) {
+                    completedSession.doWork(connection ->
+                        tagUsageService.write(connection, created.createdTags, created.deltas));
+                }
+            });
+            session.getActionQueue().registerProcess((success, completedSession) -> {
+                changes.remove(session);
+                if (success && created.isChanged()) {
+                    tagUsageService.evict();
+                }
+            });
+        }
+        return transactionChanges;
+    }
+
+    private static Set<Long> tagIds(PersistentCollection collection) {
+        return tagIds((Collection<?>) collection);
+    }
+
+    private static Set<Long> snapshotTagIds(PersistentCollection collection) {
+        Serializable snapshot = collection.getStoredSnapshot();
+        if (snapshot instanceof Map) {
+            return tagIds(((Map<?, ?>) snapshot).values());
+        }
+        if (snapshot instanceof Collection) {
+            return tagIds((Collection<?>) snapshot);
+        }
+        return Collections.emptySet();
+    }
+
+    private static Set<Long> tagIds(Collection<?> tags) {
+        Set<Long> ids = new HashSet<>();
+        for (Object tag : tags) {
+            if (tag instanceof Tag && ((Tag) tag).getId() != null) {
+                ids.add(((Tag) tag).getId());
+            }
+        }
+        return ids;
+    }
+
+    private static Set<Long> difference(Set<Long> ids, Set<Long> removed) {
+        Set<Long> difference = new HashSet<>(ids);
+        difference.removeAll(removed);
+        return difference;
+    }
+
+    private static class TagUsageChanges {
+
+        private final List<Long> createdTags = new ArrayList<>();
+
+        private final Map<Long, Long> deltas = new TreeMap<>();
+
+        private boolean tagsChanged;
+
+        void add(Set<Long> tagIds, long delta) {
+            tagIds.forEach(tagId -> deltas.merge(tagId, delta, Long::sum));
+        }
+
+        boolean isChanged() {
+            return tagsChanged || !createdTags.isEmpty() || deltas.values().stream().anyMatch(delta -> delta != 0);
+        }
+    }
+}
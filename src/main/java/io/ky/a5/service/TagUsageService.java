@@ -0,0 +1,170 @@
+package io.ky.a5.service;
+
+import io.ky.a5.service.dto.TagUsageDTO;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Serves the number of entries of each tag, from the "tag_usage" table.
+ * <p>
+ * The table is kept up to date by the {@link TagUsageEventListener}, which adds the tags gained or lost by the
+ * entries of a transaction to their counts, in that transaction. The whole list is cached, and evicted on every
+ * node once a change is committed, so a tag cloud is a single cached read.
+ * <p>
+ * Changes which don't go through Hibernate, such as SQL scripts, are not counted: {@link #startRebuild()} then
+ * recounts all the tags in the background. A rebuild is exact as long as no entry gains or loses tags while it runs.
+ */
+@Service
+public class TagUsageService {
+
+    public static final String TAG_USAGE_CACHE = "tagUsage";
+
+    private static final String ALL_TAGS = "all";
+
+    private final Logger log = LoggerFactory.getLogger(TagUsageService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final TaskExecutor taskExecutor;
+
+    private final Cache cache;
+
+    private final CacheInvalidationService cacheInvalidationService;
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    public TagUsageService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            @Qualifier("taskExecutor") TaskExecutor taskExecutor, CacheManager cacheManager,
+            CacheInvalidationService cacheInvalidationService) {
+
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.taskExecutor = taskExecutor;
+        this.cache = cacheManager.getCache(TAG_USAGE_CACHE);
+        this.cacheInvalidationService = cacheInvalidationService;
+    }
+
+    /**
+     * @return all the tags with their number of entries, the most used first
+     */
+    public List<TagUsageDTO> getTagUsage() {
+        return cache.get(ALL_TAGS, this::load);
+    }
+
+    private List<TagUsageDTO> load() {
+        List<TagUsageDTO> tagUsage = jdbcTemplate.query(
+            "select tag.id, tag.name, coalesce(tag_usage.entry_count, 0) as entry_count" +
+            " from tag left join tag_usage on tag_usage.tag_id = tag.id" +
+            " order by entry_count desc, tag.name, tag.id",
+            (rs, rowNum) -> new TagUsageDTO(rs.getLong(1), rs.getString(2), rs.getLong(3)));
+        return Collections.unmodifiableList(tagUsage);
+    }
+
+    /**
+     * Start recounting the entries of all the tags in the background.
+     *
+     * @return false if a rebuild is already running
+     */
+    public boolean startRebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            taskExecutor.execute(() -> {
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    log.error("Could not rebuild the tag usage", e);
+                } finally {
+                    rebuilding.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            rebuilding.set(false);
+            throw e;
+        }
+        return true;
+    }
+
+    public boolean isRebuilding() {
+        return rebuilding.get();
+    }
+
+    /**
+     * Recount the entries of all the tags.
+     */
+    public void rebuild() {
+        long start = System.nanoTime();
+        int tags = transactionTemplate.execute(status -> {
+            jdbcTemplate.update("insert into tag_usage (tag_id, entry_count) select tag.id, 0 from tag" +
+                " where not exists (select 1 from tag_usage where tag_usage.tag_id = tag.id)");
+            return jdbcTemplate.update("update tag_usage set entry_count =" +
+                " (select count(*) from entry_tag where entry_tag.tags_id = tag_usage.tag_id)");
+        });
+        evict();
+        log.info("Rebuilt the usage of {} tags in {} ms", tags,
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Write the changes of a transaction, with its connection, before it commits. The counts are updated in the
+     * order of the tags, so that concurrent transactions lock them in the same order.
+     *
+     * @param connection the connection of the transaction
+     * @param createdTags the ids of the tags created by the transaction
+     * @param deltas the number of entries gained or lost by each tag, sorted by tag id
+     */
+    void write(Connection connection, Collection<Long> createdTags, Map<Long, Long> deltas) throws SQLException {
+        if (!createdTags.isEmpty()) {
+            try (PreparedStatement insert =
+                    connection.prepareStatement("insert into tag_usage (tag_id, entry_count) values (?, 0)")) {
+                for (Long tagId : createdTags) {
+                    insert.setLong(1, tagId);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        }
+        if (deltas.values().stream().anyMatch(delta -> delta != 0)) {
+            try (PreparedStatement update = connection.prepareStatement(
+                    "update tag_usage set entry_count = entry_count + ? where tag_id = ?")) {
+                for (Map.Entry<Long, Long> delta : deltas.entrySet()) {
+                    if (delta.getValue() != 0) {
+                        update.setLong(1, delta.getValue());
+                        update.setLong(2, delta.getKey());
+                        update.addBatch();
+                    }
+                }
+                update.executeBatch();
+            }
+        }
+    }
+
+    /**
+     * Evict the cached tag usage on this node and on the others, once a change is committed.
+     */
+    public void evict() {
+        cacheInvalidationService.evict(TAG_USAGE_CACHE, ALL_TAGS);
+    }
+}
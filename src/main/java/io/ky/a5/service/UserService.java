@@ -6,7 +6,6 @@ import io.ky.a5.domain.User;
 import io.ky.a5.repository.AuthorityRepository;
 import io.ky.a5.config.Constants;
 import io.ky.a5.repository.UserRepository;
-import io.ky.a5.repository.search.UserSearchRepository;
 import io.ky.a5.security.AuthoritiesConstants;
 import io.ky.a5.security.SecurityUtils;
 import io.ky.a5.service.util.RandomUtil;
@@ -14,7 +13,6 @@ import io.ky.a5.service.dto.UserDTO;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.scheduling.annotation.Scheduled;
@@ -42,19 +40,19 @@ public class UserService {
 
     private final SocialService socialService;
 
-    private final UserSearchRepository userSearchRepository;
+    private final SearchIndexService searchIndexService;
 
     private final AuthorityRepository authorityRepository;
 
-    private final CacheManager cacheManager;
+    private final CacheInvalidationService cacheInvalidationService;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, SocialService socialService, UserSearchRepository userSearchRepository, AuthorityRepository authorityRepository, CacheManager cacheManager) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, SocialService socialService, SearchIndexService searchIndexService, AuthorityRepository authorityRepository, CacheInvalidationService cacheInvalidationService) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.socialService = socialService;
-        this.userSearchRepository = userSearchRepository;
+        this.searchIndexService = searchIndexService;
         this.authorityRepository = authorityRepository;
-        this.cacheManager = cacheManager;
+        this.cacheInvalidationService = cacheInvalidationService;
     }
 
     public Optional<User> activateRegistration(String key) {
@@ -64,9 +62,8 @@ public class UserService {
                 // activate given user for the registration key.
                 user.setActivated(true);
                 user.setActivationKey(null);
-                userSearchRepository.save(user);
-                cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).evict(user.getLogin());
-                cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE).evict(user.getEmail());
+                searchIndexService.index(user);
+                clearUserCaches(user);
                 log.debug("Activated user: {}", user);
                 return user;
             });
@@ -81,8 +78,7 @@ public class UserService {
                 user.setPassword(passwordEncoder.encode(newPassword));
                 user.setResetKey(null);
                 user.setResetDate(null);
-                cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).evict(user.getLogin());
-                cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE).evict(user.getEmail());
+                clearUserCaches(user);
                 return user;
            });
     }
@@ -93,8 +89,7 @@ public class UserService {
             .map(user -> {
                 user.setResetKey(RandomUtil.generateResetKey());
                 user.setResetDate(Instant.now());
-                cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).evict(user.getLogin());
-                cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE).evict(user.getEmail());
+                clearUserCaches(user);
                 return user;
             });
     }
@@ -120,9 +115,8 @@ public class UserService {
         authorities.add(authority);
         newUser.setAuthorities(authorities);
         userRepository.save(newUser);
-        userSearchRepository.save(newUser);
-        cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).evict(newUser.getLogin());
-        cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE).evict(newUser.getEmail());
+        searchIndexService.index(newUser);
+        clearUserCaches(newUser);
         log.debug("Created Information for User: {}", newUser);
         return newUser;
     }
@@ -151,9 +145,8 @@ public class UserService {
         user.setResetDate(Instant.now());
         user.setActivated(true);
         userRepository.save(user);
-        userSearchRepository.save(user);
-        cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).evict(user.getLogin());
-        cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE).evict(user.getEmail());
+        searchIndexService.index(user);
+        clearUserCaches(user);
         log.debug("Created Information for User: {}", user);
         return user;
     }
@@ -176,9 +169,8 @@ public class UserService {
                 user.setEmail(email);
                 user.setLangKey(langKey);
                 user.setImageUrl(imageUrl);
-                userSearchRepository.save(user);
-                cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).evict(user.getLogin());
-                cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE).evict(user.getEmail());
+                searchIndexService.index(user);
+                clearUserCaches(user);
                 log.debug("Changed Information for User: {}", user);
             });
     }
@@ -205,9 +197,8 @@ public class UserService {
                 userDTO.getAuthorities().stream()
                     .map(authorityRepository::findOne)
                     .forEach(managedAuthorities::add);
-                userSearchRepository.save(user);
-                cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).evict(user.getLogin());
-                cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE).evict(user.getEmail());
+                searchIndexService.index(user);
+                clearUserCaches(user);
                 log.debug("Changed Information for User: {}", user);
                 return user;
             })
@@ -218,9 +209,8 @@ public class UserService {
         userRepository.findOneByLogin(login).ifPresent(user -> {
             socialService.deleteUserSocialConnection(user.getLogin());
             userRepository.delete(user);
-            userSearchRepository.delete(user);
-            cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).evict(user.getLogin());
-            cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE).evict(user.getEmail());
+            searchIndexService.delete(User.class, user.getId());
+            clearUserCaches(user);
             log.debug("Deleted User: {}", user);
         });
     }
@@ -231,8 +221,7 @@ public class UserService {
             .ifPresent(user -> {
                 String encryptedPassword = passwordEncoder.encode(password);
                 user.setPassword(encryptedPassword);
-                cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).evict(user.getLogin());
-                cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE).evict(user.getEmail());
+                clearUserCaches(user);
                 log.debug("Changed password for User: {}", user);
             });
     }
@@ -268,9 +257,8 @@ public class UserService {
         for (User user : users) {
             log.debug("Deleting not activated user {}", user.getLogin());
             userRepository.delete(user);
-            userSearchRepository.delete(user);
-            cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).evict(user.getLogin());
-            cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE).evict(user.getEmail());
+            searchIndexService.delete(User.class, user.getId());
+            clearUserCaches(user);
         }
     }
 
@@ -281,4 +269,11 @@ public class UserService {
         return authorityRepository.findAll().stream().map(Authority::getName).collect(Collectors.toList());
     }
 
+    /**
+     * Evict a user from the caches of this node, and of the other nodes at their next synchronization.
+     */
+    private void clearUserCaches(User user) {
+        cacheInvalidationService.evict(UserRepository.USERS_BY_LOGIN_CACHE, user.getLogin());
+        cacheInvalidationService.evict(UserRepository.USERS_BY_EMAIL_CACHE, user.getEmail());
+    }
 }
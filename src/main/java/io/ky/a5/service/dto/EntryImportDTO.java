@@ -0,0 +1,71 @@
+package io.ky.a5.service.dto;
+
+import java.time.ZonedDateTime;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * A DTO representing an entry of a bulk import, with its tags given by name.
+ */
+public class EntryImportDTO {
+
+    private String title;
+
+    private String content;
+
+    private ZonedDateTime date;
+
+    private Long blogId;
+
+    private Set<String> tags = new LinkedHashSet<>();
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public ZonedDateTime getDate() {
+        return date;
+    }
+
+    public void setDate(ZonedDateTime date) {
+        this.date = date;
+    }
+
+    public Long getBlogId() {
+        return blogId;
+    }
+
+    public void setBlogId(Long blogId) {
+        this.blogId = blogId;
+    }
+
+    public Set<String> getTags() {
+        return tags;
+    }
+
+    public void setTags(Set<String> tags) {
+        this.tags = tags;
+    }
+
+    @Override
+    public String toString() {
+        return "EntryImportDTO{" +
+            "title='" + title + "'" +
+            ", date=" + date +
+            ", blogId=" + blogId +
+            ", tags=" + tags +
+            "}";
+    }
+}
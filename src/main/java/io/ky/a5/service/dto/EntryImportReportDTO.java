@@ -0,0 +1,170 @@
+package io.ky.a5.service.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A DTO representing the outcome of a bulk import of entries.
+ */
+public class EntryImportReportDTO {
+
+    private long total;
+
+    private long imported;
+
+    private long failed;
+
+    private long createdTags;
+
+    private long elapsedMillis;
+
+    private double entriesPerSecond;
+
+    /**
+     * Set when the body could not be read to its end: the items before the error are still imported.
+     */
+    private String error;
+
+    private List<ItemDTO> items = new ArrayList<>();
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public void setImported(long imported) {
+        this.imported = imported;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    public long getCreatedTags() {
+        return createdTags;
+    }
+
+    public void setCreatedTags(long createdTags) {
+        this.createdTags = createdTags;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public double getEntriesPerSecond() {
+        return entriesPerSecond;
+    }
+
+    public void setEntriesPerSecond(double entriesPerSecond) {
+        this.entriesPerSecond = entriesPerSecond;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public List<ItemDTO> getItems() {
+        return items;
+    }
+
+    public void setItems(List<ItemDTO> items) {
+        this.items = items;
+    }
+
+    @Override
+    public String toString() {
+        return "EntryImportReportDTO{" +
+            "total=" + total +
+            ", imported=" + imported +
+            ", failed=" + failed +
+            ", createdTags=" + createdTags +
+            ", elapsedMillis=" + elapsedMillis +
+            ", entriesPerSecond=" + entriesPerSecond +
+            ", error='" + error + "'" +
+            "}";
+    }
+
+    /**
+     * Outcome of the import of one item of the body.
+     */
+    public static class ItemDTO {
+
+        /**
+         * Position of the item in the body, starting at 0.
+         */
+        private int index;
+
+        /**
+         * Id of the created entry, when it was imported.
+         */
+        private Long id;
+
+        private String error;
+
+        public ItemDTO() {
+        }
+
+        public ItemDTO(int index, Long id, String error) {
+            this.index = index;
+            this.id = id;
+            this.error = error;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public void setIndex(int index) {
+            this.index = index;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public void setError(String error) {
+            this.error = error;
+        }
+
+        public boolean isImported() {
+            return error == null;
+        }
+
+        @Override
+        public String toString() {
+            return "ItemDTO{" +
+                "index=" + index +
+                ", id=" + id +
+                ", error='" + error + "'" +
+                "}";
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package io.ky.a5.service.dto;
+
+import io.ky.a5.domain.Blog;
+import io.ky.a5.domain.Entry;
+import io.ky.a5.domain.Tag;
+
+import java.time.ZonedDateTime;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * A DTO representing an entry in a list: its content is replaced by an excerpt, and its blog and tags by their
+ * names.
+ * <p>
+ * The content is HTML: the excerpt is its text, without the tags, so that it is never cut inside a tag. It may still
+ * hold character references, such as "&amp;amp;", but not one cut at its end.
+ */
+public class EntrySummaryDTO {
+
+    /**
+     * Number of characters of the text of the content kept in the excerpt.
+     */
+    public static final int EXCERPT_LENGTH = 250;
+
+    /**
+     * Number of characters of the content read from the database to make the excerpt, tags included.
+     */
+    public static final int EXCERPT_SOURCE_LENGTH = EXCERPT_LENGTH * 4;
+
+    private static final Pattern TAG = Pattern.compile("<[^>]*(>|$)");
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final Pattern CUT_CHARACTER_REFERENCE = Pattern.compile("&#?\\w*$");
+
+    private Long id;
+
+    private String title;
+
+    private ZonedDateTime date;
+
+    private String excerpt;
+
+    private Long blogId;
+
+    private String blogName;
+
+    private String userLogin;
+
+    private Set<String> tags = new TreeSet<>();
+
+    public EntrySummaryDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    /**
+     * Constructor used by the JPQL constructor expressions: the start of the content is cut by the database, and the
+     * tags are added afterwards.
+     */
+    public EntrySummaryDTO(Long id, String title, ZonedDateTime date, String content, Long blogId, String blogName,
+            String userLogin) {
+        this.id = id;
+        this.title = title;
+        this.date = date;
+        this.excerpt = excerpt(content);
+        this.blogId = blogId;
+        this.blogName = blogName;
+        this.userLogin = userLogin;
+    }
+
+    public EntrySummaryDTO(Entry entry) {
+        this(entry.getId(), entry.getTitle(), entry.getDate(), entry.getContent(), null, null, null);
+        Blog blog = entry.getBlog();
+        if (blog != null) {
+            this.blogId = blog.getId();
+            this.blogName = blog.getName();
+            this.userLogin = blog.getUser() != null ? blog.getUser().getLogin() : null;
+        }
+        for (Tag tag : entry.getTags()) {
+            this.tags.add(tag.getName());
+        }
+    }
+
+    /**
+     * The text of the start of an HTML content: its tags, including one cut at its end, are removed, and the
+     * character reference cut at the end of the excerpt, if any.
+     */
+    static String excerpt(String content) {
+        if (content == null) {
+            return null;
+        }
+        String text = WHITESPACE.matcher(TAG.matcher(content).replaceAll(" ")).replaceAll(" ").trim();
+        if (text.length() > EXCERPT_LENGTH) {
+            text = text.substring(0, EXCERPT_LENGTH);
+        }
+        return CUT_CHARACTER_REFERENCE.matcher(text).replaceFirst("").trim();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public ZonedDateTime getDate() {
+        return date;
+    }
+
+    public void setDate(ZonedDateTime date) {
+        this.date = date;
+    }
+
+    public String getExcerpt() {
+        return excerpt;
+    }
+
+    public void setExcerpt(String excerpt) {
+        this.excerpt = excerpt;
+    }
+
+    public Long getBlogId() {
+        return blogId;
+    }
+
+    public void setBlogId(Long blogId) {
+        this.blogId = blogId;
+    }
+
+    public String getBlogName() {
+        return blogName;
+    }
+
+    public void setBlogName(String blogName) {
+        this.blogName = blogName;
+    }
+
+    public String getUserLogin() {
+        return userLogin;
+    }
+
+    public void setUserLogin(String userLogin) {
+        this.userLogin = userLogin;
+    }
+
+    public Set<String> getTags() {
+        return tags;
+    }
+
+    public void setTags(Set<String> tags) {
+        this.tags = tags;
+    }
+
+    @Override
+    public String toString() {
+        return "EntrySummaryDTO{" +
+            "id=" + id +
+            ", title='" + title + "'" +
+            ", date=" + date +
+            ", blogId=" + blogId +
+            ", tags=" + tags +
+            "}";
+    }
+}
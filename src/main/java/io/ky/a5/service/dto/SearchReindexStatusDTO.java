@@ -0,0 +1,163 @@
+package io.ky.a5.service.dto;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A DTO representing the progress of a search reindex job.
+ */
+public class SearchReindexStatusDTO {
+
+    private boolean running;
+
+    private Instant startDate;
+
+    private Instant endDate;
+
+    private List<IndexStatusDTO> indices = new ArrayList<>();
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public void setRunning(boolean running) {
+        this.running = running;
+    }
+
+    public Instant getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(Instant startDate) {
+        this.startDate = startDate;
+    }
+
+    public Instant getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(Instant endDate) {
+        this.endDate = endDate;
+    }
+
+    public List<IndexStatusDTO> getIndices() {
+        return indices;
+    }
+
+    public void setIndices(List<IndexStatusDTO> indices) {
+        this.indices = indices;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchReindexStatusDTO{" +
+            "running=" + running +
+            ", startDate=" + startDate +
+            ", endDate=" + endDate +
+            ", indices=" + indices +
+            "}";
+    }
+
+    /**
+     * Progress of the rebuild of one index.
+     */
+    public static class IndexStatusDTO {
+
+        /**
+         * The alias used by the application, which points to the new index once it is complete.
+         */
+        private String alias;
+
+        private String index;
+
+        private String state;
+
+        private long total;
+
+        private long indexed;
+
+        private long elapsedMillis;
+
+        private double documentsPerSecond;
+
+        private String error;
+
+        public String getAlias() {
+            return alias;
+        }
+
+        public void setAlias(String alias) {
+            this.alias = alias;
+        }
+
+        public String getIndex() {
+            return index;
+        }
+
+        public void setIndex(String index) {
+            this.index = index;
+        }
+
+        public String getState() {
+            return state;
+        }
+
+        public void setState(String state) {
+            this.state = state;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public void setTotal(long total) {
+            this.total = total;
+        }
+
+        public long getIndexed() {
+            return indexed;
+        }
+
+        public void setIndexed(long indexed) {
+            this.indexed = indexed;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        public void setElapsedMillis(long elapsedMillis) {
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public double getDocumentsPerSecond() {
+            return documentsPerSecond;
+        }
+
+        public void setDocumentsPerSecond(double documentsPerSecond) {
+            this.documentsPerSecond = documentsPerSecond;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public void setError(String error) {
+            this.error = error;
+        }
+
+        @Override
+        public String toString() {
+            return "IndexStatusDTO{" +
+                "alias='" + alias + "'" +
+                ", index='" + index + "'" +
+                ", state='" + state + "'" +
+                ", total=" + total +
+                ", indexed=" + indexed +
+                ", elapsedMillis=" + elapsedMillis +
+                ", documentsPerSecond=" + documentsPerSecond +
+                "}";
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package io.ky.a5.service.dto;
+
+import java.io.Serializable;
+
+/**
+ * A DTO representing a tag with the number of entries it is used by.
+ */
+public class TagUsageDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long id;
+
+    private String name;
+
+    private long entryCount;
+
+    public TagUsageDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public TagUsageDTO(Long id, String name, long entryCount) {
+        this.id = id;
+        this.name = name;
+        this.entryCount = entryCount;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public long getEntryCount() {
+        return entryCount;
+    }
+
+    public void setEntryCount(long entryCount) {
+        this.entryCount = entryCount;
+    }
+
+    @Override
+    public String toString() {
+        return "TagUsageDTO{" +
+            "id=" + id +
+            ", name='" + name + "'" +
+            ", entryCount=" + entryCount +
+            "}";
+    }
+}
@@ -0,0 +1,117 @@
+package io.ky.a5.web.filter;
+
+import io.ky.a5.config.ApplicationProperties;
+import io.ky.a5.config.metrics.SqlStatementMetricSet;
+import io.ky.a5.config.metrics.SqlStatementStatistics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the SQL statements run by each request, and detects the N+1 loads.
+ * <p>
+ * The number of statements and their execution time are published in the "sql.requests" metrics, and in the
+ * X-SQL-Count and X-SQL-Time (in milliseconds) response headers when "application.sql-statistics.header" is
+ * set. A request running the same query more than "application.sql-statistics.repeated-query-threshold" times
+ * is logged, or fails when "application.sql-statistics.fail-on-repeated-queries" is set, as in the tests.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SqlStatisticsFilter extends OncePerRequestFilter {
+
+    public static final String STATEMENTS_HEADER = "X-SQL-Count";
+
+    public static final String TIME_HEADER = "X-SQL-Time";
+
+    private final Logger log = LoggerFactory.getLogger(SqlStatisticsFilter.class);
+
+    private final ApplicationProperties applicationProperties;
+
+    private final SqlStatementMetricSet sqlStatementMetricSet;
+
+    public SqlStatisticsFilter(ApplicationProperties applicationProperties, SqlStatementMetricSet sqlStatementMetricSet) {
+        this.applicationProperties = applicationProperties;
+        this.sqlStatementMetricSet = sqlStatementMetricSet;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+        throws ServletException, IOException {
+
+        ApplicationProperties.SqlStatistics properties = applicationProperties.getSqlStatistics();
+        if (!properties.isEnabled()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        SqlStatementStatistics statistics = SqlStatementStatistics.begin();
+        try {
+            if (properties.isHeader()) {
+                filterChain.doFilter(request, new StatisticsHeaderResponseWrapper(response, statistics));
+                // A response written without being flushed is committed after the filters
+                if (!response.isCommitted()) {
+                    addHeaders(response, statistics);
+                }
+            } else {
+                filterChain.doFilter(request, response);
+            }
+        } finally {
+            SqlStatementStatistics.end();
+            sqlStatementMetricSet.getStatements().update(statistics.getStatements());
+            sqlStatementMetricSet.getTime().update(statistics.getExecutionTime(), TimeUnit.NANOSECONDS);
+        }
+        checkRepeatedQueries(request, statistics, properties);
+    }
+
+    private void checkRepeatedQueries(HttpServletRequest request, SqlStatementStatistics statistics,
+            ApplicationProperties.SqlStatistics properties) {
+
+        Map.Entry<String, Integer> query = statistics.getMostRepeatedQuery();
+        if (query == null || query.getValue() <= properties.getRepeatedQueryThreshold()) {
+            return;
+        }
+        sqlStatementMetricSet.getRepeatedQueries().mark();
+        String message = String.format("%s %s ran the same query %d times, probably an N+1 load: %s",
+            request.getMethod(), request.getRequestURI(), query.getValue(), query.getKey());
+        if (properties.isFailOnRepeatedQueries()) {
+            throw new IllegalStateException(message);
+        }
+        log.warn(message);
+    }
+
+    private static void addHeaders(HttpServletResponse response, SqlStatementStatistics statistics) {
+        response.setHeader(STATEMENTS_HEADER, String.valueOf(statistics.getStatements()));
+        response.setHeader(TIME_HEADER, String.format(Locale.ROOT, "%.3f", statistics.getExecutionTime() / 1e6));
+    }
+
+    /**
+     * Adds the headers just before the response is committed, as they can't be added afterwards.
+     */
+    private static class StatisticsHeaderResponseWrapper extends OnCommittedResponseWrapper {
+
+        private final SqlStatementStatistics statistics;
+
+        StatisticsHeaderResponseWrapper(HttpServletResponse response, SqlStatementStatistics statistics) {
+            super(response);
+            this.statistics = statistics;
+        }
+
+        @Override
+        protected void onResponseCommitted() {
+            addHeaders((HttpServletResponse) getResponse(), statistics);
+        }
+    }
+}
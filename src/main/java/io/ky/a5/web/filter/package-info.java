@@ -0,0 +1,4 @@
+/**
+ * Servlet filters.
+ */
+package io.ky.a5.web.filter;
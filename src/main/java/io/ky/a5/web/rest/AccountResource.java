@@ -4,6 +4,7 @@ import com.codahale.metrics.annotation.Timed;
 
 import io.ky.a5.domain.User;
 import io.ky.a5.repository.UserRepository;
+import io.ky.a5.security.RateLimiter;
 import io.ky.a5.security.SecurityUtils;
 import io.ky.a5.service.MailService;
 import io.ky.a5.service.UserService;
@@ -37,17 +38,23 @@ public class AccountResource {
 
     private final MailService mailService;
 
-    public AccountResource(UserRepository userRepository, UserService userService, MailService mailService) {
+    private final RateLimiter rateLimiter;
+
+    public AccountResource(UserRepository userRepository, UserService userService, MailService mailService,
+            RateLimiter rateLimiter) {
 
         this.userRepository = userRepository;
         this.userService = userService;
         this.mailService = mailService;
+        this.rateLimiter = rateLimiter;
     }
 
     /**
      * POST  /register : register the user.
      *
      * @param managedUserVM the managed user View Model
+     * @param request the HTTP request
+     * @throws TooManyRequestsException 429 (Too Many Requests) if the IP address or the login registered too often
      * @throws InvalidPasswordException 400 (Bad Request) if the password is incorrect
      * @throws EmailAlreadyUsedException 400 (Bad Request) if the email is already used
      * @throws LoginAlreadyUsedException 400 (Bad Request) if the login is already used
@@ -55,7 +62,12 @@ public class AccountResource {
     @PostMapping("/register")
     @Timed
     @ResponseStatus(HttpStatus.CREATED)
-    public void registerAccount(@Valid @RequestBody ManagedUserVM managedUserVM) {
+    public void registerAccount(@Valid @RequestBody ManagedUserVM managedUserVM, HttpServletRequest request) {
+        long retryAfter = rateLimiter.acquire(RateLimiter.Endpoint.REGISTER, request.getRemoteAddr(),
+            managedUserVM.getLogin());
+        if (retryAfter > 0) {
+            throw new TooManyRequestsException(retryAfter);
+        }
         if (!checkPasswordLength(managedUserVM.getPassword())) {
             throw new InvalidPasswordException();
         }
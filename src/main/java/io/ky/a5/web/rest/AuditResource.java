@@ -1,6 +1,8 @@
 package io.ky.a5.web.rest;
 
+import io.ky.a5.service.AuditEventExportService;
 import io.ky.a5.service.AuditEventService;
+import io.ky.a5.web.rest.errors.BadRequestAlertException;
 import io.ky.a5.web.rest.util.PaginationUtil;
 
 import io.github.jhipster.web.util.ResponseUtil;
@@ -12,8 +14,11 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.time.LocalDate;
 import java.time.ZoneId;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -25,8 +30,11 @@ public class AuditResource {
 
     private final AuditEventService auditEventService;
 
-    public AuditResource(AuditEventService auditEventService) {
+    private final AuditEventExportService auditEventExportService;
+
+    public AuditResource(AuditEventService auditEventService, AuditEventExportService auditEventExportService) {
         this.auditEventService = auditEventService;
+        this.auditEventExportService = auditEventExportService;
     }
 
     /**
@@ -64,6 +72,38 @@ public class AuditResource {
         return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
     }
 
+    /**
+     * GET  /audits/export : export the AuditEvents between the fromDate and toDate.
+     * <p>
+     * The events are streamed to the response as they are read, so any period can be exported.
+     *
+     * @param fromDate the start of the time period of AuditEvents to export
+     * @param toDate the end of the time period of AuditEvents to export
+     * @param format the format of the export, "ndjson" (one JSON object per line, the default) or "csv"
+     * @param response the response the AuditEvents are written to
+     * @throws IOException if the response could not be written
+     */
+    @GetMapping("/export")
+    public void export(
+        @RequestParam(value = "fromDate") LocalDate fromDate,
+        @RequestParam(value = "toDate") LocalDate toDate,
+        @RequestParam(value = "format", defaultValue = "ndjson") String format,
+        HttpServletResponse response) throws IOException {
+
+        AuditEventExportService.Format exportFormat = Arrays.stream(AuditEventExportService.Format.values())
+            .filter(value -> value.name().equalsIgnoreCase(format))
+            .findFirst()
+            .orElseThrow(() -> new BadRequestAlertException("Unsupported export format", "audit", "invalidformat"));
+        response.setContentType(exportFormat.getContentType() + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"audits-" + fromDate + "-" + toDate +
+            "." + exportFormat.getExtension() + "\"");
+        auditEventExportService.exportByDates(
+            fromDate.atStartOfDay(ZoneId.systemDefault()).toInstant(),
+            toDate.atStartOfDay(ZoneId.systemDefault()).plusDays(1).toInstant(),
+            exportFormat,
+            response.getOutputStream());
+    }
+
     /**
      * GET  /audits/:id : get an AuditEvent by id.
      *
@@ -13,13 +13,16 @@ import javax.validation.Valid;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -30,7 +33,11 @@ import io.github.jhipster.web.util.ResponseUtil;
 import io.ky.a5.domain.Blog;
 import io.ky.a5.repository.BlogRepository;
 import io.ky.a5.repository.search.BlogSearchRepository;
+import io.ky.a5.service.SearchIndexService;
+import io.ky.a5.service.SearchResultCache;
 import io.ky.a5.web.rest.errors.BadRequestAlertException;
+import io.ky.a5.web.rest.errors.PreconditionFailedAlertException;
+import io.ky.a5.web.rest.util.EntityTagUtil;
 import io.ky.a5.web.rest.util.HeaderUtil;
 
 /**
@@ -48,9 +55,16 @@ public class BlogResource {
 
     private final BlogSearchRepository blogSearchRepository;
 
-    public BlogResource(final BlogRepository blogRepository, final BlogSearchRepository blogSearchRepository) {
+    private final SearchIndexService searchIndexService;
+
+    private final SearchResultCache searchResultCache;
+
+    public BlogResource(final BlogRepository blogRepository, final BlogSearchRepository blogSearchRepository,
+        final SearchIndexService searchIndexService, final SearchResultCache searchResultCache) {
         this.blogRepository = blogRepository;
         this.blogSearchRepository = blogSearchRepository;
+        this.searchIndexService = searchIndexService;
+        this.searchResultCache = searchResultCache;
     }
 
     /**
@@ -62,13 +76,14 @@ public class BlogResource {
      */
     @PostMapping("/blogs")
     @Timed
+    @Transactional
     public ResponseEntity<Blog> createBlog(@Valid @RequestBody final Blog blog) throws URISyntaxException {
         this.log.debug("REST request to save Blog : {}", blog);
         if (blog.getId() != null) {
             throw new BadRequestAlertException("A new blog cannot already have an ID", ENTITY_NAME, "idexists");
         }
         final Blog result = this.blogRepository.save(blog);
-        this.blogSearchRepository.save(result);
+        this.searchIndexService.index(result);
         return ResponseEntity.created(new URI("/api/blogs/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(ENTITY_NAME, result.getId().toString()))
             .body(result);
@@ -76,24 +91,45 @@ public class BlogResource {
 
     /**
      * PUT  /blogs : Updates an existing blog.
+     * <p>
+     * With an If-Match header, the blog is only updated if its entity tag still matches; otherwise the version
+     * of the blog, if sent, must still be the current one.
      *
      * @param blog the blog to update
+     * @param ifMatch the entity tag of the blog the update was made from, if any
      * @return the ResponseEntity with status 200 (OK) and with body the updated blog,
-     * or with status 400 (Bad Request) if the blog is not valid,
+     * or with status 400 (Bad Request) if the blog is not valid or doesn't exist,
+     * or with status 409 (Conflict) if the version of the blog is not the current one,
+     * or with status 412 (Precondition Failed) if the If-Match header doesn't match the blog,
      * or with status 500 (Internal Server Error) if the blog couldn't be updated
      * @throws URISyntaxException if the Location URI syntax is incorrect
      */
     @PutMapping("/blogs")
     @Timed
-    public ResponseEntity<Blog> updateBlog(@Valid @RequestBody final Blog blog) throws URISyntaxException {
+    @Transactional
+    public ResponseEntity<Blog> updateBlog(@Valid @RequestBody final Blog blog,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) final String ifMatch) throws URISyntaxException {
         this.log.debug("REST request to update Blog : {}", blog);
         if (blog.getId() == null) {
             return createBlog(blog);
         }
-        final Blog result = this.blogRepository.save(blog);
-        this.blogSearchRepository.save(result);
+        final Blog current = this.blogRepository.findOne(blog.getId());
+        if (current == null) {
+            throw new BadRequestAlertException("The blog doesn't exist", ENTITY_NAME, "idnotfound");
+        }
+        if (!EntityTagUtil.ifMatch(ifMatch, EntityTagUtil.entityTag(current))) {
+            throw new PreconditionFailedAlertException("The blog was modified since it was read", ENTITY_NAME);
+        }
+        if (ifMatch != null || blog.getVersion() == null) {
+            blog.setVersion(current.getVersion());
+        }
+        // Flushed so that the entity tag is computed from the new version
+        final Blog result = this.blogRepository.saveAndFlush(blog);
+        this.searchIndexService.index(result);
+        final HttpHeaders headers = EntityTagUtil.createEntityTagHeaders(EntityTagUtil.entityTag(result));
+        headers.putAll(HeaderUtil.createEntityUpdateAlert(ENTITY_NAME, blog.getId().toString()));
         return ResponseEntity.ok()
-            .headers(HeaderUtil.createEntityUpdateAlert(ENTITY_NAME, blog.getId().toString()))
+            .headers(headers)
             .body(result);
     }
 
@@ -113,14 +149,18 @@ public class BlogResource {
      * GET  /blogs/:id : get the "id" blog.
      *
      * @param id the id of the blog to retrieve
-     * @return the ResponseEntity with status 200 (OK) and with body the blog, or with status 404 (Not Found)
+     * @return the ResponseEntity with status 200 (OK) and with body the blog,
+     * or with status 304 (Not Modified) if the If-None-Match header matches the entity tag of the blog,
+     * or with status 404 (Not Found)
      */
     @GetMapping("/blogs/{id}")
     @Timed
     public ResponseEntity<Blog> getBlog(@PathVariable final Long id) {
         this.log.debug("REST request to get Blog : {}", id);
         final Blog blog = this.blogRepository.findOne(id);
-        return ResponseUtil.wrapOrNotFound(Optional.ofNullable(blog));
+        // Spring answers 304 (Not Modified), without serializing the blog, if the If-None-Match header matches
+        return ResponseUtil.wrapOrNotFound(Optional.ofNullable(blog),
+            blog != null ? EntityTagUtil.createEntityTagHeaders(EntityTagUtil.entityTag(blog)) : null);
     }
 
     /**
@@ -131,10 +171,11 @@ public class BlogResource {
      */
     @DeleteMapping("/blogs/{id}")
     @Timed
+    @Transactional
     public ResponseEntity<Void> deleteBlog(@PathVariable final Long id) {
         this.log.debug("REST request to delete Blog : {}", id);
         this.blogRepository.delete(id);
-        this.blogSearchRepository.delete(id);
+        this.searchIndexService.delete(Blog.class, id);
         return ResponseEntity.ok().headers(HeaderUtil.createEntityDeletionAlert(ENTITY_NAME, id.toString())).build();
     }
 
@@ -149,9 +190,9 @@ public class BlogResource {
     @Timed
     public List<Blog> searchBlogs(@RequestParam final String query) {
         this.log.debug("REST request to search Blogs for query {}", query);
-        return StreamSupport
+        return this.searchResultCache.get(Blog.class, query, null, () -> StreamSupport
             .stream(this.blogSearchRepository.search(queryStringQuery(query)).spliterator(), false)
-            .collect(Collectors.toList());
+            .collect(Collectors.toList()));
     }
 
 }
@@ -0,0 +1,55 @@
+package io.ky.a5.web.rest;
+
+import io.ky.a5.service.EntryImportService;
+import io.ky.a5.service.dto.EntryImportReportDTO;
+import io.ky.a5.web.rest.util.HeaderUtil;
+
+import com.codahale.metrics.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+
+/**
+ * REST controller for importing entries in bulk.
+ */
+@RestController
+@RequestMapping("/api")
+public class EntryImportResource {
+
+    private final Logger log = LoggerFactory.getLogger(EntryImportResource.class);
+
+    private final EntryImportService entryImportService;
+
+    public EntryImportResource(EntryImportService entryImportService) {
+        this.entryImportService = entryImportService;
+    }
+
+    /**
+     * POST  /entries/import : Import entries in bulk.
+     * <p>
+     * The body is either a JSON array of entries, or newline-delimited JSON entries. Each entry has a "title", a
+     * "content", a "date", an optional "blogId" and "tags", an array of tag names. The body is read as it is
+     * received, so it can be of any size.
+     *
+     * @param request the request, whose body is read as a stream
+     * @return the ResponseEntity with status 200 (OK) and with body the report of the import, listing the outcome
+     * of each entry
+     * @throws IOException if the body can't be read
+     */
+    @PostMapping(value = "/entries/import", consumes = { MediaType.APPLICATION_JSON_VALUE, "application/x-ndjson" })
+    @Timed
+    public ResponseEntity<EntryImportReportDTO> importEntries(HttpServletRequest request) throws IOException {
+        log.debug("REST request to import entries");
+        EntryImportReportDTO report = entryImportService.importEntries(request.getInputStream());
+        return ResponseEntity.ok()
+            .headers(HeaderUtil.createAlert("blogApp.entry.imported", String.valueOf(report.getImported())))
+            .body(report);
+    }
+}
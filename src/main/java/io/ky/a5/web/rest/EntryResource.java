@@ -4,24 +4,32 @@ import static org.elasticsearch.index.query.QueryBuilders.queryStringQuery;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import javax.validation.Valid;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -33,8 +41,14 @@ import io.ky.a5.domain.Entry;
 import io.ky.a5.repository.EntryRepository;
 import io.ky.a5.repository.search.EntrySearchRepository;
 import io.ky.a5.security.SecurityUtils;
+import io.ky.a5.service.SearchIndexService;
+import io.ky.a5.service.SearchResultCache;
+import io.ky.a5.service.dto.EntrySummaryDTO;
 import io.ky.a5.web.rest.errors.BadRequestAlertException;
+import io.ky.a5.web.rest.errors.PreconditionFailedAlertException;
+import io.ky.a5.web.rest.util.EntityTagUtil;
 import io.ky.a5.web.rest.util.HeaderUtil;
+import io.ky.a5.web.rest.util.KeysetCursor;
 import io.ky.a5.web.rest.util.PaginationUtil;
 
 /**
@@ -52,9 +66,16 @@ public class EntryResource {
 
     private final EntrySearchRepository entrySearchRepository;
 
-    public EntryResource(final EntryRepository entryRepository, final EntrySearchRepository entrySearchRepository) {
+    private final SearchIndexService searchIndexService;
+
+    private final SearchResultCache searchResultCache;
+
+    public EntryResource(final EntryRepository entryRepository, final EntrySearchRepository entrySearchRepository,
+        final SearchIndexService searchIndexService, final SearchResultCache searchResultCache) {
         this.entryRepository = entryRepository;
         this.entrySearchRepository = entrySearchRepository;
+        this.searchIndexService = searchIndexService;
+        this.searchResultCache = searchResultCache;
     }
 
     /**
@@ -66,13 +87,14 @@ public class EntryResource {
      */
     @PostMapping("/entries")
     @Timed
+    @Transactional
     public ResponseEntity<Entry> createEntry(@Valid @RequestBody final Entry entry) throws URISyntaxException {
         this.log.debug("REST request to save Entry : {}", entry);
         if (entry.getId() != null) {
             throw new BadRequestAlertException("A new entry cannot already have an ID", ENTITY_NAME, "idexists");
         }
         final Entry result = this.entryRepository.save(entry);
-        this.entrySearchRepository.save(result);
+        this.searchIndexService.index(result);
         return ResponseEntity.created(new URI("/api/entries/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(ENTITY_NAME, result.getId().toString()))
             .body(result);
@@ -80,54 +102,137 @@ public class EntryResource {
 
     /**
      * PUT  /entries : Updates an existing entry.
+     * <p>
+     * With an If-Match header, the entry is only updated if its entity tag still matches; otherwise the version
+     * of the entry, if sent, must still be the current one.
      *
      * @param entry the entry to update
+     * @param ifMatch the entity tag of the entry the update was made from, if any
      * @return the ResponseEntity with status 200 (OK) and with body the updated entry,
-     * or with status 400 (Bad Request) if the entry is not valid,
+     * or with status 400 (Bad Request) if the entry is not valid or doesn't exist,
+     * or with status 409 (Conflict) if the version of the entry is not the current one,
+     * or with status 412 (Precondition Failed) if the If-Match header doesn't match the entry,
      * or with status 500 (Internal Server Error) if the entry couldn't be updated
      * @throws URISyntaxException if the Location URI syntax is incorrect
      */
     @PutMapping("/entries")
     @Timed
-    public ResponseEntity<Entry> updateEntry(@Valid @RequestBody final Entry entry) throws URISyntaxException {
+    @Transactional
+    public ResponseEntity<Entry> updateEntry(@Valid @RequestBody final Entry entry,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) final String ifMatch) throws URISyntaxException {
         this.log.debug("REST request to update Entry : {}", entry);
         if (entry.getId() == null) {
             return createEntry(entry);
         }
-        final Entry result = this.entryRepository.save(entry);
-        this.entrySearchRepository.save(result);
+        final Entry current = this.entryRepository.findOne(entry.getId());
+        if (current == null) {
+            throw new BadRequestAlertException("The entry doesn't exist", ENTITY_NAME, "idnotfound");
+        }
+        if (!EntityTagUtil.ifMatch(ifMatch, EntityTagUtil.entityTag(current))) {
+            throw new PreconditionFailedAlertException("The entry was modified since it was read", ENTITY_NAME);
+        }
+        if (ifMatch != null || entry.getVersion() == null) {
+            entry.setVersion(current.getVersion());
+        }
+        // Flushed so that the entity tag is computed from the new version
+        final Entry result = this.entryRepository.saveAndFlush(entry);
+        this.searchIndexService.index(result);
+        final HttpHeaders headers = EntityTagUtil.createEntityTagHeaders(EntityTagUtil.entityTag(result));
+        headers.putAll(HeaderUtil.createEntityUpdateAlert(ENTITY_NAME, entry.getId().toString()));
         return ResponseEntity.ok()
-            .headers(HeaderUtil.createEntityUpdateAlert(ENTITY_NAME, entry.getId().toString()))
+            .headers(headers)
             .body(result);
     }
 
     /**
-     * GET  /entries : get all the entries.
+     * GET  /entries : get all the entries, as summaries.
      *
      * @param pageable the pagination information
-     * @return the ResponseEntity with status 200 (OK) and the list of entries in body
+     * @return the ResponseEntity with status 200 (OK) and the list of entry summaries in body
      */
     @GetMapping("/entries")
     @Timed
-    public ResponseEntity<List<Entry>> getAllEntries(final Pageable pageable) {
+    public ResponseEntity<List<EntrySummaryDTO>> getAllEntries(final Pageable pageable) {
         this.log.debug("REST request to get a page of Entries");
-		final Page<Entry> page = this.entryRepository.findByBlogUserLoginOrderByDateDesc(SecurityUtils.getCurrentUserLogin(), pageable);
+        final Page<EntrySummaryDTO> page = this.entryRepository.findSummariesByBlogUserLogin(
+            SecurityUtils.getCurrentUserLogin().orElse(null), pageable);
+        addTagNames(page.getContent());
         final HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/entries");
         return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
     }
 
+    /**
+     * GET  /entries?after=:cursor : get a slice of the entries, as summaries, using keyset pagination.
+     * <p>
+     * Entries are ordered by date then id, both descending, and each slice starts right after the entry
+     * encoded in the cursor, so reading a slice costs the same whatever its depth. An empty cursor returns
+     * the first slice, and the cursor of the next slice is sent in the Link header.
+     *
+     * @param after the cursor returned with the previous slice, or an empty value for the first slice
+     * @param count whether to also count the entries and send the X-Total-Count header
+     * @param pageable the pagination information, only the page size is used
+     * @return the ResponseEntity with status 200 (OK) and the slice of entry summaries in body,
+     * or with status 400 (Bad Request) if the cursor is not valid
+     */
+    @GetMapping(value = "/entries", params = "after")
+    @Timed
+    public ResponseEntity<List<EntrySummaryDTO>> getAllEntriesAfter(@RequestParam("after") final String after,
+        @RequestParam(value = "count", defaultValue = "false") final boolean count, final Pageable pageable) {
+        this.log.debug("REST request to get a slice of Entries after : {}", after);
+        final String login = SecurityUtils.getCurrentUserLogin().orElse(null);
+        final Pageable firstPage = new PageRequest(0, pageable.getPageSize());
+        final Slice<EntrySummaryDTO> slice;
+        if (after.isEmpty()) {
+            slice = this.entryRepository.findSummarySliceByBlogUserLogin(login, firstPage);
+        } else {
+            final KeysetCursor cursor;
+            try {
+                cursor = KeysetCursor.decode(after);
+            } catch (final IllegalArgumentException e) {
+                throw new BadRequestAlertException("Invalid pagination cursor", ENTITY_NAME, "invalidcursor");
+            }
+            slice = this.entryRepository.findSummarySliceByBlogUserLoginAfter(login,
+                cursor.getDate().atZone(ZoneId.systemDefault()), cursor.getId(), firstPage);
+        }
+        addTagNames(slice.getContent());
+        String nextCursor = null;
+        if (slice.hasNext()) {
+            final EntrySummaryDTO last = slice.getContent().get(slice.getNumberOfElements() - 1);
+            nextCursor = new KeysetCursor(last.getDate().toInstant(), last.getId()).encode();
+        }
+        final Long totalCount = count ? this.entryRepository.countByBlogUserLogin(login) : null;
+        final HttpHeaders headers = PaginationUtil.generateKeysetPaginationHttpHeaders(slice, nextCursor, totalCount, "/api/entries");
+        return new ResponseEntity<>(slice.getContent(), headers, HttpStatus.OK);
+    }
+
     /**
      * GET  /entries/:id : get the "id" entry.
+     * <p>
+     * The If-None-Match header is checked against the versions of the entry, before the entry and its content are
+     * read.
      *
      * @param id the id of the entry to retrieve
-     * @return the ResponseEntity with status 200 (OK) and with body the entry, or with status 404 (Not Found)
+     * @param ifNoneMatch the entity tags of the representations of the entry the client already has, if any
+     * @return the ResponseEntity with status 200 (OK) and with body the entry,
+     * or with status 304 (Not Modified) if the client already has the current entry,
+     * or with status 404 (Not Found)
      */
     @GetMapping("/entries/{id}")
     @Timed
-    public ResponseEntity<Entry> getEntry(@PathVariable final Long id) {
+    public ResponseEntity<Entry> getEntry(@PathVariable final Long id,
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) final String ifNoneMatch) {
         this.log.debug("REST request to get Entry : {}", id);
+        if (ifNoneMatch != null) {
+            final Optional<String> entityTag = this.entryRepository.findEntityTagVersionsById(id).stream()
+                .findFirst()
+                .map(versions -> EntityTagUtil.entityTag(versions));
+            if (entityTag.isPresent() && EntityTagUtil.ifNoneMatch(ifNoneMatch, entityTag.get())) {
+                return new ResponseEntity<>(EntityTagUtil.createEntityTagHeaders(entityTag.get()), HttpStatus.NOT_MODIFIED);
+            }
+        }
         final Entry entry = this.entryRepository.findOneWithEagerRelationships(id);
-        return ResponseUtil.wrapOrNotFound(Optional.ofNullable(entry));
+        return ResponseUtil.wrapOrNotFound(Optional.ofNullable(entry),
+            entry != null ? EntityTagUtil.createEntityTagHeaders(EntityTagUtil.entityTag(entry)) : null);
     }
 
     /**
@@ -138,10 +243,11 @@ public class EntryResource {
      */
     @DeleteMapping("/entries/{id}")
     @Timed
+    @Transactional
     public ResponseEntity<Void> deleteEntry(@PathVariable final Long id) {
         this.log.debug("REST request to delete Entry : {}", id);
         this.entryRepository.delete(id);
-        this.entrySearchRepository.delete(id);
+        this.searchIndexService.delete(Entry.class, id);
         return ResponseEntity.ok().headers(HeaderUtil.createEntityDeletionAlert(ENTITY_NAME, id.toString())).build();
     }
 
@@ -151,15 +257,30 @@ public class EntryResource {
      *
      * @param query the query of the entry search
      * @param pageable the pagination information
-     * @return the result of the search
+     * @return the result of the search, as summaries
      */
     @GetMapping("/_search/entries")
     @Timed
-    public ResponseEntity<List<Entry>> searchEntries(@RequestParam final String query, final Pageable pageable) {
+    public ResponseEntity<List<EntrySummaryDTO>> searchEntries(@RequestParam final String query, final Pageable pageable) {
         this.log.debug("REST request to search for a page of Entries for query {}", query);
-        final Page<Entry> page = this.entrySearchRepository.search(queryStringQuery(query), pageable);
+        final Page<Entry> page = this.searchResultCache.get(Entry.class, query, pageable,
+            () -> this.entrySearchRepository.search(queryStringQuery(query), pageable));
         final HttpHeaders headers = PaginationUtil.generateSearchPaginationHttpHeaders(query, page, "/api/_search/entries");
-        return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
+        return new ResponseEntity<>(page.map(EntrySummaryDTO::new).getContent(), headers, HttpStatus.OK);
+    }
+
+    /**
+     * Add the names of their tags to summaries, with one query for all of them.
+     */
+    private void addTagNames(final List<EntrySummaryDTO> summaries) {
+        if (summaries.isEmpty()) {
+            return;
+        }
+        final Map<Long, EntrySummaryDTO> summariesById = summaries.stream()
+            .collect(Collectors.toMap(EntrySummaryDTO::getId, Function.identity()));
+        for (final Object[] tagName : this.entryRepository.findTagNamesByEntryIdIn(summariesById.keySet())) {
+            summariesById.get((Long) tagName[0]).getTags().add((String) tagName[1]);
+        }
     }
 
 }
@@ -0,0 +1,46 @@
+package io.ky.a5.web.rest;
+
+import io.ky.a5.config.metrics.HdrHistogramMetricRegistry;
+import io.ky.a5.web.rest.vm.LatencyHistogramVM;
+
+import com.codahale.metrics.annotation.Timed;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Controller for exporting the latency histograms of the timers, to aggregate them across the cluster.
+ */
+@RestController
+@RequestMapping("/management")
+public class LatencyHistogramResource {
+
+    private final HdrHistogramMetricRegistry metricRegistry;
+
+    public LatencyHistogramResource(HdrHistogramMetricRegistry metricRegistry) {
+        this.metricRegistry = metricRegistry;
+    }
+
+    /**
+     * GET  /latency-histograms : get the encoded histograms of the timers.
+     * <p>
+     * Each histogram holds all the durations since the start of the node: the histograms of two exports can be
+     * subtracted to get the durations in between.
+     *
+     * @param prefix the prefix of the names of the timers to export, such as "io.ky.a5.web.rest" for the REST
+     * endpoints; all the timers are exported when absent
+     * @return the histograms, sorted by timer name
+     */
+    @GetMapping("/latency-histograms")
+    @Timed
+    public List<LatencyHistogramVM> getLatencyHistograms(@RequestParam(required = false) String prefix) {
+        return metricRegistry.getHdrHistogramTimers().entrySet().stream()
+            .filter(timer -> prefix == null || timer.getKey().startsWith(prefix))
+            .map(timer -> new LatencyHistogramVM(timer.getKey(), timer.getValue().getHistogram()))
+            .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,47 @@
+package io.ky.a5.web.rest;
+
+import io.ky.a5.service.SearchReindexService;
+import io.ky.a5.service.dto.SearchReindexStatusDTO;
+
+import com.codahale.metrics.annotation.Timed;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Controller to rebuild the search indices from the database.
+ */
+@RestController
+@RequestMapping("/management")
+public class SearchReindexResource {
+
+    private final SearchReindexService searchReindexService;
+
+    public SearchReindexResource(SearchReindexService searchReindexService) {
+        this.searchReindexService = searchReindexService;
+    }
+
+    /**
+     * POST  /search/reindex : start rebuilding all the search indices.
+     *
+     * @return the ResponseEntity with status 202 (Accepted) and the progress of the job in body,
+     * or with status 409 (Conflict) if a job is already running
+     */
+    @PostMapping("/search/reindex")
+    @Timed
+    public ResponseEntity<SearchReindexStatusDTO> startReindex() {
+        HttpStatus status = searchReindexService.start() ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT;
+        return new ResponseEntity<>(searchReindexService.getStatus(), status);
+    }
+
+    /**
+     * GET  /search/reindex : get the progress of the running, or last, reindex job.
+     *
+     * @return the ResponseEntity with status 200 (OK) and the progress of the job in body
+     */
+    @GetMapping("/search/reindex")
+    @Timed
+    public SearchReindexStatusDTO getReindexStatus() {
+        return searchReindexService.getStatus();
+    }
+}
@@ -5,7 +5,13 @@ import io.ky.a5.domain.Tag;
 
 import io.ky.a5.repository.TagRepository;
 import io.ky.a5.repository.search.TagSearchRepository;
+import io.ky.a5.service.SearchIndexService;
+import io.ky.a5.service.SearchResultCache;
+import io.ky.a5.service.TagUsageService;
+import io.ky.a5.service.dto.TagUsageDTO;
 import io.ky.a5.web.rest.errors.BadRequestAlertException;
+import io.ky.a5.web.rest.errors.PreconditionFailedAlertException;
+import io.ky.a5.web.rest.util.EntityTagUtil;
 import io.ky.a5.web.rest.util.HeaderUtil;
 import io.ky.a5.web.rest.util.PaginationUtil;
 import io.github.jhipster.web.util.ResponseUtil;
@@ -16,6 +22,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
@@ -44,9 +51,20 @@ public class TagResource {
 
     private final TagSearchRepository tagSearchRepository;
 
-    public TagResource(TagRepository tagRepository, TagSearchRepository tagSearchRepository) {
+    private final SearchIndexService searchIndexService;
+
+    private final SearchResultCache searchResultCache;
+
+    private final TagUsageService tagUsageService;
+
+    public TagResource(TagRepository tagRepository, TagSearchRepository tagSearchRepository,
+            SearchIndexService searchIndexService, SearchResultCache searchResultCache,
+            TagUsageService tagUsageService) {
         this.tagRepository = tagRepository;
         this.tagSearchRepository = tagSearchRepository;
+        this.searchIndexService = searchIndexService;
+        this.searchResultCache = searchResultCache;
+        this.tagUsageService = tagUsageService;
     }
 
     /**
@@ -58,13 +76,14 @@ public class TagResource {
      */
     @PostMapping("/tags")
     @Timed
+    @Transactional
     public ResponseEntity<Tag> createTag(@Valid @RequestBody Tag tag) throws URISyntaxException {
         log.debug("REST request to save Tag : {}", tag);
         if (tag.getId() != null) {
             throw new BadRequestAlertException("A new tag cannot already have an ID", ENTITY_NAME, "idexists");
         }
         Tag result = tagRepository.save(tag);
-        tagSearchRepository.save(result);
+        searchIndexService.index(result);
         return ResponseEntity.created(new URI("/api/tags/" + result.getId()))
             .headers(HeaderUtil.createEntityCreationAlert(ENTITY_NAME, result.getId().toString()))
             .body(result);
@@ -72,24 +91,45 @@ public class TagResource {
 
     /**
      * PUT  /tags : Updates an existing tag.
+     * <p>
+     * With an If-Match header, the tag is only updated if its entity tag still matches; otherwise the version
+     * of the tag, if sent, must still be the current one.
      *
      * @param tag the tag to update
+     * @param ifMatch the entity tag of the tag the update was made from, if any
      * @return the ResponseEntity with status 200 (OK) and with body the updated tag,
-     * or with status 400 (Bad Request) if the tag is not valid,
+     * or with status 400 (Bad Request) if the tag is not valid or doesn't exist,
+     * or with status 409 (Conflict) if the version of the tag is not the current one,
+     * or with status 412 (Precondition Failed) if the If-Match header doesn't match the tag,
      * or with status 500 (Internal Server Error) if the tag couldn't be updated
      * @throws URISyntaxException if the Location URI syntax is incorrect
      */
     @PutMapping("/tags")
     @Timed
-    public ResponseEntity<Tag> updateTag(@Valid @RequestBody Tag tag) throws URISyntaxException {
+    @Transactional
+    public ResponseEntity<Tag> updateTag(@Valid @RequestBody Tag tag,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) throws URISyntaxException {
         log.debug("REST request to update Tag : {}", tag);
         if (tag.getId() == null) {
             return createTag(tag);
         }
-        Tag result = tagRepository.save(tag);
-        tagSearchRepository.save(result);
+        Tag current = tagRepository.findOne(tag.getId());
+        if (current == null) {
+            throw new BadRequestAlertException("The tag doesn't exist", ENTITY_NAME, "idnotfound");
+        }
+        if (!EntityTagUtil.ifMatch(ifMatch, EntityTagUtil.entityTag(current))) {
+            throw new PreconditionFailedAlertException("The tag was modified since it was read", ENTITY_NAME);
+        }
+        if (ifMatch != null || tag.getVersion() == null) {
+            tag.setVersion(current.getVersion());
+        }
+        // Flushed so that the entity tag is computed from the new version
+        Tag result = tagRepository.saveAndFlush(tag);
+        searchIndexService.index(result);
+        HttpHeaders headers = EntityTagUtil.createEntityTagHeaders(EntityTagUtil.entityTag(result));
+        headers.putAll(HeaderUtil.createEntityUpdateAlert(ENTITY_NAME, tag.getId().toString()));
         return ResponseEntity.ok()
-            .headers(HeaderUtil.createEntityUpdateAlert(ENTITY_NAME, tag.getId().toString()))
+            .headers(headers)
             .body(result);
     }
 
@@ -108,18 +148,41 @@ public class TagResource {
         return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
     }
 
+    /**
+     * GET  /tags/usage : get the tags with their number of entries, the most used first, for a tag cloud.
+     * <p>
+     * The counts are maintained as the entries gain and lose tags, and the whole list is cached.
+     *
+     * @param limit the maximum number of tags to return, all of them if not set
+     * @return the list of tags with their number of entries
+     */
+    @GetMapping("/tags/usage")
+    @Timed
+    public List<TagUsageDTO> getTagUsage(@RequestParam(value = "limit", required = false) Integer limit) {
+        log.debug("REST request to get the usage of the Tags, limited to : {}", limit);
+        List<TagUsageDTO> tagUsage = tagUsageService.getTagUsage();
+        if (limit != null && limit >= 0 && limit < tagUsage.size()) {
+            return tagUsage.subList(0, limit);
+        }
+        return tagUsage;
+    }
+
     /**
      * GET  /tags/:id : get the "id" tag.
      *
      * @param id the id of the tag to retrieve
-     * @return the ResponseEntity with status 200 (OK) and with body the tag, or with status 404 (Not Found)
+     * @return the ResponseEntity with status 200 (OK) and with body the tag,
+     * or with status 304 (Not Modified) if the If-None-Match header matches the entity tag of the tag,
+     * or with status 404 (Not Found)
      */
     @GetMapping("/tags/{id}")
     @Timed
     public ResponseEntity<Tag> getTag(@PathVariable Long id) {
         log.debug("REST request to get Tag : {}", id);
         Tag tag = tagRepository.findOne(id);
-        return ResponseUtil.wrapOrNotFound(Optional.ofNullable(tag));
+        // Spring answers 304 (Not Modified), without serializing the tag, if the If-None-Match header matches
+        return ResponseUtil.wrapOrNotFound(Optional.ofNullable(tag),
+            tag != null ? EntityTagUtil.createEntityTagHeaders(EntityTagUtil.entityTag(tag)) : null);
     }
 
     /**
@@ -130,10 +193,11 @@ public class TagResource {
      */
     @DeleteMapping("/tags/{id}")
     @Timed
+    @Transactional
     public ResponseEntity<Void> deleteTag(@PathVariable Long id) {
         log.debug("REST request to delete Tag : {}", id);
         tagRepository.delete(id);
-        tagSearchRepository.delete(id);
+        searchIndexService.delete(Tag.class, id);
         return ResponseEntity.ok().headers(HeaderUtil.createEntityDeletionAlert(ENTITY_NAME, id.toString())).build();
     }
 
@@ -149,7 +213,8 @@ public class TagResource {
     @Timed
     public ResponseEntity<List<Tag>> searchTags(@RequestParam String query, Pageable pageable) {
         log.debug("REST request to search for a page of Tags for query {}", query);
-        Page<Tag> page = tagSearchRepository.search(queryStringQuery(query), pageable);
+        Page<Tag> page = searchResultCache.get(Tag.class, query, pageable,
+            () -> tagSearchRepository.search(queryStringQuery(query), pageable));
         HttpHeaders headers = PaginationUtil.generateSearchPaginationHttpHeaders(query, page, "/api/_search/tags");
         return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
     }
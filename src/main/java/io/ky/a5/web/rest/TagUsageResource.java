@@ -0,0 +1,49 @@
+package io.ky.a5.web.rest;
+
+import io.ky.a5.service.TagUsageService;
+
+import com.codahale.metrics.annotation.Timed;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Controller to rebuild the number of entries of each tag from the database.
+ */
+@RestController
+@RequestMapping("/management")
+public class TagUsageResource {
+
+    private final TagUsageService tagUsageService;
+
+    public TagUsageResource(TagUsageService tagUsageService) {
+        this.tagUsageService = tagUsageService;
+    }
+
+    /**
+     * POST  /tag-usage/rebuild : start recounting the entries of all the tags.
+     *
+     * @return the ResponseEntity with status 202 (Accepted),
+     * or with status 409 (Conflict) if a rebuild is already running
+     */
+    @PostMapping("/tag-usage/rebuild")
+    @Timed
+    public ResponseEntity<Map<String, Boolean>> startRebuild() {
+        HttpStatus status = tagUsageService.startRebuild() ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT;
+        return new ResponseEntity<>(getRebuildStatus(), status);
+    }
+
+    /**
+     * GET  /tag-usage/rebuild : get whether a rebuild is running.
+     *
+     * @return the status of the rebuild
+     */
+    @GetMapping("/tag-usage/rebuild")
+    @Timed
+    public Map<String, Boolean> getRebuildStatus() {
+        return Collections.singletonMap("running", tagUsageService.isRebuilding());
+    }
+}
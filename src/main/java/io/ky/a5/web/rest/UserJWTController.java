@@ -1,7 +1,9 @@
 package io.ky.a5.web.rest;
 
+import io.ky.a5.security.RateLimiter;
 import io.ky.a5.security.jwt.JWTConfigurer;
 import io.ky.a5.security.jwt.TokenProvider;
+import io.ky.a5.web.rest.errors.TooManyRequestsException;
 import io.ky.a5.web.rest.vm.LoginVM;
 
 import com.codahale.metrics.annotation.Timed;
@@ -16,6 +18,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 
 /**
@@ -29,14 +32,23 @@ public class UserJWTController {
 
     private final AuthenticationManager authenticationManager;
 
-    public UserJWTController(TokenProvider tokenProvider, AuthenticationManager authenticationManager) {
+    private final RateLimiter rateLimiter;
+
+    public UserJWTController(TokenProvider tokenProvider, AuthenticationManager authenticationManager,
+            RateLimiter rateLimiter) {
         this.tokenProvider = tokenProvider;
         this.authenticationManager = authenticationManager;
+        this.rateLimiter = rateLimiter;
     }
 
     @PostMapping("/authenticate")
     @Timed
-    public ResponseEntity<JWTToken> authorize(@Valid @RequestBody LoginVM loginVM) {
+    public ResponseEntity<JWTToken> authorize(@Valid @RequestBody LoginVM loginVM, HttpServletRequest request) {
+        long retryAfter = rateLimiter.acquire(RateLimiter.Endpoint.AUTHENTICATE, request.getRemoteAddr(),
+            loginVM.getUsername());
+        if (retryAfter > 0) {
+            throw new TooManyRequestsException(retryAfter);
+        }
 
         UsernamePasswordAuthenticationToken authenticationToken =
             new UsernamePasswordAuthenticationToken(loginVM.getUsername(), loginVM.getPassword());
@@ -7,6 +7,7 @@ import io.ky.a5.repository.UserRepository;
 import io.ky.a5.repository.search.UserSearchRepository;
 import io.ky.a5.security.AuthoritiesConstants;
 import io.ky.a5.service.MailService;
+import io.ky.a5.service.SearchResultCache;
 import io.ky.a5.service.UserService;
 import io.ky.a5.service.dto.UserDTO;
 import io.ky.a5.web.rest.errors.BadRequestAlertException;
@@ -73,12 +74,16 @@ public class UserResource {
 
     private final UserSearchRepository userSearchRepository;
 
-    public UserResource(UserRepository userRepository, UserService userService, MailService mailService, UserSearchRepository userSearchRepository) {
+    private final SearchResultCache searchResultCache;
+
+    public UserResource(UserRepository userRepository, UserService userService, MailService mailService, UserSearchRepository userSearchRepository,
+            SearchResultCache searchResultCache) {
 
         this.userRepository = userRepository;
         this.userService = userService;
         this.mailService = mailService;
         this.userSearchRepository = userSearchRepository;
+        this.searchResultCache = searchResultCache;
     }
 
     /**
@@ -206,8 +211,8 @@ public class UserResource {
     @GetMapping("/_search/users/{query}")
     @Timed
     public List<User> search(@PathVariable String query) {
-        return StreamSupport
+        return searchResultCache.get(User.class, query, null, () -> StreamSupport
             .stream(userSearchRepository.search(queryStringQuery(query)).spliterator(), false)
-            .collect(Collectors.toList());
+            .collect(Collectors.toList()));
     }
 }
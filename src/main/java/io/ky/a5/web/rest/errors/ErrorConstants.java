@@ -5,7 +5,10 @@ import java.net.URI;
 public final class ErrorConstants {
 
     public static final String ERR_CONCURRENCY_FAILURE = "error.concurrencyFailure";
+    public static final String ERR_PRECONDITION_FAILED = "error.preconditionFailed";
     public static final String ERR_VALIDATION = "error.validation";
+    public static final String ERR_TOO_MANY_REQUESTS = "error.http.429";
+    public static final String ERR_SERVICE_UNAVAILABLE = "error.http.503";
     public static final String PROBLEM_BASE_URL = "http://www.jhipster.tech/problem";
     public static final URI DEFAULT_TYPE = URI.create(PROBLEM_BASE_URL + "/problem-with-message");
     public static final URI CONSTRAINT_VIOLATION_TYPE = URI.create(PROBLEM_BASE_URL + "/constraint-violation");
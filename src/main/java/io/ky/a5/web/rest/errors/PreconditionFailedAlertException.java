@@ -0,0 +1,33 @@
+package io.ky.a5.web.rest.errors;
+
+import org.zalando.problem.AbstractThrowableProblem;
+import org.zalando.problem.Status;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Thrown when the If-Match header of an update doesn't match the current entity tag of the entity, which was
+ * modified since the client read it.
+ */
+public class PreconditionFailedAlertException extends AbstractThrowableProblem {
+
+    private final String entityName;
+
+    public PreconditionFailedAlertException(String defaultMessage, String entityName) {
+        super(ErrorConstants.DEFAULT_TYPE, defaultMessage, Status.PRECONDITION_FAILED, null, null, null,
+            getAlertParameters(entityName));
+        this.entityName = entityName;
+    }
+
+    public String getEntityName() {
+        return entityName;
+    }
+
+    private static Map<String, Object> getAlertParameters(String entityName) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("message", ErrorConstants.ERR_PRECONDITION_FAILED);
+        parameters.put("params", entityName);
+        return parameters;
+    }
+}
@@ -0,0 +1,25 @@
+package io.ky.a5.web.rest.errors;
+
+import org.zalando.problem.AbstractThrowableProblem;
+import org.zalando.problem.Status;
+
+import java.util.Collections;
+
+/**
+ * Thrown when a client sent too many requests to a rate-limited endpoint. The response tells it how many seconds
+ * to wait in its Retry-After header.
+ */
+public class TooManyRequestsException extends AbstractThrowableProblem {
+
+    private final long retryAfter;
+
+    public TooManyRequestsException(long retryAfter) {
+        super(ErrorConstants.DEFAULT_TYPE, "Too many requests", Status.TOO_MANY_REQUESTS, null, null, null,
+            Collections.singletonMap("message", ErrorConstants.ERR_TOO_MANY_REQUESTS));
+        this.retryAfter = retryAfter;
+    }
+
+    public long getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,132 @@
+package io.ky.a5.web.rest.util;
+
+import io.ky.a5.domain.Blog;
+import io.ky.a5.domain.Entry;
+import io.ky.a5.domain.Tag;
+import io.ky.a5.domain.User;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Utility class for the entity tags (ETag) of the REST representations of the entities.
+ * <p>
+ * An entity tag is built from the versions of the entities included in the representation, so that it changes
+ * whenever one of them is updated, without serializing the representation to hash it.
+ */
+public final class EntityTagUtil {
+
+    private static final String ANY = "*";
+
+    private static final String WEAK_PREFIX = "W/";
+
+    private EntityTagUtil() {
+    }
+
+    /**
+     * Strong entity tag of a tag.
+     */
+    public static String entityTag(Tag tag) {
+        return entityTag(tag.getVersion());
+    }
+
+    /**
+     * Strong entity tag of a blog, which includes its user: users have no version, their last modification date
+     * is used instead.
+     */
+    public static String entityTag(Blog blog) {
+        return entityTag(blog.getVersion(), lastModified(blog.getUser()));
+    }
+
+    /**
+     * Strong entity tag of an entry, which includes its blog and its tags.
+     * <p>
+     * Adding or removing a tag updates the version of the entry; renaming one of its tags updates the version of
+     * the tag, so the sum of the versions of the tags is enough to tell a change.
+     *
+     * @see io.ky.a5.repository.EntryRepository#findEntityTagVersionsById(Long)
+     */
+    public static String entityTag(Entry entry) {
+        Blog blog = entry.getBlog();
+        return entityTag(entry.getVersion(),
+            blog != null ? blog.getVersion() : null,
+            blog != null ? lastModified(blog.getUser()) : null,
+            entry.getTags().stream().map(Tag::getVersion).filter(Objects::nonNull).mapToLong(Long::longValue).sum());
+    }
+
+    /**
+     * Strong entity tag made of the given versions, null versions being left empty.
+     *
+     * @param versions the versions of the entities included in the representation
+     * @return the entity tag, quoted
+     */
+    public static String entityTag(Object... versions) {
+        return Arrays.stream(versions)
+            .map(version -> version instanceof Instant ? ((Instant) version).toEpochMilli() : version)
+            .map(version -> Objects.toString(version, ""))
+            .collect(Collectors.joining("-", "\"", "\""));
+    }
+
+    /**
+     * Headers of a representation with an entity tag. The representation may be cached by the browser, as long as it
+     * is revalidated with its entity tag each time, rather than never being stored.
+     *
+     * @param entityTag the entity tag of the representation
+     * @return the ETag and Cache-Control headers
+     */
+    public static HttpHeaders createEntityTagHeaders(String entityTag) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(entityTag);
+        headers.setCacheControl(CacheControl.noCache().cachePrivate().getHeaderValue());
+        return headers;
+    }
+
+    /**
+     * Whether an If-None-Match header matches an entity tag, in which case a GET is answered with 304 (Not Modified).
+     * The weak comparison is used, as required for If-None-Match.
+     *
+     * @param ifNoneMatch the value of the If-None-Match header, possibly null
+     * @param entityTag the current entity tag of the representation
+     * @return true if the client already has the current representation
+     */
+    public static boolean ifNoneMatch(String ifNoneMatch, String entityTag) {
+        return matches(ifNoneMatch, entityTag, true);
+    }
+
+    /**
+     * Whether an If-Match header is satisfied by an entity tag; when it is not, an update is answered with
+     * 412 (Precondition Failed). The strong comparison is used, as required for If-Match.
+     *
+     * @param ifMatch the value of the If-Match header, possibly null when the update is unconditional
+     * @param entityTag the current entity tag of the representation
+     * @return true if the update can proceed
+     */
+    public static boolean ifMatch(String ifMatch, String entityTag) {
+        return ifMatch == null || matches(ifMatch, entityTag, false);
+    }
+
+    private static boolean matches(String header, String entityTag, boolean weak) {
+        if (header == null) {
+            return false;
+        }
+        for (String candidate : header.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.equals(ANY) || candidate.equals(entityTag)) {
+                return true;
+            }
+            if (weak && candidate.startsWith(WEAK_PREFIX) && candidate.substring(WEAK_PREFIX.length()).equals(entityTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Instant lastModified(User user) {
+        return user != null ? user.getLastModifiedDate() : null;
+    }
+}
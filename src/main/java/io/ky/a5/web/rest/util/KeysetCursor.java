@@ -0,0 +1,93 @@
+package io.ky.a5.web.rest.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * Opaque cursor used for keyset pagination over a (date, id) ordering.
+ * <p>
+ * The cursor holds the date and id of the last row of a slice; the next slice is then read with a
+ * "date/id lower than the cursor" predicate instead of an OFFSET, so its cost does not depend on how deep
+ * the client is in the result. It is sent to clients encoded as URL-safe Base64 so they treat it as a token.
+ */
+public final class KeysetCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final Instant date;
+
+    private final Long id;
+
+    public KeysetCursor(Instant date, Long id) {
+        this.date = Objects.requireNonNull(date);
+        this.id = Objects.requireNonNull(id);
+    }
+
+    public Instant getDate() {
+        return date;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * @return the opaque representation of this cursor, safe to use in a URL
+     */
+    public String encode() {
+        String raw = date.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor previously produced by {@link #encode()}.
+     *
+     * @param token the opaque cursor
+     * @return the decoded cursor
+     * @throws IllegalArgumentException if the token is not a valid cursor
+     */
+    public static KeysetCursor decode(String token) {
+        if (token == null || token.isEmpty()) {
+            throw new IllegalArgumentException("Empty cursor");
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Malformed cursor: " + token);
+            }
+            return new KeysetCursor(Instant.parse(raw.substring(0, separator)),
+                Long.valueOf(raw.substring(separator + 1)));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Malformed cursor: " + token, e);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        KeysetCursor cursor = (KeysetCursor) o;
+        return Objects.equals(date, cursor.date) && Objects.equals(id, cursor.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(date, id);
+    }
+
+    @Override
+    public String toString() {
+        return "KeysetCursor{" +
+            "date=" + date +
+            ", id=" + id +
+            "}";
+    }
+}
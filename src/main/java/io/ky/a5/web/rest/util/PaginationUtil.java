@@ -1,6 +1,7 @@
 package io.ky.a5.web.rest.util;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.web.util.UriComponentsBuilder;
 
@@ -42,10 +43,42 @@ public final class PaginationUtil {
         return headers;
     }
 
+    /**
+     * Generate the headers of a slice read with keyset pagination.
+     * <p>
+     * Instead of page numbers, the "next" link carries the opaque cursor of the last element of the slice in
+     * the "after" parameter. There is no "last" link, as computing it would require the count query that keyset
+     * pagination avoids; the X-Total-Count header is only sent when the caller asked for the count.
+     *
+     * @param slice the slice that was read
+     * @param nextCursor the cursor of the next slice, or null if this is the last one
+     * @param totalCount the total number of elements, or null if it was not computed
+     * @param baseUrl the URL of the resource
+     * @return the pagination headers
+     */
+    public static HttpHeaders generateKeysetPaginationHttpHeaders(Slice slice, String nextCursor, Long totalCount, String baseUrl) {
+
+        HttpHeaders headers = new HttpHeaders();
+        if (totalCount != null) {
+            headers.add("X-Total-Count", Long.toString(totalCount));
+        }
+        String link = "";
+        if (slice.hasNext() && nextCursor != null) {
+            link = "<" + generateKeysetUri(baseUrl, nextCursor, slice.getSize()) + ">; rel=\"next\",";
+        }
+        link += "<" + generateKeysetUri(baseUrl, "", slice.getSize()) + ">; rel=\"first\"";
+        headers.add(HttpHeaders.LINK, link);
+        return headers;
+    }
+
     private static String generateUri(String baseUrl, int page, int size) {
         return UriComponentsBuilder.fromUriString(baseUrl).queryParam("page", page).queryParam("size", size).toUriString();
     }
 
+    private static String generateKeysetUri(String baseUrl, String after, int size) {
+        return UriComponentsBuilder.fromUriString(baseUrl).queryParam("after", after).queryParam("size", size).toUriString();
+    }
+
     public static HttpHeaders generateSearchPaginationHttpHeaders(String query, Page page, String baseUrl) {
         String escapedQuery;
         try {
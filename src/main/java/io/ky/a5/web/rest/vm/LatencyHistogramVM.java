@@ -0,0 +1,100 @@
+package io.ky.a5.web.rest.vm;
+
+import org.HdrHistogram.Histogram;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * View Model object for exporting the HdrHistogram of a timer.
+ * <p>
+ * The histogram is encoded as in the HdrHistogram logs: compressed, then in Base64. It can be decoded with
+ * {@code Histogram.decodeFromCompressedByteBuffer}, and added to the histograms of the same timer on the other
+ * nodes to compute the percentiles of the cluster.
+ */
+public class LatencyHistogramVM {
+
+    private String name;
+
+    private String unit;
+
+    private long startTimestamp;
+
+    private long endTimestamp;
+
+    private long count;
+
+    private String histogram;
+
+    public LatencyHistogramVM(String name, Histogram histogram) {
+        this.name = name;
+        this.unit = "nanoseconds";
+        this.startTimestamp = histogram.getStartTimeStamp();
+        this.endTimestamp = histogram.getEndTimeStamp();
+        this.count = histogram.getTotalCount();
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        this.histogram = Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length));
+    }
+
+    public LatencyHistogramVM() {
+        // Empty public constructor used by Jackson.
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    public void setUnit(String unit) {
+        this.unit = unit;
+    }
+
+    public long getStartTimestamp() {
+        return startTimestamp;
+    }
+
+    public void setStartTimestamp(long startTimestamp) {
+        this.startTimestamp = startTimestamp;
+    }
+
+    public long getEndTimestamp() {
+        return endTimestamp;
+    }
+
+    public void setEndTimestamp(long endTimestamp) {
+        this.endTimestamp = endTimestamp;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public String getHistogram() {
+        return histogram;
+    }
+
+    public void setHistogram(String histogram) {
+        this.histogram = histogram;
+    }
+
+    @Override
+    public String toString() {
+        return "LatencyHistogramVM{" +
+            "name='" + name + '\'' +
+            ", count=" + count +
+            '}';
+    }
+}
@@ -6,6 +6,7 @@ export class Blog implements BaseEntity {
         public name?: string,
         public handle?: string,
         public user?: User,
+        public version?: number,
     ) {
     }
 }
@@ -3,7 +3,7 @@ import { ActivatedRoute } from '@angular/router';
 import { Subscription } from 'rxjs/Subscription';
 import { JhiEventManager, JhiParseLinks, JhiAlertService, JhiDataUtils } from 'ng-jhipster';
 
-import { Entry } from './entry.model';
+import { EntrySummary } from './entry.model';
 import { EntryService } from './entry.service';
 import { ITEMS_PER_PAGE, Principal, ResponseWrapper } from '../../shared';
 
@@ -13,7 +13,7 @@ import { ITEMS_PER_PAGE, Principal, ResponseWrapper } from '../../shared';
 })
 export class EntryComponent implements OnInit, OnDestroy {
 
-    entries: Entry[];
+    entries: EntrySummary[];
     currentAccount: any;
     eventSubscriber: Subscription;
     itemsPerPage: number;
@@ -118,7 +118,7 @@ export class EntryComponent implements OnInit, OnDestroy {
         this.eventManager.destroy(this.eventSubscriber);
     }
 
-    trackId(index: number, item: Entry) {
+    trackId(index: number, item: EntrySummary) {
         return item.id;
     }
 
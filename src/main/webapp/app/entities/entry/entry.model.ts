@@ -8,6 +8,21 @@ export class Entry implements BaseEntity {
         public date?: any,
         public blog?: BaseEntity,
         public tags?: BaseEntity[],
+        public version?: number,
+    ) {
+    }
+}
+
+export class EntrySummary implements BaseEntity {
+    constructor(
+        public id?: number,
+        public title?: string,
+        public date?: any,
+        public excerpt?: string,
+        public blogId?: number,
+        public blogName?: string,
+        public userLogin?: string,
+        public tags?: string[],
     ) {
     }
 }
@@ -5,7 +5,7 @@ import { SERVER_API_URL } from '../../app.constants';
 
 import { JhiDateUtils } from 'ng-jhipster';
 
-import { Entry } from './entry.model';
+import { Entry, EntrySummary } from './entry.model';
 import { ResponseWrapper, createRequestOption } from '../../shared';
 
 @Injectable()
@@ -59,7 +59,7 @@ export class EntryService {
         const jsonResponse = res.json();
         const result = [];
         for (let i = 0; i < jsonResponse.length; i++) {
-            result.push(this.convertItemFromServer(jsonResponse[i]));
+            result.push(this.convertSummaryFromServer(jsonResponse[i]));
         }
         return new ResponseWrapper(res.headers, result, res.status);
     }
@@ -74,6 +74,16 @@ export class EntryService {
         return entity;
     }
 
+    /**
+     * Convert a returned JSON object to EntrySummary, as returned by the list and search endpoints.
+     */
+    private convertSummaryFromServer(json: any): EntrySummary {
+        const entity: EntrySummary = Object.assign(new EntrySummary(), json);
+        entity.date = this.dateUtils
+            .convertDateTimeFromServer(json.date);
+        return entity;
+    }
+
     /**
      * Convert a Entry to a JSON which can be sent to the server.
      */
@@ -5,6 +5,7 @@ export class Tag implements BaseEntity {
         public id?: number,
         public name?: string,
         public entries?: BaseEntity[],
+        public version?: number,
     ) {
     }
 }
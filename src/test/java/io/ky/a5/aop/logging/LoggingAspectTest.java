@@ -0,0 +1,55 @@
+package io.ky.a5.aop.logging;
+
+import io.ky.a5.config.ApplicationProperties;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Test class for the sampling of the LoggingAspect.
+ *
+ * @see LoggingAspect
+ */
+public class LoggingAspectTest {
+
+    private ApplicationProperties applicationProperties;
+
+    private LoggingAspect loggingAspect;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        applicationProperties = new ApplicationProperties();
+        ApplicationProperties.Tracing tracing = applicationProperties.getTracing();
+        tracing.setSampleRate(0.5);
+        tracing.getSampling().add(sampling("io.ky.a5.repository", 0.01));
+        tracing.getSampling().add(sampling("io.ky.a5.repository.EntryRepository", 1));
+        loggingAspect = new LoggingAspect(new MockEnvironment(), applicationProperties, mock(ObjectProvider.class));
+    }
+
+    @Test
+    public void testLongestPrefixApplies() {
+        assertThat(loggingAspect.sampleRate("io.ky.a5.repository.EntryRepository")).isEqualTo(1);
+        assertThat(loggingAspect.sampleRate("io.ky.a5.repository.TagRepository")).isEqualTo(0.01);
+        assertThat(loggingAspect.sampleRate("io.ky.a5.repository.search.TagSearchRepository")).isEqualTo(0.01);
+    }
+
+    @Test
+    public void testDefaultRateApplies() {
+        assertThat(loggingAspect.sampleRate("io.ky.a5.service.EntryService")).isEqualTo(0.5);
+        // A prefix only matches whole package or class names
+        assertThat(loggingAspect.sampleRate("io.ky.a5.repositoryx.Other")).isEqualTo(0.5);
+    }
+
+    private static ApplicationProperties.Tracing.Sampling sampling(String prefix, double rate) {
+        ApplicationProperties.Tracing.Sampling sampling = new ApplicationProperties.Tracing.Sampling();
+        sampling.setPrefix(prefix);
+        sampling.setRate(rate);
+        return sampling;
+    }
+}
@@ -0,0 +1,77 @@
+package io.ky.a5.aop.logging;
+
+import io.ky.a5.domain.Entry;
+
+import org.hibernate.collection.internal.PersistentSet;
+import org.hibernate.proxy.HibernateProxy;
+import org.hibernate.proxy.LazyInitializer;
+import org.junit.Test;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for the TraceFormatter.
+ *
+ * @see TraceFormatter
+ */
+public class TraceFormatterTest {
+
+    private final TraceFormatter formatter = new TraceFormatter(10, 3);
+
+    @Test
+    public void testFormatArguments() {
+        assertThat(formatter.formatArguments(new Object[] { 1L, null, "title" })).isEqualTo("[1, null, title]");
+        assertThat(formatter.formatArguments(new Object[0])).isEqualTo("[]");
+    }
+
+    @Test
+    public void testLongValuesAreCut() {
+        assertThat(formatter.format("0123456789abcdef")).isEqualTo("0123456789...");
+        assertThat(formatter.format(new byte[1024])).isEqualTo("byte[1024]");
+    }
+
+    @Test
+    public void testCollectionsAreCut() {
+        assertThat(formatter.format(IntStream.range(0, 100).boxed().collect(Collectors.toList())))
+            .isEqualTo("[0, 1, 2, ... (100 elements)]");
+        assertThat(formatter.format(Arrays.asList(1, 2, 3))).isEqualTo("[1, 2, 3]");
+        assertThat(formatter.format(new String[] { "a", "b" })).isEqualTo("[a, b]");
+        assertThat(formatter.format(Collections.singletonMap("key", "0123456789abcdef")))
+            .isEqualTo("{key=0123456789...}");
+        assertThat(formatter.format(Optional.of(Arrays.asList(1, 2, 3, 4))))
+            .isEqualTo("Optional[[1, 2, 3, ... (4 elements)]]");
+        assertThat(formatter.format(ResponseEntity.ok("body"))).isEqualTo("<200,body>");
+    }
+
+    @Test
+    public void testUninitializedCollectionIsNotRead() {
+        assertThat(formatter.format(new PersistentSet())).isEqualTo("<uninitialized collection>");
+    }
+
+    @Test
+    public void testUninitializedProxyIsNotRead() {
+        HibernateProxy proxy = mock(HibernateProxy.class);
+        LazyInitializer initializer = mock(LazyInitializer.class);
+        when(proxy.getHibernateLazyInitializer()).thenReturn(initializer);
+        when(initializer.isUninitialized()).thenReturn(true);
+        when(initializer.getEntityName()).thenReturn(Entry.class.getName());
+        when(initializer.getIdentifier()).thenReturn(42L);
+
+        assertThat(formatter.format(proxy)).isEqualTo("<io.ky.a5.domain.Entry#42 uninitialized>");
+        verify(initializer).isUninitialized();
+        verify(initializer).getEntityName();
+        verify(initializer).getIdentifier();
+        verifyNoMoreInteractions(initializer);
+    }
+}
@@ -0,0 +1,93 @@
+package io.ky.a5.config;
+
+import io.github.jhipster.config.JHipsterProperties;
+import org.ehcache.config.ResourcePools;
+import org.ehcache.config.ResourceType;
+import org.ehcache.config.SizedResourcePool;
+import org.ehcache.config.units.EntryUnit;
+import org.ehcache.config.units.MemoryUnit;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for the sizing of the cache regions.
+ *
+ * @see CacheConfiguration
+ */
+public class CacheConfigurationTest {
+
+    private ApplicationProperties.Cache.Region region;
+
+    @Before
+    public void setup() {
+        region = new ApplicationProperties.Cache.Region();
+        region.setName("io.ky.a5.domain.Entry");
+    }
+
+    @Test
+    public void testDefaultHeapSize() {
+        ResourcePools resourcePools = CacheConfiguration.resourcePools(region, 100).build();
+
+        assertThat(resourcePools.getResourceTypeSet()).containsExactly(ResourceType.Core.HEAP);
+        assertPool(resourcePools, ResourceType.Core.HEAP, 100, EntryUnit.ENTRIES);
+    }
+
+    @Test
+    public void testHeapSizeInEntries() {
+        region.setHeap("2000");
+
+        ResourcePools resourcePools = CacheConfiguration.resourcePools(region, 100).build();
+
+        assertPool(resourcePools, ResourceType.Core.HEAP, 2000, EntryUnit.ENTRIES);
+    }
+
+    @Test
+    public void testAllTiers() {
+        region.setHeap("16mb");
+        region.setOffheap("1GB");
+        region.setDisk("10 GB");
+        region.setDiskPersistent(true);
+
+        ResourcePools resourcePools = CacheConfiguration.resourcePools(region, 100).build();
+
+        assertPool(resourcePools, ResourceType.Core.HEAP, 16, MemoryUnit.MB);
+        assertPool(resourcePools, ResourceType.Core.OFFHEAP, 1, MemoryUnit.GB);
+        assertPool(resourcePools, ResourceType.Core.DISK, 10, MemoryUnit.GB);
+        assertThat(resourcePools.getPoolForResource(ResourceType.Core.DISK).isPersistent()).isTrue();
+    }
+
+    @Test
+    public void testOffheapSizeRequiresUnit() {
+        region.setOffheap("1000");
+
+        assertThatThrownBy(() -> CacheConfiguration.resourcePools(region, 100))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testInvalidSize() {
+        region.setHeap("lots");
+
+        assertThatThrownBy(() -> CacheConfiguration.resourcePools(region, 100))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testDiskTierRequiresDiskPath() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        region.setDisk("1GB");
+        applicationProperties.getCache().getRegions().add(region);
+
+        assertThatThrownBy(() -> new CacheConfiguration(new JHipsterProperties(), applicationProperties))
+            .isInstanceOf(IllegalStateException.class);
+    }
+
+    private static void assertPool(ResourcePools resourcePools, ResourceType.Core type, long size, Object unit) {
+        SizedResourcePool pool = resourcePools.getPoolForResource(type);
+        assertThat(pool.getSize()).isEqualTo(size);
+        assertThat(pool.getUnit()).isEqualTo(unit);
+    }
+}
@@ -0,0 +1,118 @@
+package io.ky.a5.config.metrics;
+
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Test class for the HdrHistogramReservoir and the timers of the HdrHistogramMetricRegistry.
+ *
+ * @see HdrHistogramReservoir
+ */
+public class HdrHistogramReservoirTest {
+
+    @Test
+    public void testSnapshotHasExactPercentiles() {
+        HdrHistogramReservoir reservoir = new HdrHistogramReservoir();
+        for (long value = 1; value <= 10000; value++) {
+            reservoir.update(value);
+        }
+
+        Snapshot snapshot = reservoir.getSnapshot();
+
+        assertThat(snapshot.size()).isEqualTo(10000);
+        assertThat(snapshot.getMin()).isEqualTo(1);
+        assertThat(snapshot.getMax()).isCloseTo(10000, within(100L));
+        assertThat(snapshot.getMedian()).isCloseTo(5000, within(50.0));
+        assertThat(snapshot.get99thPercentile()).isCloseTo(9900, within(99.0));
+        assertThat(snapshot.get999thPercentile()).isCloseTo(9990, within(99.9));
+    }
+
+    @Test
+    public void testHistogramKeepsAllValues() {
+        HdrHistogramReservoir reservoir = new HdrHistogramReservoir();
+        reservoir.update(10);
+        assertThat(reservoir.getHistogram().getTotalCount()).isEqualTo(1);
+
+        reservoir.update(20);
+        reservoir.update(30);
+
+        assertThat(reservoir.getHistogram().getTotalCount()).isEqualTo(3);
+        assertThat(reservoir.size()).isEqualTo(3);
+        assertThat(reservoir.getSnapshot().getValues()).containsExactly(10, 20, 30);
+    }
+
+    @Test
+    public void testSnapshotValuesMatchItsSize() {
+        HdrHistogramReservoir reservoir = new HdrHistogramReservoir();
+        for (int i = 0; i < 3; i++) {
+            reservoir.update(10);
+        }
+        reservoir.update(20);
+        reservoir.update(20);
+
+        Snapshot snapshot = reservoir.getSnapshot();
+
+        assertThat(snapshot.size()).isEqualTo(5);
+        assertThat(snapshot.getValues()).hasSize(snapshot.size()).containsExactly(10, 10, 10, 20, 20);
+    }
+
+    @Test
+    public void testSnapshotValuesAreLimited() {
+        HdrHistogramReservoir reservoir = new HdrHistogramReservoir();
+        for (int i = 0; i < HdrHistogramSnapshot.MAX_VALUES * 3; i++) {
+            reservoir.update(i < HdrHistogramSnapshot.MAX_VALUES ? 10 : 20);
+        }
+
+        Snapshot snapshot = reservoir.getSnapshot();
+
+        assertThat(snapshot.size()).isEqualTo(HdrHistogramSnapshot.MAX_VALUES);
+        long[] values = snapshot.getValues();
+        assertThat(values).hasSize(snapshot.size()).isSorted();
+        // A third of the recorded values are 10, and so are a third of the returned ones
+        assertThat(values[HdrHistogramSnapshot.MAX_VALUES / 3 - 1]).isEqualTo(10);
+        assertThat(values[HdrHistogramSnapshot.MAX_VALUES / 3 + 1]).isEqualTo(20);
+        assertThat(values[HdrHistogramSnapshot.MAX_VALUES - 1]).isEqualTo(20);
+    }
+
+    @Test
+    public void testSnapshotHoldsTheValuesOfTheWindow() {
+        AtomicLong now = new AtomicLong(TimeUnit.MINUTES.toMillis(10));
+        HdrHistogramReservoir reservoir = new HdrHistogramReservoir(TimeUnit.MINUTES.toMillis(1), 6, now::get);
+        reservoir.update(10);
+        assertThat(reservoir.getSnapshot().getValues()).containsExactly(10);
+
+        now.addAndGet(TimeUnit.SECONDS.toMillis(30));
+        reservoir.update(20);
+        assertThat(reservoir.getSnapshot().getValues()).containsExactly(10, 20);
+
+        // The period of the first value leaves the window, the others are still in it
+        now.addAndGet(TimeUnit.SECONDS.toMillis(40));
+        reservoir.update(30);
+        assertThat(reservoir.getSnapshot().getValues()).containsExactly(20, 30);
+
+        now.addAndGet(TimeUnit.MINUTES.toMillis(2));
+        assertThat(reservoir.size()).isZero();
+        assertThat(reservoir.getHistogram().getTotalCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void testRegistryCreatesHdrHistogramTimers() {
+        HdrHistogramMetricRegistry registry = new HdrHistogramMetricRegistry();
+
+        Timer timer = registry.timer("test.timer");
+        timer.update(5, TimeUnit.MILLISECONDS);
+
+        assertThat(timer).isInstanceOf(HdrHistogramTimer.class);
+        assertThat(registry.timer("test.timer")).isSameAs(timer);
+        assertThat(registry.getHdrHistogramTimers()).containsOnlyKeys("test.timer");
+        assertThat(((HdrHistogramTimer) timer).getHistogram().getMaxValue())
+            .isCloseTo(TimeUnit.MILLISECONDS.toNanos(5), within(TimeUnit.MILLISECONDS.toNanos(5) / 100));
+    }
+}
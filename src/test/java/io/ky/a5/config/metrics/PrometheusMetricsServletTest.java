@@ -0,0 +1,107 @@
+package io.ky.a5.config.metrics;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the PrometheusMetricsServlet.
+ *
+ * @see PrometheusMetricsServlet
+ */
+public class PrometheusMetricsServletTest {
+
+    private MetricRegistry metricRegistry;
+
+    private PrometheusMetricsServlet servlet;
+
+    @Before
+    public void setup() {
+        metricRegistry = new HdrHistogramMetricRegistry();
+        servlet = new PrometheusMetricsServlet(metricRegistry);
+    }
+
+    @Test
+    public void testTextFormat() throws Exception {
+        metricRegistry.register("jvm.memory.heap.used", (Gauge<Long>) () -> 1024L);
+        metricRegistry.register("jvm.memory.heap.usage", (Gauge<Double>) () -> 0.5);
+        metricRegistry.register("jvm.attributes.name", (Gauge<String>) () -> "jvm");
+        metricRegistry.counter("search.cache.invalidations").inc(3);
+        metricRegistry.meter("search.cache.hits").mark(2);
+        metricRegistry.timer("io.ky.a5.web.rest.EntryResource.getEntry").update(5, TimeUnit.MILLISECONDS);
+
+        MockHttpServletResponse response = scrape(null);
+
+        assertThat(response.getContentType()).isEqualTo(PrometheusMetricsServlet.TEXT_CONTENT_TYPE);
+        String body = response.getContentAsString();
+        assertThat(body)
+            .contains("# TYPE jvm_memory_heap_used gauge\njvm_memory_heap_used 1024\n")
+            .contains("jvm_memory_heap_usage 0.5\n")
+            .doesNotContain("jvm_attributes_name")
+            .contains("# TYPE search_cache_invalidations gauge\nsearch_cache_invalidations 3\n")
+            .contains("# TYPE search_cache_hits_total counter\nsearch_cache_hits_total 2\n")
+            .contains("# TYPE io_ky_a5_web_rest_EntryResource_getEntry_seconds summary\n")
+            .contains("io_ky_a5_web_rest_EntryResource_getEntry_seconds{quantile=\"0.999\"} 0.005")
+            .contains("io_ky_a5_web_rest_EntryResource_getEntry_seconds_count 1\n")
+            .doesNotContain("# EOF");
+    }
+
+    @Test
+    public void testOpenMetricsFormat() throws Exception {
+        metricRegistry.meter("search.cache.hits").mark();
+
+        MockHttpServletResponse response = scrape("application/openmetrics-text; version=1.0.0,text/plain;q=0.5");
+
+        assertThat(response.getContentType()).isEqualTo(PrometheusMetricsServlet.OPENMETRICS_CONTENT_TYPE);
+        assertThat(response.getContentAsString())
+            .contains("# TYPE search_cache_hits counter\nsearch_cache_hits_total 1\n")
+            .endsWith("# EOF\n");
+    }
+
+    @Test
+    public void testBufferIsReused() throws Exception {
+        metricRegistry.counter("requests").inc();
+        String first = scrape(null).getContentAsString();
+        metricRegistry.counter("requests").inc();
+
+        assertThat(scrape(null).getContentAsString()).isEqualTo(first.replace("requests 1", "requests 2"));
+    }
+
+    @Test
+    public void testBufferIsWrittenInChunks() throws Exception {
+        StringBuilder buffer = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            buffer.append("requests_").append(i).append(' ').append(i).append('\n');
+        }
+        for (int chunkSize : new int[] { 1, 7, buffer.length(), buffer.length() + 1 }) {
+            StringWriter writer = new StringWriter();
+            PrometheusMetricsServlet.write(buffer, new char[chunkSize], writer);
+            assertThat(writer.toString()).as("chunk of %d", chunkSize).isEqualTo(buffer.toString());
+        }
+    }
+
+    @Test
+    public void testSanitize() {
+        assertThat(PrometheusMetricsServlet.sanitize("jvm.memory.pools.PS-Eden-Space.usage"))
+            .isEqualTo("jvm_memory_pools_PS_Eden_Space_usage");
+        assertThat(PrometheusMetricsServlet.sanitize("5xx.responses")).isEqualTo("_5xx_responses");
+    }
+
+    private MockHttpServletResponse scrape(String accept) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/prometheusMetrics");
+        if (accept != null) {
+            request.addHeader("Accept", accept);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        servlet.service(request, response);
+        return response;
+    }
+}
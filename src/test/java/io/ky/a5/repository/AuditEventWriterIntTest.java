@@ -0,0 +1,97 @@
+package io.ky.a5.repository;
+
+import io.ky.a5.BlogApp;
+import io.ky.a5.config.ApplicationProperties;
+import io.ky.a5.config.metrics.AuditEventMetricSet;
+import io.ky.a5.domain.PersistentAuditEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the asynchronous mode of the AuditEventWriter.
+ *
+ * @see AuditEventWriter
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = BlogApp.class)
+public class AuditEventWriterIntTest {
+
+    @Autowired
+    private PersistenceAuditEventRepository persistenceAuditEventRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private ApplicationProperties applicationProperties;
+
+    private AuditEventMetricSet auditEventMetricSet;
+
+    @Before
+    public void setup() {
+        persistenceAuditEventRepository.deleteAll();
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getAuditEvents().setAsync(true);
+        applicationProperties.getAuditEvents().setFlushSize(2);
+        applicationProperties.getAuditEvents().setFlushInterval(50);
+        auditEventMetricSet = new AuditEventMetricSet();
+    }
+
+    @After
+    public void cleanup() {
+        persistenceAuditEventRepository.deleteAll();
+    }
+
+    @Test
+    public void testEventsAreWrittenInBatches() throws Exception {
+        AuditEventWriter auditEventWriter = createWriter();
+        for (int i = 0; i < 5; i++) {
+            auditEventWriter.write(createEvent("test-user-" + i));
+        }
+
+        auditEventWriter.stop();
+
+        assertThat(persistenceAuditEventRepository.findAll()).hasSize(5)
+            .extracting("principal").contains("test-user-0", "test-user-4");
+        assertThat(auditEventMetricSet.getWritten().getCount()).isEqualTo(5);
+        assertThat(auditEventMetricSet.getFlushes().getCount()).isGreaterThanOrEqualTo(3);
+        assertThat(auditEventMetricSet.getDropped().getCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void testEventsAreDroppedAfterStop() throws Exception {
+        applicationProperties.getAuditEvents().setBackpressure(ApplicationProperties.AuditEvents.Backpressure.DROP);
+        AuditEventWriter auditEventWriter = createWriter();
+        auditEventWriter.stop();
+
+        auditEventWriter.write(createEvent("test-user"));
+
+        assertThat(auditEventMetricSet.getDropped().getCount()).isEqualTo(1);
+        assertThat(persistenceAuditEventRepository.findAll()).isEmpty();
+    }
+
+    private AuditEventWriter createWriter() {
+        AuditEventWriter auditEventWriter = new AuditEventWriter(persistenceAuditEventRepository, transactionManager,
+            applicationProperties, auditEventMetricSet);
+        auditEventWriter.start();
+        return auditEventWriter;
+    }
+
+    private PersistentAuditEvent createEvent(String principal) {
+        PersistentAuditEvent event = new PersistentAuditEvent();
+        event.setPrincipal(principal);
+        event.setAuditEventType("test-type");
+        event.setAuditEventDate(Instant.now());
+        event.getData().put("test-key", "test-value");
+        return event;
+    }
+}
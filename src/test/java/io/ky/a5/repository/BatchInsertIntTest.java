@@ -0,0 +1,91 @@
+package io.ky.a5.repository;
+
+import io.ky.a5.BlogApp;
+import io.ky.a5.domain.Entry;
+import io.ky.a5.domain.Tag;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that the inserts of the entities are batched, which the ids generated by the database prevent.
+ * <p>
+ * Hibernate prepares one statement per batch: the number of prepared statements, read from its statistics, tells
+ * whether the rows were sent one by one.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = BlogApp.class)
+@Transactional
+public class BatchInsertIntTest {
+
+    private static final int ROWS = 100;
+
+    @Autowired
+    private EntityManager em;
+
+    private Statistics statistics;
+
+    @Before
+    public void setup() {
+        statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        em.flush();
+    }
+
+    @Test
+    public void testTagInsertsAreBatched() {
+        long prepared = statistics.getPrepareStatementCount();
+
+        for (int i = 0; i < ROWS; i++) {
+            em.persist(new Tag().name("tag " + i));
+        }
+        em.flush();
+
+        // 4 batches of inserts, and the reads and updates of the sequence
+        assertThat(statistics.getPrepareStatementCount() - prepared).isLessThan(ROWS / 4);
+    }
+
+    @Test
+    public void testEntryAndTagAssociationInsertsAreBatched() {
+        List<Tag> tags = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Tag tag = new Tag().name("tag " + i);
+            em.persist(tag);
+            tags.add(tag);
+        }
+        long prepared = statistics.getPrepareStatementCount();
+
+        for (int i = 0; i < ROWS; i++) {
+            Entry entry = new Entry().title("entry " + i).content("content").date(ZonedDateTime.now());
+            tags.forEach(entry::addTag);
+            em.persist(entry);
+        }
+        em.flush();
+
+        // 100 entries and 500 associations, in batches of 25
+        assertThat(statistics.getPrepareStatementCount() - prepared).isLessThan(ROWS / 2);
+    }
+
+    @Test
+    public void testIdsAreAllocatedByBlocks() {
+        Tag first = new Tag().name("first");
+        Tag second = new Tag().name("second");
+        em.persist(first);
+        em.persist(second);
+
+        assertThat(first.getId()).isNotNull();
+        assertThat(second.getId()).isEqualTo(first.getId() + 1);
+    }
+}
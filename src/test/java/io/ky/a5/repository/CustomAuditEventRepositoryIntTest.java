@@ -14,6 +14,7 @@ import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpSession;
 import org.springframework.security.web.authentication.WebAuthenticationDetails;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.context.transaction.AfterTransaction;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.servlet.http.HttpSession;
@@ -28,6 +29,9 @@ import static io.ky.a5.repository.CustomAuditEventRepository.EVENT_DATA_COLUMN_M
 
 /**
  * Test class for the CustomAuditEventRepository class.
+ * <p>
+ * The events added through the repository are written by the {@link AuditEventWriter} in their own transaction, so
+ * they are committed: they are removed once the transaction of the test has been rolled back.
  *
  * @see CustomAuditEventRepository
  */
@@ -42,6 +46,9 @@ public class CustomAuditEventRepositoryIntTest {
     @Autowired
     private AuditEventConverter auditEventConverter;
 
+    @Autowired
+    private AuditEventWriter auditEventWriter;
+
     private CustomAuditEventRepository customAuditEventRepository;
 
     private PersistentAuditEvent testUserEvent;
@@ -52,7 +59,8 @@ public class CustomAuditEventRepositoryIntTest {
 
     @Before
     public void setup() {
-        customAuditEventRepository = new CustomAuditEventRepository(persistenceAuditEventRepository, auditEventConverter);
+        customAuditEventRepository = new CustomAuditEventRepository(persistenceAuditEventRepository, auditEventConverter,
+            auditEventWriter);
         persistenceAuditEventRepository.deleteAll();
         Instant oneHourAgo = Instant.now().minusSeconds(3600);
 
@@ -75,6 +83,11 @@ public class CustomAuditEventRepositoryIntTest {
         testOtherUserEvent.setAuditEventDate(oneHourAgo);
     }
 
+    @AfterTransaction
+    public void cleanup() {
+        persistenceAuditEventRepository.deleteAll();
+    }
+
     @Test
     public void testFindAfter() {
         persistenceAuditEventRepository.save(testUserEvent);
@@ -0,0 +1,157 @@
+package io.ky.a5.repository;
+
+import io.ky.a5.BlogApp;
+import io.ky.a5.domain.Blog;
+import io.ky.a5.domain.Entry;
+import io.ky.a5.domain.Tag;
+import io.ky.a5.domain.User;
+import io.ky.a5.service.dto.EntrySummaryDTO;
+import io.ky.a5.web.rest.UserResourceIntTest;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.PersistentAttributeInterceptable;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that the content of the entries is only loaded when it is read, or by the queries which fetch it.
+ * <p>
+ * The content is a lazy basic attribute, which requires the entities to be enhanced by the
+ * hibernate-enhance-maven-plugin: run these tests with Maven, as the classes compiled by an IDE are not enhanced.
+ * A lazy attribute that was not selected is reported as not initialized by {@link Hibernate#isPropertyInitialized}.
+ * <p>
+ * The timelines of the users are read as summaries, which don't load the entries at all.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = BlogApp.class)
+@Transactional
+public class EntryLazyContentIntTest {
+
+    private static final String LOGIN = "lazy-content";
+
+    private static final String CONTENT = "The content of the entry";
+
+    @Autowired
+    private EntryRepository entryRepository;
+
+    @Autowired
+    private TagRepository tagRepository;
+
+    @Autowired
+    private EntityManager em;
+
+    private Blog blog;
+
+    private Tag tag;
+
+    private Entry entry;
+
+    @Before
+    public void setup() {
+        User user = UserResourceIntTest.createEntity(em);
+        user.setLogin(LOGIN);
+        em.persist(user);
+        blog = new Blog().name("lazy content").handle("lazy").user(user);
+        em.persist(blog);
+        tag = new Tag().name("lazy");
+        em.persist(tag);
+        entry = new Entry().title("title").content(CONTENT).date(ZonedDateTime.now()).blog(blog).addTag(tag);
+        em.persist(entry);
+        em.flush();
+        // The entries are read from the database, not from the persistence context
+        em.clear();
+    }
+
+    @Test
+    public void testEntryIsEnhanced() {
+        assertThat(PersistentAttributeInterceptable.class.isAssignableFrom(Entry.class))
+            .as("Entry is enhanced by the hibernate-enhance-maven-plugin")
+            .isTrue();
+    }
+
+    @Test
+    public void testUserTimelinePageDoesNotLoadEntries() {
+        List<EntrySummaryDTO> summaries = entryRepository.findSummariesByBlogUserLogin(LOGIN, new PageRequest(0, 20))
+            .getContent();
+
+        assertThat(summaries).extracting(EntrySummaryDTO::getExcerpt).containsExactly(CONTENT);
+        assertNoEntryLoaded();
+    }
+
+    @Test
+    public void testUserTimelineSliceDoesNotLoadEntries() {
+        List<EntrySummaryDTO> summaries = entryRepository.findSummarySliceByBlogUserLogin(LOGIN, new PageRequest(0, 20))
+            .getContent();
+
+        assertThat(summaries).extracting(EntrySummaryDTO::getExcerpt).containsExactly(CONTENT);
+        assertNoEntryLoaded();
+    }
+
+    @Test
+    public void testUserTimelineSliceAfterDoesNotLoadEntries() {
+        List<EntrySummaryDTO> summaries = entryRepository.findSummarySliceByBlogUserLoginAfter(LOGIN,
+            entry.getDate().plusSeconds(1), entry.getId(), new PageRequest(0, 20)).getContent();
+
+        assertThat(summaries).extracting(EntrySummaryDTO::getExcerpt).containsExactly(CONTENT);
+        assertNoEntryLoaded();
+    }
+
+    @Test
+    public void testBlogTimelineDoesNotSelectContent() {
+        List<Entry> entries = entryRepository.findSliceByBlogIdOrderByDateDescIdDesc(blog.getId(), new PageRequest(0, 20))
+            .getContent();
+
+        assertThat(entries).hasSize(1);
+        assertContentNotLoaded(entries);
+    }
+
+    @Test
+    public void testTagEntriesDoNotSelectContent() {
+        Collection<Entry> entries = tagRepository.findOne(tag.getId()).getEntries();
+
+        assertThat(entries).hasSize(1);
+        assertContentNotLoaded(entries);
+    }
+
+    @Test
+    public void testContentIsLoadedWhenRead() {
+        Entry loaded = entryRepository.findOne(entry.getId());
+        assertThat(Hibernate.isPropertyInitialized(loaded, "content")).isFalse();
+
+        assertThat(loaded.getContent()).isEqualTo(CONTENT);
+        assertThat(Hibernate.isPropertyInitialized(loaded, "content")).isTrue();
+    }
+
+    @Test
+    public void testEntryWithEagerRelationshipsSelectsContent() {
+        Entry loaded = entryRepository.findOneWithEagerRelationships(entry.getId());
+
+        assertThat(Hibernate.isPropertyInitialized(loaded, "content")).isTrue();
+        assertThat(Hibernate.isInitialized(loaded.getTags())).isTrue();
+    }
+
+    private void assertNoEntryLoaded() {
+        assertThat(em.unwrap(Session.class).getStatistics().getEntityKeys()).as("entities loaded").isEmpty();
+    }
+
+    private static void assertContentNotLoaded(Collection<Entry> entries) {
+        for (Entry loaded : entries) {
+            assertThat(Hibernate.isPropertyInitialized(loaded, "content")).as("content of %s loaded", loaded.getId())
+                .isFalse();
+            assertThat(Hibernate.isPropertyInitialized(loaded, "title")).isTrue();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package io.ky.a5.repository;
+
+import io.ky.a5.BlogApp;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.hql.internal.ast.ASTQueryTranslatorFactory;
+import org.hibernate.hql.spi.QueryTranslator;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the query plans of the entry timeline queries, so that a missing index is caught before it reaches
+ * production.
+ * <p>
+ * The plans are read with EXPLAIN on the database used by the tests: on H2 a full scan shows up as
+ * "tableScan" in the plan, on MySQL as an access type of "ALL". The sort is only checked on MySQL, where a
+ * sort that can't use an index shows up as "Using filesort" in the Extra column: H2 always sorts the rows it
+ * reads for a descending order.
+ * <p>
+ * The timelines of the users are the JPQL queries run by GET /api/entries, translated to SQL by Hibernate.
+ *
+ * @see EntryRepository#findSummariesByBlogUserLogin
+ * @see EntryRepository#findSummarySliceByBlogUserLogin
+ * @see EntryRepository#findSummarySliceByBlogUserLoginAfter
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = BlogApp.class)
+@Transactional
+public class EntryTimelineQueryPlanIntTest {
+
+    /**
+     * Native equivalent of the timeline of a single blog, which must be read in index order.
+     */
+    private static final String BLOG_TIMELINE_QUERY =
+        "select entry.id from entry entry" +
+        " where entry.blog_id = 1" +
+        " order by entry.jhi_date desc, entry.id desc limit 20";
+
+    private static final String TAG_ENTRIES_QUERY =
+        "select entry_tag.entries_id from entry_tag entry_tag where entry_tag.tags_id = 1";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private String databaseProductName;
+
+    @Before
+    public void setup() throws MetaDataAccessException {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        databaseProductName = (String) JdbcUtils.extractDatabaseMetaData(dataSource, "getDatabaseProductName");
+    }
+
+    @Test
+    public void testUserTimelinePageDoesNotScanTables() {
+        assertNoFullScan(toSql(EntryRepository.TIMELINE_PAGE_QUERY), "user");
+    }
+
+    @Test
+    public void testUserTimelineSliceDoesNotScanTables() {
+        assertNoFullScan(toSql(EntryRepository.TIMELINE_SLICE_QUERY), "user");
+    }
+
+    @Test
+    public void testUserTimelineSliceAfterDoesNotScanTables() {
+        Timestamp date = new Timestamp(System.currentTimeMillis());
+        assertNoFullScan(toSql(EntryRepository.TIMELINE_SLICE_AFTER_QUERY), "user", date, date, 1L);
+    }
+
+    @Test
+    public void testBlogTimelineUsesIndex() {
+        assertNoFullScan(BLOG_TIMELINE_QUERY);
+        assertNoFilesort(BLOG_TIMELINE_QUERY);
+    }
+
+    @Test
+    public void testTagEntriesUsesIndex() {
+        assertNoFullScan(TAG_ENTRIES_QUERY);
+    }
+
+    /**
+     * Translate a JPQL query to the SQL run by Hibernate, limited to a page of 20 rows.
+     */
+    private String toSql(String jpql) {
+        QueryTranslator translator = new ASTQueryTranslatorFactory().createQueryTranslator(jpql, jpql,
+            Collections.emptyMap(), entityManagerFactory.unwrap(SessionFactoryImplementor.class), null);
+        translator.compile(Collections.emptyMap(), false);
+        return translator.getSQLString() + " limit 20";
+    }
+
+    private void assertNoFullScan(String query, Object... args) {
+        if (isMySql()) {
+            for (Map<String, Object> row : explainMySql(query, args)) {
+                assertThat(row.get("type")).as("access type of %s in plan of %s", row.get("table"), query)
+                    .isNotEqualTo("ALL");
+            }
+        } else {
+            assertThat(explainH2(query, args)).as("plan of %s", query).doesNotContain("tableScan");
+        }
+    }
+
+    private void assertNoFilesort(String query) {
+        if (isMySql()) {
+            for (Map<String, Object> row : explainMySql(query)) {
+                assertThat(String.valueOf(row.get("Extra"))).as("plan of %s", query).doesNotContain("Using filesort");
+            }
+        }
+    }
+
+    private boolean isMySql() {
+        return databaseProductName.toLowerCase().contains("mysql");
+    }
+
+    private List<Map<String, Object>> explainMySql(String query, Object... args) {
+        return jdbcTemplate.queryForList("explain " + query, args);
+    }
+
+    private String explainH2(String query, Object... args) {
+        return jdbcTemplate.queryForObject("explain " + query, String.class, args);
+    }
+}
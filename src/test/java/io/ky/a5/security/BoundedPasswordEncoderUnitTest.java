@@ -0,0 +1,160 @@
+package io.ky.a5.security;
+
+import io.ky.a5.config.ApplicationProperties;
+import io.ky.a5.config.metrics.PasswordHashingMetricSet;
+
+import com.codahale.metrics.Gauge;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for the BoundedPasswordEncoder.
+ *
+ * @see BoundedPasswordEncoder
+ */
+public class BoundedPasswordEncoderUnitTest {
+
+    private final CountDownLatch started = new CountDownLatch(1);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private ApplicationProperties.PasswordHashing properties;
+
+    private PasswordHashingMetricSet passwordHashingMetricSet;
+
+    private ExecutorService callers;
+
+    @Before
+    public void setup() {
+        properties = new ApplicationProperties.PasswordHashing();
+        properties.setThreads(1);
+        properties.setQueueCapacity(1);
+        passwordHashingMetricSet = new PasswordHashingMetricSet();
+        callers = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        callers.shutdownNow();
+    }
+
+    @Test
+    public void testEncodeAndMatch() {
+        properties.setStrength(4);
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(applicationProperties(), passwordHashingMetricSet);
+        try {
+            String hash = encoder.encode("password");
+            assertThat(hash).startsWith("$2a$04$");
+            assertThat(encoder.matches("password", hash)).isTrue();
+            assertThat(encoder.matches("wrong", hash)).isFalse();
+            // Hashes of another cost factor are still verified
+            assertThat(encoder.matches("password", new BCryptPasswordEncoder(5).encode("password"))).isTrue();
+            assertThat(passwordHashingMetricSet.getEncodes().getCount()).isEqualTo(1);
+            assertThat(passwordHashingMetricSet.getMatches().getCount()).isEqualTo(3);
+            assertThat(passwordHashingMetricSet.getQueueTime().getCount()).isEqualTo(4);
+        } finally {
+            encoder.shutdown();
+        }
+    }
+
+    @Test
+    public void testRejectWhenQueueIsFull() throws Exception {
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(blockingEncoder(), properties,
+            passwordHashingMetricSet);
+        try {
+            callers.submit(() -> encoder.encode("running"));
+            assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+            callers.submit(() -> encoder.encode("queued"));
+            while (queued() == 0) {
+                Thread.sleep(10);
+            }
+
+            assertThatThrownBy(() -> encoder.encode("rejected"))
+                .isInstanceOf(PasswordHashingRejectedException.class);
+            assertThat(passwordHashingMetricSet.getRejections().getCount()).isEqualTo(1);
+        } finally {
+            encoder.shutdown();
+        }
+    }
+
+    @Test
+    public void testRejectAfterMaxWait() throws Exception {
+        properties.setMaxWait(50);
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(blockingEncoder(), properties,
+            passwordHashingMetricSet);
+        try {
+            callers.submit(() -> encoder.encode("running"));
+            assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+
+            assertThatThrownBy(() -> encoder.matches("waiting", "hash"))
+                .isInstanceOf(PasswordHashingRejectedException.class);
+            assertThat(passwordHashingMetricSet.getRejections().getCount()).isEqualTo(1);
+        } finally {
+            encoder.shutdown();
+        }
+    }
+
+    @Test
+    public void testCalibrate() {
+        properties.setMinStrength(4);
+        properties.setMaxStrength(6);
+        properties.setTargetLatency(0);
+        assertThat(BoundedPasswordEncoder.calibrate(properties)).isEqualTo(4);
+        properties.setTargetLatency(TimeUnit.MINUTES.toMillis(1));
+        assertThat(BoundedPasswordEncoder.calibrate(properties)).isEqualTo(6);
+    }
+
+    private int queued() {
+        return (Integer) ((Gauge<?>) passwordHashingMetricSet.getMetrics().get("queued")).getValue();
+    }
+
+    private ApplicationProperties applicationProperties() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        ApplicationProperties.PasswordHashing passwordHashing = applicationProperties.getPasswordHashing();
+        passwordHashing.setThreads(properties.getThreads());
+        passwordHashing.setQueueCapacity(properties.getQueueCapacity());
+        passwordHashing.setStrength(properties.getStrength());
+        return applicationProperties;
+    }
+
+    /**
+     * An encoder whose hashes wait for the end of the test.
+     */
+    private PasswordEncoder blockingEncoder() {
+        return new PasswordEncoder() {
+
+            @Override
+            public String encode(CharSequence rawPassword) {
+                await();
+                return rawPassword.toString();
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                await();
+                return rawPassword.toString().equals(encodedPassword);
+            }
+
+            private void await() {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+    }
+}
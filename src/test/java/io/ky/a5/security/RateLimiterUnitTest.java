@@ -0,0 +1,109 @@
+package io.ky.a5.security;
+
+import io.ky.a5.config.ApplicationProperties;
+import io.ky.a5.config.metrics.RateLimitingMetricSet;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the RateLimiter, with a clock moved by the tests.
+ *
+ * @see RateLimiter
+ */
+public class RateLimiterUnitTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    private ApplicationProperties applicationProperties;
+
+    private RateLimitingMetricSet rateLimitingMetricSet;
+
+    private RateLimiter rateLimiter;
+
+    @Before
+    public void setup() {
+        applicationProperties = new ApplicationProperties();
+        ApplicationProperties.RateLimiting.Endpoint authenticate =
+            applicationProperties.getRateLimiting().getAuthenticate();
+        authenticate.setPeriod(60);
+        authenticate.setIpCapacity(4);
+        authenticate.setLoginCapacity(2);
+        rateLimitingMetricSet = new RateLimitingMetricSet();
+        rateLimiter = new RateLimiter(applicationProperties, rateLimitingMetricSet, now::get);
+    }
+
+    @Test
+    public void testLimitByLogin() {
+        assertThat(rateLimiter.acquire(RateLimiter.Endpoint.AUTHENTICATE, "10.0.0.1", "user")).isZero();
+        assertThat(rateLimiter.acquire(RateLimiter.Endpoint.AUTHENTICATE, "10.0.0.2", "USER")).isZero();
+        assertThat(rateLimiter.acquire(RateLimiter.Endpoint.AUTHENTICATE, "10.0.0.3", "user")).isEqualTo(30);
+        assertThat(rateLimiter.acquire(RateLimiter.Endpoint.AUTHENTICATE, "10.0.0.3", "other")).isZero();
+        assertThat(rateLimitingMetricSet.getAuthenticateRejections().getCount()).isEqualTo(1);
+        assertThat(rateLimitingMetricSet.getRegisterRejections().getCount()).isZero();
+    }
+
+    @Test
+    public void testLimitByIp() {
+        for (int i = 0; i < 4; i++) {
+            assertThat(rateLimiter.acquire(RateLimiter.Endpoint.AUTHENTICATE, "10.0.0.1", "user" + i)).isZero();
+        }
+        assertThat(rateLimiter.acquire(RateLimiter.Endpoint.AUTHENTICATE, "10.0.0.1", "user4")).isEqualTo(15);
+        assertThat(rateLimiter.acquire(RateLimiter.Endpoint.AUTHENTICATE, "10.0.0.2", "user4")).isZero();
+    }
+
+    @Test
+    public void testTokensAreRefilled() {
+        rateLimiter.acquire(RateLimiter.Endpoint.AUTHENTICATE, "10.0.0.1", "user");
+        rateLimiter.acquire(RateLimiter.Endpoint.AUTHENTICATE, "10.0.0.1", "user");
+        now.addAndGet(TimeUnit.SECONDS.toNanos(20));
+        assertThat(rateLimiter.acquire(RateLimiter.Endpoint.AUTHENTICATE, "10.0.0.1", "user")).isEqualTo(10);
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertThat(rateLimiter.acquire(RateLimiter.Endpoint.AUTHENTICATE, "10.0.0.1", "user")).isZero();
+        assertThat(rateLimiter.acquire(RateLimiter.Endpoint.AUTHENTICATE, "10.0.0.1", "user")).isEqualTo(30);
+    }
+
+    @Test
+    public void testEndpointsAreLimitedSeparately() {
+        applicationProperties.getRateLimiting().getRegister().setLoginCapacity(1);
+        assertThat(rateLimiter.acquire(RateLimiter.Endpoint.REGISTER, "10.0.0.1", "user")).isZero();
+        assertThat(rateLimiter.acquire(RateLimiter.Endpoint.REGISTER, "10.0.0.1", "user")).isPositive();
+        assertThat(rateLimiter.acquire(RateLimiter.Endpoint.AUTHENTICATE, "10.0.0.1", "user")).isZero();
+        assertThat(rateLimitingMetricSet.getRegisterRejections().getCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testDisabled() {
+        applicationProperties.getRateLimiting().setEnabled(false);
+        for (int i = 0; i < 10; i++) {
+            assertThat(rateLimiter.acquire(RateLimiter.Endpoint.AUTHENTICATE, "10.0.0.1", "user")).isZero();
+        }
+        assertThat(rateLimiter.size()).isZero();
+    }
+
+    @Test
+    public void testIdleKeysArePurged() {
+        rateLimiter.acquire(RateLimiter.Endpoint.AUTHENTICATE, "10.0.0.1", "user");
+        assertThat(rateLimiter.size()).isEqualTo(2);
+        rateLimiter.purgeIdleKeys();
+        assertThat(rateLimiter.size()).isEqualTo(2);
+        now.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        rateLimiter.purgeIdleKeys();
+        assertThat(rateLimiter.size()).isZero();
+        assertThat(rateLimitingMetricSet.getMetrics()).containsKey("keys");
+    }
+
+    @Test
+    public void testKeysAreBounded() {
+        applicationProperties.getRateLimiting().setMaxKeys(64);
+        for (int i = 0; i < 1000; i++) {
+            assertThat(rateLimiter.acquire(RateLimiter.Endpoint.AUTHENTICATE, "10.0.0." + i, null)).isZero();
+        }
+        assertThat(rateLimiter.size()).isLessThanOrEqualTo(64);
+    }
+}
@@ -0,0 +1,114 @@
+package io.ky.a5.security.jwt;
+
+import io.ky.a5.config.ApplicationProperties;
+import io.ky.a5.config.metrics.JWTAuthenticationMetricSet;
+import io.ky.a5.security.AuthoritiesConstants;
+import io.github.jhipster.config.JHipsterProperties;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class JWTAuthenticationCacheTest {
+
+    private final String secretKey = "e5c9ee274ae87bc031adda32e27fa98b9290da83";
+
+    private TokenProvider tokenProvider;
+
+    private ApplicationProperties applicationProperties;
+
+    private JWTAuthenticationMetricSet metricSet;
+
+    private JWTAuthenticationCache jwtAuthenticationCache;
+
+    @Before
+    public void setup() {
+        tokenProvider = new TokenProvider(new JHipsterProperties());
+        ReflectionTestUtils.setField(tokenProvider, "secretKey", secretKey);
+        ReflectionTestUtils.setField(tokenProvider, "tokenValidityInMilliseconds", 60000);
+        applicationProperties = new ApplicationProperties();
+        metricSet = new JWTAuthenticationMetricSet();
+        jwtAuthenticationCache = new JWTAuthenticationCache(tokenProvider, applicationProperties, metricSet);
+    }
+
+    @Test
+    public void testTokenIsVerifiedOnce() {
+        String jwt = createToken("test-user");
+
+        Authentication first = jwtAuthenticationCache.getAuthentication(jwt);
+        Authentication second = jwtAuthenticationCache.getAuthentication(jwt);
+
+        assertThat(first.getName()).isEqualTo("test-user");
+        assertThat(second).isSameAs(first);
+        assertThat(metricSet.getVerifications().getCount()).isEqualTo(1);
+        assertThat(metricSet.getHits().getCount()).isEqualTo(1);
+        assertThat(metricSet.getMisses().getCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testInvalidTokenIsNotCached() {
+        String jwt = createToken("test-user").substring(1);
+
+        assertThat(jwtAuthenticationCache.getAuthentication(jwt)).isNull();
+        assertThat(jwtAuthenticationCache.getAuthentication(jwt)).isNull();
+
+        assertThat(metricSet.getRejected().getCount()).isEqualTo(2);
+        assertThat(jwtAuthenticationCache.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testExpiredTokenIsRejected() throws Exception {
+        String jwt = Jwts.builder()
+            .setSubject("test-user")
+            .claim("auth", AuthoritiesConstants.USER)
+            .signWith(SignatureAlgorithm.HS512, secretKey)
+            .setExpiration(new Date(System.currentTimeMillis() + 2000))
+            .compact();
+
+        assertThat(jwtAuthenticationCache.getAuthentication(jwt)).isNotNull();
+        // The expiration of a token is stored in seconds
+        Thread.sleep(2000);
+
+        assertThat(jwtAuthenticationCache.getAuthentication(jwt)).isNull();
+        assertThat(jwtAuthenticationCache.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testCacheIsBounded() {
+        applicationProperties.getJwtCache().setMaxEntries(2);
+        jwtAuthenticationCache = new JWTAuthenticationCache(tokenProvider, applicationProperties, metricSet);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(jwtAuthenticationCache.getAuthentication(createToken("user-" + i))).isNotNull();
+        }
+
+        assertThat(jwtAuthenticationCache.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void testDisabledCacheVerifiesEveryTime() {
+        applicationProperties.getJwtCache().setEnabled(false);
+        jwtAuthenticationCache = new JWTAuthenticationCache(tokenProvider, applicationProperties, metricSet);
+        String jwt = createToken("test-user");
+
+        jwtAuthenticationCache.getAuthentication(jwt);
+        jwtAuthenticationCache.getAuthentication(jwt);
+
+        assertThat(metricSet.getVerifications().getCount()).isEqualTo(2);
+        assertThat(jwtAuthenticationCache.size()).isEqualTo(0);
+    }
+
+    private String createToken(String login) {
+        return tokenProvider.createToken(new UsernamePasswordAuthenticationToken(login, "test-password",
+            Collections.singletonList(new SimpleGrantedAuthority(AuthoritiesConstants.USER))), false);
+    }
+}
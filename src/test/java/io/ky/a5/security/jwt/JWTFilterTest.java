@@ -1,5 +1,7 @@
 package io.ky.a5.security.jwt;
 
+import io.ky.a5.config.ApplicationProperties;
+import io.ky.a5.config.metrics.JWTAuthenticationMetricSet;
 import io.ky.a5.security.AuthoritiesConstants;
 import io.github.jhipster.config.JHipsterProperties;
 import org.junit.Before;
@@ -29,7 +31,8 @@ public class JWTFilterTest {
         tokenProvider = new TokenProvider(jHipsterProperties);
         ReflectionTestUtils.setField(tokenProvider, "secretKey", "test secret");
         ReflectionTestUtils.setField(tokenProvider, "tokenValidityInMilliseconds", 60000);
-        jwtFilter = new JWTFilter(tokenProvider);
+        jwtFilter = new JWTFilter(
+            new JWTAuthenticationCache(tokenProvider, new ApplicationProperties(), new JWTAuthenticationMetricSet()));
         SecurityContextHolder.getContext().setAuthentication(null);
     }
 
@@ -0,0 +1,88 @@
+package io.ky.a5.service;
+
+import io.ky.a5.BlogApp;
+import io.ky.a5.config.ApplicationProperties;
+import io.ky.a5.domain.PersistentAuditEvent;
+import io.ky.a5.repository.PersistenceAuditEventRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the AuditEventPurgeService service.
+ *
+ * @see AuditEventPurgeService
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = BlogApp.class)
+@Transactional
+public class AuditEventPurgeServiceIntTest {
+
+    @Autowired
+    private AuditEventPurgeService auditEventPurgeService;
+
+    @Autowired
+    private PersistenceAuditEventRepository persistenceAuditEventRepository;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    private int purgeBatchSize;
+
+    @Before
+    public void init() {
+        persistenceAuditEventRepository.deleteAll();
+        purgeBatchSize = applicationProperties.getAuditEvents().getPurgeBatchSize();
+    }
+
+    @After
+    public void cleanup() {
+        applicationProperties.getAuditEvents().setPurgeBatchSize(purgeBatchSize);
+    }
+
+    @Test
+    public void testPurgeExpiredEvents() {
+        Instant now = Instant.now();
+        int retentionDays = applicationProperties.getAuditEvents().getRetentionDays();
+        createEvent("expired-user", now.minus(retentionDays + 1, ChronoUnit.DAYS));
+        createEvent("recent-user", now.minus(retentionDays - 1, ChronoUnit.DAYS));
+
+        auditEventPurgeService.purgeExpiredEvents();
+
+        assertThat(persistenceAuditEventRepository.findAll()).extracting("principal").containsExactly("recent-user");
+    }
+
+    @Test
+    public void testPurgeInBatches() {
+        applicationProperties.getAuditEvents().setPurgeBatchSize(2);
+        Instant now = Instant.now();
+        for (int i = 0; i < 5; i++) {
+            createEvent("old-user-" + i, now.minus(10 + i, ChronoUnit.DAYS));
+        }
+        createEvent("new-user", now);
+
+        assertThat(auditEventPurgeService.purgeEventsBefore(now.minus(1, ChronoUnit.DAYS))).isEqualTo(5);
+
+        assertThat(persistenceAuditEventRepository.findAll()).extracting("principal").containsExactly("new-user");
+        assertThat(persistenceAuditEventRepository.findAll().get(0).getData()).containsKey("test-key");
+    }
+
+    private void createEvent(String principal, Instant date) {
+        PersistentAuditEvent event = new PersistentAuditEvent();
+        event.setPrincipal(principal);
+        event.setAuditEventType("test-type");
+        event.setAuditEventDate(date);
+        event.getData().put("test-key", "test-value");
+        persistenceAuditEventRepository.saveAndFlush(event);
+    }
+}
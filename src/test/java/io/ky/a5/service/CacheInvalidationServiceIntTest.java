@@ -0,0 +1,184 @@
+package io.ky.a5.service;
+
+import io.ky.a5.BlogApp;
+import io.ky.a5.config.ApplicationProperties;
+import io.ky.a5.config.metrics.CacheInvalidationMetricSet;
+import io.ky.a5.repository.UserRepository;
+
+import com.codahale.metrics.Gauge;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for the CacheInvalidationService service, with two nodes running in the same JVM and sharing the
+ * database.
+ * <p>
+ * The bus polls the database outside of any transaction, so the test isn't transactional and empties the table
+ * after each test.
+ *
+ * @see CacheInvalidationService
+ * @see JdbcCacheInvalidationBus
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = BlogApp.class)
+public class CacheInvalidationServiceIntTest {
+
+    private static final String CACHE = UserRepository.USERS_BY_LOGIN_CACHE;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private CacheManager cacheManagerA;
+
+    private CacheManager cacheManagerB;
+
+    private CacheInvalidationService nodeA;
+
+    private CacheInvalidationService nodeB;
+
+    private ApplicationProperties applicationProperties;
+
+    private CacheInvalidationMetricSet metricSetA;
+
+    @Before
+    public void setup() {
+        applicationProperties = new ApplicationProperties();
+        metricSetA = new CacheInvalidationMetricSet();
+        cacheManagerA = new ConcurrentMapCacheManager(CACHE);
+        cacheManagerB = new ConcurrentMapCacheManager(CACHE);
+        nodeA = new CacheInvalidationService(cacheManagerA, entityManagerFactory,
+            new JdbcCacheInvalidationBus(jdbcTemplate, "node-a", applicationProperties), applicationProperties,
+            metricSetA);
+        nodeB = new CacheInvalidationService(cacheManagerB, entityManagerFactory,
+            new JdbcCacheInvalidationBus(jdbcTemplate, "node-b", applicationProperties), applicationProperties,
+            new CacheInvalidationMetricSet());
+        cacheManagerA.getCache(CACHE).put("john", "john of node a");
+        cacheManagerB.getCache(CACHE).put("john", "john of node b");
+        cacheManagerB.getCache(CACHE).put("jane", "jane of node b");
+    }
+
+    @After
+    public void cleanup() {
+        jdbcTemplate.update("delete from cache_invalidation");
+    }
+
+    @Test
+    public void testEvictionIsSentToOtherNodes() {
+        nodeA.evict(CACHE, "john");
+
+        assertThat(cacheManagerA.getCache(CACHE).get("john")).isNull();
+        assertThat(cacheManagerB.getCache(CACHE).get("john")).isNotNull();
+
+        assertThat(nodeA.sendPending()).isEqualTo(1);
+        assertThat(nodeB.receive()).isEqualTo(1);
+
+        assertThat(cacheManagerB.getCache(CACHE).get("john")).isNull();
+        assertThat(cacheManagerB.getCache(CACHE).get("jane")).isNotNull();
+    }
+
+    @Test
+    public void testEvictionsAreBatchedAndCoalesced() {
+        nodeA.evict(CACHE, "john");
+        nodeA.evict(CACHE, "jane");
+        nodeA.evict(CACHE, "john");
+
+        assertThat(nodeA.sendPending()).isEqualTo(2);
+        assertThat(nodeA.sendPending()).isEqualTo(0);
+        assertThat(nodeB.receive()).isEqualTo(2);
+
+        assertThat(cacheManagerB.getCache(CACHE).get("john")).isNull();
+        assertThat(cacheManagerB.getCache(CACHE).get("jane")).isNull();
+    }
+
+    @Test
+    public void testInvalidationsAreReceivedOnce() {
+        nodeA.evict(CACHE, "john");
+        nodeA.synchronize();
+
+        assertThat(nodeB.receive()).isEqualTo(1);
+        assertThat(nodeB.receive()).isEqualTo(0);
+    }
+
+    @Test
+    public void testNodeDoesNotReceiveItsOwnInvalidations() {
+        nodeA.evict(CACHE, "john");
+        nodeA.sendPending();
+        cacheManagerA.getCache(CACHE).put("john", "john of node a");
+
+        assertThat(nodeA.receive()).isEqualTo(0);
+        assertThat(cacheManagerA.getCache(CACHE).get("john")).isNotNull();
+    }
+
+    @Test
+    public void testRegionIsClearedWithoutKey() {
+        nodeA.publish(new CacheInvalidation(CACHE, null));
+        nodeA.sendPending();
+
+        nodeB.receive();
+
+        assertThat(cacheManagerB.getCache(CACHE).get("john")).isNull();
+        assertThat(cacheManagerB.getCache(CACHE).get("jane")).isNull();
+    }
+
+    @Test
+    public void testPendingInvalidationsAreCollapsedPastTheLimit() {
+        applicationProperties.getCacheInvalidation().setMaxPending(2);
+        nodeA.evict(CACHE, "john");
+        nodeA.evict(CACHE, "jane");
+        assertThat(metricSetA.getCollapses().getCount()).isEqualTo(0);
+
+        nodeA.evict(CACHE, "joe");
+
+        assertThat(metricSetA.getCollapses().getCount()).isEqualTo(1);
+        assertThat(((Gauge<?>) metricSetA.getMetrics().get("pending")).getValue()).isEqualTo(1);
+        assertThat(nodeA.sendPending()).isEqualTo(1);
+        assertThat(nodeB.receive()).isEqualTo(1);
+        assertThat(cacheManagerB.getCache(CACHE).get("john")).isNull();
+        assertThat(cacheManagerB.getCache(CACHE).get("jane")).isNull();
+    }
+
+    @Test
+    public void testFailedBatchIsCollapsedPastTheLimit() {
+        applicationProperties.getCacheInvalidation().setMaxPending(2);
+        CacheInvalidationMetricSet metricSet = new CacheInvalidationMetricSet();
+        CacheInvalidationService node = new CacheInvalidationService(cacheManagerA, entityManagerFactory,
+            new CacheInvalidationBus() {
+                @Override
+                public void publish(List<CacheInvalidation> invalidations) {
+                    throw new IllegalStateException("The bus is down");
+                }
+
+                @Override
+                public List<CacheInvalidation> receive() {
+                    throw new IllegalStateException("The bus is down");
+                }
+            }, applicationProperties, metricSet);
+        node.evict(CACHE, "john");
+        node.evict(CACHE, "jane");
+        assertThatThrownBy(node::sendPending).isInstanceOf(IllegalStateException.class);
+        assertThat(metricSet.getCollapses().getCount()).isEqualTo(0);
+
+        // The failed batch is queued again with the new invalidations
+        node.evict(CACHE, "joe");
+
+        assertThat(metricSet.getCollapses().getCount()).isEqualTo(1);
+        assertThat(((Gauge<?>) metricSet.getMetrics().get("pending")).getValue()).isEqualTo(1);
+    }
+}
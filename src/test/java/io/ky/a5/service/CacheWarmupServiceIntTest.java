@@ -0,0 +1,114 @@
+package io.ky.a5.service;
+
+import io.ky.a5.BlogApp;
+import io.ky.a5.config.ApplicationProperties;
+import io.ky.a5.domain.Blog;
+import io.ky.a5.domain.Entry;
+import io.ky.a5.domain.Tag;
+import io.ky.a5.repository.BlogRepository;
+import io.ky.a5.repository.EntryRepository;
+import io.ky.a5.repository.TagRepository;
+import io.ky.a5.repository.UserRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the CacheWarmupService service.
+ * <p>
+ * The warm-up reads the database from other threads, so the test data is committed, and removed after each test.
+ *
+ * @see CacheWarmupService
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = BlogApp.class)
+public class CacheWarmupServiceIntTest {
+
+    @Autowired
+    private CacheWarmupService cacheWarmupService;
+
+    @Autowired
+    private CacheWarmupHealthIndicator cacheWarmupHealthIndicator;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private BlogRepository blogRepository;
+
+    @Autowired
+    private EntryRepository entryRepository;
+
+    @Autowired
+    private TagRepository tagRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Blog blog;
+
+    private Tag tag;
+
+    private final List<Entry> entries = new ArrayList<>();
+
+    @Before
+    public void init() {
+        blog = blogRepository.saveAndFlush(new Blog().name("warm-up").handle("warm-up"));
+        for (int i = 0; i < 3; i++) {
+            entries.add(entryRepository.saveAndFlush(new Entry().title("entry " + i).content("content " + i)
+                .date(ZonedDateTime.now().minusDays(i)).blog(blog)));
+        }
+        tag = tagRepository.saveAndFlush(new Tag().name("warm-up"));
+        applicationProperties.getCacheWarmup().setEntriesPerBlog(2);
+        applicationProperties.getCacheWarmup().setBatchSize(1);
+    }
+
+    @After
+    public void cleanup() {
+        ApplicationProperties.CacheWarmup defaults = new ApplicationProperties.CacheWarmup();
+        applicationProperties.getCacheWarmup().setEntriesPerBlog(defaults.getEntriesPerBlog());
+        applicationProperties.getCacheWarmup().setBatchSize(defaults.getBatchSize());
+        applicationProperties.getCacheWarmup().setEnabled(false);
+        entryRepository.delete(entries);
+        blogRepository.delete(blog);
+        tagRepository.delete(tag);
+    }
+
+    @Test
+    public void testWarmUpLoadsRecentEntriesOfEachBlog() {
+        long loadedCount = cacheWarmupService.warmUp();
+
+        Map<String, Long> loaded = cacheWarmupService.getLoaded();
+        assertThat(loaded.get("blogs")).isEqualTo(blogRepository.count());
+        assertThat(loaded.get("entries")).isBetween(2L, 2 * blogRepository.count());
+        assertThat(loaded.get("tags")).isEqualTo(tagRepository.count());
+        assertThat(loaded.get("users")).isEqualTo(userRepository.countByActivatedIsTrue());
+        assertThat(loadedCount).isEqualTo(loaded.values().stream().mapToLong(Long::longValue).sum());
+        assertThat(cacheWarmupService.getFailures()).isEqualTo(0);
+    }
+
+    @Test
+    public void testHealthIsUpOnceWarmedUp() {
+        applicationProperties.getCacheWarmup().setEnabled(true);
+
+        cacheWarmupService.warmUp();
+
+        Health health = cacheWarmupHealthIndicator.health();
+        assertThat(cacheWarmupService.isWarmingUp()).isFalse();
+        assertThat(health.getStatus()).isEqualTo(Status.UP);
+        assertThat(health.getDetails()).containsKeys("duration", "loaded", "failures");
+    }
+}
@@ -0,0 +1,172 @@
+package io.ky.a5.service;
+
+import io.ky.a5.BlogApp;
+import io.ky.a5.config.metrics.SearchOutboxMetricSet;
+import io.ky.a5.domain.SearchOutboxEvent;
+import io.ky.a5.domain.Tag;
+import io.ky.a5.domain.enumeration.SearchOutboxOperation;
+import io.ky.a5.repository.SearchOutboxRepository;
+import io.ky.a5.repository.TagRepository;
+import io.ky.a5.repository.search.TagSearchRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the SearchOutboxDrainer service.
+ *
+ * @see SearchOutboxDrainer
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = BlogApp.class)
+@Transactional
+public class SearchOutboxDrainerIntTest {
+
+    @Autowired
+    private SearchOutboxDrainer searchOutboxDrainer;
+
+    @Autowired
+    private SearchOutboxRepository searchOutboxRepository;
+
+    @Autowired
+    private SearchOutboxMetricSet searchOutboxMetricSet;
+
+    @Autowired
+    private TagRepository tagRepository;
+
+    @Autowired
+    private TagSearchRepository tagSearchRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Tag tag;
+
+    @Before
+    public void init() {
+        searchOutboxRepository.deleteAll();
+        tagSearchRepository.deleteAll();
+        tag = tagRepository.saveAndFlush(new Tag().name("outbox"));
+    }
+
+    @Test
+    public void testFlushIndexesAndCoalesces() {
+        long coalesced = searchOutboxMetricSet.getCoalesced().getCount();
+        searchOutboxRepository.save(new SearchOutboxEvent("Tag", tag.getId(), SearchOutboxOperation.INDEX));
+        tag.setName("outbox-updated");
+        tagRepository.saveAndFlush(tag);
+        searchOutboxRepository.saveAndFlush(new SearchOutboxEvent("Tag", tag.getId(), SearchOutboxOperation.INDEX));
+
+        assertThat(searchOutboxDrainer.flush()).isEqualTo(2);
+
+        assertThat(searchOutboxRepository.count()).isEqualTo(0);
+        Tag tagEs = tagSearchRepository.findOne(tag.getId());
+        assertThat(tagEs).isNotNull();
+        assertThat(tagEs.getName()).isEqualTo("outbox-updated");
+        assertThat(searchOutboxMetricSet.getCoalesced().getCount()).isEqualTo(coalesced + 1);
+    }
+
+    @Test
+    public void testFlushDeletes() {
+        tagSearchRepository.save(tag);
+        searchOutboxRepository.saveAndFlush(new SearchOutboxEvent("Tag", tag.getId(), SearchOutboxOperation.DELETE));
+
+        assertThat(searchOutboxDrainer.flush()).isEqualTo(1);
+
+        assertThat(searchOutboxRepository.count()).isEqualTo(0);
+        assertThat(tagSearchRepository.exists(tag.getId())).isFalse();
+    }
+
+    @Test
+    public void testFlushDeletesEntitiesRemovedFromDatabase() {
+        tagSearchRepository.save(tag);
+        searchOutboxRepository.save(new SearchOutboxEvent("Tag", tag.getId(), SearchOutboxOperation.INDEX));
+        tagRepository.delete(tag);
+        tagRepository.flush();
+
+        searchOutboxDrainer.flush();
+
+        assertThat(tagSearchRepository.exists(tag.getId())).isFalse();
+    }
+
+    @Test
+    public void testFlushIsPausedByReindex() {
+        searchOutboxRepository.save(new SearchOutboxEvent("*", 0L, SearchOutboxOperation.REINDEX));
+        searchOutboxRepository.saveAndFlush(new SearchOutboxEvent("Tag", tag.getId(), SearchOutboxOperation.INDEX));
+
+        assertThat(searchOutboxDrainer.flush()).isEqualTo(0);
+
+        assertThat(searchOutboxRepository.count()).isEqualTo(2);
+        assertThat(tagSearchRepository.exists(tag.getId())).isFalse();
+    }
+
+    @Test
+    public void testFlushResumesAfterPauseTimeout() {
+        SearchOutboxEvent pause = new SearchOutboxEvent("*", 0L, SearchOutboxOperation.REINDEX);
+        pause.setCreatedDate(Instant.now().minus(2, ChronoUnit.HOURS));
+        searchOutboxRepository.save(pause);
+        searchOutboxRepository.saveAndFlush(new SearchOutboxEvent("Tag", tag.getId(), SearchOutboxOperation.INDEX));
+
+        assertThat(searchOutboxDrainer.flush()).isEqualTo(1);
+
+        assertThat(searchOutboxRepository.count()).isEqualTo(0);
+        assertThat(tagSearchRepository.exists(tag.getId())).isTrue();
+    }
+
+    @Test
+    public void testFlushEmptyOutbox() {
+        assertThat(searchOutboxDrainer.flush()).isEqualTo(0);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void testFlushWaitsForTheOtherNodes() throws Exception {
+        CountDownLatch locked = new CountDownLatch(1);
+        AtomicBoolean released = new AtomicBoolean();
+        // Another node pushing a batch
+        Thread otherNode = new Thread(() -> new TransactionTemplate(transactionManager).execute(status -> {
+            jdbcTemplate.queryForObject("select id from search_outbox_lock where id = 1 for update", Long.class);
+            locked.countDown();
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            released.set(true);
+            return null;
+        }));
+        try {
+            long failures = searchOutboxMetricSet.getFailures().getCount();
+            otherNode.start();
+            assertThat(locked.await(10, TimeUnit.SECONDS)).isTrue();
+
+            assertThat(searchOutboxDrainer.flush()).isEqualTo(0);
+
+            assertThat(released.get()).isTrue();
+            assertThat(searchOutboxMetricSet.getFailures().getCount()).isEqualTo(failures);
+            otherNode.join();
+        } finally {
+            // The tag of this test is committed
+            tagRepository.delete(tag);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package io.ky.a5.service;
+
+import io.ky.a5.BlogApp;
+import io.ky.a5.config.ApplicationProperties;
+import io.ky.a5.config.metrics.CacheInvalidationMetricSet;
+import io.ky.a5.config.metrics.SearchCacheMetricSet;
+import io.ky.a5.domain.Entry;
+import io.ky.a5.domain.Tag;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the SearchResultCache service.
+ *
+ * @see SearchResultCache
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = BlogApp.class)
+public class SearchResultCacheIntTest {
+
+    @Autowired
+    private SearchResultCache searchResultCache;
+
+    @Autowired
+    private SearchCacheMetricSet searchCacheMetricSet;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final AtomicInteger searches = new AtomicInteger();
+
+    @After
+    public void cleanup() {
+        jdbcTemplate.update("delete from cache_invalidation");
+    }
+
+    @Test
+    public void testNormalizedQueriesShareResults() {
+        long hits = searchCacheMetricSet.getHits().getCount();
+        long misses = searchCacheMetricSet.getMisses().getCount();
+
+        assertThat(search(Tag.class, "name:cached-1 AND id:1")).isEqualTo(1);
+        assertThat(search(Tag.class, "  name:cached-1   AND\tid:1 ")).isEqualTo(1);
+
+        assertThat(searches.get()).isEqualTo(1);
+        assertThat(searchCacheMetricSet.getHits().getCount()).isEqualTo(hits + 1);
+        assertThat(searchCacheMetricSet.getMisses().getCount()).isEqualTo(misses + 1);
+    }
+
+    @Test
+    public void testPagesAreCachedSeparately() {
+        PageRequest firstPage = new PageRequest(0, 20, Sort.Direction.DESC, "id");
+        searchResultCache.get(Tag.class, "cached-2", firstPage, searches::incrementAndGet);
+        searchResultCache.get(Tag.class, "cached-2", new PageRequest(1, 20, Sort.Direction.DESC, "id"), searches::incrementAndGet);
+        searchResultCache.get(Tag.class, "cached-2", new PageRequest(0, 20, Sort.Direction.ASC, "id"), searches::incrementAndGet);
+        searchResultCache.get(Tag.class, "cached-2", firstPage, searches::incrementAndGet);
+
+        assertThat(searches.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void testInvalidateOnlyDropsResultsOfItsType() {
+        search(Tag.class, "cached-3");
+        search(Entry.class, "cached-3");
+
+        searchResultCache.invalidate(Tag.class);
+
+        assertThat(search(Tag.class, "cached-3")).isEqualTo(3);
+        assertThat(search(Entry.class, "cached-3")).isEqualTo(2);
+    }
+
+    @Test
+    public void testInvalidationIsSentToOtherNodes() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        CacheInvalidationService invalidationA = new CacheInvalidationService(
+            new ConcurrentMapCacheManager(SearchResultCache.SEARCH_RESULTS_CACHE), entityManagerFactory,
+            new JdbcCacheInvalidationBus(jdbcTemplate, "node-a", applicationProperties), applicationProperties,
+            new CacheInvalidationMetricSet());
+        CacheInvalidationService invalidationB = new CacheInvalidationService(
+            new ConcurrentMapCacheManager(SearchResultCache.SEARCH_RESULTS_CACHE), entityManagerFactory,
+            new JdbcCacheInvalidationBus(jdbcTemplate, "node-b", applicationProperties), applicationProperties,
+            new CacheInvalidationMetricSet());
+        SearchResultCache nodeA = createNode(invalidationA);
+        SearchResultCache nodeB = createNode(invalidationB);
+        nodeB.get(Tag.class, "cached-4", null, searches::incrementAndGet);
+        nodeB.get(Entry.class, "cached-4", null, searches::incrementAndGet);
+
+        nodeA.invalidate(Tag.class);
+        assertThat(invalidationA.sendPending()).isEqualTo(1);
+        assertThat(invalidationB.receive()).isEqualTo(1);
+
+        assertThat(nodeB.get(Tag.class, "cached-4", null, searches::incrementAndGet)).isEqualTo(3);
+        assertThat(nodeB.get(Entry.class, "cached-4", null, searches::incrementAndGet)).isEqualTo(2);
+    }
+
+    @Test
+    public void testNormalize() {
+        assertThat(SearchResultCache.normalize(" a  b\n c ")).isEqualTo("a b c");
+        assertThat(SearchResultCache.normalize(null)).isEqualTo("");
+    }
+
+    private SearchResultCache createNode(CacheInvalidationService cacheInvalidationService) {
+        SearchResultCache node = new SearchResultCache(
+            new ConcurrentMapCacheManager(SearchResultCache.SEARCH_RESULTS_CACHE), searchCacheMetricSet,
+            cacheInvalidationService);
+        node.register();
+        return node;
+    }
+
+    private Integer search(Class<?> entityClass, String query) {
+        return searchResultCache.get(entityClass, query, null, searches::incrementAndGet);
+    }
+}
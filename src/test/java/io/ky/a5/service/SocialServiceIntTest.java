@@ -1,12 +1,14 @@
 package io.ky.a5.service;
 
 import io.ky.a5.BlogApp;
+import io.ky.a5.config.ApplicationProperties;
 import io.ky.a5.domain.Authority;
+import io.ky.a5.domain.SearchOutboxEvent;
 import io.ky.a5.domain.User;
 import io.ky.a5.repository.AuthorityRepository;
+import io.ky.a5.repository.SearchOutboxRepository;
 import io.ky.a5.repository.UserRepository;
 import io.ky.a5.security.AuthoritiesConstants;
-import io.ky.a5.repository.search.UserSearchRepository;
 import io.ky.a5.service.MailService;
 
 import org.junit.Before;
@@ -23,6 +25,7 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -41,9 +44,15 @@ public class SocialServiceIntTest {
 
     @Autowired
     private UserRepository userRepository;
+
+    @Autowired
+    private SearchIndexService searchIndexService;
+
     @Autowired
-    private UserSearchRepository userSearchRepository;
+    private SearchOutboxRepository searchOutboxRepository;
 
+    @Autowired
+    private ApplicationProperties applicationProperties;
 
     @Mock
     private MailService mockMailService;
@@ -64,7 +73,7 @@ public class SocialServiceIntTest {
         when(mockUsersConnectionRepository.createConnectionRepository(anyString())).thenReturn(mockConnectionRepository);
 
         socialService = new SocialService(mockUsersConnectionRepository, authorityRepository,
-                passwordEncoder, userRepository, mockMailService, userSearchRepository);
+                passwordEncoder, userRepository, mockMailService, searchIndexService);
     }
 
     @Test
@@ -264,6 +273,38 @@ public class SocialServiceIntTest {
         userRepository.delete(user);
     }
 
+    @Test
+    public void testCreateSocialUserShouldScheduleIndexingOfSavedUser() {
+        // Setup
+        Connection<?> connection = createConnection("LOGIN",
+            "mail@mail.com",
+            "FIRST_NAME",
+            "LAST_NAME",
+            "IMAGE_URL",
+            "PROVIDER");
+        boolean async = applicationProperties.getSearchIndexing().isAsync();
+        applicationProperties.getSearchIndexing().setAsync(true);
+        searchOutboxRepository.deleteAll();
+
+        try {
+            // Exercise
+            socialService.createSocialUser(connection, "fr");
+            searchOutboxRepository.flush();
+        } finally {
+            applicationProperties.getSearchIndexing().setAsync(async);
+        }
+
+        //Verify
+        User user = userRepository.findOneByEmailIgnoreCase("mail@mail.com").get();
+        List<SearchOutboxEvent> events = searchOutboxRepository.findAll();
+        assertThat(events).hasSize(1);
+        assertThat(events.get(0).getEntityType()).isEqualTo("User");
+        assertThat(events.get(0).getEntityId()).isEqualTo(user.getId());
+
+        // Teardown
+        userRepository.delete(user);
+    }
+
     @Test
     public void testCreateSocialUserShouldCreateSocialConnection() {
         // Setup
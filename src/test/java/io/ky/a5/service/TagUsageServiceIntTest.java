@@ -0,0 +1,140 @@
+package io.ky.a5.service;
+
+import io.ky.a5.BlogApp;
+import io.ky.a5.domain.Entry;
+import io.ky.a5.domain.Tag;
+import io.ky.a5.repository.EntryRepository;
+import io.ky.a5.repository.TagRepository;
+import io.ky.a5.service.dto.TagUsageDTO;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the TagUsageService service and the TagUsageEventListener.
+ * <p>
+ * The counts are written when a transaction commits, so the test data is committed, and removed after each test.
+ *
+ * @see TagUsageService
+ * @see TagUsageEventListener
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = BlogApp.class)
+public class TagUsageServiceIntTest {
+
+    @Autowired
+    private TagUsageService tagUsageService;
+
+    @Autowired
+    private EntryRepository entryRepository;
+
+    @Autowired
+    private TagRepository tagRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Tag java;
+
+    private Tag spring;
+
+    private final List<Entry> entries = new ArrayList<>();
+
+    @Before
+    public void init() {
+        java = tagRepository.saveAndFlush(new Tag().name("usage-java"));
+        spring = tagRepository.saveAndFlush(new Tag().name("usage-spring"));
+    }
+
+    @After
+    public void cleanup() {
+        entryRepository.delete(entries);
+        tagRepository.delete(java);
+        tagRepository.delete(spring);
+    }
+
+    @Test
+    public void testCountsFollowTheTagsOfTheEntries() {
+        assertThat(usage(java)).isEqualTo(0);
+
+        Entry first = createEntry("first", java, spring);
+        Entry second = createEntry("second", java);
+        assertThat(usage(java)).isEqualTo(2);
+        assertThat(usage(spring)).isEqualTo(1);
+
+        second.getTags().remove(java);
+        second.getTags().add(spring);
+        entries.set(entries.indexOf(second), entryRepository.saveAndFlush(second));
+        assertThat(usage(java)).isEqualTo(1);
+        assertThat(usage(spring)).isEqualTo(2);
+
+        entryRepository.delete(first.getId());
+        entries.remove(first);
+        assertThat(usage(java)).isEqualTo(0);
+        assertThat(usage(spring)).isEqualTo(1);
+    }
+
+    @Test
+    public void testMostUsedTagsComeFirst() {
+        createEntry("first", java, spring);
+        createEntry("second", spring);
+
+        List<TagUsageDTO> tagUsage = tagUsageService.getTagUsage();
+        assertThat(tagUsage.indexOf(find(tagUsage, spring))).isLessThan(tagUsage.indexOf(find(tagUsage, java)));
+        assertThat(find(tagUsage, spring).getName()).isEqualTo("usage-spring");
+    }
+
+    @Test
+    public void testRenamedTagIsEvicted() {
+        assertThat(find(tagUsageService.getTagUsage(), java).getName()).isEqualTo("usage-java");
+
+        java = tagRepository.saveAndFlush(java.name("usage-jvm"));
+
+        assertThat(find(tagUsageService.getTagUsage(), java).getName()).isEqualTo("usage-jvm");
+    }
+
+    @Test
+    public void testRebuildRecountsTheEntries() {
+        createEntry("first", java);
+        jdbcTemplate.update("update tag_usage set entry_count = 42 where tag_id = ?", java.getId());
+        tagUsageService.evict();
+        assertThat(usage(java)).isEqualTo(42);
+
+        tagUsageService.rebuild();
+
+        assertThat(usage(java)).isEqualTo(1);
+        assertThat(usage(spring)).isEqualTo(0);
+    }
+
+    private Entry createEntry(String title, Tag... tags) {
+        Entry entry = new Entry().title(title).content("content of " + title).date(ZonedDateTime.now());
+        for (Tag tag : tags) {
+            entry.getTags().add(tag);
+        }
+        entry = entryRepository.saveAndFlush(entry);
+        entries.add(entry);
+        return entry;
+    }
+
+    private long usage(Tag tag) {
+        return find(tagUsageService.getTagUsage(), tag).getEntryCount();
+    }
+
+    private static TagUsageDTO find(List<TagUsageDTO> tagUsage, Tag tag) {
+        return tagUsage.stream()
+            .filter(usage -> usage.getId().equals(tag.getId()))
+            .findFirst()
+            .orElseThrow(() -> new AssertionError("No usage for " + tag));
+    }
+}
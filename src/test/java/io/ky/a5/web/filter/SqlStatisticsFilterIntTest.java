@@ -0,0 +1,145 @@
+package io.ky.a5.web.filter;
+
+import io.ky.a5.BlogApp;
+import io.ky.a5.config.ApplicationProperties;
+import io.ky.a5.config.metrics.SqlStatementMetricSet;
+import io.ky.a5.config.metrics.SqlStatementStatistics;
+import io.ky.a5.domain.User;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Test class for the SqlStatisticsFilter, with a controller running the same query a given number of times.
+ *
+ * @see SqlStatisticsFilter
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = BlogApp.class)
+public class SqlStatisticsFilterIntTest {
+
+    @Autowired
+    private SqlStatisticsFilter sqlStatisticsFilter;
+
+    @Autowired
+    private SqlStatementMetricSet sqlStatementMetricSet;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private EntityManager em;
+
+    private MockMvc restMockMvc;
+
+    @Before
+    public void setup() {
+        this.restMockMvc = MockMvcBuilders.standaloneSetup(new RepeatedQueryResource(em))
+            .addFilters(sqlStatisticsFilter).build();
+    }
+
+    @After
+    public void cleanup() {
+        ApplicationProperties.SqlStatistics properties = applicationProperties.getSqlStatistics();
+        properties.setHeader(false);
+        properties.setFailOnRepeatedQueries(true);
+    }
+
+    @Test
+    public void testStatementsAreCounted() throws Exception {
+        applicationProperties.getSqlStatistics().setHeader(true);
+        long requests = sqlStatementMetricSet.getStatements().getCount();
+
+        restMockMvc.perform(get("/test/repeated-query/3"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(SqlStatisticsFilter.STATEMENTS_HEADER, "3"))
+            .andExpect(header().string(SqlStatisticsFilter.TIME_HEADER, notNullValue()));
+
+        assertThat(sqlStatementMetricSet.getStatements().getCount()).isEqualTo(requests + 1);
+        assertThat(SqlStatementStatistics.current()).isNull();
+    }
+
+    @Test
+    public void testNoHeaderByDefault() throws Exception {
+        restMockMvc.perform(get("/test/repeated-query/1"))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(SqlStatisticsFilter.STATEMENTS_HEADER));
+    }
+
+    @Test
+    public void testRepeatedQueryFails() {
+        int threshold = applicationProperties.getSqlStatistics().getRepeatedQueryThreshold();
+
+        assertThatThrownBy(() -> restMockMvc.perform(get("/test/repeated-query/" + (threshold + 1))))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("GET /test/repeated-query/" + (threshold + 1))
+            .hasMessageContaining(String.valueOf(threshold + 1) + " times");
+    }
+
+    @Test
+    public void testRepeatedQueryIsLogged() throws Exception {
+        applicationProperties.getSqlStatistics().setFailOnRepeatedQueries(false);
+        int threshold = applicationProperties.getSqlStatistics().getRepeatedQueryThreshold();
+        long repeatedQueries = sqlStatementMetricSet.getRepeatedQueries().getCount();
+
+        restMockMvc.perform(get("/test/repeated-query/" + threshold))
+            .andExpect(status().isOk());
+        assertThat(sqlStatementMetricSet.getRepeatedQueries().getCount()).isEqualTo(repeatedQueries);
+
+        restMockMvc.perform(get("/test/repeated-query/" + (threshold + 1)))
+            .andExpect(status().isOk());
+        assertThat(sqlStatementMetricSet.getRepeatedQueries().getCount()).isEqualTo(repeatedQueries + 1);
+    }
+
+    @Test
+    public void testShape() {
+        assertThat(SqlStatementStatistics.shape("select * from entry\n  where id in (?, ?,?) and title = 'it''s' and  version = 2"))
+            .isEqualTo("select * from entry where id in (?) and title = ? and version = ?");
+        assertThat(SqlStatementStatistics.shape("select tag0_.id as id1_7_ from tag tag0_ where tag0_.id=?"))
+            .isEqualTo("select tag0_.id as id1_7_ from tag tag0_ where tag0_.id=?");
+    }
+
+    /**
+     * Not a @RestController, so that the component scan of the application does not pick it.
+     */
+    @RequestMapping("/test")
+    @ResponseBody
+    static class RepeatedQueryResource {
+
+        private final EntityManager em;
+
+        RepeatedQueryResource(EntityManager em) {
+            this.em = em;
+        }
+
+        @GetMapping("/repeated-query/{times}")
+        public int runQuery(@PathVariable int times) {
+            for (int i = 0; i < times; i++) {
+                em.createQuery("select u from User u where u.login = :login", User.class)
+                    .setParameter("login", "user-" + i)
+                    .getResultList();
+            }
+            return times;
+        }
+    }
+}
@@ -7,6 +7,7 @@ import io.ky.a5.domain.User;
 import io.ky.a5.repository.AuthorityRepository;
 import io.ky.a5.repository.UserRepository;
 import io.ky.a5.security.AuthoritiesConstants;
+import io.ky.a5.security.RateLimiter;
 import io.ky.a5.service.MailService;
 import io.ky.a5.service.dto.UserDTO;
 import io.ky.a5.web.rest.errors.ExceptionTranslator;
@@ -70,6 +71,9 @@ public class AccountResourceIntTest {
     @Autowired
     private ExceptionTranslator exceptionTranslator;
 
+    @Autowired
+    private RateLimiter rateLimiter;
+
     @Mock
     private UserService mockUserService;
 
@@ -85,10 +89,10 @@ public class AccountResourceIntTest {
         MockitoAnnotations.initMocks(this);
         doNothing().when(mockMailService).sendActivationEmail(anyObject());
         AccountResource accountResource =
-            new AccountResource(userRepository, userService, mockMailService);
+            new AccountResource(userRepository, userService, mockMailService, rateLimiter);
 
         AccountResource accountUserMockResource =
-            new AccountResource(userRepository, mockUserService, mockMailService);
+            new AccountResource(userRepository, mockUserService, mockMailService, rateLimiter);
         this.restMvc = MockMvcBuilders.standaloneSetup(accountResource)
             .setMessageConverters(httpMessageConverters)
             .setControllerAdvice(exceptionTranslator)
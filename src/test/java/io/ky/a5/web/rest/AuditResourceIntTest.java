@@ -4,7 +4,9 @@ import io.ky.a5.BlogApp;
 import io.ky.a5.config.audit.AuditEventConverter;
 import io.ky.a5.domain.PersistentAuditEvent;
 import io.ky.a5.repository.PersistenceAuditEventRepository;
+import io.ky.a5.service.AuditEventExportService;
 import io.ky.a5.service.AuditEventService;
+import io.ky.a5.web.rest.errors.ExceptionTranslator;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -23,7 +25,9 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.Instant;
 import java.time.format.DateTimeFormatter;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.isEmptyString;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -57,6 +61,12 @@ public class AuditResourceIntTest {
     @Autowired
     private PageableHandlerMethodArgumentResolver pageableArgumentResolver;
 
+    @Autowired
+    private AuditEventExportService auditEventExportService;
+
+    @Autowired
+    private ExceptionTranslator exceptionTranslator;
+
     private PersistentAuditEvent auditEvent;
 
     private MockMvc restAuditMockMvc;
@@ -66,9 +76,10 @@ public class AuditResourceIntTest {
         MockitoAnnotations.initMocks(this);
         AuditEventService auditEventService =
             new AuditEventService(auditEventRepository, auditEventConverter);
-        AuditResource auditResource = new AuditResource(auditEventService);
+        AuditResource auditResource = new AuditResource(auditEventService, auditEventExportService);
         this.restAuditMockMvc = MockMvcBuilders.standaloneSetup(auditResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
+            .setControllerAdvice(exceptionTranslator)
             .setConversionService(formattingConversionService)
             .setMessageConverters(jacksonMessageConverter).build();
     }
@@ -144,4 +155,60 @@ public class AuditResourceIntTest {
         restAuditMockMvc.perform(get("/management/audits/{id}", Long.MAX_VALUE))
             .andExpect(status().isNotFound());
     }
+
+    @Test
+    public void exportAuditsByDateAsNdjson() throws Exception {
+        // Initialize the database
+        auditEvent.getData().put("remoteAddress", "1.2.3.4");
+        auditEventRepository.saveAndFlush(auditEvent);
+
+        String fromDate = SAMPLE_TIMESTAMP.minusSeconds(SECONDS_PER_DAY).toString().substring(0, 10);
+        String toDate = SAMPLE_TIMESTAMP.plusSeconds(SECONDS_PER_DAY).toString().substring(0, 10);
+
+        // Export the audits
+        restAuditMockMvc.perform(get("/management/audits/export?fromDate=" + fromDate + "&toDate=" + toDate))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/x-ndjson;charset=UTF-8"))
+            .andExpect(header().string("Content-Disposition", containsString(".ndjson")))
+            .andExpect(content().string(containsString("\"principal\":\"" + SAMPLE_PRINCIPAL + "\"")))
+            .andExpect(content().string(containsString("\"remoteAddress\":\"1.2.3.4\"")));
+    }
+
+    @Test
+    public void exportAuditsByDateAsCsv() throws Exception {
+        // Initialize the database
+        auditEvent.getData().put("remoteAddress", "1.2.3.4");
+        auditEventRepository.saveAndFlush(auditEvent);
+
+        String fromDate = SAMPLE_TIMESTAMP.minusSeconds(SECONDS_PER_DAY).toString().substring(0, 10);
+        String toDate = SAMPLE_TIMESTAMP.plusSeconds(SECONDS_PER_DAY).toString().substring(0, 10);
+
+        // Export the audits
+        restAuditMockMvc.perform(get("/management/audits/export?format=csv&fromDate=" + fromDate + "&toDate=" + toDate))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("text/csv;charset=UTF-8"))
+            .andExpect(content().string(containsString("id,date,principal,type,data\n" + auditEvent.getId() + "," +
+                SAMPLE_TIMESTAMP + "," + SAMPLE_PRINCIPAL + "," + SAMPLE_TYPE + ",")))
+            .andExpect(content().string(containsString("\"{\"\"remoteAddress\"\":\"\"1.2.3.4\"\"}\"")));
+    }
+
+    @Test
+    public void exportNonExistingAuditsByDate() throws Exception {
+        // Initialize the database
+        auditEventRepository.saveAndFlush(auditEvent);
+
+        String fromDate = SAMPLE_TIMESTAMP.minusSeconds(2 * SECONDS_PER_DAY).toString().substring(0, 10);
+        String toDate = SAMPLE_TIMESTAMP.minusSeconds(SECONDS_PER_DAY).toString().substring(0, 10);
+
+        // Export audits but expect no results
+        restAuditMockMvc.perform(get("/management/audits/export?fromDate=" + fromDate + "&toDate=" + toDate))
+            .andExpect(status().isOk())
+            .andExpect(content().string(isEmptyString()));
+    }
+
+    @Test
+    public void exportAuditsWithUnsupportedFormat() throws Exception {
+        restAuditMockMvc.perform(get("/management/audits/export?format=xml&fromDate=2015-08-03&toDate=2015-08-05"))
+            .andExpect(status().isBadRequest());
+    }
 }
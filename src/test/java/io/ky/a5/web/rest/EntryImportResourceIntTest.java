@@ -0,0 +1,201 @@
+package io.ky.a5.web.rest;
+
+import io.ky.a5.BlogApp;
+import io.ky.a5.config.ApplicationProperties;
+import io.ky.a5.domain.Blog;
+import io.ky.a5.domain.Entry;
+import io.ky.a5.domain.Tag;
+import io.ky.a5.repository.EntryRepository;
+import io.ky.a5.repository.TagRepository;
+import io.ky.a5.repository.search.EntrySearchRepository;
+import io.ky.a5.service.EntryImportService;
+import io.ky.a5.web.rest.errors.ExceptionTranslator;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Test class for the EntryImportResource REST controller.
+ *
+ * @see EntryImportResource
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = BlogApp.class)
+@Transactional
+public class EntryImportResourceIntTest {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    @Autowired
+    private EntryImportService entryImportService;
+
+    @Autowired
+    private EntryRepository entryRepository;
+
+    @Autowired
+    private TagRepository tagRepository;
+
+    @Autowired
+    private EntrySearchRepository entrySearchRepository;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private MappingJackson2HttpMessageConverter jacksonMessageConverter;
+
+    @Autowired
+    private ExceptionTranslator exceptionTranslator;
+
+    @Autowired
+    private EntityManager em;
+
+    private MockMvc restEntryImportMockMvc;
+
+    private Blog blog;
+
+    private Tag existingTag;
+
+    @Before
+    public void setup() {
+        EntryImportResource entryImportResource = new EntryImportResource(entryImportService);
+        this.restEntryImportMockMvc = MockMvcBuilders.standaloneSetup(entryImportResource)
+            .setControllerAdvice(exceptionTranslator)
+            .setMessageConverters(jacksonMessageConverter).build();
+        entrySearchRepository.deleteAll();
+        blog = new Blog().name("imported").handle("imported");
+        em.persist(blog);
+        existingTag = new Tag().name("existing");
+        em.persist(existingTag);
+        em.flush();
+    }
+
+    @After
+    public void cleanup() {
+        applicationProperties.getEntryImport().setChunkSize(new ApplicationProperties.EntryImport().getChunkSize());
+    }
+
+    @Test
+    public void importJsonArray() throws Exception {
+        applicationProperties.getEntryImport().setChunkSize(2);
+        int databaseSizeBeforeImport = entryRepository.findAll().size();
+        String body = "[" +
+            entryJson("first", blog.getId(), "existing", "new") + "," +
+            entryJson("second", null, "new") + "," +
+            entryJson("third", blog.getId()) +
+            "]";
+
+        restEntryImportMockMvc.perform(post("/api/entries/import")
+            .contentType(MediaType.APPLICATION_JSON_UTF8)
+            .content(body))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.total").value(3))
+            .andExpect(jsonPath("$.imported").value(3))
+            .andExpect(jsonPath("$.failed").value(0))
+            .andExpect(jsonPath("$.createdTags").value(1))
+            .andExpect(jsonPath("$.entriesPerSecond").value(notNullValue()))
+            .andExpect(jsonPath("$.items[0].id").value(notNullValue()))
+            .andExpect(jsonPath("$.items[2].index").value(2));
+
+        List<Entry> entries = entryRepository.findAllWithEagerRelationships();
+        assertThat(entries).hasSize(databaseSizeBeforeImport + 3);
+        Entry first = entries.stream().filter(entry -> entry.getTitle().equals("first")).findFirst().get();
+        assertThat(first.getBlog().getId()).isEqualTo(blog.getId());
+        assertThat(first.getTags()).extracting(Tag::getName).containsOnly("existing", "new");
+        List<Tag> newTags = tagRepository.findAll().stream()
+            .filter(tag -> tag.getName().equals("new"))
+            .collect(Collectors.toList());
+        assertThat(newTags).hasSize(1);
+        Entry second = entries.stream().filter(entry -> entry.getTitle().equals("second")).findFirst().get();
+        assertThat(second.getTags()).extracting(Tag::getId).containsOnly(newTags.get(0).getId());
+
+        // Validate the entries in Elasticsearch
+        assertThat(entrySearchRepository.findOne(first.getId())).isNotNull();
+    }
+
+    @Test
+    public void importNdjson() throws Exception {
+        String body = entryJson("first", blog.getId()) + "\n" + entryJson("second", blog.getId()) + "\n";
+
+        restEntryImportMockMvc.perform(post("/api/entries/import")
+            .contentType(NDJSON)
+            .content(body))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.total").value(2))
+            .andExpect(jsonPath("$.imported").value(2));
+    }
+
+    @Test
+    public void importReportsInvalidItems() throws Exception {
+        int databaseSizeBeforeImport = entryRepository.findAll().size();
+        String body = "[" +
+            "{\"content\": \"no title\", \"date\": \"2018-03-01T10:00:00Z\"}," +
+            entryJson("unknown blog", Long.MAX_VALUE) + "," +
+            "{\"title\": \"bad date\", \"content\": \"content\", \"date\": \"yesterday\"}," +
+            entryJson("valid", blog.getId()) +
+            "]";
+
+        restEntryImportMockMvc.perform(post("/api/entries/import")
+            .contentType(MediaType.APPLICATION_JSON_UTF8)
+            .content(body))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.total").value(4))
+            .andExpect(jsonPath("$.imported").value(1))
+            .andExpect(jsonPath("$.failed").value(3))
+            .andExpect(jsonPath("$.items[0].error").value(startsWith("title ")))
+            .andExpect(jsonPath("$.items[1].error").value("Unknown blog " + Long.MAX_VALUE))
+            .andExpect(jsonPath("$.items[2].error").value(startsWith("Invalid entry")))
+            .andExpect(jsonPath("$.items[3].error").value(nullValue()))
+            .andExpect(jsonPath("$.items[3].imported").value(true));
+
+        assertThat(entryRepository.findAll()).hasSize(databaseSizeBeforeImport + 1);
+    }
+
+    @Test
+    public void importKeepsItemsBeforeMalformedJson() throws Exception {
+        String body = "[" + entryJson("valid", blog.getId()) + ", {\"title\": ";
+
+        restEntryImportMockMvc.perform(post("/api/entries/import")
+            .contentType(MediaType.APPLICATION_JSON_UTF8)
+            .content(body))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.imported").value(1))
+            .andExpect(jsonPath("$.error").value(startsWith("Invalid JSON")));
+    }
+
+    private static String entryJson(String title, Long blogId, String... tags) {
+        StringBuilder json = new StringBuilder("{\"title\": \"").append(title)
+            .append("\", \"content\": \"content of ").append(title)
+            .append("\", \"date\": \"2018-03-01T10:00:00Z\"");
+        if (blogId != null) {
+            json.append(", \"blogId\": ").append(blogId);
+        }
+        json.append(", \"tags\": [");
+        for (int i = 0; i < tags.length; i++) {
+            json.append(i > 0 ? ", " : "").append('"').append(tags[i]).append('"');
+        }
+        return json.append("]}").toString();
+    }
+}
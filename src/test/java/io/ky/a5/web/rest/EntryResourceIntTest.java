@@ -2,11 +2,20 @@ package io.ky.a5.web.rest;
 
 import io.ky.a5.BlogApp;
 
+import io.ky.a5.domain.Blog;
 import io.ky.a5.domain.Entry;
+import io.ky.a5.domain.Tag;
+import io.ky.a5.domain.User;
 import io.ky.a5.repository.EntryRepository;
 import io.ky.a5.repository.search.EntrySearchRepository;
+import io.ky.a5.service.SearchIndexService;
+import io.ky.a5.service.SearchResultCache;
+import io.ky.a5.service.dto.EntrySummaryDTO;
+import io.ky.a5.web.filter.SqlStatisticsFilter;
 import io.ky.a5.web.rest.errors.ExceptionTranslator;
+import io.ky.a5.web.rest.util.EntityTagUtil;
 
+import org.apache.commons.lang3.StringUtils;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -14,8 +23,10 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
@@ -27,12 +38,20 @@ import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.time.ZoneOffset;
 import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import static io.ky.a5.web.rest.TestUtil.sameInstant;
 import static io.ky.a5.web.rest.TestUtil.createFormattingConversionService;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -51,6 +70,10 @@ public class EntryResourceIntTest {
     private static final String DEFAULT_CONTENT = "AAAAAAAAAA";
     private static final String UPDATED_CONTENT = "BBBBBBBBBB";
 
+    private static final String TIMELINE_LOGIN = "entry-timeline";
+
+    private static final Pattern NEXT_CURSOR = Pattern.compile("after=([^&>]+)&size=2>; rel=\"next\"");
+
     private static final ZonedDateTime DEFAULT_DATE = ZonedDateTime.ofInstant(Instant.ofEpochMilli(0L), ZoneOffset.UTC);
     private static final ZonedDateTime UPDATED_DATE = ZonedDateTime.now(ZoneId.systemDefault()).withNano(0);
 
@@ -60,6 +83,12 @@ public class EntryResourceIntTest {
     @Autowired
     private EntrySearchRepository entrySearchRepository;
 
+    @Autowired
+    private SearchIndexService searchIndexService;
+
+    @Autowired
+    private SearchResultCache searchResultCache;
+
     @Autowired
     private MappingJackson2HttpMessageConverter jacksonMessageConverter;
 
@@ -69,6 +98,9 @@ public class EntryResourceIntTest {
     @Autowired
     private ExceptionTranslator exceptionTranslator;
 
+    @Autowired
+    private SqlStatisticsFilter sqlStatisticsFilter;
+
     @Autowired
     private EntityManager em;
 
@@ -79,10 +111,11 @@ public class EntryResourceIntTest {
     @Before
     public void setup() {
         MockitoAnnotations.initMocks(this);
-        final EntryResource entryResource = new EntryResource(entryRepository, entrySearchRepository);
+        final EntryResource entryResource = new EntryResource(entryRepository, entrySearchRepository, searchIndexService, searchResultCache);
         this.restEntryMockMvc = MockMvcBuilders.standaloneSetup(entryResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
             .setControllerAdvice(exceptionTranslator)
+            .addFilters(sqlStatisticsFilter)
             .setConversionService(createFormattingConversionService())
             .setMessageConverters(jacksonMessageConverter).build();
     }
@@ -129,7 +162,7 @@ public class EntryResourceIntTest {
         // Validate the Entry in Elasticsearch
         Entry entryEs = entrySearchRepository.findOne(testEntry.getId());
         assertThat(testEntry.getDate()).isEqualTo(testEntry.getDate());
-        assertThat(entryEs).isEqualToIgnoringGivenFields(testEntry, "date");
+        assertThat(entryEs).isEqualToIgnoringGivenFields(testEntry, TestUtil.ignoringEnhancementFields("date"));
     }
 
     @Test
@@ -207,9 +240,17 @@ public class EntryResourceIntTest {
 
     @Test
     @Transactional
+    @WithMockUser(TIMELINE_LOGIN)
     public void getAllEntries() throws Exception {
         // Initialize the database
-        entryRepository.saveAndFlush(entry);
+        final User user = UserResourceIntTest.createEntity(em);
+        user.setLogin(TIMELINE_LOGIN);
+        em.persist(user);
+        final Blog blog = BlogResourceIntTest.createEntity(em).user(user);
+        em.persist(blog);
+        final Tag tag = TagResourceIntTest.createEntity(em);
+        em.persist(tag);
+        entryRepository.saveAndFlush(entry.blog(blog).addTag(tag));
 
         // Get all the entryList
         restEntryMockMvc.perform(get("/api/entries?sort=id,desc"))
@@ -217,8 +258,103 @@ public class EntryResourceIntTest {
             .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
             .andExpect(jsonPath("$.[*].id").value(hasItem(entry.getId().intValue())))
             .andExpect(jsonPath("$.[*].title").value(hasItem(DEFAULT_TITLE.toString())))
-            .andExpect(jsonPath("$.[*].content").value(hasItem(DEFAULT_CONTENT.toString())))
-            .andExpect(jsonPath("$.[*].date").value(hasItem(sameInstant(DEFAULT_DATE))));
+            .andExpect(jsonPath("$.[*].excerpt").value(hasItem(DEFAULT_CONTENT.toString())))
+            .andExpect(jsonPath("$.[*].date").value(hasItem(sameInstant(DEFAULT_DATE))))
+            .andExpect(jsonPath("$.[*].userLogin").value(hasItem(TIMELINE_LOGIN)))
+            .andExpect(jsonPath("$.[*].tags.[*]").value(hasItem(tag.getName())))
+            .andExpect(jsonPath("$.[*].content").isEmpty());
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser(TIMELINE_LOGIN)
+    public void getAllEntriesCutsContent() throws Exception {
+        // Initialize the database
+        final User user = UserResourceIntTest.createEntity(em);
+        user.setLogin(TIMELINE_LOGIN);
+        em.persist(user);
+        final Blog blog = BlogResourceIntTest.createEntity(em).user(user);
+        em.persist(blog);
+        final String content = StringUtils.repeat('A', EntrySummaryDTO.EXCERPT_LENGTH * 4);
+        entryRepository.saveAndFlush(entry.blog(blog).content(content));
+
+        restEntryMockMvc.perform(get("/api/entries?after="))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].excerpt").value(content.substring(0, EntrySummaryDTO.EXCERPT_LENGTH)));
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser(TIMELINE_LOGIN)
+    public void getAllEntriesStripsHtmlFromExcerpt() throws Exception {
+        // Initialize the database
+        final User user = UserResourceIntTest.createEntity(em);
+        user.setLogin(TIMELINE_LOGIN);
+        em.persist(user);
+        final Blog blog = BlogResourceIntTest.createEntity(em).user(user);
+        em.persist(blog);
+        final String text = StringUtils.repeat('A', EntrySummaryDTO.EXCERPT_LENGTH - 3);
+        // The excerpt is cut in the middle of "&amp;", and the content read from the database in the middle of a link
+        entryRepository.saveAndFlush(createEntity(em).blog(blog).date(DEFAULT_DATE)
+            .content("<p>Tom &amp; <a href=\"/jerry\">Jerry</a></p>"));
+        entryRepository.saveAndFlush(createEntity(em).blog(blog).date(UPDATED_DATE)
+            .content("<p>" + text + " &amp; " + StringUtils.repeat("<a href=\"/b\">B</a>", 100) + "</p>"));
+
+        restEntryMockMvc.perform(get("/api/entries?after="))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].excerpt").value(text))
+            .andExpect(jsonPath("$.[1].excerpt").value("Tom &amp; Jerry"));
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser(TIMELINE_LOGIN)
+    public void getAllEntriesWithKeyset() throws Exception {
+        // Initialize the database, with two entries of the same date which are ordered by id
+        final User user = UserResourceIntTest.createEntity(em);
+        user.setLogin(TIMELINE_LOGIN);
+        em.persist(user);
+        final Blog blog = BlogResourceIntTest.createEntity(em).user(user);
+        em.persist(blog);
+        final List<Entry> entries = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            entries.add(entryRepository.save(createEntity(em).blog(blog).date(DEFAULT_DATE.plusDays(Math.min(i, 3)))));
+        }
+        entryRepository.flush();
+        final List<Integer> expectedIds = entries.stream()
+            .sorted(Comparator.comparing(Entry::getDate).thenComparing(Entry::getId).reversed())
+            .map(timelineEntry -> timelineEntry.getId().intValue())
+            .collect(Collectors.toList());
+
+        // Get the first slice, with the count of the entries
+        String link = restEntryMockMvc.perform(get("/api/entries?after=&size=2&count=true"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(header().string("X-Total-Count", "5"))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("</api/entries?after=&size=2>; rel=\"first\"")))
+            .andExpect(jsonPath("$.[*].id").value(contains(expectedIds.get(0), expectedIds.get(1))))
+            .andReturn().getResponse().getHeader(HttpHeaders.LINK);
+
+        // Get the next slices with the cursor of the Link header, without counting
+        link = restEntryMockMvc.perform(get("/api/entries?after={cursor}&size=2", nextCursor(link)))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("X-Total-Count"))
+            .andExpect(jsonPath("$.[*].id").value(contains(expectedIds.get(2), expectedIds.get(3))))
+            .andReturn().getResponse().getHeader(HttpHeaders.LINK);
+
+        restEntryMockMvc.perform(get("/api/entries?after={cursor}&size=2", nextCursor(link)))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.LINK, not(containsString("rel=\"next\""))))
+            .andExpect(jsonPath("$.[*].id").value(contains(expectedIds.get(4))));
+    }
+
+    @Test
+    @Transactional
+    @WithMockUser(TIMELINE_LOGIN)
+    public void getAllEntriesWithInvalidCursor() throws Exception {
+        restEntryMockMvc.perform(get("/api/entries?after=not-a-cursor"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.invalidcursor"));
     }
 
     @Test
@@ -237,6 +373,40 @@ public class EntryResourceIntTest {
             .andExpect(jsonPath("$.date").value(sameInstant(DEFAULT_DATE)));
     }
 
+    @Test
+    @Transactional
+    public void getEntryNotModified() throws Exception {
+        // Initialize the database
+        final Blog blog = BlogResourceIntTest.createEntity(em);
+        em.persist(blog);
+        final Tag tag = TagResourceIntTest.createEntity(em);
+        em.persist(tag);
+        entry.blog(blog).addTag(tag);
+        entryRepository.saveAndFlush(entry);
+
+        final String entityTag = restEntryMockMvc.perform(get("/api/entries/{id}", entry.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(entityTag).isNotNull();
+
+        // The entity tag read from the versions matches the one of the entry
+        restEntryMockMvc.perform(get("/api/entries/{id}", entry.getId())
+            .header(HttpHeaders.IF_NONE_MATCH, entityTag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, entityTag))
+            .andExpect(content().string(""));
+
+        // Renaming a tag of the entry changes its representation
+        tag.setName(UPDATED_TITLE);
+        em.flush();
+        restEntryMockMvc.perform(get("/api/entries/{id}", entry.getId())
+            .header(HttpHeaders.IF_NONE_MATCH, entityTag))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, not(entityTag)))
+            .andExpect(jsonPath("$.tags[*].name").value(hasItem(UPDATED_TITLE)));
+    }
+
     @Test
     @Transactional
     public void getNonExistingEntry() throws Exception {
@@ -278,7 +448,46 @@ public class EntryResourceIntTest {
         // Validate the Entry in Elasticsearch
         Entry entryEs = entrySearchRepository.findOne(testEntry.getId());
         assertThat(testEntry.getDate()).isEqualTo(testEntry.getDate());
-        assertThat(entryEs).isEqualToIgnoringGivenFields(testEntry, "date");
+        assertThat(entryEs).isEqualToIgnoringGivenFields(testEntry, TestUtil.ignoringEnhancementFields("date"));
+    }
+
+    @Test
+    @Transactional
+    public void updateEntryWithStaleEntityTag() throws Exception {
+        // Initialize the database
+        entryRepository.saveAndFlush(entry);
+        final String entityTag = EntityTagUtil.entityTag(entry);
+        entry.setTitle(UPDATED_TITLE);
+        entryRepository.saveAndFlush(entry);
+
+        final Entry updatedEntry = new Entry().title(DEFAULT_TITLE).content(UPDATED_CONTENT).date(UPDATED_DATE);
+        updatedEntry.setId(entry.getId());
+        restEntryMockMvc.perform(put("/api/entries")
+            .header(HttpHeaders.IF_MATCH, entityTag)
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(updatedEntry)))
+            .andExpect(status().isPreconditionFailed())
+            .andExpect(jsonPath("$.message").value("error.preconditionFailed"));
+
+        // Validate the Entry was not updated
+        assertThat(entryRepository.findOne(entry.getId()).getContent()).isEqualTo(DEFAULT_CONTENT);
+    }
+
+    @Test
+    @Transactional
+    public void updateEntryWithStaleVersion() throws Exception {
+        // Initialize the database
+        entryRepository.saveAndFlush(entry);
+        final Entry staleEntry = new Entry().title(DEFAULT_TITLE).content(UPDATED_CONTENT).date(UPDATED_DATE);
+        staleEntry.setId(entry.getId());
+        staleEntry.setVersion(entry.getVersion());
+        entry.setTitle(UPDATED_TITLE);
+        entryRepository.saveAndFlush(entry);
+
+        restEntryMockMvc.perform(put("/api/entries")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(staleEntry)))
+            .andExpect(status().isConflict());
     }
 
     @Test
@@ -334,7 +543,7 @@ public class EntryResourceIntTest {
             .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
             .andExpect(jsonPath("$.[*].id").value(hasItem(entry.getId().intValue())))
             .andExpect(jsonPath("$.[*].title").value(hasItem(DEFAULT_TITLE.toString())))
-            .andExpect(jsonPath("$.[*].content").value(hasItem(DEFAULT_CONTENT.toString())))
+            .andExpect(jsonPath("$.[*].excerpt").value(hasItem(DEFAULT_CONTENT.toString())))
             .andExpect(jsonPath("$.[*].date").value(hasItem(sameInstant(DEFAULT_DATE))));
     }
 
@@ -352,4 +561,10 @@ public class EntryResourceIntTest {
         entry1.setId(null);
         assertThat(entry1).isNotEqualTo(entry2);
     }
+
+    private static String nextCursor(String link) {
+        final Matcher matcher = NEXT_CURSOR.matcher(link);
+        assertThat(matcher.find()).as("next link in %s", link).isTrue();
+        return matcher.group(1);
+    }
 }
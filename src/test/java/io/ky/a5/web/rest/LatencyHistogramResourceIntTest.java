@@ -0,0 +1,82 @@
+package io.ky.a5.web.rest;
+
+import io.ky.a5.BlogApp;
+import io.ky.a5.config.metrics.HdrHistogramMetricRegistry;
+
+import com.jayway.jsonpath.JsonPath;
+import org.HdrHistogram.Histogram;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Test class for the LatencyHistogramResource REST controller.
+ *
+ * @see LatencyHistogramResource
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = BlogApp.class)
+public class LatencyHistogramResourceIntTest {
+
+    private static final String TIMER = "io.ky.a5.test.LatencyHistogramResourceIntTest.timer";
+
+    @Autowired
+    private HdrHistogramMetricRegistry metricRegistry;
+
+    private MockMvc restLatencyHistogramMockMvc;
+
+    @Before
+    public void setup() {
+        LatencyHistogramResource latencyHistogramResource = new LatencyHistogramResource(metricRegistry);
+        this.restLatencyHistogramMockMvc = MockMvcBuilders.standaloneSetup(latencyHistogramResource).build();
+    }
+
+    @After
+    public void cleanup() {
+        metricRegistry.remove(TIMER);
+    }
+
+    @Test
+    public void getLatencyHistograms() throws Exception {
+        metricRegistry.timer(TIMER).update(3, TimeUnit.MILLISECONDS);
+        metricRegistry.timer(TIMER).update(7, TimeUnit.MILLISECONDS);
+
+        MvcResult result = restLatencyHistogramMockMvc.perform(get("/management/latency-histograms")
+            .param("prefix", TIMER))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$.[0].name").value(TIMER))
+            .andExpect(jsonPath("$.[0].unit").value("nanoseconds"))
+            .andExpect(jsonPath("$.[0].count").value(2))
+            .andReturn();
+
+        // The exported histogram can be decoded, to be added to those of the other nodes
+        String encoded = JsonPath.read(result.getResponse().getContentAsString(), "$.[0].histogram");
+        Histogram histogram = Histogram.decodeFromCompressedByteBuffer(
+            ByteBuffer.wrap(Base64.getDecoder().decode(encoded)), 0);
+        assertThat(histogram.getTotalCount()).isEqualTo(2);
+        assertThat(histogram.getMaxValue())
+            .isCloseTo(TimeUnit.MILLISECONDS.toNanos(7), within(TimeUnit.MILLISECONDS.toNanos(7) / 100));
+    }
+}
@@ -0,0 +1,180 @@
+package io.ky.a5.web.rest;
+
+import io.ky.a5.BlogApp;
+import io.ky.a5.config.ApplicationProperties;
+import io.ky.a5.domain.Tag;
+import io.ky.a5.domain.enumeration.SearchOutboxOperation;
+import io.ky.a5.repository.SearchOutboxRepository;
+import io.ky.a5.repository.TagRepository;
+import io.ky.a5.repository.search.TagSearchRepository;
+import io.ky.a5.service.SearchReindexService;
+import io.ky.a5.service.SearchResultCache;
+import io.ky.a5.service.dto.SearchReindexStatusDTO;
+import io.ky.a5.service.dto.SearchReindexStatusDTO.IndexStatusDTO;
+
+import org.elasticsearch.client.IndicesAdminClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.elasticsearch.core.ElasticsearchTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Test class for the SearchReindexResource REST controller and the SearchReindexService.
+ * <p>
+ * The job reads the database from other threads, so the test data is committed, and removed after the test. The job
+ * itself is run by the test, once it has been started.
+ *
+ * @see SearchReindexResource
+ * @see SearchReindexService
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = BlogApp.class)
+public class SearchReindexResourceIntTest {
+
+    @Autowired
+    private ElasticsearchTemplate elasticsearchTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private SearchResultCache searchResultCache;
+
+    @Autowired
+    private SearchOutboxRepository searchOutboxRepository;
+
+    @Autowired
+    private TagRepository tagRepository;
+
+    @Autowired
+    private TagSearchRepository tagSearchRepository;
+
+    @Autowired
+    private MappingJackson2HttpMessageConverter jacksonMessageConverter;
+
+    private final List<Runnable> jobs = new ArrayList<>();
+
+    private SearchReindexService searchReindexService;
+
+    private MockMvc restSearchReindexMockMvc;
+
+    private Tag tag;
+
+    @Before
+    public void setup() {
+        searchReindexService = new SearchReindexService(elasticsearchTemplate, entityManager, transactionManager,
+            jobs::add, applicationProperties, searchResultCache, searchOutboxRepository);
+        this.restSearchReindexMockMvc = MockMvcBuilders.standaloneSetup(new SearchReindexResource(searchReindexService))
+            .setMessageConverters(jacksonMessageConverter).build();
+        tag = tagRepository.saveAndFlush(new Tag().name("reindex"));
+    }
+
+    @After
+    public void cleanup() {
+        tagRepository.delete(tag);
+        if (tagSearchRepository.exists(tag.getId())) {
+            tagSearchRepository.delete(tag.getId());
+        }
+    }
+
+    @Test
+    public void testReindex() throws Exception {
+        Map<String, List<String>> previousIndices = new HashMap<>();
+        for (IndexStatusDTO index : searchReindexService.getStatus().getIndices()) {
+            previousIndices.put(index.getAlias(), indicesOf(index.getAlias()));
+        }
+
+        restSearchReindexMockMvc.perform(post("/management/search/reindex"))
+            .andExpect(status().isAccepted())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$.running").value(true));
+        restSearchReindexMockMvc.perform(post("/management/search/reindex"))
+            .andExpect(status().isConflict())
+            .andExpect(jsonPath("$.running").value(true));
+
+        assertThat(jobs).hasSize(1);
+        jobs.get(0).run();
+
+        restSearchReindexMockMvc.perform(get("/management/search/reindex"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.running").value(false))
+            .andExpect(jsonPath("$.indices", hasSize(4)));
+
+        SearchReindexStatusDTO status = searchReindexService.getStatus();
+        for (IndexStatusDTO index : status.getIndices()) {
+            assertThat(index.getState()).as(index.getAlias()).isEqualTo("COMPLETED");
+            assertThat(index.getIndexed()).as(index.getAlias()).isEqualTo(index.getTotal());
+            assertThat(count(index.getAlias())).as(index.getAlias()).isEqualTo(index.getTotal());
+            // The alias points to the new index only, and the previous indices are deleted
+            assertThat(indicesOf(index.getAlias())).containsExactly(index.getIndex());
+            for (String previousIndex : previousIndices.get(index.getAlias())) {
+                if (!previousIndex.equals(index.getAlias())) {
+                    assertThat(elasticsearchTemplate.indexExists(previousIndex)).as(previousIndex).isFalse();
+                }
+            }
+            assertThat(elasticsearchTemplate.getMapping(index.getIndex(), index.getAlias())).containsKey("properties");
+        }
+        assertThat(count("tag")).isEqualTo(tagRepository.count());
+        assertThat(tagSearchRepository.findOne(tag.getId()).getName()).isEqualTo("reindex");
+        // The search outbox is drained again
+        assertThat(searchOutboxRepository.findFirstByOperationOrderByIdAsc(SearchOutboxOperation.REINDEX)).isNotPresent();
+
+        // A second job replaces the indices of the first one
+        restSearchReindexMockMvc.perform(post("/management/search/reindex"))
+            .andExpect(status().isAccepted());
+        jobs.get(1).run();
+
+        for (int i = 0; i < status.getIndices().size(); i++) {
+            IndexStatusDTO previous = status.getIndices().get(i);
+            IndexStatusDTO index = searchReindexService.getStatus().getIndices().get(i);
+            assertThat(index.getState()).as(index.getAlias()).isEqualTo("COMPLETED");
+            assertThat(indicesOf(index.getAlias())).containsExactly(index.getIndex());
+            assertThat(elasticsearchTemplate.indexExists(previous.getIndex())).as(previous.getIndex()).isFalse();
+        }
+    }
+
+    private long count(String alias) {
+        return elasticsearchTemplate.getClient().prepareSearch(alias).setSize(0).get().getHits().getTotalHits();
+    }
+
+    /**
+     * @return the indices the alias points to, or the alias itself when it still is an index
+     */
+    private List<String> indicesOf(String alias) {
+        IndicesAdminClient indices = elasticsearchTemplate.getClient().admin().indices();
+        if (!indices.prepareAliasesExist(alias).get().exists()) {
+            return Collections.singletonList(alias);
+        }
+        List<String> aliasIndices = new ArrayList<>();
+        indices.prepareGetAliases(alias).get().getAliases().keysIt().forEachRemaining(aliasIndices::add);
+        return aliasIndices;
+    }
+}
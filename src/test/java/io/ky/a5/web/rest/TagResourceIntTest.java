@@ -5,7 +5,12 @@ import io.ky.a5.BlogApp;
 import io.ky.a5.domain.Tag;
 import io.ky.a5.repository.TagRepository;
 import io.ky.a5.repository.search.TagSearchRepository;
+import io.ky.a5.service.SearchIndexService;
+import io.ky.a5.service.SearchResultCache;
+import io.ky.a5.service.TagUsageService;
+import io.ky.a5.web.filter.SqlStatisticsFilter;
 import io.ky.a5.web.rest.errors.ExceptionTranslator;
+import io.ky.a5.web.rest.util.EntityTagUtil;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -14,6 +19,7 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.test.context.junit4.SpringRunner;
@@ -48,6 +54,15 @@ public class TagResourceIntTest {
     @Autowired
     private TagSearchRepository tagSearchRepository;
 
+    @Autowired
+    private SearchIndexService searchIndexService;
+
+    @Autowired
+    private SearchResultCache searchResultCache;
+
+    @Autowired
+    private TagUsageService tagUsageService;
+
     @Autowired
     private MappingJackson2HttpMessageConverter jacksonMessageConverter;
 
@@ -57,6 +72,9 @@ public class TagResourceIntTest {
     @Autowired
     private ExceptionTranslator exceptionTranslator;
 
+    @Autowired
+    private SqlStatisticsFilter sqlStatisticsFilter;
+
     @Autowired
     private EntityManager em;
 
@@ -67,10 +85,12 @@ public class TagResourceIntTest {
     @Before
     public void setup() {
         MockitoAnnotations.initMocks(this);
-        final TagResource tagResource = new TagResource(tagRepository, tagSearchRepository);
+        final TagResource tagResource = new TagResource(tagRepository, tagSearchRepository, searchIndexService, searchResultCache,
+            tagUsageService);
         this.restTagMockMvc = MockMvcBuilders.standaloneSetup(tagResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
             .setControllerAdvice(exceptionTranslator)
+            .addFilters(sqlStatisticsFilter)
             .setConversionService(createFormattingConversionService())
             .setMessageConverters(jacksonMessageConverter).build();
     }
@@ -112,7 +132,7 @@ public class TagResourceIntTest {
 
         // Validate the Tag in Elasticsearch
         Tag tagEs = tagSearchRepository.findOne(testTag.getId());
-        assertThat(tagEs).isEqualToIgnoringGivenFields(testTag);
+        assertThat(tagEs).isEqualToIgnoringGivenFields(testTag, TestUtil.ignoringEnhancementFields());
     }
 
     @Test
@@ -166,6 +186,30 @@ public class TagResourceIntTest {
             .andExpect(jsonPath("$.[*].name").value(hasItem(DEFAULT_NAME.toString())));
     }
 
+    @Test
+    @Transactional
+    public void getTagUsage() throws Exception {
+        // Initialize the database
+        tagRepository.saveAndFlush(tag);
+        tagUsageService.evict();
+
+        try {
+            // Get the tag usage
+            restTagMockMvc.perform(get("/api/tags/usage"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+                .andExpect(jsonPath("$.[*].id").value(hasItem(tag.getId().intValue())))
+                .andExpect(jsonPath("$.[*].name").value(hasItem(DEFAULT_NAME)));
+
+            restTagMockMvc.perform(get("/api/tags/usage?limit=0"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$").isEmpty());
+        } finally {
+            // The cached tag usage holds the tag of this transaction, which is rolled back
+            tagUsageService.evict();
+        }
+    }
+
     @Test
     @Transactional
     public void getTag() throws Exception {
@@ -180,6 +224,26 @@ public class TagResourceIntTest {
             .andExpect(jsonPath("$.name").value(DEFAULT_NAME.toString()));
     }
 
+    @Test
+    @Transactional
+    public void getTagNotModified() throws Exception {
+        // Initialize the database
+        tagRepository.saveAndFlush(tag);
+
+        restTagMockMvc.perform(get("/api/tags/{id}", tag.getId())
+            .header(HttpHeaders.IF_NONE_MATCH, EntityTagUtil.entityTag(tag)))
+            .andExpect(status().isNotModified())
+            .andExpect(content().string(""));
+
+        tag.setName(UPDATED_NAME);
+        tagRepository.saveAndFlush(tag);
+        restTagMockMvc.perform(get("/api/tags/{id}", tag.getId())
+            .header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+            .andExpect(jsonPath("$.version").value(1));
+    }
+
     @Test
     @Transactional
     public void getNonExistingTag() throws Exception {
@@ -216,7 +280,7 @@ public class TagResourceIntTest {
 
         // Validate the Tag in Elasticsearch
         Tag tagEs = tagSearchRepository.findOne(testTag.getId());
-        assertThat(tagEs).isEqualToIgnoringGivenFields(testTag);
+        assertThat(tagEs).isEqualToIgnoringGivenFields(testTag, TestUtil.ignoringEnhancementFields());
     }
 
     @Test
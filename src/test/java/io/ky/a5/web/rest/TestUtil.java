@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.hamcrest.Description;
 import org.hamcrest.TypeSafeDiagnosingMatcher;
+import org.hibernate.bytecode.enhance.spi.EnhancerConstants;
 import org.springframework.format.datetime.standard.DateTimeFormatterRegistrar;
 import org.springframework.format.support.DefaultFormattingConversionService;
 import org.springframework.format.support.FormattingConversionService;
@@ -14,6 +15,7 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeParseException;
+import java.util.Arrays;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -122,6 +124,22 @@ public class TestUtil {
         assertThat(domainObject1.hashCode()).isEqualTo(domainObject2.hashCode());
     }
 
+    /**
+     * Fields to ignore when comparing an entity to its copy read from Elasticsearch: the given ones, and the
+     * fields added by the Hibernate bytecode enhancement, which hold the state of the managed entity.
+     */
+    public static String[] ignoringEnhancementFields(String... fields) {
+        String[] enhancementFields = {
+            EnhancerConstants.ENTITY_ENTRY_FIELD_NAME,
+            EnhancerConstants.PREVIOUS_FIELD_NAME,
+            EnhancerConstants.NEXT_FIELD_NAME,
+            EnhancerConstants.INTERCEPTOR_FIELD_NAME
+        };
+        String[] ignoredFields = Arrays.copyOf(fields, fields.length + enhancementFields.length);
+        System.arraycopy(enhancementFields, 0, ignoredFields, fields.length, enhancementFields.length);
+        return ignoredFields;
+    }
+
     /**
      * Create a FormattingConversionService which use ISO date format, instead of the localized one.
      * @return the FormattingConversionService
@@ -1,8 +1,11 @@
 package io.ky.a5.web.rest;
 
 import io.ky.a5.BlogApp;
+import io.ky.a5.config.ApplicationProperties;
+import io.ky.a5.config.metrics.RateLimitingMetricSet;
 import io.ky.a5.domain.User;
 import io.ky.a5.repository.UserRepository;
+import io.ky.a5.security.RateLimiter;
 import io.ky.a5.security.jwt.TokenProvider;
 import io.ky.a5.web.rest.vm.LoginVM;
 import io.ky.a5.web.rest.errors.ExceptionTranslator;
@@ -50,11 +53,14 @@ public class UserJWTControllerIntTest {
     @Autowired
     private ExceptionTranslator exceptionTranslator;
 
+    @Autowired
+    private RateLimiter rateLimiter;
+
     private MockMvc mockMvc;
 
     @Before
     public void setup() {
-        UserJWTController userJWTController = new UserJWTController(tokenProvider, authenticationManager);
+        UserJWTController userJWTController = new UserJWTController(tokenProvider, authenticationManager, rateLimiter);
         this.mockMvc = MockMvcBuilders.standaloneSetup(userJWTController)
             .setControllerAdvice(exceptionTranslator)
             .build();
@@ -122,4 +128,34 @@ public class UserJWTControllerIntTest {
             .andExpect(jsonPath("$.id_token").doesNotExist())
             .andExpect(header().doesNotExist("Authorization"));
     }
+
+    @Test
+    @Transactional
+    public void testAuthorizeIsRateLimitedByLogin() throws Exception {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getRateLimiting().getAuthenticate().setLoginCapacity(2);
+        RateLimiter limiter = new RateLimiter(applicationProperties, new RateLimitingMetricSet());
+        MockMvc limitedMockMvc = MockMvcBuilders
+            .standaloneSetup(new UserJWTController(tokenProvider, authenticationManager, limiter))
+            .setControllerAdvice(exceptionTranslator)
+            .build();
+
+        LoginVM login = new LoginVM();
+        login.setUsername("limited-user");
+        login.setPassword("wrong password");
+        for (int i = 0; i < 2; i++) {
+            limitedMockMvc.perform(post("/api/authenticate")
+                .contentType(TestUtil.APPLICATION_JSON_UTF8)
+                .content(TestUtil.convertObjectToJsonBytes(login)))
+                .andExpect(status().isUnauthorized());
+        }
+        login.setUsername("Limited-User");
+        limitedMockMvc.perform(post("/api/authenticate")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(login)))
+            .andExpect(status().isTooManyRequests())
+            .andExpect(header().string("Retry-After", "30"))
+            .andExpect(jsonPath("$.message").value("error.http.429"))
+            .andExpect(header().doesNotExist("Authorization"));
+    }
 }
@@ -8,9 +8,11 @@ import io.ky.a5.repository.UserRepository;
 import io.ky.a5.repository.search.UserSearchRepository;
 import io.ky.a5.security.AuthoritiesConstants;
 import io.ky.a5.service.MailService;
+import io.ky.a5.service.SearchResultCache;
 import io.ky.a5.service.UserService;
 import io.ky.a5.service.dto.UserDTO;
 import io.ky.a5.service.mapper.UserMapper;
+import io.ky.a5.web.filter.SqlStatisticsFilter;
 import io.ky.a5.web.rest.errors.ExceptionTranslator;
 import io.ky.a5.web.rest.vm.ManagedUserVM;
 import org.apache.commons.lang3.RandomStringUtils;
@@ -78,6 +80,9 @@ public class UserResourceIntTest {
     @Autowired
     private UserSearchRepository userSearchRepository;
 
+    @Autowired
+    private SearchResultCache searchResultCache;
+
     @Autowired
     private MailService mailService;
 
@@ -96,6 +101,9 @@ public class UserResourceIntTest {
     @Autowired
     private ExceptionTranslator exceptionTranslator;
 
+    @Autowired
+    private SqlStatisticsFilter sqlStatisticsFilter;
+
     @Autowired
     private EntityManager em;
 
@@ -111,10 +119,11 @@ public class UserResourceIntTest {
         MockitoAnnotations.initMocks(this);
         cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).clear();
         cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE).clear();
-        UserResource userResource = new UserResource(userRepository, userService, mailService, userSearchRepository);
+        UserResource userResource = new UserResource(userRepository, userService, mailService, userSearchRepository, searchResultCache);
         this.restUserMockMvc = MockMvcBuilders.standaloneSetup(userResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
             .setControllerAdvice(exceptionTranslator)
+            .addFilters(sqlStatisticsFilter)
             .setMessageConverters(jacksonMessageConverter)
             .build();
     }
@@ -0,0 +1,38 @@
+package io.ky.a5.web.rest.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+
+import org.junit.Test;
+
+/**
+ * Test class for the KeysetCursor utility class.
+ *
+ * @see KeysetCursor
+ */
+public class KeysetCursorUnitTest {
+
+    @Test
+    public void testEncodeDecode() {
+        KeysetCursor cursor = new KeysetCursor(Instant.parse("2018-01-06T09:20:53.123456789Z"), 1234L);
+        String token = cursor.encode();
+        assertThat(token).doesNotContain("=", "+", "/", ",", ";");
+        assertThat(KeysetCursor.decode(token)).isEqualTo(cursor);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecodeNotBase64() {
+        KeysetCursor.decode("not a cursor");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecodeMalformed() {
+        KeysetCursor.decode(new KeysetCursor(Instant.EPOCH, 1L).encode().substring(2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecodeEmpty() {
+        KeysetCursor.decode("");
+    }
+}
@@ -2,6 +2,7 @@ package io.ky.a5.web.rest.util;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
@@ -11,6 +12,8 @@ import org.junit.Test;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.HttpHeaders;
 
 /**
@@ -155,4 +158,33 @@ public class PaginationUtilUnitTest {
         assertTrue(xTotalCountHeaders.size() == 1);
         assertTrue(Long.valueOf(xTotalCountHeaders.get(0)).equals(0L));
     }
+
+    @Test
+    public void generateKeysetPaginationHttpHeadersTest() {
+        String baseUrl = "/api/example";
+        List<String> content = new ArrayList<>();
+        Slice<String> slice = new SliceImpl<>(content, new PageRequest(0, 20), true);
+        HttpHeaders headers = PaginationUtil.generateKeysetPaginationHttpHeaders(slice, "abc", null, baseUrl);
+        List<String> strHeaders = headers.get(HttpHeaders.LINK);
+        assertNotNull(strHeaders);
+        assertTrue(strHeaders.size() == 1);
+        String expectedData = "</api/example?after=abc&size=20>; rel=\"next\","
+                + "</api/example?after=&size=20>; rel=\"first\"";
+        assertEquals(expectedData, strHeaders.get(0));
+        assertNull(headers.get("X-Total-Count"));
+    }
+
+    @Test
+    public void generateKeysetPaginationHttpHeadersLastSliceTest() {
+        String baseUrl = "/api/example";
+        List<String> content = new ArrayList<>();
+        Slice<String> slice = new SliceImpl<>(content, new PageRequest(0, 20), false);
+        HttpHeaders headers = PaginationUtil.generateKeysetPaginationHttpHeaders(slice, null, 42L, baseUrl);
+        List<String> strHeaders = headers.get(HttpHeaders.LINK);
+        assertNotNull(strHeaders);
+        assertEquals("</api/example?after=&size=20>; rel=\"first\"", strHeaders.get(0));
+        List<String> xTotalCountHeaders = headers.get("X-Total-Count");
+        assertTrue(xTotalCountHeaders.size() == 1);
+        assertTrue(Long.valueOf(xTotalCountHeaders.get(0)).equals(42L));
+    }
 }
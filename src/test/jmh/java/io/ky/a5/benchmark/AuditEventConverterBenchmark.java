@@ -0,0 +1,41 @@
+package io.ky.a5.benchmark;
+
+import io.ky.a5.config.audit.AuditEventConverter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Benchmark of the conversion of the data of audit events, done for every authentication.
+ */
+@State(Scope.Benchmark)
+public class AuditEventConverterBenchmark {
+
+    private AuditEventConverter auditEventConverter;
+
+    private Map<String, Object> data;
+
+    @Setup
+    public void setup() {
+        auditEventConverter = new AuditEventConverter();
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr("10.0.0.1");
+        data = new HashMap<>();
+        data.put("details", new WebAuthenticationDetails(request));
+        data.put("type", "org.springframework.security.authentication.BadCredentialsException");
+        data.put("message", "Bad credentials");
+        data.put("empty", null);
+    }
+
+    @Benchmark
+    public Map<String, String> convertDataToStrings() {
+        return auditEventConverter.convertDataToStrings(data);
+    }
+}
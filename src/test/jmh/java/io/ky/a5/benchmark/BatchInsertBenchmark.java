@@ -0,0 +1,149 @@
+package io.ky.a5.benchmark;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.dialect.H2Dialect;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.util.function.Function;
+
+/**
+ * Benchmark of the insertion of 500 rows in one transaction, with ids generated by an auto-increment column, as
+ * the entities used to have, and by a pooled sequence, as they have now.
+ * <p>
+ * Hibernate can't batch the inserts of entities with auto-increment ids, as it needs each id right away: the
+ * "identity" benchmarks stay at one round trip per row whatever the batch size. The database is an in-memory H2,
+ * so the gap is much wider over a network.
+ */
+@State(Scope.Benchmark)
+public class BatchInsertBenchmark {
+
+    private static final int ROWS = 500;
+
+    @Param({"1", "25"})
+    public int batchSize;
+
+    private StandardServiceRegistry registry;
+
+    private SessionFactory sessionFactory;
+
+    @Setup
+    public void setup() {
+        registry = new StandardServiceRegistryBuilder()
+            .applySetting(AvailableSettings.DRIVER, "org.h2.Driver")
+            .applySetting(AvailableSettings.URL, "jdbc:h2:mem:batch-insert-benchmark;DB_CLOSE_DELAY=-1")
+            .applySetting(AvailableSettings.USER, "sa")
+            .applySetting(AvailableSettings.DIALECT, H2Dialect.class.getName())
+            .applySetting(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+            .applySetting(AvailableSettings.USE_NEW_ID_GENERATOR_MAPPINGS, "true")
+            .applySetting(AvailableSettings.STATEMENT_BATCH_SIZE, String.valueOf(batchSize))
+            .applySetting(AvailableSettings.ORDER_INSERTS, "true")
+            .build();
+        sessionFactory = new MetadataSources(registry)
+            .addAnnotatedClass(IdentityRow.class)
+            .addAnnotatedClass(SequenceRow.class)
+            .buildMetadata()
+            .buildSessionFactory();
+    }
+
+    @TearDown
+    public void tearDown() {
+        sessionFactory.close();
+        StandardServiceRegistryBuilder.destroy(registry);
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteRows() {
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            session.createQuery("delete from IdentityRow").executeUpdate();
+            session.createQuery("delete from SequenceRow").executeUpdate();
+            session.getTransaction().commit();
+        }
+    }
+
+    @Benchmark
+    public void insertWithIdentity() {
+        insert(IdentityRow::new);
+    }
+
+    @Benchmark
+    public void insertWithPooledSequence() {
+        insert(SequenceRow::new);
+    }
+
+    private void insert(Function<String, Object> rowFactory) {
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            for (int i = 0; i < ROWS; i++) {
+                session.persist(rowFactory.apply("row " + i));
+            }
+            session.getTransaction().commit();
+        }
+    }
+
+    @Entity(name = "IdentityRow")
+    @Table(name = "identity_row")
+    public static class IdentityRow {
+
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        private Long id;
+
+        @Column(name = "name")
+        private String name;
+
+        public IdentityRow() {
+        }
+
+        IdentityRow(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * Mapped like {@link io.ky.a5.domain.Tag}.
+     */
+    @Entity(name = "SequenceRow")
+    @Table(name = "sequence_row")
+    public static class SequenceRow {
+
+        @Id
+        @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceRowGenerator")
+        @GenericGenerator(name = "sequenceRowGenerator", strategy = "enhanced-sequence", parameters = {
+            @Parameter(name = "sequence_name", value = "sequence_row_sequence"),
+            @Parameter(name = "force_table_use", value = "true"),
+            @Parameter(name = "optimizer", value = "pooled-lo"),
+            @Parameter(name = "increment_size", value = "50")
+        })
+        private Long id;
+
+        @Column(name = "name")
+        private String name;
+
+        public SequenceRow() {
+        }
+
+        SequenceRow(String name) {
+            this.name = name;
+        }
+    }
+}
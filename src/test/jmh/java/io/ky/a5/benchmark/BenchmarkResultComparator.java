@@ -0,0 +1,79 @@
+package io.ky.a5.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares the JSON results of a JMH run with a baseline, and fails when a benchmark regressed by more than a
+ * threshold.
+ * <p>
+ * Usage: {@code BenchmarkResultComparator <result.json> <baseline.json> [threshold-percent]}. Nothing is compared
+ * when the baseline does not exist, so the first run can be saved as the baseline.
+ */
+public final class BenchmarkResultComparator {
+
+    private static final double DEFAULT_THRESHOLD_PERCENT = 10;
+
+    private BenchmarkResultComparator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkResultComparator <result.json> <baseline.json> [threshold-percent]");
+            System.exit(2);
+        }
+        File baselineFile = new File(args[1]);
+        if (!baselineFile.isFile()) {
+            System.out.println("No benchmark baseline at " + baselineFile + ", skipping the comparison");
+            return;
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD_PERCENT;
+        Map<String, JsonNode> results = read(new File(args[0]));
+        Map<String, JsonNode> baseline = read(baselineFile);
+
+        int regressions = 0;
+        for (Map.Entry<String, JsonNode> result : results.entrySet()) {
+            JsonNode base = baseline.get(result.getKey());
+            if (base == null) {
+                System.out.printf("%-80s %14s%n", result.getKey(), "new");
+                continue;
+            }
+            double score = result.getValue().path("primaryMetric").path("score").asDouble();
+            double baseScore = base.path("primaryMetric").path("score").asDouble();
+            String unit = result.getValue().path("primaryMetric").path("scoreUnit").asText();
+            // Throughput modes are better when higher, time modes when lower
+            boolean higherIsBetter = "thrpt".equals(result.getValue().path("mode").asText());
+            double change = baseScore == 0 ? 0 : (score - baseScore) * 100 / baseScore;
+            double regression = higherIsBetter ? -change : change;
+            boolean regressed = regression > threshold;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-80s %14.3f %14.3f %-12s %+7.1f%%%s%n", result.getKey(), baseScore, score, unit, change,
+                regressed ? "  REGRESSION" : "");
+        }
+        if (regressions > 0) {
+            System.err.println(regressions + " benchmark(s) regressed by more than " + threshold + "%");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * @return the results of a run, by benchmark name and parameters
+     */
+    private static Map<String, JsonNode> read(File file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText());
+            result.path("params").fields().forEachRemaining(param ->
+                key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText()));
+            results.put(key.toString(), result);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,88 @@
+package io.ky.a5.benchmark;
+
+import io.ky.a5.domain.Blog;
+import io.ky.a5.domain.Entry;
+import io.ky.a5.domain.Tag;
+import io.ky.a5.domain.User;
+import io.ky.a5.security.AuthoritiesConstants;
+import io.ky.a5.service.dto.UserDTO;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+/**
+ * Benchmark of the JSON serialization of the entities and DTOs returned by the REST API, with and without the
+ * Afterburner module registered by {@link io.ky.a5.config.JacksonConfiguration}.
+ */
+@State(Scope.Benchmark)
+public class JacksonSerializationBenchmark {
+
+    @Param({"true", "false"})
+    public boolean afterburner;
+
+    private ObjectMapper objectMapper;
+
+    private Entry entry;
+
+    private UserDTO userDTO;
+
+    @Setup
+    public void setup() {
+        objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        if (afterburner) {
+            objectMapper.registerModule(new AfterburnerModule());
+        }
+
+        User user = new User();
+        user.setId(1L);
+        user.setLogin("benchmark");
+        user.setFirstName("Bench");
+        user.setLastName("Mark");
+        user.setEmail("benchmark@localhost");
+        user.setActivated(true);
+        user.setLangKey("en");
+        user.setCreatedDate(Instant.now());
+        Blog blog = new Blog().name("Benchmark").handle("benchmark").user(user);
+        blog.setId(1L);
+        entry = new Entry()
+            .title("Benchmarking the REST API")
+            .content(String.join(" ", Collections.nCopies(200, "lorem ipsum")))
+            .date(ZonedDateTime.now())
+            .blog(blog);
+        entry.setId(1L);
+        for (long i = 1; i <= 5; i++) {
+            Tag tag = new Tag().name("tag-" + i);
+            tag.setId(i);
+            entry.addTag(tag);
+        }
+
+        userDTO = new UserDTO(user);
+        userDTO.setAuthorities(new HashSet<>(Arrays.asList(AuthoritiesConstants.USER, AuthoritiesConstants.ADMIN)));
+    }
+
+    @Benchmark
+    public byte[] serializeEntry() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(entry);
+    }
+
+    @Benchmark
+    public byte[] serializeUserDTO() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(userDTO);
+    }
+}
@@ -0,0 +1,38 @@
+package io.ky.a5.benchmark;
+
+import io.ky.a5.web.rest.util.PaginationUtil;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmark of the pagination headers, built for every page of every list endpoint.
+ */
+@State(Scope.Benchmark)
+public class PaginationUtilBenchmark {
+
+    private Page<Integer> page;
+
+    @Setup
+    public void setup() {
+        List<Integer> content = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            content.add(i);
+        }
+        page = new PageImpl<>(content, new PageRequest(3, 20), 1000);
+    }
+
+    @Benchmark
+    public HttpHeaders generatePaginationHttpHeaders() {
+        return PaginationUtil.generatePaginationHttpHeaders(page, "/api/entries");
+    }
+}
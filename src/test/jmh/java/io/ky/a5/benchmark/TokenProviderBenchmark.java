@@ -0,0 +1,49 @@
+package io.ky.a5.benchmark;
+
+import io.ky.a5.security.AuthoritiesConstants;
+import io.ky.a5.security.jwt.TokenProvider;
+
+import io.github.jhipster.config.JHipsterProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Arrays;
+
+/**
+ * Benchmark of the creation and verification of JWT tokens, done on login and on every authenticated request.
+ */
+@State(Scope.Benchmark)
+public class TokenProviderBenchmark {
+
+    private TokenProvider tokenProvider;
+
+    private Authentication authentication;
+
+    private String token;
+
+    @Setup
+    public void setup() {
+        JHipsterProperties jHipsterProperties = new JHipsterProperties();
+        jHipsterProperties.getSecurity().getAuthentication().getJwt().setSecret("e5c9ee274ae87bc031adda32e27fa98b9290da83");
+        tokenProvider = new TokenProvider(jHipsterProperties);
+        tokenProvider.init();
+        authentication = new UsernamePasswordAuthenticationToken("benchmark", "benchmark", Arrays.asList(
+            new SimpleGrantedAuthority(AuthoritiesConstants.USER), new SimpleGrantedAuthority(AuthoritiesConstants.ADMIN)));
+        token = tokenProvider.createToken(authentication, false);
+    }
+
+    @Benchmark
+    public String createToken() {
+        return tokenProvider.createToken(authentication, false);
+    }
+
+    @Benchmark
+    public Authentication getAuthentication() {
+        return tokenProvider.getAuthentication(token);
+    }
+}
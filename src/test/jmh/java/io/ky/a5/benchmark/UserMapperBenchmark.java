@@ -0,0 +1,59 @@
+package io.ky.a5.benchmark;
+
+import io.ky.a5.domain.Authority;
+import io.ky.a5.domain.User;
+import io.ky.a5.security.AuthoritiesConstants;
+import io.ky.a5.service.dto.UserDTO;
+import io.ky.a5.service.mapper.UserMapper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.Instant;
+import java.util.HashSet;
+
+/**
+ * Benchmark of the mapping between users and their DTOs, done for every user returned or updated by the API.
+ */
+@State(Scope.Benchmark)
+public class UserMapperBenchmark {
+
+    private UserMapper userMapper;
+
+    private User user;
+
+    private UserDTO userDTO;
+
+    @Setup
+    public void setup() {
+        userMapper = new UserMapper();
+        user = new User();
+        user.setId(1L);
+        user.setLogin("benchmark");
+        user.setFirstName("Bench");
+        user.setLastName("Mark");
+        user.setEmail("benchmark@localhost");
+        user.setActivated(true);
+        user.setLangKey("en");
+        user.setCreatedDate(Instant.now());
+        user.setAuthorities(new HashSet<>());
+        for (String name : new String[] {AuthoritiesConstants.USER, AuthoritiesConstants.ADMIN}) {
+            Authority authority = new Authority();
+            authority.setName(name);
+            user.getAuthorities().add(authority);
+        }
+        userDTO = userMapper.userToUserDTO(user);
+    }
+
+    @Benchmark
+    public UserDTO userToUserDTO() {
+        return userMapper.userToUserDTO(user);
+    }
+
+    @Benchmark
+    public User userDTOToUser() {
+        return userMapper.userDTOToUser(userDTO);
+    }
+}